@@ -36,6 +36,10 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    testOptions {
+        // 本地单元测试中android.util.Log等方法返回默认值，而不是抛出异常
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
@@ -44,6 +48,7 @@ dependencies {
     implementation(libs.androidx.appcompat)
     implementation(libs.material)
     implementation(libs.androidx.constraintlayout)
+    implementation(libs.androidx.recyclerview)
     implementation(libs.mpandroidchart)
     testImplementation(libs.junit)
     androidTestImplementation(libs.androidx.junit)
@@ -0,0 +1,141 @@
+package com.example.firstassignment;
+
+import android.content.Context;
+import android.os.Looper;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 异步数据接口的测试：结果在主线程中返回，界面销毁后不再回调，关闭数据库时等待正在执行的操作
+ */
+@RunWith(AndroidJUnit4.class)
+public class AsyncDataManagerTest {
+    private static final String TEST_DATABASE = "AsyncDataManagerTest.db";
+
+    private Context context;
+    private DataManager dataManager;
+    private LifecycleRegistry lifecycle;
+    private AsyncDataManager asyncDataManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        dataManager = new DataManager(context, TEST_DATABASE, DatabaseHelper.StorageMode.WRITE_AHEAD_LOG);
+        final LifecycleOwner owner = new LifecycleOwner() {
+            @Override
+            public Lifecycle getLifecycle() {
+                return lifecycle;
+            }
+        };
+        // 测试线程不是主线程，使用不检查线程的LifecycleRegistry
+        lifecycle = LifecycleRegistry.createUnsafe(owner);
+        lifecycle.setCurrentState(Lifecycle.State.RESUMED);
+        asyncDataManager = AsyncDataManager.bind(owner, dataManager);
+    }
+
+    @After
+    public void tearDown() {
+        dataManager.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void resultsAndErrorsAreDeliveredOnMainThread() throws Exception {
+        assertTrue(dataManager.addUser(new User("tester", "password", R.drawable.avatar1)));
+
+        final CountDownLatch delivered = new CountDownLatch(2);
+        final AtomicReference<String> username = new AtomicReference<>();
+        final AtomicReference<Exception> error = new AtomicReference<>();
+        final AtomicBoolean onMainThread = new AtomicBoolean(true);
+        Future<User> future = asyncDataManager.submit(dm -> dm.verifyUserLogin("tester", "password"), user -> {
+            onMainThread.compareAndSet(true, Looper.myLooper() == Looper.getMainLooper());
+            username.set(user.getUsername());
+            delivered.countDown();
+        });
+        asyncDataManager.submit(dm -> {
+            throw new IllegalStateException("failed");
+        }, result -> fail("should not succeed"), e -> {
+            onMainThread.compareAndSet(true, Looper.myLooper() == Looper.getMainLooper());
+            error.set(e);
+            delivered.countDown();
+        });
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertTrue(onMainThread.get());
+        assertEquals("tester", username.get());
+        assertEquals("tester", future.get().getUsername());
+        assertTrue(error.get() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void nothingIsDeliveredAfterDestroy() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean called = new AtomicBoolean(false);
+        Future<Boolean> running = asyncDataManager.submit(dm -> {
+            started.countDown();
+            release.await();
+            return dm.isDatabaseEmpty();
+        }, result -> called.set(true), e -> called.set(true));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+        release.countDown();
+        assertTrue(running.isCancelled());
+
+        Future<Boolean> afterDestroy = asyncDataManager.submit(DataManager::isDatabaseEmpty, result -> called.set(true));
+        assertTrue(afterDestroy.isCancelled());
+
+        // 等主线程处理完可能的回调消息
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        Thread.sleep(200);
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        assertFalse(called.get());
+    }
+
+    @Test
+    public void closeWaitsForRunningOperations() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Future<Boolean> running = asyncDataManager.submit(dm -> {
+            dm.getAllUsers();
+            started.countDown();
+            release.await();
+            // 数据库连接在操作结束之前没有被关闭
+            return dm.addUser(new User("late", "password", R.drawable.avatar1));
+        }, null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // 界面销毁后操作仍在执行，关闭要等到操作结束
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+        Thread closer = new Thread(() -> dataManager.close());
+        closer.start();
+        closer.join(300);
+        assertTrue(closer.isAlive());
+
+        release.countDown();
+        closer.join(5000);
+        assertFalse(closer.isAlive());
+        // 操作中的写入已经完成（之后的查询会重新打开数据库）
+        assertTrue(running.isCancelled());
+        assertFalse(dataManager.isUsernameAvailable("late"));
+    }
+}
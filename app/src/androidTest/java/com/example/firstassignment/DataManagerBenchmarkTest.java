@@ -0,0 +1,533 @@
+package com.example.firstassignment;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * DataManager的性能基准测试，结果输出到logcat（TAG为DataManagerBenchmark）
+ */
+@RunWith(AndroidJUnit4.class)
+public class DataManagerBenchmarkTest {
+    private static final String TAG = "DataManagerBenchmark";
+    private static final String TEST_DATABASE = "BenchmarkTest.db";
+
+    private Context context;
+    private DataManager dataManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        dataManager = new DataManager(context, TEST_DATABASE, DatabaseHelper.StorageMode.WRITE_AHEAD_LOG);
+    }
+
+    @After
+    public void tearDown() {
+        dataManager.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void bulkWordImportVersusPerRowInsert() {
+        final int rows = 5000;
+        int initialCount = dataManager.getAllWords().size();
+
+        // 逐行插入：每行一个ContentValues和一次自动提交
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            assertTrue(dataManager.addWord("row" + i, "逐行" + i, "测试", "Example " + i));
+        }
+        long perRowMs = (System.nanoTime() - start) / 1000000;
+
+        // 批量导入：一个事务内复用预编译语句
+        List<Word> words = generateWords("bulk", rows);
+        final int[] progressCalls = {0};
+        start = System.nanoTime();
+        int imported = dataManager.addWords(words, new DataManager.ImportProgressListener() {
+            @Override
+            public void onProgress(int imported, int total) {
+                progressCalls[0]++;
+            }
+        });
+        long bulkMs = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(rows, imported);
+        assertTrue(progressCalls[0] > 0);
+        assertEquals(initialCount + 2 * rows, dataManager.getAllWords().size());
+        Log.i(TAG, "Insert " + rows + " words: per-row " + perRowMs + " ms, bulk " + bulkMs + " ms");
+    }
+
+    @Test
+    public void bulkWordImportOfLargePack() {
+        final int rows = 50000;
+        List<Word> words = generateWords("pack", rows);
+
+        long start = System.nanoTime();
+        int imported = dataManager.addWords(words, null);
+        long bulkMs = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(rows, imported);
+        Log.i(TAG, "Bulk import of " + rows + " words: " + bulkMs + " ms");
+    }
+
+    @Test
+    public void rowDecodingWithMapperVersusPerRowColumnLookup() {
+        final int rows = 100000;
+        assertEquals(rows, dataManager.addWords(generateWords("decode", rows), null));
+        String query = "SELECT * FROM " + DatabaseHelper.TABLE_WORDS;
+
+        // 先完整读一遍，让数据页进入缓存，避免第一轮测量包含磁盘读取
+        decodePerRowLookup(query);
+
+        // 改造前：每一行都调用getColumnIndex查找列索引
+        long start = System.nanoTime();
+        int lookupCount = decodePerRowLookup(query);
+        long lookupMs = (System.nanoTime() - start) / 1000000;
+
+        // 改造后：每个游标只解析一次列索引
+        start = System.nanoTime();
+        int mapperCount = decodeWithMapper(query);
+        long mapperMs = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(lookupCount, mapperCount);
+        assertTrue(mapperCount >= rows);
+        Log.i(TAG, "Decode " + mapperCount + " word rows: per-row getColumnIndex " + lookupMs +
+                " ms, row mapper " + mapperMs + " ms");
+    }
+
+    private int decodePerRowLookup(String query) {
+        List<Word> words = new ArrayList<>();
+        Cursor cursor = dataManager.getDatabase().rawQuery(query, null);
+        try {
+            while (cursor.moveToNext()) {
+                words.add(new Word(cursor.getInt(cursor.getColumnIndex(DatabaseHelper.COLUMN_WORD_ID)),
+                        cursor.getString(cursor.getColumnIndex(DatabaseHelper.COLUMN_WORD)),
+                        cursor.getString(cursor.getColumnIndex(DatabaseHelper.COLUMN_TRANSLATION)),
+                        cursor.getString(cursor.getColumnIndex(DatabaseHelper.COLUMN_CATEGORY)),
+                        cursor.getString(cursor.getColumnIndex(DatabaseHelper.COLUMN_EXAMPLE))));
+            }
+        } finally {
+            cursor.close();
+        }
+        return words.size();
+    }
+
+    private int decodeWithMapper(String query) {
+        Cursor cursor = dataManager.getDatabase().rawQuery(query, null);
+        try {
+            return RowMappers.mapAll(cursor, RowMappers.WORD).size();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void learningRecordScanAllocationsVersusList() {
+        final int rows = 100000;
+        assertTrue(dataManager.addUser(new User("scanner", "password", R.drawable.avatar1)));
+        final int userId = dataManager.getAllUsers().get(0).getId();
+        insertLearningRecords(userId, rows, rows);
+
+        // 预热一次，避免类加载和JIT的分配计入测量
+        dataManager.getUserLearningRecords(userId);
+        System.gc();
+
+        // 改造前：每行创建一个LearningRecord和状态字符串
+        long allocatedBefore = bytesAllocated();
+        long gcBefore = gcCount();
+        long start = System.nanoTime();
+        List<LearningRecord> records = dataManager.getUserLearningRecords(userId);
+        long listMs = (System.nanoTime() - start) / 1000000;
+        long listBytes = bytesAllocated() - allocatedBefore;
+        long listGcs = gcCount() - gcBefore;
+        long listScoreSum = 0;
+        for (LearningRecord record : records) {
+            listScoreSum += record.getScore();
+        }
+        int listCount = records.size();
+        records = null;
+        System.gc();
+
+        // 改造后：逐行回调基本类型字段
+        final long[] scanScoreSum = {0};
+        final int[] mastered = {0};
+        allocatedBefore = bytesAllocated();
+        gcBefore = gcCount();
+        start = System.nanoTime();
+        int scanCount = dataManager.scanUserLearningRecords(userId, new DataManager.LearningRecordVisitor() {
+            @Override
+            public boolean visit(int recordId, int wordId, int score, long timestamp, int statusCode, int reviewCount) {
+                scanScoreSum[0] += score;
+                if (statusCode == LearningRecord.STATUS_CODE_MASTERED) {
+                    mastered[0]++;
+                }
+                return true;
+            }
+        });
+        long scanMs = (System.nanoTime() - start) / 1000000;
+        long scanBytes = bytesAllocated() - allocatedBefore;
+        long scanGcs = gcCount() - gcBefore;
+
+        assertEquals(rows, listCount);
+        assertEquals(rows, scanCount);
+        assertEquals(listScoreSum, scanScoreSum[0]);
+        assertTrue(mastered[0] > 0);
+        Log.i(TAG, "Scan " + rows + " learning records: list " + listMs + " ms, " + listBytes / 1024 + " KB allocated, " +
+                listGcs + " GCs; visitor " + scanMs + " ms, " + scanBytes / 1024 + " KB allocated, " + scanGcs + " GCs");
+    }
+
+    @Test
+    public void fullTextSearchVersusLikeScan() {
+        final int rows = 50000;
+        final int iterations = 20;
+        assertEquals(rows, dataManager.addWords(generateWords("search", rows), null));
+        String[] queries = {"search4242", "翻译4242", "sentence 4242"};
+
+        for (String query : queries) {
+            // 预热
+            List<Word> ftsResults = dataManager.searchWords(query, 100);
+            int likeCount = likeSearch(query);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                ftsResults = dataManager.searchWords(query, 100);
+            }
+            double ftsMs = (System.nanoTime() - start) / 1000000.0 / iterations;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                likeCount = likeSearch(query);
+            }
+            double likeMs = (System.nanoTime() - start) / 1000000.0 / iterations;
+
+            assertFalse(ftsResults.isEmpty());
+            assertTrue(likeCount > 0);
+            Log.i(TAG, "Search \"" + query + "\" in " + rows + " words: FTS " + ftsMs + " ms (" + ftsResults.size() +
+                    " results), LIKE scan " + likeMs + " ms (" + likeCount + " results)");
+        }
+    }
+
+    @Test
+    public void prefixSearchPerKeystroke() {
+        final int rows = 50000;
+        assertEquals(rows, dataManager.addWords(generateWords("prefix", rows), null));
+        // 第一次搜索时建立索引
+        long start = System.nanoTime();
+        dataManager.searchWordsByPrefix("p", 100);
+        double buildMs = (System.nanoTime() - start) / 1000000.0;
+
+        // 模拟逐个字符输入"prefix4242"
+        String typed = "prefix4242";
+        double slowestMs = 0;
+        List<Word> results = null;
+        for (int i = 1; i <= typed.length(); i++) {
+            start = System.nanoTime();
+            results = dataManager.searchWordsByPrefix(typed.substring(0, i), 100);
+            slowestMs = Math.max(slowestMs, (System.nanoTime() - start) / 1000000.0);
+        }
+
+        assertFalse(results.isEmpty());
+        assertTrue(results.get(0).getWord().startsWith(typed));
+        Log.i(TAG, "Prefix search in " + rows + " words: index built in " + buildMs +
+                " ms, slowest keystroke " + slowestMs + " ms");
+    }
+
+    @Test
+    public void similarWordLookup() {
+        final int rows = 50000;
+        final int iterations = 20;
+        assertEquals(rows, dataManager.addWords(generateWords("fuzzy", rows), null));
+        long start = System.nanoTime();
+        dataManager.buildWordIndexes();
+        double buildMs = (System.nanoTime() - start) / 1000000.0;
+
+        // 漏字母、多字母和错字母
+        String[] queries = {"fuzy4242", "fuzzzy4242", "fuzzx4242"};
+        for (String query : queries) {
+            List<Word> results = dataManager.findSimilarWords(query, 5);
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                results = dataManager.findSimilarWords(query, 5);
+            }
+            double lookupMs = (System.nanoTime() - start) / 1000000.0 / iterations;
+
+            assertFalse(results.isEmpty());
+            assertEquals("fuzzy4242", results.get(0).getWord());
+            Log.i(TAG, "Similar words for \"" + query + "\" in " + rows + " words: " + lookupMs +
+                    " ms (index built in " + buildMs + " ms)");
+        }
+    }
+
+    @Test
+    public void translationLookup() {
+        final int rows = 50000;
+        final int iterations = 20;
+        assertEquals(rows, dataManager.addWords(generateWords("reverse", rows), null));
+        String[] queries = {"翻译4242", "翻", "译42"};
+
+        for (String query : queries) {
+            List<Word> results = dataManager.findWordsByTranslation(query, 100);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                results = dataManager.findWordsByTranslation(query, 100);
+            }
+            double lookupMs = (System.nanoTime() - start) / 1000000.0 / iterations;
+
+            assertFalse(results.isEmpty());
+            Log.i(TAG, "Translation lookup \"" + query + "\" in " + rows + " words: " + lookupMs +
+                    " ms (" + results.size() + " results)");
+        }
+    }
+
+    @Test
+    public void dailyStatsFromRollupVersusGroupBy() {
+        final int rows = 100000;
+        final int iterations = 20;
+        assertTrue(dataManager.addUser(new User("stats", "password", R.drawable.avatar1)));
+        final int userId = dataManager.getAllUsers().get(0).getId();
+        // 每分钟一条记录，约70天
+        insertLearningRecords(userId, rows, 1000);
+        long start = System.nanoTime();
+        assertTrue(dataManager.rebuildLearningStats());
+        long rebuildMs = (System.nanoTime() - start) / 1000000;
+
+        // 改造前：每次按日期分组扫描该用户的所有复习历史
+        String groupBy = "SELECT strftime('%Y-%m-%d', " + DatabaseHelper.COLUMN_TIMESTAMP + " / 1000, 'unixepoch', 'localtime') AS day, " +
+                "AVG(" + DatabaseHelper.COLUMN_RECORD_SCORE + ") FROM " + DatabaseHelper.TABLE_REVIEW_HISTORY +
+                " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ? GROUP BY day ORDER BY day";
+        int groupByDays = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Cursor cursor = dataManager.getDatabase().rawQuery(groupBy, new String[]{String.valueOf(userId)});
+            try {
+                groupByDays = cursor.getCount();
+            } finally {
+                cursor.close();
+            }
+        }
+        double groupByMs = (System.nanoTime() - start) / 1000000.0 / iterations;
+
+        // 改造后：每天读取一行汇总
+        int rollupDays = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            rollupDays = dataManager.getUserDailyLearningStats(userId).size();
+        }
+        double rollupMs = (System.nanoTime() - start) / 1000000.0 / iterations;
+
+        assertEquals(groupByDays, rollupDays);
+        Log.i(TAG, "Daily stats over " + rows + " learning records (" + rollupDays + " days): GROUP BY " + groupByMs +
+                " ms, rollup " + rollupMs + " ms (rebuild " + rebuildMs + " ms)");
+    }
+
+    @Test
+    public void statisticsSnapshotVersusSeparateQueries() {
+        final int rows = 100000;
+        final int iterations = 10;
+        assertTrue(dataManager.addUser(new User("snapshot", "password", R.drawable.avatar1)));
+        final int userId = dataManager.getAllUsers().get(0).getId();
+        insertLearningRecords(userId, rows, 1000);
+        assertTrue(dataManager.rebuildLearningStats());
+
+        // 改造前：四个查询，每个都重新扫描该用户的学习记录
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            dataManager.getUserDailyLearningStats(userId);
+            dataManager.getUserWordStatusStats(userId);
+            dataManager.getUserLearnedWordCount(userId);
+            dataManager.getUserAverageLearningScore(userId);
+        }
+        double separateMs = (System.nanoTime() - start) / 1000000.0 / iterations;
+
+        // 改造后：第一次一条查询生成快照，之后没有新记录时直接返回缓存
+        start = System.nanoTime();
+        StatisticsSnapshot snapshot = dataManager.getStatisticsSnapshot(userId);
+        double snapshotMs = (System.nanoTime() - start) / 1000000.0;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertSame(snapshot, dataManager.getStatisticsSnapshot(userId));
+        }
+        double cachedMs = (System.nanoTime() - start) / 1000000.0 / iterations;
+
+        assertEquals(dataManager.getUserLearnedWordCount(userId), snapshot.getLearnedWordCount());
+        Log.i(TAG, "Statistics over " + rows + " learning records: separate queries " + separateMs +
+                " ms, snapshot " + snapshotMs + " ms, cached snapshot " + cachedMs + " ms");
+    }
+
+    private int likeSearch(String query) {
+        String pattern = "%" + query + "%";
+        Cursor cursor = dataManager.getDatabase().rawQuery("SELECT * FROM " + DatabaseHelper.TABLE_WORDS +
+                " WHERE " + DatabaseHelper.COLUMN_WORD + " LIKE ? OR " + DatabaseHelper.COLUMN_TRANSLATION +
+                " LIKE ? OR " + DatabaseHelper.COLUMN_EXAMPLE + " LIKE ? LIMIT 100", new String[]{pattern, pattern, pattern});
+        try {
+            return RowMappers.mapAll(cursor, RowMappers.WORD).size();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void dueQueueFromIndexVersusScan() {
+        final int cards = 100000;
+        final int iterations = 20;
+        final int sessionSize = 50;
+        assertEquals(cards, dataManager.addWords(generateWords("card", cards), null));
+        assertTrue(dataManager.addUser(new User("reviewer", "password", R.drawable.avatar1)));
+        assertTrue(dataManager.addUser(new User("other", "password", R.drawable.avatar1)));
+        List<User> users = dataManager.getAllUsers();
+        final int userId = users.get(0).getId();
+        long now = System.currentTimeMillis();
+        // 每个用户都有10万张卡片，下次复习时间分布在前后30天内，约一半已经到期
+        for (User user : users) {
+            insertScheduledCards(user.getId(), now);
+        }
+
+        // 改造前：没有(user_id, next_due_at)索引时扫描该用户的全部卡片再排序
+        String scan = "SELECT w.* FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS + " r NOT INDEXED CROSS JOIN " +
+                DatabaseHelper.TABLE_WORDS + " w ON w." + DatabaseHelper.COLUMN_WORD_ID + " = r." +
+                DatabaseHelper.COLUMN_RECORD_WORD_ID + " WHERE r." + DatabaseHelper.COLUMN_RECORD_USER_ID +
+                " = ? AND r." + DatabaseHelper.COLUMN_RECORD_NEXT_DUE_AT + " <= ? ORDER BY r." +
+                DatabaseHelper.COLUMN_RECORD_NEXT_DUE_AT + " LIMIT ?";
+        String[] args = {String.valueOf(userId), String.valueOf(now), String.valueOf(sessionSize)};
+        int scanned = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            Cursor cursor = dataManager.getDatabase().rawQuery(scan, args);
+            try {
+                scanned = cursor.getCount();
+            } finally {
+                cursor.close();
+            }
+        }
+        double scanMs = (System.nanoTime() - start) / 1000000.0 / iterations;
+
+        // 改造后：在索引上按到期时间范围读取一个复习会话的卡片
+        List<Word> due = null;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            due = dataManager.getDueWords(userId, now, sessionSize);
+        }
+        double indexMs = (System.nanoTime() - start) / 1000000.0 / iterations;
+
+        assertEquals(sessionSize, due.size());
+        assertEquals(scanned, due.size());
+        int dueCount = dataManager.getDueWordCount(userId, now);
+        assertTrue(dueCount > cards / 3 && dueCount < cards * 2 / 3);
+        Log.i(TAG, "Due queue over " + cards + " cards per user (" + dueCount + " due): scan " + scanMs +
+                " ms, index range " + indexMs + " ms");
+    }
+
+    /**
+     * 为用户的每个单词写入一张已安排复习计划的卡片（学习记录表中的当前状态）
+     */
+    private void insertScheduledCards(int userId, long now) {
+        SQLiteDatabase db = dataManager.getDatabase();
+        SQLiteStatement statement = db.compileStatement("INSERT INTO " + DatabaseHelper.TABLE_LEARNING_RECORDS + "(" +
+                DatabaseHelper.COLUMN_RECORD_USER_ID + ", " + DatabaseHelper.COLUMN_RECORD_WORD_ID + ", " +
+                DatabaseHelper.COLUMN_RECORD_SCORE + ", " + DatabaseHelper.COLUMN_TIMESTAMP + ", " +
+                DatabaseHelper.COLUMN_RECORD_STATUS + ", " + DatabaseHelper.COLUMN_RECORD_REVIEW_COUNT + ", " +
+                DatabaseHelper.COLUMN_RECORD_INTERVAL_DAYS + ", " + DatabaseHelper.COLUMN_RECORD_NEXT_DUE_AT +
+                ") SELECT ?, " + DatabaseHelper.COLUMN_WORD_ID + ", 80, ?, ?, 1, ?, ? + (" +
+                DatabaseHelper.COLUMN_WORD_ID + " * 7919 % 60 - 30) * ? FROM " + DatabaseHelper.TABLE_WORDS);
+        db.beginTransaction();
+        try {
+            statement.bindLong(1, userId);
+            statement.bindLong(2, now);
+            statement.bindString(3, LearningRecord.STATUS_MASTERED);
+            statement.bindLong(4, 6);
+            statement.bindLong(5, now);
+            statement.bindLong(6, ReviewSchedule.DAY_MS);
+            statement.executeInsert();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+    }
+
+    /**
+     * 写入count次评分（每分钟一次，依次循环wordCount个单词）：全部追加到复习历史，每个单词最新的一次作为当前学习状态
+     */
+    private void insertLearningRecords(int userId, int count, int wordCount) {
+        String[] statuses = {LearningRecord.STATUS_MASTERED, LearningRecord.STATUS_LEARNING, LearningRecord.STATUS_REVIEW};
+        SQLiteDatabase db = dataManager.getDatabase();
+        SQLiteStatement history = db.compileStatement("INSERT INTO " + DatabaseHelper.TABLE_REVIEW_HISTORY + "(" +
+                DatabaseHelper.COLUMN_RECORD_USER_ID + ", " + DatabaseHelper.COLUMN_RECORD_WORD_ID + ", " +
+                DatabaseHelper.COLUMN_RECORD_SCORE + ", " + DatabaseHelper.COLUMN_TIMESTAMP + ", " +
+                DatabaseHelper.COLUMN_RECORD_STATUS + ") VALUES (?, ?, ?, ?, ?)");
+        SQLiteStatement current = db.compileStatement("INSERT INTO " + DatabaseHelper.TABLE_LEARNING_RECORDS + "(" +
+                DatabaseHelper.COLUMN_RECORD_USER_ID + ", " + DatabaseHelper.COLUMN_RECORD_WORD_ID + ", " +
+                DatabaseHelper.COLUMN_RECORD_SCORE + ", " + DatabaseHelper.COLUMN_TIMESTAMP + ", " +
+                DatabaseHelper.COLUMN_RECORD_STATUS + ", " + DatabaseHelper.COLUMN_RECORD_REVIEW_COUNT +
+                ") VALUES (?, ?, ?, ?, ?, ?)");
+        long now = System.currentTimeMillis();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < count; i++) {
+                int wordId = i % wordCount + 1;
+                long timestamp = now - i * 60000L;
+                String status = statuses[i % statuses.length];
+                bindReview(history, userId, wordId, i % 101, timestamp, status);
+                history.executeInsert();
+                // 时间倒序写入，每个单词第一次出现的评分就是最新的
+                if (i < wordCount) {
+                    bindReview(current, userId, wordId, i % 101, timestamp, status);
+                    current.bindLong(6, (count - i + wordCount - 1) / wordCount);
+                    current.executeInsert();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            history.close();
+            current.close();
+        }
+    }
+
+    private static void bindReview(SQLiteStatement statement, int userId, int wordId, int score, long timestamp,
+                                   String status) {
+        statement.bindLong(1, userId);
+        statement.bindLong(2, wordId);
+        statement.bindLong(3, score);
+        statement.bindLong(4, timestamp);
+        statement.bindString(5, status);
+    }
+
+    private static long bytesAllocated() {
+        return parseRuntimeStat("art.gc.bytes-allocated");
+    }
+
+    private static long gcCount() {
+        return parseRuntimeStat("art.gc.gc-count");
+    }
+
+    private static long parseRuntimeStat(String name) {
+        String value = Debug.getRuntimeStat(name);
+        return value != null ? Long.parseLong(value) : 0;
+    }
+
+    static List<Word> generateWords(String prefix, int count) {
+        List<Word> words = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            words.add(new Word(prefix + i, "翻译" + i, "测试", "This is example sentence " + i + "."));
+        }
+        return words;
+    }
+}
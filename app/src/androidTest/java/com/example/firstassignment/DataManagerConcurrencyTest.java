@@ -0,0 +1,196 @@
+package com.example.firstassignment;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 多线程并发访问DataManager的测试，验证WAL模式下读写可以并发且数据不丢失
+ */
+@RunWith(AndroidJUnit4.class)
+public class DataManagerConcurrencyTest {
+    private static final String TEST_DATABASE = "ConcurrencyTest.db";
+    private static final String ROLLBACK_DATABASE = "ConcurrencyRollbackTest.db";
+    private static final int WRITER_THREADS = 4;
+    private static final int READER_THREADS = 4;
+    private static final int WRITES_PER_THREAD = 200;
+
+    private Context context;
+    private DataManager dataManager;
+    private int userId;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        context.deleteDatabase(ROLLBACK_DATABASE);
+        // 不指定存储模式，使用与应用相同的默认配置
+        dataManager = new DataManager(context, TEST_DATABASE);
+        assertTrue(dataManager.addUser(new User("tester", "password", R.drawable.avatar1)));
+        userId = dataManager.getAllUsers().get(0).getId();
+    }
+
+    @After
+    public void tearDown() {
+        dataManager.close();
+        context.deleteDatabase(TEST_DATABASE);
+        context.deleteDatabase(ROLLBACK_DATABASE);
+    }
+
+    @Test
+    public void usesWriteAheadLogByDefault() {
+        // 检查SQLite实际使用的日志模式，而不是配置的枚举值
+        assertEquals("wal", journalMode(dataManager.getDatabase()));
+
+        DataManager rollback = new DataManager(context, ROLLBACK_DATABASE,
+                DatabaseHelper.StorageMode.ROLLBACK_JOURNAL);
+        try {
+            assertNotEquals("wal", journalMode(rollback.getDatabase()));
+        } finally {
+            rollback.close();
+        }
+    }
+
+    @Test
+    public void readerProceedsWhileWriteTransactionIsOpen() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch finishWrite = new CountDownLatch(1);
+        try {
+            // 写线程：开启写事务并写入一条消息，等读操作完成后才结束事务
+            Future<Boolean> writer = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    SQLiteDatabase db = dataManager.getDatabase();
+                    db.beginTransactionNonExclusive();
+                    try {
+                        ContentValues values = new ContentValues();
+                        values.put(DatabaseHelper.COLUMN_CONTENT, "uncommitted");
+                        values.put(DatabaseHelper.COLUMN_SENDER_TYPE, Message.SENDER_USER);
+                        values.put(DatabaseHelper.COLUMN_TIMESTAMP, System.currentTimeMillis());
+                        values.put(DatabaseHelper.COLUMN_USER_ID_FK, userId);
+                        db.insertOrThrow(DatabaseHelper.TABLE_MESSAGES, null, values);
+                        writing.countDown();
+                        boolean readFinished = finishWrite.await(30, TimeUnit.SECONDS);
+                        db.setTransactionSuccessful();
+                        return readFinished;
+                    } finally {
+                        db.endTransaction();
+                    }
+                }
+            });
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+            // 读线程：写事务仍未结束时读取，不能被阻塞，也看不到未提交的消息
+            Future<List<Message>> reader = executor.submit(new Callable<List<Message>>() {
+                @Override
+                public List<Message> call() {
+                    return dataManager.getAllMessages(userId);
+                }
+            });
+            List<Message> messages = reader.get(5, TimeUnit.SECONDS);
+            assertTrue(messages.isEmpty());
+
+            finishWrite.countDown();
+            assertTrue(writer.get(5, TimeUnit.SECONDS));
+            assertEquals(1, dataManager.getAllMessages(userId).size());
+        } finally {
+            // 读操作超时失败时也要结束写事务
+            finishWrite.countDown();
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void concurrentReadsAndWritesDoNotLoseData() throws Exception {
+        final List<Word> words = dataManager.getAllWords();
+        assertFalse(words.isEmpty());
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITER_THREADS + READER_THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+
+        // 写线程：交替写入学习记录和聊天消息
+        for (int t = 0; t < WRITER_THREADS; t++) {
+            final int threadIndex = t;
+            futures.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    start.await();
+                    boolean allSucceeded = true;
+                    for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                        Word word = words.get((threadIndex + i) % words.size());
+                        allSucceeded &= dataManager.addLearningRecord(
+                                new LearningRecord(userId, word.getId(), i % 101, "学习中"));
+                        allSucceeded &= dataManager.addMessage("message " + threadIndex + "-" + i,
+                                Message.SENDER_USER, userId);
+                    }
+                    return allSucceeded;
+                }
+            }));
+        }
+
+        // 读线程：反复执行统计、单词列表和聊天记录查询
+        for (int t = 0; t < READER_THREADS; t++) {
+            futures.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    start.await();
+                    for (int i = 0; i < WRITES_PER_THREAD / 4; i++) {
+                        dataManager.getUserDailyLearningStats(userId);
+                        dataManager.getUserWordStatusStats(userId);
+                        dataManager.getUserLearnedWordCount(userId);
+                        dataManager.getUserAverageLearningScore(userId);
+                        if (dataManager.getAllWords().size() != words.size()) {
+                            return false;
+                        }
+                        dataManager.getAllMessages(userId);
+                    }
+                    return true;
+                }
+            }));
+        }
+
+        start.countDown();
+        for (Future<Boolean> future : futures) {
+            assertTrue(future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        int expected = WRITER_THREADS * WRITES_PER_THREAD;
+        assertEquals(expected, dataManager.getUserReviewHistory(userId).size());
+        assertEquals(expected, dataManager.getAllMessages(userId).size());
+    }
+
+    private static String journalMode(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("PRAGMA journal_mode", null);
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getString(0).toLowerCase(Locale.ROOT);
+        } finally {
+            cursor.close();
+        }
+    }
+}
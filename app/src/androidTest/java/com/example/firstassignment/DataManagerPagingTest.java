@@ -0,0 +1,152 @@
+package com.example.firstassignment;
+
+import android.content.ContentValues;
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 键集分页查询的测试，验证逐页读取的结果与一次性读取的结果一致
+ */
+@RunWith(AndroidJUnit4.class)
+public class DataManagerPagingTest {
+    private static final String TEST_DATABASE = "PagingTest.db";
+    private static final int PAGE_SIZE = 7;
+
+    private Context context;
+    private DataManager dataManager;
+    private int userId;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        dataManager = new DataManager(context, TEST_DATABASE, DatabaseHelper.StorageMode.WRITE_AHEAD_LOG);
+        assertTrue(dataManager.addUser(new User("tester", "password", R.drawable.avatar1)));
+        userId = dataManager.getAllUsers().get(0).getId();
+    }
+
+    @After
+    public void tearDown() {
+        dataManager.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void wordPagesCoverAllWordsInOrder() {
+        dataManager.addWords(DataManagerBenchmarkTest.generateWords("page", 100), null);
+        List<Word> expected = dataManager.getAllWords();
+
+        List<Word> paged = new ArrayList<>();
+        int afterId = 0;
+        List<Word> page;
+        do {
+            page = dataManager.getWordsPage(afterId, PAGE_SIZE);
+            assertTrue(page.size() <= PAGE_SIZE);
+            paged.addAll(page);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        assertEquals(expected.size(), paged.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), paged.get(i).getId());
+        }
+    }
+
+    @Test
+    public void messagePagesHandleDuplicateTimestamps() {
+        // 每3条消息使用同一个时间戳
+        final int count = 50;
+        for (int i = 0; i < count; i++) {
+            ContentValues values = new ContentValues();
+            values.put(DatabaseHelper.COLUMN_CONTENT, "message " + i);
+            values.put(DatabaseHelper.COLUMN_SENDER_TYPE, Message.SENDER_USER);
+            values.put(DatabaseHelper.COLUMN_TIMESTAMP, 1000L + i / 3);
+            values.put(DatabaseHelper.COLUMN_USER_ID_FK, userId);
+            assertTrue(dataManager.getDatabase().insert(DatabaseHelper.TABLE_MESSAGES, null, values) != -1);
+        }
+
+        // 从最新一页开始向前翻页，把每页插入到开头，得到完整的聊天记录
+        List<Message> paged = new ArrayList<>();
+        long beforeTimestamp = Long.MAX_VALUE;
+        int beforeId = Integer.MAX_VALUE;
+        List<Message> page;
+        do {
+            page = dataManager.getMessagesPage(userId, beforeTimestamp, beforeId, PAGE_SIZE);
+            paged.addAll(0, page);
+            if (!page.isEmpty()) {
+                beforeTimestamp = page.get(0).getTimestamp();
+                beforeId = page.get(0).getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        assertEquals(count, paged.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("message " + i, paged.get(i).getContent());
+        }
+    }
+
+    @Test
+    public void usernamePrefixSearchPagesIgnoreCase() {
+        // 大小写不同的用户名也要按前缀找到，其他前缀的用户不在结果中
+        final int count = 30;
+        for (int i = 0; i < count; i++) {
+            String username = (i % 2 == 0 ? "Student" : "student") + String.format("%02d", i);
+            assertTrue(dataManager.addUser(new User(username, "password", R.drawable.avatar1)));
+        }
+        assertTrue(dataManager.addUser(new User("teacher", "password", R.drawable.avatar1)));
+
+        List<User> paged = new ArrayList<>();
+        List<User> page;
+        do {
+            page = dataManager.searchUsersByPrefix("STU", PAGE_SIZE, paged.size());
+            paged.addAll(page);
+        } while (page.size() == PAGE_SIZE);
+
+        assertEquals(count, paged.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(String.format("%02d", i), paged.get(i).getUsername().substring("student".length()));
+        }
+        assertEquals(1, dataManager.searchUsersByPrefix("te", PAGE_SIZE, 0).size());
+        assertTrue(dataManager.searchUsersByPrefix("x", PAGE_SIZE, 0).isEmpty());
+    }
+
+    @Test
+    public void usernameTakenIgnoresExcludedUser() {
+        assertTrue(dataManager.isUsernameTaken("tester", -1));
+        assertFalse(dataManager.isUsernameTaken("tester", userId));
+        assertFalse(dataManager.isUsernameTaken("nobody", -1));
+    }
+
+    @Test
+    public void usernameAvailabilityFollowsUserChanges() {
+        assertFalse(dataManager.isUsernameAvailable("tester"));
+        assertTrue(dataManager.isUsernameAvailable("newcomer"));
+        // 用户名区分大小写，与唯一约束一致
+        assertTrue(dataManager.isUsernameAvailable("Tester"));
+
+        assertTrue(dataManager.addUser(new User("newcomer", "password", R.drawable.avatar1)));
+        assertFalse(dataManager.isUsernameAvailable("newcomer"));
+
+        // 修改用户名后新用户名被占用，旧用户名可以再次使用
+        assertTrue(dataManager.updateUser(new User(userId, "renamed", "password", R.drawable.avatar1)));
+        assertFalse(dataManager.isUsernameAvailable("renamed"));
+        assertTrue(dataManager.isUsernameAvailable("tester"));
+
+        assertTrue(dataManager.deleteUser(userId));
+        assertTrue(dataManager.isUsernameAvailable("renamed"));
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.firstassignment;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * 数据库迁移测试：从每一个历史版本升级到当前版本，检查数据没有丢失、派生数据已按当前代码重建，
+ * 并且升级后的表结构与全新安装的表结构一致
+ *
+ * 历史版本的数据库用冻结的SQL（{@link #HISTORICAL_SCHEMA}，各版本发布时实际执行的语句）构造，
+ * 而不是用当前的迁移代码，这样修改迁移步骤或辅助方法时测试能发现旧版本的升级结果发生了变化。
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseMigrationTest {
+    private static final String TEST_DATABASE = "MigrationTest.db";
+    private static final String FRESH_DATABASE = "MigrationFreshTest.db";
+    // 学习记录的时间和得分
+    private static final long REVIEWED_AT = 1000L;
+    private static final int SCORE = 80;
+
+    /**
+     * 历史版本的表结构：第0项创建版本1，第i项把版本i升级到版本i+1。
+     * 这些是对应版本发布时执行的SQL的副本，不要随当前代码修改；数据由createDatabaseAtVersion按版本写入
+     */
+    private static final String[][] HISTORICAL_SCHEMA = {
+            // 版本1
+            {
+                    "CREATE TABLE users(_id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT UNIQUE NOT NULL, " +
+                            "password TEXT NOT NULL, avatar_resource INTEGER NOT NULL);",
+                    "CREATE TABLE words(_id INTEGER PRIMARY KEY AUTOINCREMENT, word TEXT NOT NULL, " +
+                            "translation TEXT NOT NULL, category TEXT NOT NULL, example TEXT NOT NULL);",
+                    "CREATE TABLE messages(_id INTEGER PRIMARY KEY AUTOINCREMENT, content TEXT NOT NULL, " +
+                            "sender_type INTEGER NOT NULL, timestamp INTEGER NOT NULL, user_id INTEGER, " +
+                            "FOREIGN KEY(user_id) REFERENCES users(_id));",
+                    "CREATE TABLE learning_records(_id INTEGER PRIMARY KEY AUTOINCREMENT, user_id INTEGER NOT NULL, " +
+                            "word_id INTEGER NOT NULL, score INTEGER NOT NULL, timestamp INTEGER NOT NULL, " +
+                            "status TEXT NOT NULL, review_count INTEGER NOT NULL, " +
+                            "FOREIGN KEY(user_id) REFERENCES users(_id), FOREIGN KEY(word_id) REFERENCES words(_id));"
+            },
+            // 版本1 -> 2
+            {
+                    "CREATE INDEX IF NOT EXISTS idx_learning_records_user_word_time ON " +
+                            "learning_records(user_id, word_id, timestamp)",
+                    "CREATE INDEX IF NOT EXISTS idx_learning_records_user_time ON learning_records(user_id, timestamp)",
+                    "CREATE INDEX IF NOT EXISTS idx_messages_user_time ON messages(user_id, timestamp)"
+            },
+            // 版本2 -> 3
+            {
+                    "CREATE INDEX IF NOT EXISTS idx_words_word ON words(word)",
+                    "CREATE TABLE IF NOT EXISTS import_progress(source TEXT PRIMARY KEY, " +
+                            "records_consumed INTEGER NOT NULL, inserted INTEGER NOT NULL, " +
+                            "completed INTEGER NOT NULL, updated_at INTEGER NOT NULL)"
+            },
+            // 版本3 -> 4
+            {
+                    "CREATE TABLE IF NOT EXISTS app_metadata(key TEXT PRIMARY KEY, value TEXT)"
+            },
+            // 版本4 -> 5
+            {
+                    "CREATE VIRTUAL TABLE IF NOT EXISTS words_fts USING fts4(word, translation, example)"
+            },
+            // 版本5 -> 6
+            {
+                    "CREATE INDEX IF NOT EXISTS idx_users_username_nocase ON users(username COLLATE NOCASE)"
+            },
+            // 版本6 -> 7
+            {
+                    "CREATE TABLE IF NOT EXISTS daily_learning_stats(user_id INTEGER NOT NULL, day TEXT NOT NULL, " +
+                            "record_count INTEGER NOT NULL, score_sum INTEGER NOT NULL, min_score INTEGER NOT NULL, " +
+                            "max_score INTEGER NOT NULL, PRIMARY KEY(user_id, day))"
+            },
+            // 版本7 -> 8
+            {
+                    "CREATE TABLE IF NOT EXISTS weekly_learning_stats(user_id INTEGER NOT NULL, day TEXT NOT NULL, " +
+                            "record_count INTEGER NOT NULL, score_sum INTEGER NOT NULL, min_score INTEGER NOT NULL, " +
+                            "max_score INTEGER NOT NULL, PRIMARY KEY(user_id, day))",
+                    "CREATE TABLE IF NOT EXISTS monthly_learning_stats(user_id INTEGER NOT NULL, day TEXT NOT NULL, " +
+                            "record_count INTEGER NOT NULL, score_sum INTEGER NOT NULL, min_score INTEGER NOT NULL, " +
+                            "max_score INTEGER NOT NULL, PRIMARY KEY(user_id, day))"
+            },
+            // 版本8 -> 9
+            {
+                    "CREATE TABLE review_history(_id INTEGER PRIMARY KEY AUTOINCREMENT, user_id INTEGER NOT NULL, " +
+                            "word_id INTEGER NOT NULL, score INTEGER NOT NULL, status TEXT NOT NULL, " +
+                            "timestamp INTEGER NOT NULL, FOREIGN KEY(user_id) REFERENCES users(_id), " +
+                            "FOREIGN KEY(word_id) REFERENCES words(_id))",
+                    "CREATE INDEX idx_review_history_user_word_time ON review_history(user_id, word_id, timestamp)",
+                    "CREATE INDEX idx_review_history_user_time ON review_history(user_id, timestamp)",
+                    "DROP INDEX IF EXISTS idx_learning_records_user_word_time",
+                    "CREATE UNIQUE INDEX idx_learning_records_user_word ON learning_records(user_id, word_id)"
+            }
+    };
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        context.deleteDatabase(FRESH_DATABASE);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(TEST_DATABASE);
+        context.deleteDatabase(FRESH_DATABASE);
+    }
+
+    @Test
+    public void historicalSchemaCoversEveryVersion() {
+        assertEquals(DatabaseHelper.DATABASE_VERSION - DatabaseHelper.BASE_VERSION, HISTORICAL_SCHEMA.length);
+    }
+
+    @Test
+    public void upgradeFromEveryHistoricalVersionKeepsData() {
+        List<String> freshSchema = readFreshSchema();
+
+        for (int version = DatabaseHelper.BASE_VERSION; version < DatabaseHelper.DATABASE_VERSION; version++) {
+            context.deleteDatabase(TEST_DATABASE);
+            createDatabaseAtVersion(version);
+
+            DatabaseHelper helper = new DatabaseHelper(context, TEST_DATABASE,
+                    DatabaseHelper.StorageMode.WRITE_AHEAD_LOG);
+            SQLiteDatabase db = helper.getWritableDatabase();
+            try {
+                assertEquals(DatabaseHelper.DATABASE_VERSION, db.getVersion());
+                assertEquals("users lost when upgrading from version " + version,
+                        1, count(db, DatabaseHelper.TABLE_USERS));
+                assertEquals("messages lost when upgrading from version " + version,
+                        1, count(db, DatabaseHelper.TABLE_MESSAGES));
+                assertEquals("learning records lost when upgrading from version " + version,
+                        1, count(db, DatabaseHelper.TABLE_LEARNING_RECORDS));
+                assertEquals("review history missing when upgrading from version " + version,
+                        1, count(db, DatabaseHelper.TABLE_REVIEW_HISTORY));
+
+                // 派生数据：全文索引、各粒度的统计汇总和复习计划
+                assertEquals("search index incomplete when upgrading from version " + version,
+                        count(db, DatabaseHelper.TABLE_WORDS), count(db, DatabaseHelper.TABLE_WORDS_FTS));
+                assertEquals("search index not rebuilt when upgrading from version " + version, 1,
+                        queryLong(db, "SELECT COUNT(*) FROM words_fts WHERE words_fts MATCH 'apple'"));
+                for (StatsResolution resolution : StatsResolution.values()) {
+                    assertEquals(resolution + " stats not rebuilt when upgrading from version " + version, SCORE,
+                            queryLong(db, "SELECT SUM(score_sum) FROM " + resolution.getTableName() +
+                                    " WHERE user_id = 1"));
+                }
+                assertEquals("review schedule not rebuilt when upgrading from version " + version,
+                        REVIEWED_AT + ReviewSchedule.DAY_MS,
+                        queryLong(db, "SELECT next_due_at FROM learning_records WHERE user_id = 1 AND word_id = 1"));
+                assertEquals("rebuild marks left when upgrading from version " + version, 0,
+                        queryLong(db, "SELECT COUNT(*) FROM app_metadata WHERE key LIKE 'rebuild_%'"));
+                assertEquals("schema differs from a fresh install when upgrading from version " + version,
+                        freshSchema, readSchema(db));
+            } finally {
+                helper.close();
+            }
+        }
+    }
+
+    @Test
+    public void freshInstallHasHotQueryIndexes() {
+        List<String> schema = readFreshSchema();
+        assertTrue(containsName(schema, "idx_learning_records_user_word"));
+        assertTrue(containsName(schema, "idx_review_history_user_word_time"));
+        assertTrue(containsName(schema, "idx_review_history_user_time"));
+        assertTrue(containsName(schema, "idx_learning_records_user_due"));
+        assertTrue(containsName(schema, "idx_learning_records_user_time"));
+        assertTrue(containsName(schema, "idx_messages_user_time"));
+    }
+
+    /**
+     * 用冻结的SQL构造一个指定历史版本的数据库，并写入这个版本的应用会写入的数据
+     */
+    private void createDatabaseAtVersion(int version) {
+        File file = context.getDatabasePath(TEST_DATABASE);
+        file.getParentFile().mkdirs();
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(file, null);
+        try {
+            for (int step = 0; step < version; step++) {
+                for (String sql : HISTORICAL_SCHEMA[step]) {
+                    db.execSQL(sql);
+                }
+            }
+            db.setVersion(version);
+
+            db.execSQL("INSERT INTO words(word, translation, category, example) VALUES " +
+                    "('apple', '苹果', '水果', 'An apple a day keeps the doctor away.'), " +
+                    "('cat', '猫', '动物', 'The cat is sleeping on the sofa.')");
+            db.execSQL("INSERT INTO users(username, password, avatar_resource) VALUES ('user', 'password', 0)");
+            db.execSQL("INSERT INTO messages(content, sender_type, timestamp, user_id) VALUES ('hello', 1, 1000, 1)");
+            db.execSQL("INSERT INTO learning_records(user_id, word_id, score, timestamp, status, review_count) " +
+                    "VALUES (1, 1, ?, ?, '已掌握', 1)", new Object[]{SCORE, REVIEWED_AT});
+            if (version >= 5) {
+                // 版本5起单词表的增删改同步写入全文索引（汉字拆成单字和相邻两字）
+                db.execSQL("INSERT INTO words_fts(docid, word, translation, example) VALUES " +
+                        "(1, 'apple', '苹 果 苹果', 'An apple a day keeps the doctor away.'), " +
+                        "(2, 'cat', '猫', 'The cat is sleeping on the sofa.')");
+            }
+            if (version >= 7) {
+                // 版本7起评分同时累加到统计汇总，并记录汇总时使用的时区
+                insertStats(db, StatsResolution.DAY);
+                if (version >= 8) {
+                    insertStats(db, StatsResolution.WEEK);
+                    insertStats(db, StatsResolution.MONTH);
+                }
+                db.execSQL("INSERT INTO app_metadata(key, value) VALUES ('daily_stats_time_zone', ?)",
+                        new Object[]{TimeZone.getDefault().getID()});
+            }
+            if (version >= 9) {
+                // 版本9起每次评分追加到复习历史
+                db.execSQL("INSERT INTO review_history(user_id, word_id, score, status, timestamp) " +
+                        "VALUES (1, 1, ?, '已掌握', ?)", new Object[]{SCORE, REVIEWED_AT});
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    private static void insertStats(SQLiteDatabase db, StatsResolution resolution) {
+        db.execSQL("INSERT INTO " + resolution.getTableName() + "(user_id, day, record_count, score_sum, " +
+                        "min_score, max_score) VALUES (1, ?, 1, ?, ?, ?)",
+                new Object[]{resolution.periodKey(REVIEWED_AT), SCORE, SCORE, SCORE});
+    }
+
+    private List<String> readFreshSchema() {
+        DatabaseHelper helper = new DatabaseHelper(context, FRESH_DATABASE,
+                DatabaseHelper.StorageMode.WRITE_AHEAD_LOG);
+        try {
+            return readSchema(helper.getWritableDatabase());
+        } finally {
+            helper.close();
+        }
+    }
+
+    private static List<String> readSchema(SQLiteDatabase db) {
+        List<String> schema = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT type, name, sql FROM sqlite_master " +
+                "WHERE name NOT LIKE 'sqlite_%' AND name != 'android_metadata' ORDER BY type, name", null);
+        try {
+            while (cursor.moveToNext()) {
+                schema.add(cursor.getString(0) + " " + cursor.getString(1) + ": " + cursor.getString(2));
+            }
+        } finally {
+            cursor.close();
+        }
+        return schema;
+    }
+
+    private static boolean containsName(List<String> schema, String name) {
+        for (String entry : schema) {
+            if (entry.contains(" " + name + ":")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long queryLong(SQLiteDatabase db, String sql) {
+        Cursor cursor = db.rawQuery(sql, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static int count(SQLiteDatabase db, String table) {
+        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + table, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.firstassignment;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 预置词典更新的测试：已有数据库中的单词ID与预置词典不一致时，学习记录和复习历史仍指向原来的单词
+ */
+@RunWith(AndroidJUnit4.class)
+public class DictionaryAssetInstallerTest {
+    private static final String TEST_DATABASE = "DictionaryAssetInstallerTest.db";
+
+    private Context context;
+    private DataManager dataManager;
+    private File dictionaryFile;
+    private int userId;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        dictionaryFile = new File(context.getCacheDir(), "test_dictionary.db");
+        dictionaryFile.delete();
+        // onCreate写入的示例单词按插入顺序分配ID，没有记录词典版本（版本0）
+        dataManager = new DataManager(context, TEST_DATABASE, DatabaseHelper.StorageMode.WRITE_AHEAD_LOG);
+        assertTrue(dataManager.addUser(new User("tester", "password", R.drawable.avatar1)));
+        userId = dataManager.getAllUsers().get(0).getId();
+    }
+
+    @After
+    public void tearDown() {
+        dataManager.close();
+        context.deleteDatabase(TEST_DATABASE);
+        dictionaryFile.delete();
+    }
+
+    @Test
+    public void upgradeKeepsLearningRecordsOnTheSameWords() {
+        Map<Integer, String> englishById = new HashMap<>();
+        for (Word word : dataManager.getAllWords()) {
+            englishById.put(word.getId(), word.getWord());
+        }
+        int appleId = findId(englishById, "apple");
+        int catId = findId(englishById, "cat");
+        int workId = findId(englishById, "work");
+        assertTrue(dataManager.recordReview(userId, appleId, 90));
+        assertTrue(dataManager.recordReview(userId, catId, 40));
+        assertTrue(dataManager.recordReview(userId, workId, 70));
+        assertTrue(dataManager.recordReview(userId, workId, 80));
+
+        // 新词典：顺序与示例单词相反（ID不同），去掉了banana和cat，增加了zebra，更新了work的例句
+        SQLiteDatabase dictionary = SQLiteDatabase.openOrCreateDatabase(dictionaryFile, null);
+        try {
+            dictionary.execSQL("CREATE TABLE " + DatabaseHelper.TABLE_WORDS + "(" +
+                    DatabaseHelper.COLUMN_WORD_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    DatabaseHelper.COLUMN_WORD + " TEXT NOT NULL, " +
+                    DatabaseHelper.COLUMN_TRANSLATION + " TEXT NOT NULL, " +
+                    DatabaseHelper.COLUMN_CATEGORY + " TEXT NOT NULL, " +
+                    DatabaseHelper.COLUMN_EXAMPLE + " TEXT NOT NULL)");
+            insert(dictionary, "zebra", "斑马", "动物", "The zebra has black and white stripes.");
+            List<Word> words = dataManager.getAllWords();
+            Collections.reverse(words);
+            for (Word word : words) {
+                if (word.getWord().equals("banana") || word.getWord().equals("cat")) {
+                    continue;
+                }
+                String example = word.getWord().equals("work") ? "Work smarter, not harder." : word.getExample();
+                insert(dictionary, word.getWord(), word.getTranslation(), word.getCategory(), example);
+            }
+
+            DictionaryAssetInstaller.replaceWords(dataManager.getDatabase(), dictionary);
+        } finally {
+            dictionary.close();
+        }
+
+        SQLiteDatabase db = dataManager.getDatabase();
+        // 每条学习记录和复习历史仍然解析到原来的英文单词
+        assertRecordsResolve(db, DatabaseHelper.TABLE_LEARNING_RECORDS, englishById, 3);
+        assertRecordsResolve(db, DatabaseHelper.TABLE_REVIEW_HISTORY, englishById, 4);
+
+        assertEquals("Work smarter, not harder.", queryString(db, "SELECT " + DatabaseHelper.COLUMN_EXAMPLE +
+                " FROM " + DatabaseHelper.TABLE_WORDS + " WHERE " + DatabaseHelper.COLUMN_WORD_ID + " = " + workId));
+        // 不在新词典中的单词：有学习记录的保留，没有的删除
+        assertEquals("cat", queryString(db, "SELECT " + DatabaseHelper.COLUMN_WORD + " FROM " +
+                DatabaseHelper.TABLE_WORDS + " WHERE " + DatabaseHelper.COLUMN_WORD_ID + " = " + catId));
+        assertEquals("0", queryString(db, "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_WORDS +
+                " WHERE " + DatabaseHelper.COLUMN_WORD + " = 'banana'"));
+        assertEquals("1", queryString(db, "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_WORDS +
+                " WHERE " + DatabaseHelper.COLUMN_WORD + " = 'zebra'"));
+        // 示例单词20个：去掉banana，增加zebra
+        assertEquals("20", queryString(db, "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_WORDS));
+        assertEquals(String.valueOf(DictionaryAssetInstaller.DICTIONARY_VERSION), queryString(db,
+                "SELECT " + DatabaseHelper.COLUMN_METADATA_VALUE + " FROM " + DatabaseHelper.TABLE_APP_METADATA +
+                        " WHERE " + DatabaseHelper.COLUMN_METADATA_KEY + " = '" +
+                        DictionaryAssetInstaller.KEY_DICTIONARY_VERSION + "'"));
+    }
+
+    private static int findId(Map<Integer, String> englishById, String english) {
+        for (Map.Entry<Integer, String> entry : englishById.entrySet()) {
+            if (entry.getValue().equals(english)) {
+                return entry.getKey();
+            }
+        }
+        throw new AssertionError("Missing word " + english);
+    }
+
+    private static void insert(SQLiteDatabase dictionary, String word, String translation, String category,
+                               String example) {
+        dictionary.execSQL("INSERT INTO " + DatabaseHelper.TABLE_WORDS + "(" + DatabaseHelper.COLUMN_WORD + ", " +
+                        DatabaseHelper.COLUMN_TRANSLATION + ", " + DatabaseHelper.COLUMN_CATEGORY + ", " +
+                        DatabaseHelper.COLUMN_EXAMPLE + ") VALUES (?, ?, ?, ?)",
+                new Object[]{word, translation, category, example});
+    }
+
+    private static void assertRecordsResolve(SQLiteDatabase db, String table, Map<Integer, String> englishById,
+                                             int expectedRows) {
+        Cursor cursor = db.rawQuery("SELECT r." + DatabaseHelper.COLUMN_RECORD_WORD_ID + ", w." +
+                DatabaseHelper.COLUMN_WORD + " FROM " + table + " r LEFT JOIN " + DatabaseHelper.TABLE_WORDS +
+                " w ON w." + DatabaseHelper.COLUMN_WORD_ID + " = r." + DatabaseHelper.COLUMN_RECORD_WORD_ID, null);
+        try {
+            assertEquals(expectedRows, cursor.getCount());
+            while (cursor.moveToNext()) {
+                assertEquals(table, englishById.get(cursor.getInt(0)), cursor.getString(1));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static String queryString(SQLiteDatabase db, String sql) {
+        Cursor cursor = db.rawQuery(sql, null);
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getString(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
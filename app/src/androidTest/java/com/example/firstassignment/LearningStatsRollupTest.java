@@ -0,0 +1,202 @@
+package com.example.firstassignment;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * 日、周、月学习统计汇总表的测试，验证增量维护和重建得到的汇总与复习历史一致
+ */
+@RunWith(AndroidJUnit4.class)
+public class LearningStatsRollupTest {
+    private static final String TEST_DATABASE = "LearningStatsTest.db";
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private Context context;
+    private DataManager dataManager;
+    private int userId;
+    private long today;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        dataManager = new DataManager(context, TEST_DATABASE, DatabaseHelper.StorageMode.WRITE_AHEAD_LOG);
+        assertTrue(dataManager.addUser(new User("tester", "password", R.drawable.avatar1)));
+        userId = dataManager.getAllUsers().get(0).getId();
+        // 今天中午，加减几个小时仍在同一天
+        today = StatsResolution.DAY.periodStart(System.currentTimeMillis()) + DAY / 2;
+    }
+
+    @After
+    public void tearDown() {
+        dataManager.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void reviewsKeepRollupInSync() {
+        int[] scores = {40, 90, 75, 60, 100};
+        for (int i = 0; i < scores.length; i++) {
+            long timestamp = today - (i % 3) * DAY + i * 60 * 1000L;
+            assertTrue(dataManager.addLearningRecord(
+                    new LearningRecord(0, userId, i % 2 + 1, scores[i], timestamp, "learning", 1)));
+        }
+        assertTrue(dataManager.recordReview(userId, 1, 30));
+        assertEquals(6, dataManager.getUserReviewHistory(userId).size());
+        assertAllResolutionsMatchRecords();
+
+        // 修改当前学习状态不改变复习历史，汇总也不变
+        Map<String, Integer> before = dataManager.getUserDailyLearningStats(userId);
+        for (LearningRecord record : dataManager.getUserLearningRecords(userId)) {
+            record.setScore(0);
+            record.setTimestamp(today - 5 * DAY);
+            assertTrue(dataManager.updateLearningRecord(record));
+        }
+        assertEquals(before, dataManager.getUserDailyLearningStats(userId));
+        assertAllResolutionsMatchRecords();
+    }
+
+    @Test
+    public void deletingUserRemovesDependentRows() {
+        assertTrue(dataManager.recordReview(userId, 1, 80));
+        assertTrue(dataManager.recordReview(userId, 2, 40));
+        assertTrue(dataManager.addMessage("hello", Message.SENDER_USER, userId));
+        assertFalse(dataManager.getUserDailyLearningStats(userId).isEmpty());
+        assertFalse(dataManager.getStatisticsSnapshot(userId).isEmpty());
+
+        assertTrue(dataManager.deleteUser(userId));
+        assertTrue(dataManager.getUserLearningRecords(userId).isEmpty());
+        assertTrue(dataManager.getUserReviewHistory(userId).isEmpty());
+        assertTrue(dataManager.getAllMessages(userId).isEmpty());
+        for (StatsResolution resolution : StatsResolution.values()) {
+            assertTrue(dataManager.getUserLearningStats(userId, resolution, null).isEmpty());
+        }
+        // 缓存的统计快照也已失效
+        assertTrue(dataManager.getStatisticsSnapshot(userId).isEmpty());
+    }
+
+    @Test
+    public void reviewsKeepOneCurrentRecordPerWord() {
+        assertTrue(dataManager.recordReview(userId, 1, 30));
+        assertTrue(dataManager.recordReview(userId, 1, 90));
+        // 补录一条较早的评分：只累加复习次数，不覆盖最新的得分
+        assertTrue(dataManager.addLearningRecord(
+                new LearningRecord(0, userId, 1, 10, today - 3 * DAY, LearningRecord.STATUS_REVIEW, 1)));
+
+        List<LearningRecord> current = dataManager.getUserLearningRecords(userId);
+        assertEquals(1, current.size());
+        assertEquals(90, current.get(0).getScore());
+        assertEquals(LearningRecord.STATUS_MASTERED, current.get(0).getStatus());
+        assertEquals(3, current.get(0).getReviewCount());
+        assertEquals(3, dataManager.getUserReviewHistory(userId).size());
+        assertEquals(3, dataManager.getUserWordLearningRecords(userId, 1).size());
+        assertEquals(1, dataManager.getUserLearnedWordCount(userId));
+        assertEquals(130 / 3.0, dataManager.getUserAverageLearningScore(userId), 1e-9);
+    }
+
+    @Test
+    public void rebuildRestoresRollupFromRecords() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(dataManager.addLearningRecord(
+                    new LearningRecord(0, userId, i + 1, i * 5, today - (i % 4) * DAY, "learning", 1)));
+        }
+        for (StatsResolution resolution : StatsResolution.values()) {
+            dataManager.getDatabase().delete(resolution.getTableName(), null, null);
+            assertTrue(dataManager.getUserLearningStats(userId, resolution, null).isEmpty());
+        }
+
+        assertTrue(dataManager.rebuildLearningStats());
+        assertEquals(4, dataManager.getUserDailyLearningStats(userId).size());
+        assertAllResolutionsMatchRecords();
+    }
+
+    @Test
+    public void statsSinceSkipOlderPeriods() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(dataManager.addLearningRecord(
+                    new LearningRecord(0, userId, i + 1, 50 + i, today - i * DAY, "learning", 1)));
+        }
+        Map<String, Integer> lastThreeDays = dataManager.getUserLearningStats(userId, StatsResolution.DAY, today - 2 * DAY);
+        assertEquals(3, lastThreeDays.size());
+        assertTrue(lastThreeDays.containsKey(StatsResolution.dayOf(today)));
+        assertEquals(today - 9 * DAY, dataManager.getUserFirstLearningTimestamp(userId));
+    }
+
+    private void assertAllResolutionsMatchRecords() {
+        for (StatsResolution resolution : StatsResolution.values()) {
+            assertEquals(expectedStats(resolution), dataManager.getUserLearningStats(userId, resolution, null));
+            assertRollupMatchesRecords(resolution);
+        }
+        assertEquals(dataManager.getUserLearningStats(userId, StatsResolution.DAY, null),
+                dataManager.getUserDailyLearningStats(userId));
+    }
+
+    /**
+     * 直接按复习历史计算每个时间段的平均分
+     */
+    private Map<String, Integer> expectedStats(StatsResolution resolution) {
+        Map<String, List<Integer>> scoresByDay = new TreeMap<>();
+        for (LearningRecord record : dataManager.getUserReviewHistory(userId)) {
+            String day = resolution.periodKey(record.getTimestamp());
+            if (!scoresByDay.containsKey(day)) {
+                scoresByDay.put(day, new ArrayList<Integer>());
+            }
+            scoresByDay.get(day).add(record.getScore());
+        }
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : scoresByDay.entrySet()) {
+            int sum = 0;
+            for (int score : entry.getValue()) {
+                sum += score;
+            }
+            expected.put(entry.getKey(), Math.round((float) sum / entry.getValue().size()));
+        }
+        return expected;
+    }
+
+    /**
+     * 汇总表的记录数、最低分和最高分与复习历史一致
+     */
+    private void assertRollupMatchesRecords(StatsResolution resolution) {
+        Cursor cursor = dataManager.getDatabase().query(resolution.getTableName(),
+                new String[]{DatabaseHelper.COLUMN_STATS_DAY, DatabaseHelper.COLUMN_STATS_RECORD_COUNT,
+                        DatabaseHelper.COLUMN_STATS_MIN_SCORE, DatabaseHelper.COLUMN_STATS_MAX_SCORE},
+                DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?", new String[]{String.valueOf(userId)},
+                null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                int count = 0;
+                int min = Integer.MAX_VALUE;
+                int max = Integer.MIN_VALUE;
+                for (LearningRecord record : dataManager.getUserReviewHistory(userId)) {
+                    if (resolution.periodKey(record.getTimestamp()).equals(cursor.getString(0))) {
+                        count++;
+                        min = Math.min(min, record.getScore());
+                        max = Math.max(max, record.getScore());
+                    }
+                }
+                assertEquals(count, cursor.getInt(1));
+                assertEquals(min, cursor.getInt(2));
+                assertEquals(max, cursor.getInt(3));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+}
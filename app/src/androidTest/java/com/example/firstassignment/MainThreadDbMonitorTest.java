@@ -0,0 +1,119 @@
+package com.example.firstassignment;
+
+import android.app.Instrumentation;
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 主线程数据库调用监视器的测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class MainThreadDbMonitorTest {
+    private static final String TEST_DATABASE = "MainThreadDbMonitorTest.db";
+
+    private Instrumentation instrumentation;
+    private Context context;
+    private MainThreadDbMonitor monitor;
+    private DataManager dataManager;
+
+    @Before
+    public void setUp() {
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        context = instrumentation.getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        monitor = new MainThreadDbMonitor(null, MainThreadDbMonitor.DEFAULT_THRESHOLD_MS);
+        dataManager = new MonitoredDataManager(context, TEST_DATABASE, DatabaseHelper.StorageMode.WRITE_AHEAD_LOG,
+                monitor);
+        // 在测试线程中打开数据库并写入测试数据，不会被记录
+        assertTrue(dataManager.addUser(new User("tester", "password", R.drawable.avatar1)));
+        dataManager.getAllWords();
+    }
+
+    @After
+    public void tearDown() {
+        dataManager.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void onlyMainThreadCallsAreRecorded() {
+        assertTrue(monitor.getEntries().isEmpty());
+
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                dataManager.getAllUsers();
+                // isUsernameAvailable内部可能调用其他公开方法，只记录最外层的一次
+                dataManager.isUsernameAvailable("someone");
+                dataManager.buildWordIndexes();
+            }
+        });
+
+        List<MainThreadDbMonitor.Entry> entries = monitor.getEntries();
+        assertEquals(3, entries.size());
+        assertEquals("getAllUsers", entries.get(0).method);
+        assertEquals(1, entries.get(0).rows);
+        assertEquals("isUsernameAvailable", entries.get(1).method);
+        assertEquals(1, entries.get(1).rows);
+        assertEquals("buildWordIndexes", entries.get(2).method);
+        assertEquals(-1, entries.get(2).rows);
+        assertTrue(entries.get(0).durationNanos > 0);
+    }
+
+    @Test
+    public void slowCallsFailTheAssertionAndAppearInTheReport() throws Exception {
+        // 阈值为0时每次调用都算慢调用
+        final MainThreadDbMonitor strict = new MainThreadDbMonitor(null, 0);
+        final DataManager strictDataManager = new MonitoredDataManager(context, TEST_DATABASE,
+                DatabaseHelper.StorageMode.WRITE_AHEAD_LOG, strict);
+        strict.assertNoSlowCalls();
+        instrumentation.runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                strictDataManager.getAllWords();
+            }
+        });
+        strictDataManager.close();
+
+        assertEquals(1, strict.getSlowCalls().size());
+        try {
+            strict.assertNoSlowCalls();
+            fail("slow call was not reported");
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage().contains("getAllWords"));
+        }
+
+        File report = new File(context.getCacheDir(), "main-thread-db-report.txt");
+        strict.writeReport(report);
+        StringBuilder content = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new FileReader(report));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                content.append(line).append('\n');
+            }
+        } finally {
+            reader.close();
+            report.delete();
+        }
+        assertTrue(content.toString().contains("Slow calls:"));
+        assertTrue(content.toString().contains("getAllWords"));
+
+        strict.reset();
+        strict.assertNoSlowCalls();
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.firstassignment;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 复习计划和到期单词队列的测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReviewQueueTest {
+    private static final String TEST_DATABASE = "ReviewQueueTest.db";
+    private static final long DAY = ReviewSchedule.DAY_MS;
+
+    private Context context;
+    private DataManager dataManager;
+    private int userId;
+    private List<Word> words;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        dataManager = new DataManager(context, TEST_DATABASE, DatabaseHelper.StorageMode.WRITE_AHEAD_LOG);
+        assertTrue(dataManager.addUser(new User("tester", "password", R.drawable.avatar1)));
+        userId = dataManager.getAllUsers().get(0).getId();
+        words = dataManager.getAllWords();
+    }
+
+    @After
+    public void tearDown() {
+        dataManager.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void dueWordsAreOrderedByNextReviewTime() {
+        long now = System.currentTimeMillis();
+        // 忘记的单词一天后到期，记住的单词第一次也是一天后，第二次记住后六天后到期
+        assertTrue(dataManager.addLearningRecord(new LearningRecord(0, userId, words.get(0).getId(), 100,
+                now - 10 * DAY, LearningRecord.STATUS_MASTERED, 1)));
+        assertTrue(dataManager.addLearningRecord(new LearningRecord(0, userId, words.get(1).getId(), 20,
+                now - 3 * DAY, LearningRecord.STATUS_REVIEW, 1)));
+        assertTrue(dataManager.addLearningRecord(new LearningRecord(0, userId, words.get(2).getId(), 100,
+                now - 2 * DAY, LearningRecord.STATUS_MASTERED, 1)));
+        assertTrue(dataManager.addLearningRecord(new LearningRecord(0, userId, words.get(2).getId(), 100,
+                now - DAY, LearningRecord.STATUS_MASTERED, 1)));
+
+        List<Word> due = dataManager.getDueWords(userId, now, 10);
+        assertEquals(2, due.size());
+        assertEquals(words.get(0).getId(), due.get(0).getId());
+        assertEquals(words.get(1).getId(), due.get(1).getId());
+        assertEquals(1, dataManager.getDueWords(userId, now, 1).size());
+        int[] dueIds = dataManager.getDueWordIds(userId, now, 10);
+        assertEquals(2, dueIds.length);
+        assertEquals(due.get(0).getId(), dueIds[0]);
+        assertEquals(due.get(1).getId(), dueIds[1]);
+        assertEquals(2, dataManager.getDueWordCount(userId, now));
+        assertEquals(now - 9 * DAY, dataManager.getNextReviewTime(userId));
+
+        ReviewSchedule schedule = dataManager.getReviewSchedule(userId, words.get(2).getId());
+        assertEquals(2, schedule.getRepetitions());
+        assertEquals(now + 5 * DAY, schedule.getNextDueAt());
+        assertEquals(3, dataManager.getDueWordCount(userId, now + 5 * DAY));
+    }
+
+    @Test
+    public void deletedWordLeavesTheDueQueue() {
+        long now = System.currentTimeMillis();
+        int deletedId = words.get(0).getId();
+        int keptId = words.get(1).getId();
+        // 两个单词都已到期，被删除的单词更早到期
+        assertTrue(dataManager.addLearningRecord(new LearningRecord(0, userId, deletedId, 20,
+                now - 10 * DAY, LearningRecord.STATUS_REVIEW, 1)));
+        assertTrue(dataManager.addLearningRecord(new LearningRecord(0, userId, keptId, 100,
+                now - 5 * DAY, LearningRecord.STATUS_MASTERED, 1)));
+        assertEquals(2, dataManager.getDueWordCount(userId, now));
+        assertEquals(now - 9 * DAY, dataManager.getNextReviewTime(userId));
+
+        assertTrue(dataManager.deleteWord(deletedId));
+
+        int[] dueIds = dataManager.getDueWordIds(userId, now, 10);
+        assertEquals(1, dueIds.length);
+        assertEquals(keptId, dueIds[0]);
+        assertEquals(1, dataManager.getDueWordCount(userId, now));
+        assertEquals(now - 4 * DAY, dataManager.getNextReviewTime(userId));
+        assertEquals(1, dataManager.getDueWords(userId, now, 10).size());
+        assertNull(dataManager.getReviewSchedule(userId, deletedId));
+        // 复习历史和统计汇总中也不再包含被删除的单词
+        assertEquals(1, dataManager.getUserReviewHistory(userId).size());
+        assertEquals(1, dataManager.getUserLearnedWordCount(userId));
+        assertEquals(100, dataManager.getUserAverageLearningScore(userId), 1e-9);
+        Map<String, Integer> daily = dataManager.getUserDailyLearningStats(userId);
+        assertEquals(1, daily.size());
+        assertEquals(Integer.valueOf(100), daily.get(StatsResolution.DAY.periodKey(now - 5 * DAY)));
+    }
+
+    @Test
+    public void currentRecordsAreLoadedInOneBatch() {
+        int[] ids = dataManager.getAllWordIds();
+        assertEquals(words.size(), ids.length);
+        assertTrue(dataManager.recordReview(userId, ids[0], 60));
+        assertTrue(dataManager.recordReview(userId, ids[2], 100));
+
+        Map<Integer, LearningRecord> records = dataManager.getUserCurrentLearningRecords(userId,
+                new int[]{ids[0], ids[1], ids[2]});
+        assertEquals(2, records.size());
+        assertEquals(60, records.get(ids[0]).getScore());
+        assertNull(records.get(ids[1]));
+        assertEquals(LearningRecord.STATUS_MASTERED, records.get(ids[2]).getStatus());
+        assertTrue(dataManager.getUserCurrentLearningRecords(userId, new int[0]).isEmpty());
+    }
+
+    @Test
+    public void reviewReschedulesButBackdatedRatingDoesNot() {
+        int wordId = words.get(0).getId();
+        assertNull(dataManager.getReviewSchedule(userId, wordId));
+        assertEquals(-1, dataManager.getNextReviewTime(userId));
+
+        assertTrue(dataManager.recordReview(userId, wordId, 100));
+        ReviewSchedule first = dataManager.getReviewSchedule(userId, wordId);
+        assertEquals(1, first.getRepetitions());
+        assertTrue(dataManager.getDueWords(userId, System.currentTimeMillis(), 10).isEmpty());
+
+        // 补录一条较早的低分评分：只写入复习历史，不改变复习计划
+        assertTrue(dataManager.addLearningRecord(new LearningRecord(0, userId, wordId, 0,
+                System.currentTimeMillis() - 30 * DAY, LearningRecord.STATUS_REVIEW, 1)));
+        ReviewSchedule unchanged = dataManager.getReviewSchedule(userId, wordId);
+        assertEquals(first.getNextDueAt(), unchanged.getNextDueAt());
+        assertEquals(first.getEaseFactor(), unchanged.getEaseFactor(), 1e-9);
+
+        assertTrue(dataManager.recordReview(userId, wordId, 0));
+        ReviewSchedule forgotten = dataManager.getReviewSchedule(userId, wordId);
+        assertEquals(0, forgotten.getRepetitions());
+        assertTrue(forgotten.getEaseFactor() < first.getEaseFactor());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.firstassignment;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 学习统计快照的测试，验证快照与各个单独的统计查询一致，并且按学习数据版本缓存
+ */
+@RunWith(AndroidJUnit4.class)
+public class StatisticsSnapshotTest {
+    private static final String TEST_DATABASE = "StatisticsSnapshotTest.db";
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private Context context;
+    private DataManager dataManager;
+    private int userId;
+    private int otherUserId;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        dataManager = new DataManager(context, TEST_DATABASE, DatabaseHelper.StorageMode.WRITE_AHEAD_LOG);
+        assertTrue(dataManager.addUser(new User("tester", "password", R.drawable.avatar1)));
+        assertTrue(dataManager.addUser(new User("other", "password", R.drawable.avatar2)));
+        List<User> users = dataManager.getAllUsers();
+        userId = users.get(0).getId();
+        otherUserId = users.get(1).getId();
+    }
+
+    @After
+    public void tearDown() {
+        dataManager.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void snapshotMatchesIndividualQueries() {
+        String[] statuses = {LearningRecord.STATUS_MASTERED, LearningRecord.STATUS_LEARNING, LearningRecord.STATUS_REVIEW};
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 30; i++) {
+            // 同一个单词有多次不同状态的评分，当前状态取最新的一次
+            assertTrue(dataManager.addLearningRecord(new LearningRecord(0, userId, i % 7 + 1, i * 3 % 101,
+                    now - (i % 5) * DAY, statuses[i % statuses.length], 1)));
+        }
+
+        StatisticsSnapshot snapshot = dataManager.getStatisticsSnapshot(userId);
+        assertNotNull(snapshot);
+        assertEquals(dataManager.getUserDailyLearningStats(userId), snapshot.getDailyStats());
+        assertEquals(dataManager.getUserWordStatusStats(userId), new HashMap<>(snapshot.getStatusStats()));
+        assertEquals(dataManager.getUserLearnedWordCount(userId), snapshot.getLearnedWordCount());
+        assertEquals(dataManager.getUserAverageLearningScore(userId), snapshot.getAverageScore(), 1e-9);
+        assertEquals(dataManager.getUserFirstLearningTimestamp(userId), snapshot.getFirstTimestamp());
+        assertEquals(7, snapshot.getLearnedWordCount());
+        assertEquals(30, snapshot.getRecordCount());
+    }
+
+    @Test
+    public void snapshotIsCachedUntilUserRecordsChange() {
+        assertTrue(dataManager.addLearningRecord(new LearningRecord(0, userId, 1, 80,
+                System.currentTimeMillis(), LearningRecord.STATUS_LEARNING, 1)));
+        StatisticsSnapshot first = dataManager.getStatisticsSnapshot(userId);
+        assertSame(first, dataManager.getStatisticsSnapshot(userId));
+
+        // 其他用户的学习记录不影响这个用户的缓存
+        assertTrue(dataManager.addLearningRecord(new LearningRecord(0, otherUserId, 1, 10,
+                System.currentTimeMillis(), LearningRecord.STATUS_LEARNING, 1)));
+        assertSame(first, dataManager.getStatisticsSnapshot(userId));
+
+        // 修改当前学习状态只影响状态分布，平均分来自复习历史
+        LearningRecord record = dataManager.getUserLearningRecords(userId).get(0);
+        record.setStatus(LearningRecord.STATUS_MASTERED);
+        assertTrue(dataManager.updateLearningRecord(record));
+        StatisticsSnapshot updated = dataManager.getStatisticsSnapshot(userId);
+        assertNotSame(first, updated);
+        assertEquals(Integer.valueOf(1), updated.getStatusStats().get(LearningRecord.STATUS_MASTERED));
+        assertEquals(80.0, updated.getAverageScore(), 1e-9);
+
+        assertTrue(dataManager.addLearningRecord(new LearningRecord(0, userId, 2, 60,
+                System.currentTimeMillis(), LearningRecord.STATUS_MASTERED, 1)));
+        StatisticsSnapshot added = dataManager.getStatisticsSnapshot(userId);
+        assertEquals(2, added.getLearnedWordCount());
+        assertEquals(70.0, added.getAverageScore(), 1e-9);
+    }
+
+    @Test
+    public void snapshotReadBeforeWriteBehindCommitIsNotCached() throws Exception {
+        final AtomicReference<StatisticsSnapshot> duringBatch = new AtomicReference<>();
+        dataManager.recordLearningAsync(userId, 1, 90, LearningRecord.STATUS_MASTERED, null);
+        // 与评分在同一个批量事务中：提交之前在另一个线程中读取统计快照，只能读到提交前的数据
+        dataManager.getWriteQueue().enqueue(new WriteBehindQueue.PendingWrite() {
+            @Override
+            boolean apply() {
+                Thread reader = new Thread(() -> duringBatch.set(dataManager.getStatisticsSnapshot(userId)));
+                reader.start();
+                try {
+                    reader.join();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return true;
+            }
+        }, null);
+        dataManager.getWriteQueue().flushAndWait();
+
+        assertTrue(duringBatch.get().isEmpty());
+        StatisticsSnapshot committed = dataManager.getStatisticsSnapshot(userId);
+        assertEquals(1, committed.getRecordCount());
+        assertEquals(90.0, committed.getAverageScore(), 1e-9);
+    }
+
+    @Test
+    public void emptySnapshotForUserWithoutRecords() {
+        StatisticsSnapshot snapshot = dataManager.getStatisticsSnapshot(userId);
+        assertTrue(snapshot.isEmpty());
+        assertEquals(-1, snapshot.getFirstTimestamp());
+        assertEquals(0.0, snapshot.getAverageScore(), 0);
+        assertTrue(snapshot.getDailyStats().isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.firstassignment;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 单词缓存的测试，验证缓存命中以及增删改后缓存与数据库保持一致
+ */
+@RunWith(AndroidJUnit4.class)
+public class WordCacheTest {
+    private static final String TEST_DATABASE = "WordCacheTest.db";
+
+    private Context context;
+    private DataManager dataManager;
+    private WordCache cache;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        dataManager = new DataManager(context, TEST_DATABASE, DatabaseHelper.StorageMode.WRITE_AHEAD_LOG);
+        cache = dataManager.getWordCache();
+    }
+
+    @After
+    public void tearDown() {
+        dataManager.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void secondReadIsServedFromSnapshot() {
+        List<Word> first = dataManager.getAllWords();
+        long hits = cache.getHitCount();
+        List<Word> second = dataManager.getAllWords();
+
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(first.size(), second.size());
+        assertSame(first.get(0), dataManager.getWordById(first.get(0).getId()));
+    }
+
+    @Test
+    public void mutationsKeepCacheConsistent() {
+        int initialCount = dataManager.getAllWords().size();
+
+        assertTrue(dataManager.addWord("cache", "缓存", "测试", "Cache it."));
+        List<Word> words = dataManager.getAllWords();
+        assertEquals(initialCount + 1, words.size());
+
+        Word added = words.get(words.size() - 1);
+        assertTrue(dataManager.updateWord(added.getId(), "cached", "已缓存", "测试", "Cached."));
+        assertEquals("cached", dataManager.getWordById(added.getId()).getWord());
+        assertEquals("cached", dataManager.getAllWords().get(initialCount).getWord());
+
+        assertTrue(dataManager.deleteWord(added.getId()));
+        assertNull(dataManager.getWordById(added.getId()));
+        assertEquals(initialCount, dataManager.getAllWords().size());
+    }
+
+    @Test
+    public void staleQueryResultIsNotCached() {
+        long version = cache.getVersion();
+        List<Word> words = dataManager.getAllWords();
+        cache.invalidateSnapshot();
+
+        cache.putSnapshot(words, version);
+        assertNull(cache.getSnapshot());
+    }
+
+    @Test
+    public void trimMemoryDropsSnapshot() {
+        dataManager.getAllWords();
+        assertNotNull(cache.getSnapshot());
+
+        cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertNull(cache.getSnapshot());
+        assertFalse(dataManager.getAllWords().isEmpty());
+    }
+
+    @Test
+    public void trimMemoryInBackgroundClearsCache() {
+        List<Word> words = dataManager.getAllWords();
+        dataManager.getWordById(words.get(0).getId());
+        assertTrue(cache.getSizeBytes() > 0);
+
+        cache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertNull(cache.getSnapshot());
+        assertEquals(0, cache.getSizeBytes());
+    }
+}
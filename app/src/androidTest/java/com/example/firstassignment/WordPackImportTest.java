@@ -0,0 +1,108 @@
+package com.example.firstassignment;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 单词包导入的测试：取消后从已提交的位置继续导入，已导入的单词不会重复插入
+ */
+@RunWith(AndroidJUnit4.class)
+public class WordPackImportTest {
+    private static final String TEST_DATABASE = "WordPackImportTest.db";
+    // 单词包中新单词的数量（不到三批）
+    private static final int NEW_WORDS = WordPackImporter.CHUNK_SIZE * 2 + WordPackImporter.CHUNK_SIZE / 2;
+
+    private Context context;
+    private DataManager dataManager;
+    private File packFile;
+
+    @Before
+    public void setUp() throws IOException {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        dataManager = new DataManager(context, TEST_DATABASE, DatabaseHelper.StorageMode.WRITE_AHEAD_LOG);
+
+        // 第一条是已存在的示例单词，第二条与第一批中的单词重复
+        packFile = new File(context.getCacheDir(), "test_word_pack.csv");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(packFile), "UTF-8");
+        try {
+            writer.write("word,translation,category,example\n");
+            writer.write("apple,苹果,水果,\"An apple a day keeps the doctor away.\"\n");
+            writer.write("word0,单词0,测试,\"Example \"\"0\"\"\"\n");
+            for (int i = 0; i < NEW_WORDS; i++) {
+                writer.write("word" + i + ",单词" + i + ",测试,\"Example \"\"" + i + "\"\"\"\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        dataManager.close();
+        context.deleteDatabase(TEST_DATABASE);
+        packFile.delete();
+    }
+
+    @Test
+    public void importResumesAfterCancel() throws IOException {
+        int initialWords = dataManager.getAllWords().size();
+
+        // 第一批提交后取消
+        final WordPackImporter first = new WordPackImporter(dataManager);
+        WordPackImporter.Result cancelled = first.importFromFile(packFile, WordPackImporter.Format.CSV,
+                (imported, total) -> first.cancel());
+        assertTrue(cancelled.cancelled);
+        assertFalse(cancelled.completed);
+        assertEquals(WordPackImporter.CHUNK_SIZE, cancelled.recordsConsumed);
+        assertEquals(WordPackImporter.CHUNK_SIZE - 2, cancelled.inserted);
+        assertEquals(2, cancelled.duplicates);
+        assertEquals(initialWords + cancelled.inserted, dataManager.getAllWords().size());
+
+        // 再次导入从第一批之后继续
+        WordPackImporter.Result resumed = new WordPackImporter(dataManager).importFromFile(packFile,
+                WordPackImporter.Format.CSV, null);
+        assertTrue(resumed.completed);
+        assertFalse(resumed.cancelled);
+        assertEquals(NEW_WORDS + 2, resumed.recordsConsumed);
+        assertEquals(NEW_WORDS - cancelled.inserted, resumed.inserted);
+        assertEquals(0, resumed.duplicates);
+        assertEquals(initialWords + NEW_WORDS, dataManager.getAllWords().size());
+        String lastWord = "word" + (NEW_WORDS - 1);
+        assertEquals(lastWord, dataManager.searchWordsByPrefix(lastWord, 10).get(0).getWord());
+        Word firstWord = dataManager.searchWords("word0", 10).get(0);
+        assertEquals("word0", firstWord.getWord());
+        assertEquals("Example \"0\"", firstWord.getExample());
+
+        // 已全部导入的单词包不再读取
+        WordPackImporter.Result again = new WordPackImporter(dataManager).importFromFile(packFile,
+                WordPackImporter.Format.CSV, null);
+        assertTrue(again.completed);
+        assertEquals(0, again.inserted);
+
+        // 清除进度后从头导入，所有单词都被去重
+        dataManager.clearImportProgress("file:" + packFile.getAbsolutePath() + ":" + packFile.length() + ":" +
+                packFile.lastModified());
+        WordPackImporter.Result restarted = new WordPackImporter(dataManager).importFromFile(packFile,
+                WordPackImporter.Format.CSV, null);
+        assertTrue(restarted.completed);
+        assertEquals(0, restarted.inserted);
+        assertEquals(NEW_WORDS + 2, restarted.duplicates);
+        assertEquals(initialWords + NEW_WORDS, dataManager.getAllWords().size());
+    }
+}
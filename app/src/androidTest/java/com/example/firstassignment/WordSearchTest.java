@@ -0,0 +1,111 @@
+package com.example.firstassignment;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 单词全文搜索的测试
+ */
+@RunWith(AndroidJUnit4.class)
+public class WordSearchTest {
+    private static final String TEST_DATABASE = "WordSearchTest.db";
+
+    private Context context;
+    private DataManager dataManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        dataManager = new DataManager(context, TEST_DATABASE, DatabaseHelper.StorageMode.WRITE_AHEAD_LOG);
+        assertTrue(dataManager.addWord("applesauce", "苹果酱", "食物", "Applesauce is sweet."));
+        assertTrue(dataManager.addWord("pineapple", "菠萝", "水果", "The pineapple is ripe."));
+    }
+
+    @After
+    public void tearDown() {
+        dataManager.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void englishPrefixRanksExactMatchFirst() {
+        // 示例单词中的apple应排在applesauce前面；pineapple不以app开头，例句中也没有以app开头的词
+        List<Word> results = dataManager.searchWords("app", 10);
+        assertEquals(2, results.size());
+        assertEquals("apple", results.get(0).getWord());
+        assertEquals("applesauce", results.get(1).getWord());
+
+        assertEquals("apple", dataManager.searchWords("Apple", 10).get(0).getWord());
+    }
+
+    @Test
+    public void chineseMatchesSubstringOfTranslation() {
+        List<Word> results = dataManager.searchWords("果酱", 10);
+        assertEquals(1, results.size());
+        assertEquals("applesauce", results.get(0).getWord());
+
+        // 单个汉字也可以搜索，“苹果”和“苹果酱”都包含“苹”
+        assertEquals(2, dataManager.searchWords("苹", 10).size());
+        assertTrue(dataManager.searchWords("酱果", 10).isEmpty());
+    }
+
+    @Test
+    public void indexFollowsUpdatesAndDeletes() {
+        Word word = dataManager.searchWords("pineapple", 10).get(0);
+        assertTrue(dataManager.updateWord(word.getId(), "ananas", "凤梨", "水果", "Ananas is another name."));
+        assertTrue(dataManager.searchWords("pineapple", 10).isEmpty());
+        assertEquals(word.getId(), dataManager.searchWords("凤梨", 10).get(0).getId());
+
+        assertTrue(dataManager.deleteWord(word.getId()));
+        assertTrue(dataManager.searchWords("凤梨", 10).isEmpty());
+    }
+
+    @Test
+    public void translationLookupFindsAllEnglishWords() {
+        // 示例单词中learn和study的翻译都是“学习”
+        List<Word> results = dataManager.findWordsByTranslation("学习", 10);
+        assertEquals(2, results.size());
+        assertEquals("learn", results.get(0).getWord());
+        assertEquals("study", results.get(1).getWord());
+
+        // 翻译完全相同的排在前面，翻译中只包含关键词的排在后面；例句中的中文不参与匹配
+        assertTrue(dataManager.addWord("scholar", "学习者", "人物", "学习"));
+        results = dataManager.findWordsByTranslation("学习", 10);
+        assertEquals(3, results.size());
+        assertEquals("scholar", results.get(2).getWord());
+
+        // 三个及以上汉字时要求连续出现
+        assertEquals("applesauce", dataManager.findWordsByTranslation("苹果酱", 10).get(0).getWord());
+        assertTrue(dataManager.addWord("jam", "果酱苹果", "食物", ""));
+        assertEquals(1, dataManager.findWordsByTranslation("苹果酱", 10).size());
+    }
+
+    @Test
+    public void translationLookupFollowsUpdates() {
+        Word word = dataManager.findWordsByTranslation("菠萝", 10).get(0);
+        assertTrue(dataManager.updateWord(word.getId(), "pineapple", "凤梨", "水果", "The pineapple is ripe."));
+        assertTrue(dataManager.findWordsByTranslation("菠萝", 10).isEmpty());
+        assertEquals(word.getId(), dataManager.findWordsByTranslation("凤梨", 10).get(0).getId());
+
+        assertTrue(dataManager.deleteWord(word.getId()));
+        assertTrue(dataManager.findWordsByTranslation("凤梨", 10).isEmpty());
+    }
+
+    @Test
+    public void punctuationOnlyQueryReturnsNothing() {
+        assertTrue(dataManager.searchWords("\"*-", 10).isEmpty());
+        assertTrue(dataManager.searchWords("   ", 10).isEmpty());
+    }
+}
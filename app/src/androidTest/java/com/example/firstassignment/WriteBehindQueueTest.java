@@ -0,0 +1,196 @@
+package com.example.firstassignment;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * 写后队列的测试：合并、按数量和时间窗口触发提交、等待提交，以及出错时的回滚与回调
+ */
+@RunWith(AndroidJUnit4.class)
+public class WriteBehindQueueTest {
+    private static final String TEST_DATABASE = "WriteBehindQueueTest.db";
+
+    private Context context;
+    private DataManager dataManager;
+    private WriteBehindQueue queue;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        dataManager = new DataManager(context, TEST_DATABASE, DatabaseHelper.StorageMode.WRITE_AHEAD_LOG);
+        queue = new WriteBehindQueue(dataManager);
+    }
+
+    @After
+    public void tearDown() {
+        dataManager.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void failingWriteDoesNotDiscardTheRestOfTheBatch() throws Exception {
+        final CountDownLatch completed = new CountDownLatch(3);
+        final AtomicBoolean firstResult = new AtomicBoolean(false);
+        final AtomicBoolean failingResult = new AtomicBoolean(true);
+        final AtomicBoolean lastResult = new AtomicBoolean(false);
+
+        queue.enqueue(new MessageWrite("first", 1000L, false), success -> {
+            firstResult.set(success);
+            completed.countDown();
+        });
+        // 写入一部分后出错：这一条写入的数据必须被回滚
+        queue.enqueue(new MessageWrite("failing", 2000L, true), success -> {
+            failingResult.set(success);
+            completed.countDown();
+        });
+        queue.enqueue(new MessageWrite("last", 3000L, false), success -> {
+            lastResult.set(success);
+            completed.countDown();
+        });
+        queue.flushAndWait();
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertTrue(firstResult.get());
+        assertFalse(failingResult.get());
+        assertTrue(lastResult.get());
+        assertEquals(0, queue.getPendingCount());
+
+        List<Message> messages = dataManager.getAllMessages(null);
+        assertEquals(2, messages.size());
+        assertEquals("first", messages.get(0).getContent());
+        assertEquals("last", messages.get(1).getContent());
+    }
+
+    @Test
+    public void reviewsOfTheSameWordAreCoalesced() throws Exception {
+        assertTrue(dataManager.addUser(new User("tester", "password", R.drawable.avatar1)));
+        int userId = dataManager.getAllUsers().get(0).getId();
+        final CountDownLatch completed = new CountDownLatch(3);
+        final AtomicBoolean allSucceeded = new AtomicBoolean(true);
+        final AtomicBoolean onMainThread = new AtomicBoolean(true);
+        WriteBehindQueue.OnWriteCompleteListener listener = success -> {
+            allSucceeded.compareAndSet(true, success);
+            onMainThread.compareAndSet(true, Looper.myLooper() == Looper.getMainLooper());
+            completed.countDown();
+        };
+        dataManager.recordLearningAsync(userId, 1, 40, LearningRecord.STATUS_LEARNING, listener);
+        dataManager.recordLearningAsync(userId, 1, 70, LearningRecord.STATUS_REVIEW, listener);
+        dataManager.recordLearningAsync(userId, 1, 95, LearningRecord.STATUS_MASTERED, listener);
+        // 同一用户同一单词的评分合并为一个写操作，每个调用方的回调都保留
+        assertEquals(1, dataManager.getWriteQueue().getPendingCount());
+        dataManager.getWriteQueue().flushAndWait();
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertTrue(allSucceeded.get());
+        assertTrue(onMainThread.get());
+        assertEquals(3, dataManager.getUserReviewHistory(userId).size());
+        List<LearningRecord> current = dataManager.getUserLearningRecords(userId);
+        assertEquals(1, current.size());
+        assertEquals(95, current.get(0).getScore());
+        assertEquals(3, current.get(0).getReviewCount());
+    }
+
+    @Test
+    public void singleWriteIsFlushedAfterTheWindow() throws Exception {
+        final CountDownLatch completed = new CountDownLatch(1);
+        long start = SystemClock.elapsedRealtime();
+        queue.enqueue(new MessageWrite("delayed", 1000L, false), success -> completed.countDown());
+        assertEquals(1, queue.getPendingCount());
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertTrue(SystemClock.elapsedRealtime() - start >= WriteBehindQueue.FLUSH_WINDOW_MS);
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(1, dataManager.getAllMessages(null).size());
+    }
+
+    @Test
+    public void fullBatchIsFlushedWithoutWaitingForTheWindow() throws Exception {
+        final CountDownLatch completed = new CountDownLatch(WriteBehindQueue.MAX_BATCH_SIZE);
+        for (int i = 0; i < WriteBehindQueue.MAX_BATCH_SIZE - 1; i++) {
+            queue.enqueue(new MessageWrite("message " + i, i, false), success -> completed.countDown());
+        }
+        assertEquals(WriteBehindQueue.MAX_BATCH_SIZE - 1, queue.getPendingCount());
+
+        // 第MAX_BATCH_SIZE个写操作立即触发提交，不等时间窗口结束
+        queue.enqueue(new MessageWrite("last", WriteBehindQueue.MAX_BATCH_SIZE, false),
+                success -> completed.countDown());
+        assertTrue(completed.await(WriteBehindQueue.FLUSH_WINDOW_MS, TimeUnit.MILLISECONDS));
+        assertEquals(WriteBehindQueue.MAX_BATCH_SIZE, dataManager.getAllMessages(null).size());
+    }
+
+    @Test
+    public void flushAndWaitReturnsAfterTheWritesAreCommitted() {
+        queue.enqueue(new MessageWrite("first", 1000L, false), null);
+        queue.enqueue(new MessageWrite("second", 2000L, false), null);
+        queue.flushAndWait();
+
+        // 不等待回调，返回时数据已经提交
+        assertEquals(0, queue.getPendingCount());
+        assertEquals(2, dataManager.getAllMessages(null).size());
+    }
+
+    @Test
+    public void runAfterFlushRunsAfterPendingWrites() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        final AtomicReference<List<Message>> seen = new AtomicReference<>();
+        final AtomicReference<String> threadName = new AtomicReference<>();
+        queue.enqueue(new MessageWrite("before task", 1000L, false), null);
+        queue.runAfterFlush(() -> {
+            threadName.set(Thread.currentThread().getName());
+            seen.set(dataManager.getAllMessages(null));
+            ran.countDown();
+        });
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals("DataManager-write-behind", threadName.get());
+        assertEquals(1, seen.get().size());
+        assertEquals("before task", seen.get().get(0).getContent());
+    }
+
+    /**
+     * 直接在队列的事务中插入一条消息，可以在插入后抛出异常
+     */
+    private class MessageWrite extends WriteBehindQueue.PendingWrite {
+        private final String content;
+        private final long timestamp;
+        private final boolean failAfterInsert;
+
+        MessageWrite(String content, long timestamp, boolean failAfterInsert) {
+            this.content = content;
+            this.timestamp = timestamp;
+            this.failAfterInsert = failAfterInsert;
+        }
+
+        @Override
+        boolean apply() {
+            ContentValues values = new ContentValues();
+            values.put(DatabaseHelper.COLUMN_CONTENT, content);
+            values.put(DatabaseHelper.COLUMN_SENDER_TYPE, Message.SENDER_USER);
+            values.put(DatabaseHelper.COLUMN_TIMESTAMP, timestamp);
+            dataManager.getDatabase().insertOrThrow(DatabaseHelper.TABLE_MESSAGES, null, values);
+            if (failAfterInsert) {
+                throw new IllegalStateException("failed after insert");
+            }
+            return true;
+        }
+    }
+}
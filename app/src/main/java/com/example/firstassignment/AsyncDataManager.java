@@ -0,0 +1,263 @@
+package com.example.firstassignment;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.core.os.HandlerCompat;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataManager的异步接口：在所有界面共享的后台线程池中执行数据库操作，在主线程中返回结果
+ *
+ * 每个界面通过{@link #bind(LifecycleOwner, DataManager)}得到一个实例，实例跟随界面的生命周期：
+ * 界面销毁时取消所有还没有执行的操作，已经在执行的操作完成后不再回调（不会在已销毁的界面上更新UI）。
+ * 线程池的线程数和等待队列都有上限，队列满时新的操作不会阻塞主线程，而是通过错误回调返回
+ * {@link RejectedExecutionException}。
+ * 除操作本身外，所有方法和回调都在主线程中调用。
+ */
+public final class AsyncDataManager implements LifecycleEventObserver {
+    private static final String TAG = "AsyncDataManager";
+    // 共享线程池的线程数：WAL模式下读操作可以并发执行，写操作由SQLite串行执行
+    static final int THREAD_COUNT = 3;
+    // 等待执行的操作数上限
+    static final int QUEUE_CAPACITY = 64;
+    // 空闲线程保留的时间
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static ThreadPoolExecutor sharedExecutor;
+
+    /**
+     * 在后台线程中执行的数据库操作
+     */
+    public interface Query<T> {
+        T run(DataManager dataManager) throws Exception;
+    }
+
+    /**
+     * 操作完成后在主线程中调用的回调
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /**
+     * 操作失败（抛出异常或者等待队列已满）时在主线程中调用的回调
+     */
+    public interface ErrorCallback {
+        void onError(Exception e);
+    }
+
+    private final DataManager dataManager;
+    private final Lifecycle lifecycle;
+    private final Handler mainHandler = HandlerCompat.createAsync(Looper.getMainLooper());
+    private final Set<Task<?>> tasks = Collections.synchronizedSet(new HashSet<Task<?>>());
+    private volatile boolean destroyed;
+
+    /**
+     * 创建跟随界面生命周期的实例（在主线程中调用，通常在onCreate中）
+     * @param owner 界面（Activity）
+     * @param dataManager 界面持有的DataManager，由界面负责在onDestroy中释放
+     */
+    public static AsyncDataManager bind(LifecycleOwner owner, DataManager dataManager) {
+        AsyncDataManager asyncDataManager = new AsyncDataManager(owner.getLifecycle(), dataManager);
+        owner.getLifecycle().addObserver(asyncDataManager);
+        return asyncDataManager;
+    }
+
+    private AsyncDataManager(Lifecycle lifecycle, DataManager dataManager) {
+        this.lifecycle = lifecycle;
+        this.dataManager = dataManager;
+    }
+
+    /**
+     * 同步接口，用于本身不阻塞的操作（例如放入写后队列）
+     */
+    public DataManager getDataManager() {
+        return dataManager;
+    }
+
+    private static synchronized ThreadPoolExecutor executor() {
+        if (sharedExecutor == null) {
+            final AtomicInteger threadNumber = new AtomicInteger(1);
+            sharedExecutor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "DataManager-async-" + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            sharedExecutor.allowCoreThreadTimeOut(true);
+        }
+        return sharedExecutor;
+    }
+
+    /**
+     * 在后台线程中执行操作，不关心结果
+     */
+    public Future<Void> execute(final Query<?> query) {
+        return submit(new Query<Void>() {
+            @Override
+            public Void run(DataManager dataManager) throws Exception {
+                query.run(dataManager);
+                return null;
+            }
+        }, null, null);
+    }
+
+    /**
+     * 在后台线程中执行操作，完成后在主线程中回调结果；失败时只记录日志
+     */
+    public <T> Future<T> submit(Query<T> query, Callback<T> callback) {
+        return submit(query, callback, null);
+    }
+
+    /**
+     * 在后台线程中执行操作，完成后在主线程中回调结果
+     *
+     * 返回的Future被取消或界面已经销毁时不会调用任何回调。
+     * @param callback 成功时的回调（可为null）
+     * @param errorCallback 失败时的回调（可为null，为null时只记录日志）
+     */
+    public <T> Future<T> submit(Query<T> query, Callback<T> callback, ErrorCallback errorCallback) {
+        Task<T> task = new Task<>(query, callback, errorCallback);
+        if (destroyed) {
+            task.cancel(false);
+            return task;
+        }
+        tasks.add(task);
+        try {
+            executor().execute(task);
+        } catch (RejectedExecutionException e) {
+            tasks.remove(task);
+            Log.w(TAG, "Too many pending database operations, rejected one");
+            task.fail(e);
+        }
+        return task;
+    }
+
+    /**
+     * 取消所有还没有完成的操作
+     */
+    public void cancelAll() {
+        List<Task<?>> pending;
+        synchronized (tasks) {
+            pending = new ArrayList<>(tasks);
+            tasks.clear();
+        }
+        ThreadPoolExecutor executor = executor();
+        for (Task<?> task : pending) {
+            // 不中断正在执行的操作：SQLite查询不响应中断，中断只会打断写事务的提交
+            task.cancel(false);
+            executor.remove(task);
+        }
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+
+    @Override
+    public void onStateChanged(LifecycleOwner source, Lifecycle.Event event) {
+        if (event == Lifecycle.Event.ON_DESTROY) {
+            destroyed = true;
+            cancelAll();
+            lifecycle.removeObserver(this);
+        }
+    }
+
+    /**
+     * 一个异步操作：执行完成后把结果交给主线程，主线程中再检查一次是否已经取消或界面已经销毁
+     */
+    private final class Task<T> extends FutureTask<T> {
+        private final Callback<T> callback;
+        private final ErrorCallback errorCallback;
+        // 结果已经计算完成后再取消时FutureTask.isCancelled()仍为false，用这个标记阻止回调
+        private volatile boolean abandoned;
+
+        Task(final Query<T> query, Callback<T> callback, ErrorCallback errorCallback) {
+            super(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    // 界面销毁后操作可能仍在执行，执行期间DataManager不会关闭数据库连接
+                    dataManager.beginOperation();
+                    try {
+                        return query.run(dataManager);
+                    } finally {
+                        dataManager.endOperation();
+                    }
+                }
+            });
+            this.callback = callback;
+            this.errorCallback = errorCallback;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            abandoned = true;
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        protected void done() {
+            tasks.remove(this);
+            if (abandoned || isCancelled()) {
+                return;
+            }
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (abandoned || destroyed) {
+                        return;
+                    }
+                    T result;
+                    try {
+                        result = get();
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        deliverError(cause instanceof Exception ? (Exception) cause : e);
+                        return;
+                    } catch (CancellationException | InterruptedException e) {
+                        return;
+                    }
+                    if (callback != null) {
+                        callback.onResult(result);
+                    }
+                }
+            });
+        }
+
+        /**
+         * 操作没有被执行（等待队列已满），以失败结束
+         */
+        void fail(Exception e) {
+            setException(e);
+        }
+
+        private void deliverError(Exception e) {
+            if (errorCallback != null) {
+                errorCallback.onError(e);
+            } else {
+                Log.e(TAG, "Database operation failed: " + e.getMessage());
+            }
+        }
+    }
+}
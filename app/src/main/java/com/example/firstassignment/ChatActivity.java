@@ -1,5 +1,6 @@
 package com.example.firstassignment;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -30,6 +31,14 @@ public class ChatActivity extends AppCompatActivity {
     private Handler handler;
     private DataManager dataManager;
     private int userId = -1;
+    // 每次加载的历史消息数
+    private static final int PAGE_SIZE = DataManager.DEFAULT_PAGE_SIZE;
+    private AsyncDataManager asyncDataManager;
+    // 已加载的最早一条消息的位置，下一页从它之前开始
+    private long oldestLoadedTimestamp = Long.MAX_VALUE;
+    private int oldestLoadedId = Integer.MAX_VALUE;
+    private boolean loadingPage = false;
+    private boolean hasOlderMessages = true;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -59,19 +68,15 @@ public class ChatActivity extends AppCompatActivity {
                 Log.d(TAG, "Received data: username=" + username + ", userId=" + userId);
             }
 
-            // 初始化DataManager
-            dataManager = new DataManager(this);
+            // 获取共享的DataManager
+            dataManager = DataManager.getInstance(this);
+            asyncDataManager = AsyncDataManager.bind(this, dataManager);
 
             // 初始化RecyclerView
             initRecyclerView();
 
-            // 从数据库加载历史消息
-            loadMessagesFromDatabase();
-
-            // 如果没有历史消息，显示欢迎消息
-            if (chatAdapter.getItemCount() == 0) {
-                showWelcomeMessage();
-            }
+            // 从数据库加载最近的一页历史消息，没有历史消息时显示欢迎消息
+            loadOlderMessages();
 
             // 设置发送按钮点击事件
             sendButton.setOnClickListener(new View.OnClickListener() {
@@ -115,22 +120,59 @@ public class ChatActivity extends AppCompatActivity {
 
         // 自动滚动到底部
         messageRecyclerView.scrollToPosition(chatAdapter.getItemCount() - 1);
+
+        // 滚动到顶部时加载更早的消息
+        messageRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy < 0 && !recyclerView.canScrollVertically(-1)) {
+                    loadOlderMessages();
+                }
+            }
+        });
     }
 
     /**
-     * 从数据库加载历史消息
+     * 在后台线程中从数据库加载一页更早的历史消息
      */
-    private void loadMessagesFromDatabase() {
-        if (dataManager != null && userId != -1) {
-            List<Message> messages = dataManager.getAllMessages(userId);
-            if (messages != null && !messages.isEmpty()) {
-                for (Message message : messages) {
-                    chatAdapter.addMessage(message);
+    private void loadOlderMessages() {
+        if (loadingPage || !hasOlderMessages) {
+            return;
+        }
+        if (dataManager == null || userId == -1) {
+            hasOlderMessages = false;
+            showWelcomeMessage();
+            return;
+        }
+        loadingPage = true;
+
+        final boolean firstPage = oldestLoadedTimestamp == Long.MAX_VALUE;
+        final long beforeTimestamp = oldestLoadedTimestamp;
+        final int beforeId = oldestLoadedId;
+        asyncDataManager.submit(dm -> dm.getMessagesPage(userId, beforeTimestamp, beforeId, PAGE_SIZE), messages -> {
+            loadingPage = false;
+            hasOlderMessages = messages.size() == PAGE_SIZE;
+            if (!messages.isEmpty()) {
+                Message oldest = messages.get(0);
+                oldestLoadedTimestamp = oldest.getTimestamp();
+                oldestLoadedId = oldest.getId();
+                chatAdapter.addOlderMessages(messages);
+            }
+
+            if (firstPage) {
+                if (chatAdapter.getItemCount() == 0) {
+                    // 如果没有历史消息，显示欢迎消息
+                    showWelcomeMessage();
+                } else {
+                    // 自动滚动到底部
+                    messageRecyclerView.scrollToPosition(chatAdapter.getItemCount() - 1);
                 }
-                // 自动滚动到底部
-                messageRecyclerView.scrollToPosition(chatAdapter.getItemCount() - 1);
             }
-        }
+        }, e -> {
+            // 加载失败时允许下次滚动到顶部时重试
+            Log.e(TAG, "Error loading messages: " + e.getMessage());
+            loadingPage = false;
+        });
     }
 
     /**
@@ -141,9 +183,9 @@ public class ChatActivity extends AppCompatActivity {
         Message message = new Message(welcomeMessage, Message.SENDER_AI);
         chatAdapter.addMessage(message);
 
-        // 保存到数据库
+        // 放入写后队列，在后台线程中保存到数据库
         if (dataManager != null && userId != -1) {
-            dataManager.addMessage(message.getContent(), message.getSenderType(), userId);
+            dataManager.addMessageAsync(message.getContent(), message.getSenderType(), userId);
         }
 
         // 自动滚动到底部
@@ -160,9 +202,9 @@ public class ChatActivity extends AppCompatActivity {
             Message userMessage = new Message(content, Message.SENDER_USER);
             chatAdapter.addMessage(userMessage);
 
-            // 保存到数据库
+            // 放入写后队列，在后台线程中保存到数据库
             if (dataManager != null && userId != -1) {
-                dataManager.addMessage(userMessage.getContent(), userMessage.getSenderType(), userId);
+                dataManager.addMessageAsync(userMessage.getContent(), userMessage.getSenderType(), userId);
             }
 
             // 清空输入框
@@ -189,9 +231,9 @@ public class ChatActivity extends AppCompatActivity {
                 Message aiMessage = new Message(aiResponse, Message.SENDER_AI);
                 chatAdapter.addMessage(aiMessage);
 
-                // 保存到数据库
+                // 放入写后队列，在后台线程中保存到数据库
                 if (dataManager != null && userId != -1) {
-                    dataManager.addMessage(aiMessage.getContent(), aiMessage.getSenderType(), userId);
+                    dataManager.addMessageAsync(aiMessage.getContent(), aiMessage.getSenderType(), userId);
                 }
 
                 // 自动滚动到底部
@@ -229,10 +271,20 @@ public class ChatActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // 离开页面时立即提交尚未写入的聊天消息
+        if (dataManager != null) {
+            dataManager.flushPendingWrites();
+        }
+    }
+
     @Override
     protected void onDestroy() {
+        // 尚未送达的分页结果由AsyncDataManager在界面销毁时丢弃
         super.onDestroy();
-        // 关闭数据库连接
+        // 释放对共享数据库的引用
         if (dataManager != null) {
             dataManager.close();
         }
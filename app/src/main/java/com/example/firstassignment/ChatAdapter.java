@@ -48,6 +48,18 @@ public class ChatAdapter extends RecyclerView.Adapter<ChatAdapter.ChatViewHolder
         notifyItemInserted(messageList.size() - 1);
     }
 
+    /**
+     * 在列表开头插入更早的消息（分页加载历史消息时使用）
+     * @param messages 按时间先后排列的消息
+     */
+    public void addOlderMessages(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        messageList.addAll(0, messages);
+        notifyItemRangeInserted(0, messages.size());
+    }
+
     /**
      * 设置用户头像
      * @param avatarResource 头像资源ID
@@ -4,36 +4,250 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * 数据管理器，封装对数据库的增删查改操作
+ *
+ * 整个进程共享同一个实例：各个Activity通过{@link #getInstance(Context)}获取引用，
+ * 在onDestroy中调用{@link #close()}释放引用。数据库连接在第一次访问时才打开，
+ * 引用计数归零后延迟一段时间再真正关闭，这样页面切换时连接、页缓存和已编译的语句都可以复用。
+ *
+ * 线程安全约定：
+ * <ul>
+ *     <li>所有公开方法都可以在任意线程中并发调用，单个方法内的读或写是原子的；</li>
+ *     <li>默认使用WAL模式：写操作串行地使用唯一的写连接，查询使用只读连接池，
+ *     因此统计查询、单词列表和聊天记录的读取不会被addLearningRecord/addMessage等写操作阻塞，
+ *     读到的总是最近一次已提交的数据；</li>
+ *     <li>调用方把多个方法组合起来（例如先查询再更新）时，组合本身不是原子的；</li>
+ *     <li>数据库操作可能涉及磁盘I/O，应尽量在后台线程中调用（可以使用{@link AsyncDataManager}）；
+ *     可调试的构建中主线程中的调用由{@link MainThreadDbMonitor}记录。</li>
+ * </ul>
  */
 public class DataManager {
     private static final String TAG = "DataManager";
-    private DatabaseHelper dbHelper;
-    private SQLiteDatabase database;
+    // 引用计数归零后延迟关闭数据库的时间（毫秒）
+    private static final long CLOSE_DELAY_MS = 10 * 1000;
+    // 批量导入时每处理多少行让出一次数据库并报告进度
+    private static final int IMPORT_YIELD_INTERVAL = 500;
+    // 分页查询默认的每页行数
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    // 最大的Unicode字符（U+10FFFF），拼接在前缀后面作为范围查询的上界
+    private static final String MAX_CHARACTER = new String(Character.toChars(Character.MAX_CODE_POINT));
+    // 拼写相近的单词与输入之间的最大编辑距离
+    public static final int SIMILAR_WORD_MAX_DISTANCE = 2;
+
+    private static DataManager instance;
+    private static int referenceCount = 0;
+
+    private final DatabaseHelper dbHelper;
+    // 是否为进程共享的实例（测试中创建的独立实例不参与引用计数）
+    private final boolean shared;
+    private volatile SQLiteDatabase database;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final WriteBehindQueue writeQueue = new WriteBehindQueue(this);
+    private final WordCache wordCache = new WordCache();
+    // 单词的内存索引（英文前缀、拼写纠错），第一次使用或调用buildWordIndexes时建立，由wordIndexLock保护
+    private final Object wordIndexLock = new Object();
+    private final WordPrefixIndex prefixIndex = new WordPrefixIndex();
+    private final WordFuzzyIndex fuzzyIndex = new WordFuzzyIndex();
+    private boolean wordIndexesBuilt = false;
+    // 已存在用户名的布隆过滤器，第一次检查用户名或调用buildUsernameFilter时建立，由自身的锁保护
+    private final Object usernameFilterLock = new Object();
+    private UsernameBloomFilter usernameFilter;
+    // 学习统计快照的缓存，按用户的学习数据版本失效，由statisticsLock保护
+    private final Object statisticsLock = new Object();
+    private final Map<Integer, StatisticsSnapshot> statisticsSnapshots = new HashMap<>();
+    private final Map<Integer, Long> learningDataVersions = new HashMap<>();
+    // 没有单独记录版本的用户的版本；所有版本号取自同一个递增的计数器，不会重复
+    private long baseLearningDataVersion = 0;
+    private long learningDataVersionCounter = 0;
+    // 正在执行的后台操作数（见beginOperation），由DataManager.class保护，大于0时不关闭数据库
+    private int activeOperations = 0;
+    // 延迟关闭时还有正在执行的后台操作，最后一个操作结束后再尝试关闭
+    private boolean closeDeferred = false;
+    private final Runnable closeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // 先提交队列中的写操作，再在写线程中关闭数据库
+            writeQueue.runAfterFlush(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (DataManager.class) {
+                        if (referenceCount != 0 || writeQueue.getPendingCount() != 0) {
+                            return;
+                        }
+                        if (activeOperations > 0) {
+                            // 不能在写线程中等待：后台操作可能正在等待写后队列提交（例如deleteUser）
+                            closeDeferred = true;
+                            return;
+                        }
+                        closeDatabase();
+                    }
+                }
+            });
+        }
+    };
 
-    public DataManager(Context context) {
+    DataManager(Context context) {
         dbHelper = new DatabaseHelper(context);
-        database = dbHelper.getWritableDatabase();
+        shared = true;
+        // 系统内存紧张时缩小单词缓存
+        context.registerComponentCallbacks(wordCache);
+    }
+
+    /**
+     * 创建一个使用默认存储模式的独立数据管理器（不共享、不参与引用计数），主要用于测试
+     * @param context 上下文
+     * @param databaseName 数据库文件名
+     */
+    DataManager(Context context, String databaseName) {
+        dbHelper = new DatabaseHelper(context, databaseName);
+        shared = false;
+    }
+
+    /**
+     * 创建一个独立的数据管理器（不共享、不参与引用计数），主要用于测试
+     * @param context 上下文
+     * @param databaseName 数据库文件名
+     * @param storageMode 存储模式
+     */
+    DataManager(Context context, String databaseName, DatabaseHelper.StorageMode storageMode) {
+        dbHelper = new DatabaseHelper(context, databaseName, storageMode);
+        shared = false;
+    }
+
+    /**
+     * 获取共享的数据管理器，并增加一次引用
+     * @param context 上下文（内部只保存ApplicationContext）
+     * @return 进程内唯一的数据管理器
+     */
+    public static DataManager getInstance(Context context) {
+        synchronized (DataManager.class) {
+            if (instance == null) {
+                Context appContext = context.getApplicationContext();
+                // 可调试的构建中记录主线程中的数据库调用
+                instance = MainThreadDbMonitor.isEnabledFor(appContext)
+                        ? new MonitoredDataManager(appContext, MainThreadDbMonitor.install(appContext))
+                        : new DataManager(appContext);
+            }
+            referenceCount++;
+            instance.mainHandler.removeCallbacks(instance.closeRunnable);
+            instance.closeDeferred = false;
+            return instance;
+        }
+    }
+
+    /**
+     * 获取数据库连接，第一次调用时才真正打开数据库
+     */
+    SQLiteDatabase getDatabase() {
+        SQLiteDatabase db = database;
+        if (db == null || !db.isOpen()) {
+            synchronized (this) {
+                db = database;
+                if (db == null || !db.isOpen()) {
+                    db = dbHelper.getWritableDatabase();
+                    database = db;
+                }
+            }
+        }
+        return db;
+    }
+
+    /**
+     * 开始一个后台操作（AsyncDataManager在执行每个操作之前调用）。
+     * 后台操作可能比发起它的界面活得更久，操作结束之前不会关闭数据库连接
+     */
+    void beginOperation() {
+        synchronized (DataManager.class) {
+            activeOperations++;
+        }
+    }
+
+    /**
+     * 后台操作结束，与{@link #beginOperation()}成对调用
+     */
+    void endOperation() {
+        synchronized (DataManager.class) {
+            activeOperations--;
+            if (activeOperations == 0) {
+                DataManager.class.notifyAll();
+                if (closeDeferred) {
+                    closeDeferred = false;
+                    if (referenceCount == 0) {
+                        mainHandler.post(closeRunnable);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取数据库的存储模式
+     */
+    public DatabaseHelper.StorageMode getStorageMode() {
+        return dbHelper.getStorageMode();
     }
 
     /**
-     * 关闭数据库连接
+     * 释放一次引用；所有引用都释放后，延迟关闭数据库连接（还有后台操作在执行时，等它们结束后再关闭）
      */
     public void close() {
+        if (!shared) {
+            writeQueue.flushAndWait();
+            synchronized (DataManager.class) {
+                // 等待正在执行的后台操作结束
+                while (activeOperations > 0) {
+                    try {
+                        DataManager.class.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                closeDatabase();
+            }
+            return;
+        }
+        synchronized (DataManager.class) {
+            if (referenceCount > 0) {
+                referenceCount--;
+            }
+            if (referenceCount == 0) {
+                mainHandler.removeCallbacks(closeRunnable);
+                mainHandler.postDelayed(closeRunnable, CLOSE_DELAY_MS);
+            }
+        }
+    }
+
+    /**
+     * 真正关闭数据库连接
+     */
+    private synchronized void closeDatabase() {
         if (database != null && database.isOpen()) {
             database.close();
         }
-        if (dbHelper != null) {
-            dbHelper.close();
+        database = null;
+        dbHelper.close();
+        onWordsReplaced();
+        synchronized (usernameFilterLock) {
+            usernameFilter = null;
         }
+        // 重新打开时可能按新的时区重新生成统计汇总
+        onAllLearningRecordsChanged();
+        Log.d(TAG, "Database closed");
     }
 
     /**
@@ -43,7 +257,7 @@ public class DataManager {
         Cursor cursor = null;
         try {
             // 检查用户表是否为空
-            cursor = database.rawQuery("SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_USERS, null);
+            cursor = getDatabase().rawQuery("SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_USERS, null);
             if (cursor != null && cursor.moveToFirst()) {
                 int count = cursor.getInt(0);
                 return count == 0;
@@ -68,7 +282,10 @@ public class DataManager {
         values.put(DatabaseHelper.COLUMN_AVATAR, user.getAvatarResource());
 
         try {
-            long result = database.insert(DatabaseHelper.TABLE_USERS, null, values);
+            long result = getDatabase().insert(DatabaseHelper.TABLE_USERS, null, values);
+            if (result != -1) {
+                onUsernameAdded(user.getUsername());
+            }
             return result != -1;
         } catch (Exception e) {
             Log.e(TAG, "Error adding user: " + e.getMessage());
@@ -90,23 +307,9 @@ public class DataManager {
             String query = "SELECT * FROM " + DatabaseHelper.TABLE_USERS +
                     " WHERE " + DatabaseHelper.COLUMN_USERNAME + " = ? AND " +
                     DatabaseHelper.COLUMN_PASSWORD + " = ?";
-            cursor = database.rawQuery(query, new String[]{username, password});
+            cursor = getDatabase().rawQuery(query, new String[]{username, password});
 
-            if (cursor != null && cursor.moveToFirst()) {
-                int idIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_USER_ID);
-                int usernameIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_USERNAME);
-                int passwordIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PASSWORD);
-                int avatarIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_AVATAR);
-
-                if (idIndex != -1 && usernameIndex != -1 && passwordIndex != -1 && avatarIndex != -1) {
-                    int id = cursor.getInt(idIndex);
-                    String dbUsername = cursor.getString(usernameIndex);
-                    String dbPassword = cursor.getString(passwordIndex);
-                    int avatarResource = cursor.getInt(avatarIndex);
-
-                    user = new User(id, dbUsername, dbPassword, avatarResource);
-                }
-            }
+            user = RowMappers.mapFirst(cursor, RowMappers.USER);
         } catch (Exception e) {
             Log.e(TAG, "Error verifying user login: " + e.getMessage());
         } finally {
@@ -130,12 +333,16 @@ public class DataManager {
         values.put(DatabaseHelper.COLUMN_AVATAR, user.getAvatarResource());
 
         try {
-            int result = database.update(
+            int result = getDatabase().update(
                     DatabaseHelper.TABLE_USERS,
                     values,
                     DatabaseHelper.COLUMN_USER_ID + " = ?",
                     new String[]{String.valueOf(user.getId())}
             );
+            if (result > 0) {
+                // 旧的用户名留在过滤器中，检查时由索引查询排除
+                onUsernameAdded(user.getUsername());
+            }
             return result > 0;
         } catch (Exception e) {
             Log.e(TAG, "Error updating user: " + e.getMessage());
@@ -144,22 +351,43 @@ public class DataManager {
     }
 
     /**
-     * 删除用户
+     * 删除用户，并在同一个事务中删除该用户的消息、学习记录、复习历史和学习统计汇总
+     * （表之间没有级联删除）。会等待写后队列提交完成，不要在主线程中调用
      * @param userId 用户ID
      * @return 删除是否成功
      */
     public boolean deleteUser(int userId) {
+        // 先提交队列中该用户的消息和学习记录，避免删除后又被写回
+        writeQueue.flushAndWait();
+
+        boolean deleted = false;
         try {
-            int result = database.delete(
-                    DatabaseHelper.TABLE_USERS,
-                    DatabaseHelper.COLUMN_USER_ID + " = ?",
-                    new String[]{String.valueOf(userId)}
-            );
-            return result > 0;
+            SQLiteDatabase db = getDatabase();
+            String[] args = new String[]{String.valueOf(userId)};
+            db.beginTransactionNonExclusive();
+            try {
+                db.delete(DatabaseHelper.TABLE_MESSAGES, DatabaseHelper.COLUMN_USER_ID_FK + " = ?", args);
+                db.delete(DatabaseHelper.TABLE_REVIEW_HISTORY, DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?", args);
+                db.delete(DatabaseHelper.TABLE_LEARNING_RECORDS, DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?", args);
+                for (StatsResolution resolution : StatsResolution.values()) {
+                    db.delete(resolution.getTableName(), DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?", args);
+                }
+                deleted = db.delete(DatabaseHelper.TABLE_USERS, DatabaseHelper.COLUMN_USER_ID + " = ?", args) > 0;
+                if (deleted) {
+                    db.setTransactionSuccessful();
+                }
+            } finally {
+                db.endTransaction();
+            }
         } catch (Exception e) {
             Log.e(TAG, "Error deleting user: " + e.getMessage());
-            return false;
+            deleted = false;
+        }
+
+        if (deleted) {
+            onLearningRecordsChanged(userId);
         }
+        return deleted;
     }
 
     /**
@@ -177,289 +405,1122 @@ public class DataManager {
         values.put(DatabaseHelper.COLUMN_CATEGORY, category);
         values.put(DatabaseHelper.COLUMN_EXAMPLE, example);
 
+        SQLiteDatabase db = getDatabase();
+        long result = -1;
+        db.beginTransactionNonExclusive();
         try {
-            long result = database.insert(DatabaseHelper.TABLE_WORDS, null, values);
-            return result != -1;
+            // 单词和它的全文索引在同一个事务中写入
+            result = db.insert(DatabaseHelper.TABLE_WORDS, null, values);
+            if (result != -1) {
+                WordSearchIndex.index(db, result, word, translation, example);
+            }
+            db.setTransactionSuccessful();
         } catch (Exception e) {
             Log.e(TAG, "Error adding word: " + e.getMessage());
-            return false;
+            result = -1;
+        } finally {
+            db.endTransaction();
         }
+
+        if (result != -1) {
+            onWordAdded(new Word((int) result, word, translation, category, example));
+        }
+        return result != -1;
     }
 
     /**
-     * 获取所有单词
-     * @return 单词列表
+     * 批量导入的进度回调（在执行导入的线程中调用）
      */
-    public List<Word> getAllWords() {
-        List<Word> wordList = new ArrayList<>();
-        Cursor cursor = null;
+    public interface ImportProgressListener {
+        /**
+         * @param imported 已导入的单词数
+         * @param total 单词总数，未知时为-1
+         */
+        void onProgress(int imported, int total);
+    }
+
+    /**
+     * 批量添加单词
+     * @param words 单词列表
+     * @param listener 进度回调（可为null）
+     * @return 成功导入的单词数
+     */
+    public int addWords(List<Word> words, ImportProgressListener listener) {
+        return addWords(words.iterator(), words.size(), listener);
+    }
 
+    /**
+     * 批量添加单词：在一个事务中复用同一条预编译语句逐行插入，
+     * 每处理{@link #IMPORT_YIELD_INTERVAL}行检查一次是否有其他线程在等待写连接，有则先提交再继续，
+     * 避免长时间阻塞其他写操作（因此出错时只会回滚最后一次让出之后的部分）
+     * @param words 单词迭代器
+     * @param total 单词总数，未知时传-1
+     * @param listener 进度回调（可为null）
+     * @return 成功导入的单词数
+     */
+    public int addWords(Iterator<Word> words, int total, ImportProgressListener listener) {
+        SQLiteDatabase db = getDatabase();
+        int imported = 0;
+        int processed = 0;
+        // 让出数据库时会提交当前事务，记录已经提交的行数
+        int committed = 0;
+
+        db.beginTransactionNonExclusive();
+        SQLiteStatement statement = null;
+        SQLiteStatement indexStatement = null;
         try {
-            String query = "SELECT * FROM " + DatabaseHelper.TABLE_WORDS;
-            cursor = database.rawQuery(query, null);
+            statement = db.compileStatement(DatabaseHelper.INSERT_WORD);
+            indexStatement = WordSearchIndex.compileInsert(db);
+            while (words.hasNext()) {
+                Word word = words.next();
+                processed++;
+
+                if (word != null && word.getWord() != null && !word.getWord().isEmpty()) {
+                    statement.clearBindings();
+                    statement.bindString(1, word.getWord());
+                    statement.bindString(2, nonNull(word.getTranslation()));
+                    statement.bindString(3, nonNull(word.getCategory()));
+                    statement.bindString(4, nonNull(word.getExample()));
+                    long id = statement.executeInsert();
+                    if (id != -1) {
+                        WordSearchIndex.bind(indexStatement, id, word.getWord(), word.getTranslation(),
+                                word.getExample());
+                        word.setId((int) id);
+                        imported++;
+                    }
+                }
 
-            if (cursor != null && cursor.moveToFirst()) {
-                do {
-                    int wordIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_WORD);
-                    int translationIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_TRANSLATION);
-                    int categoryIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_CATEGORY);
-                    int exampleIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_EXAMPLE);
-
-                    if (wordIndex != -1 && translationIndex != -1 && categoryIndex != -1 && exampleIndex != -1) {
-                        int id = cursor.getInt(cursor.getColumnIndex(DatabaseHelper.COLUMN_WORD_ID));
-                        String word = cursor.getString(wordIndex);
-                        String translation = cursor.getString(translationIndex);
-                        String category = cursor.getString(categoryIndex);
-                        String example = cursor.getString(exampleIndex);
-
-                        wordList.add(new Word(id, word, translation, category, example));
+                if (processed % IMPORT_YIELD_INTERVAL == 0) {
+                    if (db.yieldIfContendedSafely()) {
+                        committed = imported;
                     }
-                } while (cursor.moveToNext());
+                    if (listener != null) {
+                        listener.onProgress(imported, total);
+                    }
+                }
             }
+            db.setTransactionSuccessful();
         } catch (Exception e) {
-            Log.e(TAG, "Error getting all words: " + e.getMessage());
+            Log.e(TAG, "Error importing words: " + e.getMessage());
+            imported = committed;
         } finally {
-            if (cursor != null) {
-                cursor.close();
+            if (statement != null) {
+                statement.close();
             }
+            if (indexStatement != null) {
+                indexStatement.close();
+            }
+            db.endTransaction();
+            // 让出数据库时可能已经提交了一部分，无论成功与否都使缓存和内存索引失效
+            onWordsReplaced();
         }
 
-        return wordList;
+        if (listener != null) {
+            listener.onProgress(imported, total);
+        }
+        return imported;
     }
 
     /**
-     * 更新单词
-     * @param wordId 单词ID
-     * @param word 英文单词
-     * @param translation 中文翻译
-     * @param category 单词类别
-     * @param example 例句
-     * @return 更新是否成功
+     * 导入单词包中的一批单词：跳过数据库中已存在的单词（英文和翻译都相同），
+     * 并在同一个事务中保存该单词包的导入进度，保证进度与已写入的数据一致
+     * @param sourceId 单词包标识
+     * @param chunk 这一批单词
+     * @param recordsConsumed 包括这一批在内，单词包中已处理的记录数
+     * @param completed 单词包是否已全部处理
+     * @return 实际插入的单词数，失败时返回-1
      */
-    public boolean updateWord(int wordId, String word, String translation, String category, String example) {
-        ContentValues values = new ContentValues();
-        values.put(DatabaseHelper.COLUMN_WORD, word);
-        values.put(DatabaseHelper.COLUMN_TRANSLATION, translation);
-        values.put(DatabaseHelper.COLUMN_CATEGORY, category);
-        values.put(DatabaseHelper.COLUMN_EXAMPLE, example);
-
+    int importWordChunk(String sourceId, List<Word> chunk, long recordsConsumed, boolean completed) {
+        SQLiteDatabase db = getDatabase();
+        int inserted = 0;
+        // 这一批中实际插入的单词，事务提交后增量更新缓存和内存索引
+        List<Word> added = new ArrayList<>();
+
+        db.beginTransactionNonExclusive();
+        SQLiteStatement statement = null;
+        SQLiteStatement lastInsertId = null;
+        SQLiteStatement indexStatement = null;
         try {
-            int result = database.update(
-                    DatabaseHelper.TABLE_WORDS,
-                    values,
-                    DatabaseHelper.COLUMN_WORD_ID + " = ?",
-                    new String[]{String.valueOf(wordId)}
-            );
-            return result > 0;
+            lastInsertId = db.compileStatement("SELECT last_insert_rowid()");
+            indexStatement = WordSearchIndex.compileInsert(db);
+            statement = db.compileStatement("INSERT INTO " + DatabaseHelper.TABLE_WORDS + "(" +
+                    DatabaseHelper.COLUMN_WORD + ", " + DatabaseHelper.COLUMN_TRANSLATION + ", " +
+                    DatabaseHelper.COLUMN_CATEGORY + ", " + DatabaseHelper.COLUMN_EXAMPLE + ") " +
+                    "SELECT ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM " + DatabaseHelper.TABLE_WORDS +
+                    " WHERE " + DatabaseHelper.COLUMN_WORD + " = ? AND " + DatabaseHelper.COLUMN_TRANSLATION + " = ?)");
+            for (Word word : chunk) {
+                statement.clearBindings();
+                statement.bindString(1, word.getWord());
+                statement.bindString(2, nonNull(word.getTranslation()));
+                statement.bindString(3, nonNull(word.getCategory()));
+                statement.bindString(4, nonNull(word.getExample()));
+                statement.bindString(5, word.getWord());
+                statement.bindString(6, nonNull(word.getTranslation()));
+                if (statement.executeUpdateDelete() > 0) {
+                    long id = lastInsertId.simpleQueryForLong();
+                    WordSearchIndex.bind(indexStatement, id, word.getWord(), word.getTranslation(), word.getExample());
+                    added.add(new Word((int) id, word.getWord(), nonNull(word.getTranslation()),
+                            nonNull(word.getCategory()), nonNull(word.getExample())));
+                    inserted++;
+                }
+            }
+
+            // 保存导入进度
+            db.execSQL("INSERT OR REPLACE INTO " + DatabaseHelper.TABLE_IMPORT_PROGRESS + "(" +
+                            DatabaseHelper.COLUMN_IMPORT_SOURCE + ", " + DatabaseHelper.COLUMN_IMPORT_RECORDS + ", " +
+                            DatabaseHelper.COLUMN_IMPORT_INSERTED + ", " + DatabaseHelper.COLUMN_IMPORT_COMPLETED + ", " +
+                            DatabaseHelper.COLUMN_IMPORT_UPDATED_AT + ") VALUES (?, ?, " +
+                            "COALESCE((SELECT " + DatabaseHelper.COLUMN_IMPORT_INSERTED + " FROM " +
+                            DatabaseHelper.TABLE_IMPORT_PROGRESS + " WHERE " + DatabaseHelper.COLUMN_IMPORT_SOURCE +
+                            " = ?), 0) + ?, ?, ?)",
+                    new Object[]{sourceId, recordsConsumed, sourceId, inserted, completed ? 1 : 0,
+                            System.currentTimeMillis()});
+            db.setTransactionSuccessful();
         } catch (Exception e) {
-            Log.e(TAG, "Error updating word: " + e.getMessage());
-            return false;
+            Log.e(TAG, "Error importing word chunk: " + e.getMessage());
+            inserted = -1;
+        } finally {
+            if (statement != null) {
+                statement.close();
+            }
+            if (lastInsertId != null) {
+                lastInsertId.close();
+            }
+            if (indexStatement != null) {
+                indexStatement.close();
+            }
+            db.endTransaction();
+        }
+
+        // 每一批都会调用，不能清空缓存和内存索引（否则每批之后都要整体重建），只增量加入新单词
+        if (inserted > 0) {
+            onWordsAdded(added);
         }
+
+        return inserted;
     }
 
     /**
-     * 删除单词
-     * @param wordId 单词ID
-     * @return 删除是否成功
+     * 获取单词包已处理的记录数（用于断点续传）
+     * @param sourceId 单词包标识
+     * @return 已处理的记录数，没有导入过时返回0
      */
-    public boolean deleteWord(int wordId) {
+    public long getImportProgress(String sourceId) {
+        Cursor cursor = null;
         try {
-            int result = database.delete(
-                    DatabaseHelper.TABLE_WORDS,
-                    DatabaseHelper.COLUMN_WORD_ID + " = ?",
-                    new String[]{String.valueOf(wordId)}
-            );
-            return result > 0;
+            cursor = getDatabase().rawQuery("SELECT " + DatabaseHelper.COLUMN_IMPORT_RECORDS + " FROM " +
+                            DatabaseHelper.TABLE_IMPORT_PROGRESS + " WHERE " + DatabaseHelper.COLUMN_IMPORT_SOURCE + " = ?",
+                    new String[]{sourceId});
+            if (cursor != null && cursor.moveToFirst()) {
+                return cursor.getLong(0);
+            }
         } catch (Exception e) {
-            Log.e(TAG, "Error deleting word: " + e.getMessage());
-            return false;
+            Log.e(TAG, "Error getting import progress: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
         }
+        return 0;
     }
 
     /**
-     * 添加聊天消息
-     * @param content 消息内容
-     * @param senderType 发送者类型
-     * @param userId 用户ID（可为null）
-     * @return 添加是否成功
+     * 检查单词包是否已经全部导入
+     * @param sourceId 单词包标识
+     * @return 是否已全部导入
      */
-    public boolean addMessage(String content, int senderType, Integer userId) {
-        ContentValues values = new ContentValues();
-        values.put(DatabaseHelper.COLUMN_CONTENT, content);
-        values.put(DatabaseHelper.COLUMN_SENDER_TYPE, senderType);
-        values.put(DatabaseHelper.COLUMN_TIMESTAMP, System.currentTimeMillis());
-
-        if (userId != null) {
-            values.put(DatabaseHelper.COLUMN_USER_ID_FK, userId);
+    public boolean isImportCompleted(String sourceId) {
+        Cursor cursor = null;
+        try {
+            cursor = getDatabase().rawQuery("SELECT " + DatabaseHelper.COLUMN_IMPORT_COMPLETED + " FROM " +
+                            DatabaseHelper.TABLE_IMPORT_PROGRESS + " WHERE " + DatabaseHelper.COLUMN_IMPORT_SOURCE + " = ?",
+                    new String[]{sourceId});
+            if (cursor != null && cursor.moveToFirst()) {
+                return cursor.getInt(0) != 0;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking import progress: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
         }
+        return false;
+    }
 
+    /**
+     * 清除单词包的导入进度，下次导入时从头开始（已导入的单词仍会被去重）
+     * @param sourceId 单词包标识
+     */
+    public void clearImportProgress(String sourceId) {
         try {
-            long result = database.insert(DatabaseHelper.TABLE_MESSAGES, null, values);
-            return result != -1;
+            getDatabase().delete(DatabaseHelper.TABLE_IMPORT_PROGRESS,
+                    DatabaseHelper.COLUMN_IMPORT_SOURCE + " = ?", new String[]{sourceId});
         } catch (Exception e) {
-            Log.e(TAG, "Error adding message: " + e.getMessage());
-            return false;
+            Log.e(TAG, "Error clearing import progress: " + e.getMessage());
         }
     }
 
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+
     /**
-     * 获取指定用户的所有消息
-     * @param userId 用户ID（可为null，获取所有消息）
-     * @return 消息列表
+     * 获取所有单词（按ID排序），优先使用单词缓存中的快照
+     * @return 单词列表（可以修改列表，但不要修改其中的单词对象）
      */
-    public List<Message> getAllMessages(Integer userId) {
-        List<Message> messageList = new ArrayList<>();
+    public List<Word> getAllWords() {
+        List<Word> cached = wordCache.getSnapshot();
+        if (cached != null) {
+            return new ArrayList<>(cached);
+        }
+
+        List<Word> wordList = new ArrayList<>();
         Cursor cursor = null;
 
         try {
-            String query;
-            String[] params = null;
-
-            if (userId != null) {
-                query = "SELECT * FROM " + DatabaseHelper.TABLE_MESSAGES +
-                        " WHERE " + DatabaseHelper.COLUMN_USER_ID_FK + " = ? ORDER BY " + DatabaseHelper.COLUMN_TIMESTAMP;
-                params = new String[]{String.valueOf(userId)};
-            } else {
-                query = "SELECT * FROM " + DatabaseHelper.TABLE_MESSAGES +
-                        " ORDER BY " + DatabaseHelper.COLUMN_TIMESTAMP;
-            }
-
-            cursor = database.rawQuery(query, params);
+            long cacheVersion = wordCache.getVersion();
+            String query = "SELECT * FROM " + DatabaseHelper.TABLE_WORDS +
+                    " ORDER BY " + DatabaseHelper.COLUMN_WORD_ID;
+            cursor = getDatabase().rawQuery(query, null);
 
-            if (cursor != null && cursor.moveToFirst()) {
-                do {
-                    int contentIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_CONTENT);
-                    int senderTypeIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_SENDER_TYPE);
-                    int timestampIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_TIMESTAMP);
-
-                    if (contentIndex != -1 && senderTypeIndex != -1 && timestampIndex != -1) {
-                        String content = cursor.getString(contentIndex);
-                        int senderType = cursor.getInt(senderTypeIndex);
-                        long timestamp = cursor.getLong(timestampIndex);
-
-                        Message message = new Message(content, senderType);
-                        message.setTimestamp(timestamp);
-                        messageList.add(message);
-                    }
-                } while (cursor.moveToNext());
-            }
+            wordList = RowMappers.mapAll(cursor, RowMappers.WORD);
+            wordCache.putSnapshot(wordList, cacheVersion);
         } catch (Exception e) {
-            Log.e(TAG, "Error getting all messages: " + e.getMessage());
+            Log.e(TAG, "Error getting all words: " + e.getMessage());
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
         }
 
-        return messageList;
+        return wordList;
     }
 
     /**
-     * 根据ID获取用户
-     * @param userId 用户ID
-     * @return 用户对象，如果不存在则返回null
+     * 按ID顺序分页获取单词（键集分页，只扫描需要的行），单词缓存中有快照时直接从快照中截取
+     * @param afterId 上一页最后一个单词的ID，获取第一页时传0
+     * @param limit 每页行数
+     * @return 单词列表，少于limit行时表示没有更多数据
      */
-    public User getUserById(int userId) {
-        User user = null;
+    public List<Word> getWordsPage(int afterId, int limit) {
+        List<Word> cached = wordCache.getSnapshotPage(afterId, limit);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<Word> wordList = new ArrayList<>();
         Cursor cursor = null;
 
         try {
-            String query = "SELECT * FROM " + DatabaseHelper.TABLE_USERS +
-                    " WHERE " + DatabaseHelper.COLUMN_USER_ID + " = ?";
-            cursor = database.rawQuery(query, new String[]{String.valueOf(userId)});
+            String query = "SELECT * FROM " + DatabaseHelper.TABLE_WORDS +
+                    " WHERE " + DatabaseHelper.COLUMN_WORD_ID + " > ?" +
+                    " ORDER BY " + DatabaseHelper.COLUMN_WORD_ID + " LIMIT ?";
+            cursor = getDatabase().rawQuery(query, new String[]{String.valueOf(afterId), String.valueOf(limit)});
 
-            if (cursor != null && cursor.moveToFirst()) {
-                int idIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_USER_ID);
-                int usernameIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_USERNAME);
-                int passwordIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PASSWORD);
-                int avatarIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_AVATAR);
-
-                if (idIndex != -1 && usernameIndex != -1 && passwordIndex != -1 && avatarIndex != -1) {
-                    int id = cursor.getInt(idIndex);
-                    String dbUsername = cursor.getString(usernameIndex);
-                    String dbPassword = cursor.getString(passwordIndex);
-                    int avatarResource = cursor.getInt(avatarIndex);
-
-                    user = new User(id, dbUsername, dbPassword, avatarResource);
-                }
-            }
+            wordList = RowMappers.mapAll(cursor, RowMappers.WORD);
         } catch (Exception e) {
-            Log.e(TAG, "Error getting user by id: " + e.getMessage());
+            Log.e(TAG, "Error getting words page: " + e.getMessage());
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
         }
 
-        return user;
+        return wordList;
     }
 
     /**
-     * 获取所有用户
-     * @return 用户列表
+     * 按ID顺序获取所有单词的ID（只读主键，不读取单词内容），用于复习会话按需读取单词
+     * @return 单词ID数组
      */
-    public List<User> getAllUsers() {
-        List<User> userList = new ArrayList<>();
+    public int[] getAllWordIds() {
         Cursor cursor = null;
-
         try {
-            String query = "SELECT * FROM " + DatabaseHelper.TABLE_USERS;
-            cursor = database.rawQuery(query, null);
-
-            if (cursor != null && cursor.moveToFirst()) {
-                do {
-                    int idIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_USER_ID);
-                    int usernameIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_USERNAME);
-                    int passwordIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_PASSWORD);
-                    int avatarIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_AVATAR);
-
-                    if (idIndex != -1 && usernameIndex != -1 && passwordIndex != -1 && avatarIndex != -1) {
-                        int id = cursor.getInt(idIndex);
-                        String dbUsername = cursor.getString(usernameIndex);
-                        String dbPassword = cursor.getString(passwordIndex);
-                        int avatarResource = cursor.getInt(avatarIndex);
-
-                        userList.add(new User(id, dbUsername, dbPassword, avatarResource));
-                    }
-                } while (cursor.moveToNext());
-            }
+            cursor = getDatabase().rawQuery("SELECT " + DatabaseHelper.COLUMN_WORD_ID + " FROM " +
+                    DatabaseHelper.TABLE_WORDS + " ORDER BY " + DatabaseHelper.COLUMN_WORD_ID, null);
+            return readIds(cursor);
         } catch (Exception e) {
-            Log.e(TAG, "Error getting all users: " + e.getMessage());
+            Log.e(TAG, "Error getting word ids: " + e.getMessage());
+            return new int[0];
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
         }
-
-        return userList;
     }
 
     /**
-     * 添加学习记录
-     * @param learningRecord 学习记录对象
-     * @return 添加是否成功
+     * 根据ID获取单词，优先使用单词缓存
+     * @param wordId 单词ID
+     * @return 单词对象（不要修改），如果不存在则返回null
      */
-    public boolean addLearningRecord(LearningRecord learningRecord) {
-        ContentValues values = new ContentValues();
-        values.put(DatabaseHelper.COLUMN_RECORD_USER_ID, learningRecord.getUserId());
-        values.put(DatabaseHelper.COLUMN_RECORD_WORD_ID, learningRecord.getWordId());
-        values.put(DatabaseHelper.COLUMN_RECORD_SCORE, learningRecord.getScore());
-        values.put(DatabaseHelper.COLUMN_TIMESTAMP, learningRecord.getTimestamp());
-        values.put(DatabaseHelper.COLUMN_RECORD_STATUS, learningRecord.getStatus());
-        values.put(DatabaseHelper.COLUMN_RECORD_REVIEW_COUNT, learningRecord.getReviewCount());
+    public Word getWordById(int wordId) {
+        Word word = wordCache.get(wordId);
+        if (word != null) {
+            return word;
+        }
 
+        Cursor cursor = null;
         try {
-            long result = database.insert(DatabaseHelper.TABLE_LEARNING_RECORDS, null, values);
-            return result != -1;
+            long cacheVersion = wordCache.getVersion();
+            String query = "SELECT * FROM " + DatabaseHelper.TABLE_WORDS +
+                    " WHERE " + DatabaseHelper.COLUMN_WORD_ID + " = ?";
+            cursor = getDatabase().rawQuery(query, new String[]{String.valueOf(wordId)});
+
+            word = RowMappers.mapFirst(cursor, RowMappers.WORD);
+            if (word != null) {
+                wordCache.put(word, cacheVersion);
+            }
         } catch (Exception e) {
-            Log.e(TAG, "Error adding learning record: " + e.getMessage());
-            return false;
+            Log.e(TAG, "Error getting word by id: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
         }
+
+        return word;
     }
 
     /**
-     * 更新学习记录
-     * @param learningRecord 学习记录对象
+     * 搜索单词：英文单词按前缀匹配，中文翻译和例句按子串匹配（多个关键词之间是AND关系）
+     *
+     * 使用全文索引查找，结果按相关度排序：英文完全相同、英文以关键词开头、翻译包含关键词、其他（例句匹配），
+     * 相关度相同时较短的单词排在前面。
+     * @param query 搜索关键词
+     * @param limit 最多返回的结果数
+     * @return 单词列表，关键词为空时返回空列表
+     */
+    public List<Word> searchWords(String query, int limit) {
+        List<Word> wordList = new ArrayList<>();
+        String match = WordSearchIndex.toMatchQuery(query);
+        if (match == null) {
+            return wordList;
+        }
+
+        String trimmed = query.trim();
+        Cursor cursor = null;
+        try {
+            String sql = "SELECT w.* FROM " + DatabaseHelper.TABLE_WORDS_FTS + " f" +
+                    " JOIN " + DatabaseHelper.TABLE_WORDS + " w ON w." + DatabaseHelper.COLUMN_WORD_ID + " = f.docid" +
+                    " WHERE " + DatabaseHelper.TABLE_WORDS_FTS + " MATCH ?" +
+                    " ORDER BY CASE" +
+                    " WHEN w." + DatabaseHelper.COLUMN_WORD + " = ? COLLATE NOCASE THEN 0" +
+                    " WHEN w." + DatabaseHelper.COLUMN_WORD + " LIKE ? ESCAPE '\\' THEN 1" +
+                    " WHEN instr(w." + DatabaseHelper.COLUMN_TRANSLATION + ", ?) > 0 THEN 2" +
+                    " ELSE 3 END, length(w." + DatabaseHelper.COLUMN_WORD + "), w." + DatabaseHelper.COLUMN_WORD +
+                    " LIMIT ?";
+            cursor = getDatabase().rawQuery(sql, new String[]{match, trimmed, escapeLike(trimmed) + "%",
+                    trimmed, String.valueOf(limit)});
+
+            wordList = RowMappers.mapAll(cursor, RowMappers.WORD);
+        } catch (Exception e) {
+            Log.e(TAG, "Error searching words: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return wordList;
+    }
+
+    /**
+     * 按中文翻译反查英文单词（例如"学习"查到learn和study），翻译按子串匹配
+     *
+     * 先用全文索引中翻译列的单字和相邻两字找出候选，再要求翻译中包含整个关键词，
+     * 结果按相关度排序：翻译完全相同、翻译以关键词开头、其他，
+     * 相关度相同时翻译较短的单词排在前面。
+     * @param translation 中文翻译或其中的一部分
+     * @param limit 最多返回的结果数
+     * @return 单词列表，关键词为空时返回空列表
+     */
+    public List<Word> findWordsByTranslation(String translation, int limit) {
+        List<Word> wordList = new ArrayList<>();
+        String match = WordSearchIndex.toMatchQuery(translation, DatabaseHelper.COLUMN_TRANSLATION);
+        if (match == null) {
+            return wordList;
+        }
+
+        String trimmed = translation.trim();
+        Cursor cursor = null;
+        try {
+            String sql = "SELECT w.* FROM " + DatabaseHelper.TABLE_WORDS_FTS + " f" +
+                    " JOIN " + DatabaseHelper.TABLE_WORDS + " w ON w." + DatabaseHelper.COLUMN_WORD_ID + " = f.docid" +
+                    " WHERE " + DatabaseHelper.TABLE_WORDS_FTS + " MATCH ?" +
+                    " AND instr(w." + DatabaseHelper.COLUMN_TRANSLATION + ", ?) > 0" +
+                    " ORDER BY CASE" +
+                    " WHEN w." + DatabaseHelper.COLUMN_TRANSLATION + " = ? THEN 0" +
+                    " WHEN w." + DatabaseHelper.COLUMN_TRANSLATION + " LIKE ? ESCAPE '\\' THEN 1" +
+                    " ELSE 2 END, length(w." + DatabaseHelper.COLUMN_TRANSLATION + "), w." + DatabaseHelper.COLUMN_WORD +
+                    " LIMIT ?";
+            cursor = getDatabase().rawQuery(sql, new String[]{match, trimmed, trimmed, escapeLike(trimmed) + "%",
+                    String.valueOf(limit)});
+
+            wordList = RowMappers.mapAll(cursor, RowMappers.WORD);
+        } catch (Exception e) {
+            Log.e(TAG, "Error looking up words by translation: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return wordList;
+    }
+
+    /**
+     * 转义LIKE模式中的通配符（使用反斜杠作为转义字符）
+     */
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * 按英文前缀搜索单词（不区分大小写），使用内存中的前缀索引，适合边输入边搜索。
+     * 第一次调用时从数据库加载所有单词建立索引，之后单词的增删改会增量更新索引。
+     * @param prefix 英文前缀
+     * @param limit 最多返回的结果数
+     * @return 单词列表（按英文字母顺序，不要修改其中的单词对象）
+     */
+    public List<Word> searchWordsByPrefix(String prefix, int limit) {
+        ensureWordIndexes();
+        return prefixIndex.search(prefix, limit);
+    }
+
+    /**
+     * 查找与输入拼写相近的单词，用于搜索不到时提示"你是不是要找"。
+     * 使用内存中的模糊查找索引（按长度分桶、先用字母位掩码过滤再计算编辑距离），
+     * 按编辑距离从小到大排列，距离不超过{@link #SIMILAR_WORD_MAX_DISTANCE}。
+     * @param query 用户输入的英文
+     * @param limit 最多返回的结果数
+     * @return 单词列表（不要修改其中的单词对象）
+     */
+    public List<Word> findSimilarWords(String query, int limit) {
+        ensureWordIndexes();
+        return fuzzyIndex.search(query, SIMILAR_WORD_MAX_DISTANCE, limit);
+    }
+
+    /**
+     * 建立单词的内存索引（已经建立时直接返回）。应用启动时在后台线程中调用，
+     * 之后的第一次搜索不需要等待建立索引
+     */
+    public void buildWordIndexes() {
+        long start = System.currentTimeMillis();
+        ensureWordIndexes();
+        Log.d(TAG, "Word indexes ready in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * 还没有建立单词的内存索引时，从数据库加载所有单词建立索引
+     */
+    private void ensureWordIndexes() {
+        synchronized (wordIndexLock) {
+            if (!wordIndexesBuilt) {
+                List<Word> allWords = getAllWords();
+                prefixIndex.rebuild(allWords);
+                fuzzyIndex.rebuild(allWords);
+                wordIndexesBuilt = true;
+            }
+        }
+    }
+
+    /**
+     * 单词已添加（事务提交后调用），同步更新缓存和内存索引
+     */
+    private void onWordAdded(Word word) {
+        wordCache.invalidateSnapshot();
+        synchronized (wordIndexLock) {
+            if (wordIndexesBuilt) {
+                prefixIndex.put(word);
+                fuzzyIndex.put(word);
+            }
+        }
+    }
+
+    /**
+     * 一批单词已添加（事务提交后调用），只使快照失效一次，并把新单词加入已建立的内存索引
+     */
+    private void onWordsAdded(List<Word> words) {
+        wordCache.invalidateSnapshot();
+        synchronized (wordIndexLock) {
+            if (wordIndexesBuilt) {
+                for (Word word : words) {
+                    prefixIndex.put(word);
+                    fuzzyIndex.put(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * 单词已更新（事务提交后调用），同步更新缓存和内存索引
+     */
+    private void onWordUpdated(Word word) {
+        wordCache.put(word);
+        synchronized (wordIndexLock) {
+            if (wordIndexesBuilt) {
+                prefixIndex.put(word);
+                fuzzyIndex.put(word);
+            }
+        }
+    }
+
+    /**
+     * 单词已删除（事务提交后调用），同步更新缓存和内存索引
+     */
+    private void onWordDeleted(int wordId) {
+        wordCache.remove(wordId);
+        synchronized (wordIndexLock) {
+            if (wordIndexesBuilt) {
+                prefixIndex.remove(wordId);
+                fuzzyIndex.remove(wordId);
+            }
+        }
+    }
+
+    /**
+     * 单词表被批量修改（导入或关闭数据库），清空缓存，内存索引在下次使用时重建
+     */
+    private void onWordsReplaced() {
+        wordCache.invalidateAll();
+        synchronized (wordIndexLock) {
+            wordIndexesBuilt = false;
+            prefixIndex.rebuild(Collections.<Word>emptyList());
+            fuzzyIndex.rebuild(Collections.<Word>emptyList());
+        }
+    }
+
+    /**
+     * 获取单词缓存，用于查看命中率等统计信息
+     */
+    public WordCache getWordCache() {
+        return wordCache;
+    }
+
+    /**
+     * 更新单词
+     * @param wordId 单词ID
+     * @param word 英文单词
+     * @param translation 中文翻译
+     * @param category 单词类别
+     * @param example 例句
+     * @return 更新是否成功
+     */
+    public boolean updateWord(int wordId, String word, String translation, String category, String example) {
+        ContentValues values = new ContentValues();
+        values.put(DatabaseHelper.COLUMN_WORD, word);
+        values.put(DatabaseHelper.COLUMN_TRANSLATION, translation);
+        values.put(DatabaseHelper.COLUMN_CATEGORY, category);
+        values.put(DatabaseHelper.COLUMN_EXAMPLE, example);
+
+        SQLiteDatabase db = getDatabase();
+        int result = 0;
+        db.beginTransactionNonExclusive();
+        try {
+            result = db.update(
+                    DatabaseHelper.TABLE_WORDS,
+                    values,
+                    DatabaseHelper.COLUMN_WORD_ID + " = ?",
+                    new String[]{String.valueOf(wordId)}
+            );
+            if (result > 0) {
+                WordSearchIndex.index(db, wordId, word, translation, example);
+            }
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating word: " + e.getMessage());
+            result = 0;
+        } finally {
+            db.endTransaction();
+        }
+
+        if (result > 0) {
+            onWordUpdated(new Word(wordId, word, translation, category, example));
+        }
+        return result > 0;
+    }
+
+    /**
+     * 删除单词，同时删除所有用户对这个单词的学习记录（复习卡片）和复习历史，并重新生成这些用户的统计汇总。
+     * （单词删除后卡片无法再复习，保留下来会一直留在到期队列中）。会等待写后队列提交完成，不要在主线程中调用
+     * @param wordId 单词ID
+     * @return 删除是否成功
+     */
+    public boolean deleteWord(int wordId) {
+        // 先提交队列中这个单词的评分，避免删除后又被写回
+        writeQueue.flushAndWait();
+
+        SQLiteDatabase db = getDatabase();
+        String[] args = new String[]{String.valueOf(wordId)};
+        List<Integer> affectedUsers = new ArrayList<>();
+        int result = 0;
+        db.beginTransactionNonExclusive();
+        try {
+            Cursor cursor = db.rawQuery("SELECT " + DatabaseHelper.COLUMN_RECORD_USER_ID + " FROM " +
+                    DatabaseHelper.TABLE_REVIEW_HISTORY + " WHERE " + DatabaseHelper.COLUMN_RECORD_WORD_ID + " = ?" +
+                    " UNION SELECT " + DatabaseHelper.COLUMN_RECORD_USER_ID + " FROM " +
+                    DatabaseHelper.TABLE_LEARNING_RECORDS + " WHERE " + DatabaseHelper.COLUMN_RECORD_WORD_ID + " = ?",
+                    new String[]{args[0], args[0]});
+            try {
+                while (cursor.moveToNext()) {
+                    affectedUsers.add(cursor.getInt(0));
+                }
+            } finally {
+                cursor.close();
+            }
+
+            result = db.delete(
+                    DatabaseHelper.TABLE_WORDS,
+                    DatabaseHelper.COLUMN_WORD_ID + " = ?",
+                    args
+            );
+            WordSearchIndex.remove(db, wordId);
+            db.delete(DatabaseHelper.TABLE_REVIEW_HISTORY, DatabaseHelper.COLUMN_RECORD_WORD_ID + " = ?", args);
+            db.delete(DatabaseHelper.TABLE_LEARNING_RECORDS, DatabaseHelper.COLUMN_RECORD_WORD_ID + " = ?", args);
+            for (int userId : affectedUsers) {
+                LearningStatsRollup.rebuildUser(db, userId);
+            }
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "Error deleting word: " + e.getMessage());
+            result = 0;
+        } finally {
+            db.endTransaction();
+        }
+
+        if (result > 0) {
+            onWordDeleted(wordId);
+            for (int userId : affectedUsers) {
+                onLearningRecordsChanged(userId);
+            }
+        }
+        return result > 0;
+    }
+
+    /**
+     * 添加聊天消息
+     * @param content 消息内容
+     * @param senderType 发送者类型
+     * @param userId 用户ID（可为null）
+     * @return 添加是否成功
+     */
+    public boolean addMessage(String content, int senderType, Integer userId) {
+        return insertMessage(content, senderType, userId, System.currentTimeMillis());
+    }
+
+    /**
+     * 插入一条聊天消息
+     */
+    private boolean insertMessage(String content, int senderType, Integer userId, long timestamp) {
+        ContentValues values = new ContentValues();
+        values.put(DatabaseHelper.COLUMN_CONTENT, content);
+        values.put(DatabaseHelper.COLUMN_SENDER_TYPE, senderType);
+        values.put(DatabaseHelper.COLUMN_TIMESTAMP, timestamp);
+
+        if (userId != null) {
+            values.put(DatabaseHelper.COLUMN_USER_ID_FK, userId);
+        }
+
+        try {
+            long result = getDatabase().insert(DatabaseHelper.TABLE_MESSAGES, null, values);
+            return result != -1;
+        } catch (Exception e) {
+            Log.e(TAG, "Error adding message: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 获取指定用户的所有消息
+     * @param userId 用户ID（可为null，获取所有消息）
+     * @return 消息列表
+     */
+    public List<Message> getAllMessages(Integer userId) {
+        List<Message> messageList = new ArrayList<>();
+        Cursor cursor = null;
+
+        try {
+            String query;
+            String[] params = null;
+
+            if (userId != null) {
+                query = "SELECT * FROM " + DatabaseHelper.TABLE_MESSAGES +
+                        " WHERE " + DatabaseHelper.COLUMN_USER_ID_FK + " = ? ORDER BY " + DatabaseHelper.COLUMN_TIMESTAMP;
+                params = new String[]{String.valueOf(userId)};
+            } else {
+                query = "SELECT * FROM " + DatabaseHelper.TABLE_MESSAGES +
+                        " ORDER BY " + DatabaseHelper.COLUMN_TIMESTAMP;
+            }
+
+            cursor = getDatabase().rawQuery(query, params);
+
+            messageList = RowMappers.mapAll(cursor, RowMappers.MESSAGE);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting all messages: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return messageList;
+    }
+
+    /**
+     * 从新到旧分页获取指定用户的消息（键集分页，使用(user_id, timestamp)索引）
+     *
+     * 时间戳可能重复，因此用(timestamp, _id)作为翻页位置：
+     * 获取第一页（最新的消息）时传入{@link Long#MAX_VALUE}和{@link Integer#MAX_VALUE}，
+     * 之后传入已加载的最早一条消息的时间戳和ID。
+     * @param userId 用户ID
+     * @param beforeTimestamp 只返回早于这个位置的消息
+     * @param beforeId 时间戳相同时只返回ID小于它的消息
+     * @param limit 每页行数
+     * @return 消息列表（按时间先后排列），少于limit行时表示没有更早的消息
+     */
+    public List<Message> getMessagesPage(int userId, long beforeTimestamp, int beforeId, int limit) {
+        List<Message> messageList = new ArrayList<>();
+        Cursor cursor = null;
+
+        try {
+            String query = "SELECT * FROM " + DatabaseHelper.TABLE_MESSAGES +
+                    " WHERE " + DatabaseHelper.COLUMN_USER_ID_FK + " = ? AND (" +
+                    DatabaseHelper.COLUMN_TIMESTAMP + " < ? OR (" +
+                    DatabaseHelper.COLUMN_TIMESTAMP + " = ? AND " + DatabaseHelper.COLUMN_MESSAGE_ID + " < ?))" +
+                    " ORDER BY " + DatabaseHelper.COLUMN_TIMESTAMP + " DESC, " +
+                    DatabaseHelper.COLUMN_MESSAGE_ID + " DESC LIMIT ?";
+            cursor = getDatabase().rawQuery(query, new String[]{String.valueOf(userId),
+                    String.valueOf(beforeTimestamp), String.valueOf(beforeTimestamp),
+                    String.valueOf(beforeId), String.valueOf(limit)});
+
+            messageList = RowMappers.mapAll(cursor, RowMappers.MESSAGE);
+            // 查询按从新到旧排列，翻转为聊天界面显示的顺序
+            Collections.reverse(messageList);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting messages page: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return messageList;
+    }
+
+    /**
+     * 根据ID获取用户
+     * @param userId 用户ID
+     * @return 用户对象，如果不存在则返回null
+     */
+    public User getUserById(int userId) {
+        User user = null;
+        Cursor cursor = null;
+
+        try {
+            String query = "SELECT * FROM " + DatabaseHelper.TABLE_USERS +
+                    " WHERE " + DatabaseHelper.COLUMN_USER_ID + " = ?";
+            cursor = getDatabase().rawQuery(query, new String[]{String.valueOf(userId)});
+
+            user = RowMappers.mapFirst(cursor, RowMappers.USER);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting user by id: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return user;
+    }
+
+    /**
+     * 获取所有用户
+     * @return 用户列表
+     */
+    public List<User> getAllUsers() {
+        List<User> userList = new ArrayList<>();
+        Cursor cursor = null;
+
+        try {
+            String query = "SELECT * FROM " + DatabaseHelper.TABLE_USERS;
+            cursor = getDatabase().rawQuery(query, null);
+
+            userList = RowMappers.mapAll(cursor, RowMappers.USER);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting all users: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return userList;
+    }
+
+    /**
+     * 按ID顺序分页获取用户（键集分页）
+     * @param afterId 上一页最后一个用户的ID，获取第一页时传0
+     * @param limit 每页行数
+     * @return 用户列表，少于limit行时表示没有更多数据
+     */
+    public List<User> getUsersPage(int afterId, int limit) {
+        List<User> userList = new ArrayList<>();
+        Cursor cursor = null;
+
+        try {
+            String query = "SELECT * FROM " + DatabaseHelper.TABLE_USERS +
+                    " WHERE " + DatabaseHelper.COLUMN_USER_ID + " > ?" +
+                    " ORDER BY " + DatabaseHelper.COLUMN_USER_ID + " LIMIT ?";
+            cursor = getDatabase().rawQuery(query, new String[]{String.valueOf(afterId), String.valueOf(limit)});
+
+            userList = RowMappers.mapAll(cursor, RowMappers.USER);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting users page: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return userList;
+    }
+
+    /**
+     * 按用户名前缀搜索用户（不区分英文大小写），按用户名排序分页
+     *
+     * 使用用户名的NOCASE索引做范围查询，查询和排序都不需要扫描整张用户表。
+     * @param prefix 用户名前缀
+     * @param limit 每页行数
+     * @param offset 跳过的行数
+     * @return 用户列表，少于limit行时表示没有更多数据
+     */
+    public List<User> searchUsersByPrefix(String prefix, int limit, int offset) {
+        List<User> userList = new ArrayList<>();
+        Cursor cursor = null;
+
+        try {
+            // 以前缀开头的用户名都在[prefix, prefix + 最大的字符)范围内
+            String query = "SELECT * FROM " + DatabaseHelper.TABLE_USERS +
+                    " WHERE " + DatabaseHelper.COLUMN_USERNAME + " >= ? COLLATE NOCASE" +
+                    " AND " + DatabaseHelper.COLUMN_USERNAME + " < ? COLLATE NOCASE" +
+                    " ORDER BY " + DatabaseHelper.COLUMN_USERNAME + " COLLATE NOCASE, " + DatabaseHelper.COLUMN_USER_ID +
+                    " LIMIT ? OFFSET ?";
+            cursor = getDatabase().rawQuery(query, new String[]{prefix, prefix + MAX_CHARACTER,
+                    String.valueOf(limit), String.valueOf(offset)});
+
+            userList = RowMappers.mapAll(cursor, RowMappers.USER);
+        } catch (Exception e) {
+            Log.e(TAG, "Error searching users: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return userList;
+    }
+
+    /**
+     * 检查用户名是否已被其他用户使用（通过用户名的唯一索引查询单行）
+     * @param username 用户名
+     * @param excludeUserId 排除的用户ID（修改自己的用户名时传自己的ID，新用户传-1）
+     * @return 是否已被使用
+     */
+    public boolean isUsernameTaken(String username, int excludeUserId) {
+        Cursor cursor = null;
+        try {
+            cursor = getDatabase().rawQuery("SELECT 1 FROM " + DatabaseHelper.TABLE_USERS +
+                            " WHERE " + DatabaseHelper.COLUMN_USERNAME + " = ? AND " +
+                            DatabaseHelper.COLUMN_USER_ID + " != ? LIMIT 1",
+                    new String[]{username, String.valueOf(excludeUserId)});
+            return cursor.moveToFirst();
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking username: " + e.getMessage());
+            return false;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * 检查用户名是否可以注册，适合边输入边检查
+     *
+     * 先查内存中的布隆过滤器，回答"一定不存在"时直接返回；只有"可能存在"时才用唯一索引查询确认。
+     * 第一次调用时可能需要建立过滤器，应在后台线程中调用。
+     * @param username 用户名
+     * @return 用户名是否未被使用
+     */
+    public boolean isUsernameAvailable(String username) {
+        synchronized (usernameFilterLock) {
+            ensureUsernameFilter();
+            if (usernameFilter != null && !usernameFilter.mightContain(username)) {
+                return true;
+            }
+        }
+        return !isUsernameTaken(username, -1);
+    }
+
+    /**
+     * 建立已存在用户名的布隆过滤器（已经建立时直接返回）。应用启动时在后台线程中调用
+     */
+    public void buildUsernameFilter() {
+        synchronized (usernameFilterLock) {
+            ensureUsernameFilter();
+        }
+    }
+
+    /**
+     * 还没有建立过滤器或者过滤器已经饱和时，从用户表加载所有用户名建立过滤器（调用方持有usernameFilterLock）
+     */
+    private void ensureUsernameFilter() {
+        if (usernameFilter != null && !usernameFilter.isSaturated()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Cursor cursor = null;
+        try {
+            cursor = getDatabase().rawQuery("SELECT " + DatabaseHelper.COLUMN_USERNAME +
+                    " FROM " + DatabaseHelper.TABLE_USERS, null);
+            UsernameBloomFilter filter = new UsernameBloomFilter(cursor.getCount());
+            while (cursor.moveToNext()) {
+                filter.put(cursor.getString(0));
+            }
+            usernameFilter = filter;
+            Log.d(TAG, "Username filter built in " + (System.currentTimeMillis() - start) + " ms, " +
+                    filter.getSizeBytes() + " bytes");
+        } catch (Exception e) {
+            // 建立失败时每次都查询数据库
+            Log.e(TAG, "Error building username filter: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * 用户名已写入用户表（添加或修改用户提交后调用），同步更新布隆过滤器
+     */
+    private void onUsernameAdded(String username) {
+        synchronized (usernameFilterLock) {
+            if (usernameFilter != null) {
+                usernameFilter.put(username);
+            }
+        }
+    }
+
+    /**
+     * 记录一次单词评分：在一个事务中更新该用户该单词的当前学习状态（没有则新建）和复习计划，
+     * 追加一条复习历史，并累加到日、周、月统计汇总表
+     * @param userId 用户ID
+     * @param wordId 单词ID
+     * @param score 学习得分（0-100），学习状态由得分确定（见LearningRecord.statusForScore）
+     * @return 是否成功
+     */
+    public boolean recordReview(int userId, int wordId, int score) {
+        return recordReviews(userId, wordId, new int[]{score}, new String[]{LearningRecord.statusForScore(score)},
+                new long[]{System.currentTimeMillis()}, 1);
+    }
+
+    /**
+     * 添加学习记录：作为一次评分追加到复习历史，并合并到该用户该单词的当前学习状态
+     * （每个用户每个单词只有一条当前状态，时间较新的评分覆盖得分和状态，复习次数累加）
+     * @param learningRecord 学习记录对象
+     * @return 添加是否成功
+     */
+    public boolean addLearningRecord(LearningRecord learningRecord) {
+        return recordReviews(learningRecord.getUserId(), learningRecord.getWordId(),
+                new int[]{learningRecord.getScore()}, new String[]{learningRecord.getStatus()},
+                new long[]{learningRecord.getTimestamp()}, learningRecord.getReviewCount());
+    }
+
+    /**
+     * 在一个事务中追加若干次评分并更新当前学习状态和复习计划
+     * @param scores 按时间顺序的各次得分
+     * @param statuses 各次评分后的学习状态
+     * @param timestamps 各次评分的时间
+     * @param reviewTimes 复习次数的增量
+     */
+    private boolean recordReviews(int userId, int wordId, int[] scores, String[] statuses, long[] timestamps,
+                                  int reviewTimes) {
+        boolean success = false;
+        try {
+            SQLiteDatabase db = getDatabase();
+            db.beginTransactionNonExclusive();
+            try {
+                writeReviews(db, userId, wordId, scores, statuses, timestamps, reviewTimes);
+                db.setTransactionSuccessful();
+                success = true;
+            } finally {
+                db.endTransaction();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error recording review: " + e.getMessage());
+            success = false;
+        }
+
+        if (success) {
+            onLearningRecordsChanged(userId);
+        }
+        return success;
+    }
+
+    /**
+     * 追加若干次评分并更新当前学习状态和复习计划（在调用方的写事务中执行，不开启嵌套事务）
+     *
+     * 当前状态用INSERT OR IGNORE加UPDATE实现插入或更新（minSdk 24的SQLite不支持ON CONFLICT DO UPDATE），
+     * 两条语句在同一个写事务中执行，(user_id, word_id)上的唯一索引保证每个用户每个单词只有一行。
+     * 出错时抛出异常，由调用方回滚整个事务（嵌套事务中任何一层失败都会使最外层事务回滚，
+     * 因此写后队列的批量事务中不能再开启事务）。
+     */
+    private void writeReviews(SQLiteDatabase db, int userId, int wordId, int[] scores, String[] statuses,
+                              long[] timestamps, int reviewTimes) {
+        int last = scores.length - 1;
+        for (int i = 0; i < scores.length; i++) {
+            ContentValues history = new ContentValues();
+            history.put(DatabaseHelper.COLUMN_RECORD_USER_ID, userId);
+            history.put(DatabaseHelper.COLUMN_RECORD_WORD_ID, wordId);
+            history.put(DatabaseHelper.COLUMN_RECORD_SCORE, scores[i]);
+            history.put(DatabaseHelper.COLUMN_RECORD_STATUS, statuses[i]);
+            history.put(DatabaseHelper.COLUMN_TIMESTAMP, timestamps[i]);
+            db.insertOrThrow(DatabaseHelper.TABLE_REVIEW_HISTORY, null, history);
+            LearningStatsRollup.recordAdded(db, userId, timestamps[i], scores[i]);
+        }
+
+        // 在更新当前状态之前读取原来的复习计划，按时间顺序应用这几次评分
+        ReviewSchedule schedule = ReviewScheduler.scheduleAfter(db, userId, wordId, scores, timestamps);
+        db.execSQL("INSERT OR IGNORE INTO " + DatabaseHelper.TABLE_LEARNING_RECORDS + "(" +
+                        DatabaseHelper.COLUMN_RECORD_USER_ID + ", " + DatabaseHelper.COLUMN_RECORD_WORD_ID + ", " +
+                        DatabaseHelper.COLUMN_RECORD_SCORE + ", " + DatabaseHelper.COLUMN_TIMESTAMP + ", " +
+                        DatabaseHelper.COLUMN_RECORD_STATUS + ", " + DatabaseHelper.COLUMN_RECORD_REVIEW_COUNT +
+                        ") VALUES (?, ?, ?, ?, ?, 0)",
+                new Object[]{userId, wordId, scores[last], timestamps[last], statuses[last]});
+        // 时间较早的评分（例如补录的记录）只累加复习次数，不覆盖较新的得分和状态，复习计划也不变
+        db.execSQL("UPDATE " + DatabaseHelper.TABLE_LEARNING_RECORDS + " SET " +
+                        DatabaseHelper.COLUMN_RECORD_SCORE + " = CASE WHEN " + DatabaseHelper.COLUMN_TIMESTAMP +
+                        " <= ? THEN ? ELSE " + DatabaseHelper.COLUMN_RECORD_SCORE + " END, " +
+                        DatabaseHelper.COLUMN_RECORD_STATUS + " = CASE WHEN " + DatabaseHelper.COLUMN_TIMESTAMP +
+                        " <= ? THEN ? ELSE " + DatabaseHelper.COLUMN_RECORD_STATUS + " END, " +
+                        DatabaseHelper.COLUMN_TIMESTAMP + " = max(" + DatabaseHelper.COLUMN_TIMESTAMP + ", ?), " +
+                        DatabaseHelper.COLUMN_RECORD_REVIEW_COUNT + " = " + DatabaseHelper.COLUMN_RECORD_REVIEW_COUNT + " + ?, " +
+                        DatabaseHelper.COLUMN_RECORD_EASE_FACTOR + " = ?, " +
+                        DatabaseHelper.COLUMN_RECORD_INTERVAL_DAYS + " = ?, " +
+                        DatabaseHelper.COLUMN_RECORD_REPETITIONS + " = ?, " +
+                        DatabaseHelper.COLUMN_RECORD_NEXT_DUE_AT + " = ?" +
+                        " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ? AND " + DatabaseHelper.COLUMN_RECORD_WORD_ID + " = ?",
+                new Object[]{timestamps[last], scores[last], timestamps[last], statuses[last], timestamps[last],
+                        reviewTimes, schedule.getEaseFactor(), schedule.getIntervalDays(), schedule.getRepetitions(),
+                        schedule.getNextDueAt(), userId, wordId});
+    }
+
+    /**
+     * 更新学习记录（当前学习状态），不影响复习历史和统计汇总
+     * @param learningRecord 学习记录对象
      * @return 更新是否成功
      */
     public boolean updateLearningRecord(LearningRecord learningRecord) {
@@ -470,16 +1531,149 @@ public class DataManager {
         values.put(DatabaseHelper.COLUMN_RECORD_REVIEW_COUNT, learningRecord.getReviewCount());
 
         try {
-            int result = database.update(
-                    DatabaseHelper.TABLE_LEARNING_RECORDS,
-                    values,
-                    DatabaseHelper.COLUMN_RECORD_ID + " = ?",
-                    new String[]{String.valueOf(learningRecord.getId())}
-            );
-            return result > 0;
+            int result = getDatabase().update(
+                    DatabaseHelper.TABLE_LEARNING_RECORDS,
+                    values,
+                    DatabaseHelper.COLUMN_RECORD_ID + " = ?",
+                    new String[]{String.valueOf(learningRecord.getId())}
+            );
+            if (result > 0) {
+                onLearningRecordsChanged(learningRecord.getUserId());
+            }
+            return result > 0;
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating learning record: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 按复习历史重新生成日、周、月统计汇总表（例如修复历史数据后）
+     * @return 是否成功
+     */
+    public boolean rebuildLearningStats() {
+        SQLiteDatabase db = getDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            LearningStatsRollup.rebuild(db, StatsResolution.values());
+            db.setTransactionSuccessful();
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error rebuilding daily learning stats: " + e.getMessage());
+            return false;
+        } finally {
+            db.endTransaction();
+            onAllLearningRecordsChanged();
+        }
+    }
+
+    /**
+     * 获取用户的学习统计快照：每日平均分、各状态的单词数、学习过的单词数和平均分
+     *
+     * 所有统计在一条查询中完成：当前学习状态按状态分组（每个单词一行），每日统计和评分总数读每日汇总表，
+     * 最早评分时间读复习历史的索引。结果来自同一个数据库读快照，不需要占用写锁。
+     * 快照按用户的学习数据版本缓存，用户没有新的评分或修改学习记录时直接返回缓存。
+     * @param userId 用户ID
+     * @return 统计快照，查询失败时返回null
+     */
+    public StatisticsSnapshot getStatisticsSnapshot(int userId) {
+        long version;
+        synchronized (statisticsLock) {
+            version = getLearningDataVersion(userId);
+            StatisticsSnapshot cached = statisticsSnapshots.get(userId);
+            if (cached != null && cached.getDataVersion() == version) {
+                return cached;
+            }
+        }
+
+        Map<String, Integer> dailyStats = new LinkedHashMap<>();
+        Map<String, Integer> statusStats = new LinkedHashMap<>();
+        int learnedWordCount = 0;
+        int recordCount = 0;
+        long scoreSum = 0;
+        long firstTimestamp = -1;
+        Cursor cursor = null;
+        try {
+            String userIdArg = String.valueOf(userId);
+            cursor = getDatabase().rawQuery("SELECT 0, " + DatabaseHelper.COLUMN_RECORD_STATUS + ", COUNT(*), 0" +
+                            " FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS +
+                            " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?" +
+                            " GROUP BY " + DatabaseHelper.COLUMN_RECORD_STATUS +
+                            " UNION ALL SELECT 1, " + DatabaseHelper.COLUMN_STATS_DAY + ", " +
+                            DatabaseHelper.COLUMN_STATS_RECORD_COUNT + ", " + DatabaseHelper.COLUMN_STATS_SCORE_SUM +
+                            " FROM " + DatabaseHelper.TABLE_DAILY_LEARNING_STATS +
+                            " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?" +
+                            " UNION ALL SELECT 2, NULL, 0, MIN(" + DatabaseHelper.COLUMN_TIMESTAMP + ")" +
+                            " FROM " + DatabaseHelper.TABLE_REVIEW_HISTORY +
+                            " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?" +
+                            " ORDER BY 1, 2",
+                    new String[]{userIdArg, userIdArg, userIdArg});
+
+            while (cursor.moveToNext()) {
+                int kind = cursor.getInt(0);
+                if (kind == 0) {
+                    // 每个单词只有一条当前状态
+                    int words = cursor.getInt(2);
+                    statusStats.put(cursor.getString(1), words);
+                    learnedWordCount += words;
+                } else if (kind == 1) {
+                    int count = cursor.getInt(2);
+                    long sum = cursor.getLong(3);
+                    if (count > 0) {
+                        dailyStats.put(cursor.getString(1), Math.round((float) sum / count));
+                        recordCount += count;
+                        scoreSum += sum;
+                    }
+                } else if (!cursor.isNull(3)) {
+                    firstTimestamp = cursor.getLong(3);
+                }
+            }
         } catch (Exception e) {
-            Log.e(TAG, "Error updating learning record: " + e.getMessage());
-            return false;
+            Log.e(TAG, "Error getting statistics snapshot: " + e.getMessage());
+            return null;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        StatisticsSnapshot snapshot = new StatisticsSnapshot(userId, version, dailyStats, statusStats,
+                learnedWordCount, recordCount, recordCount == 0 ? 0.0 : (double) scoreSum / recordCount, firstTimestamp);
+        synchronized (statisticsLock) {
+            // 查询期间学习记录有变化时不缓存，下次重新查询
+            if (getLearningDataVersion(userId) == version) {
+                statisticsSnapshots.put(userId, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 用户学习数据的当前版本（调用方持有statisticsLock）
+     */
+    private long getLearningDataVersion(int userId) {
+        Long version = learningDataVersions.get(userId);
+        return version != null ? version : baseLearningDataVersion;
+    }
+
+    /**
+     * 用户的学习记录已提交修改，之前的统计快照失效（必须在最外层事务提交之后调用）
+     */
+    private void onLearningRecordsChanged(int userId) {
+        synchronized (statisticsLock) {
+            learningDataVersions.put(userId, ++learningDataVersionCounter);
+            statisticsSnapshots.remove(userId);
+        }
+    }
+
+    /**
+     * 所有用户的统计快照失效（重新生成汇总表、关闭数据库后）
+     */
+    private void onAllLearningRecordsChanged() {
+        synchronized (statisticsLock) {
+            learningDataVersions.clear();
+            statisticsSnapshots.clear();
+            baseLearningDataVersion = ++learningDataVersionCounter;
         }
     }
 
@@ -495,32 +1689,9 @@ public class DataManager {
         try {
             String query = "SELECT * FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS +
                     " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ? ORDER BY " + DatabaseHelper.COLUMN_TIMESTAMP + " DESC";
-            cursor = database.rawQuery(query, new String[]{String.valueOf(userId)});
-
-            if (cursor != null && cursor.moveToFirst()) {
-                do {
-                    int idIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_RECORD_ID);
-                    int userIdIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_RECORD_USER_ID);
-                    int wordIdIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_RECORD_WORD_ID);
-                    int scoreIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_RECORD_SCORE);
-                    int timestampIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_TIMESTAMP);
-                    int statusIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_RECORD_STATUS);
-                    int reviewCountIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_RECORD_REVIEW_COUNT);
-
-                    if (idIndex != -1 && userIdIndex != -1 && wordIdIndex != -1 && scoreIndex != -1 &&
-                            timestampIndex != -1 && statusIndex != -1 && reviewCountIndex != -1) {
-                        int id = cursor.getInt(idIndex);
-                        int dbUserId = cursor.getInt(userIdIndex);
-                        int wordId = cursor.getInt(wordIdIndex);
-                        int score = cursor.getInt(scoreIndex);
-                        long timestamp = cursor.getLong(timestampIndex);
-                        String status = cursor.getString(statusIndex);
-                        int reviewCount = cursor.getInt(reviewCountIndex);
+            cursor = getDatabase().rawQuery(query, new String[]{String.valueOf(userId)});
 
-                        records.add(new LearningRecord(id, dbUserId, wordId, score, timestamp, status, reviewCount));
-                    }
-                } while (cursor.moveToNext());
-            }
+            records = RowMappers.mapAll(cursor, RowMappers.LEARNING_RECORD);
         } catch (Exception e) {
             Log.e(TAG, "Error getting user learning records: " + e.getMessage());
         } finally {
@@ -533,36 +1704,154 @@ public class DataManager {
     }
 
     /**
-     * 获取用户的单词学习统计（按日期分组）
+     * 从新到旧分页获取用户的学习记录（键集分页，使用(user_id, timestamp)索引）
+     *
+     * 获取第一页时传入{@link Long#MAX_VALUE}和{@link Integer#MAX_VALUE}，
+     * 之后传入上一页最后一条记录的时间戳和ID。
      * @param userId 用户ID
-     * @return 日期到平均学习分数的映射
+     * @param beforeTimestamp 只返回早于这个位置的记录
+     * @param beforeId 时间戳相同时只返回ID小于它的记录
+     * @param limit 每页行数
+     * @return 学习记录列表（从新到旧），少于limit行时表示没有更多数据
      */
-    public Map<String, Integer> getUserDailyLearningStats(int userId) {
-        Map<String, Integer> stats = new HashMap<>();
+    public List<LearningRecord> getLearningRecordsPage(int userId, long beforeTimestamp, int beforeId, int limit) {
+        List<LearningRecord> records = new ArrayList<>();
+        Cursor cursor = null;
+
+        try {
+            String query = "SELECT * FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS +
+                    " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ? AND (" +
+                    DatabaseHelper.COLUMN_TIMESTAMP + " < ? OR (" +
+                    DatabaseHelper.COLUMN_TIMESTAMP + " = ? AND " + DatabaseHelper.COLUMN_RECORD_ID + " < ?))" +
+                    " ORDER BY " + DatabaseHelper.COLUMN_TIMESTAMP + " DESC, " +
+                    DatabaseHelper.COLUMN_RECORD_ID + " DESC LIMIT ?";
+            cursor = getDatabase().rawQuery(query, new String[]{String.valueOf(userId),
+                    String.valueOf(beforeTimestamp), String.valueOf(beforeTimestamp),
+                    String.valueOf(beforeId), String.valueOf(limit)});
+
+            records = RowMappers.mapAll(cursor, RowMappers.LEARNING_RECORD);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting learning records page: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * 学习记录扫描的回调，每一行调用一次，参数直接从游标中读取，不创建对象
+     */
+    public interface LearningRecordVisitor {
+        /**
+         * @param recordId 记录ID
+         * @param wordId 单词ID
+         * @param score 学习得分
+         * @param timestamp 学习时间戳
+         * @param statusCode 学习状态编码（LearningRecord.STATUS_CODE_*）
+         * @param reviewCount 复习次数
+         * @return 是否继续扫描
+         */
+        boolean visit(int recordId, int wordId, int score, long timestamp, int statusCode, int reviewCount);
+    }
+
+    /**
+     * 从新到旧扫描用户的所有学习记录，逐行回调visitor
+     *
+     * 与{@link #getUserLearningRecords(int)}不同，这个方法不为每一行创建LearningRecord和状态字符串，
+     * 状态在SQL中转换为整数编码，适合对大量历史记录做统计分析。
+     * 回调在调用线程中执行，期间游标保持打开，回调中不要做耗时操作。
+     * @param userId 用户ID
+     * @param visitor 回调
+     * @return 扫描的行数
+     */
+    public int scanUserLearningRecords(int userId, LearningRecordVisitor visitor) {
+        int visited = 0;
         Cursor cursor = null;
 
         try {
-            // 按日期分组，计算每天的平均学习分数
-            String query = "SELECT strftime('%Y-%m-%d', datetime(" + DatabaseHelper.COLUMN_TIMESTAMP + "/1000, 'unixepoch')) as date, " +
-                    "AVG(" + DatabaseHelper.COLUMN_RECORD_SCORE + ") as avg_score FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS +
+            // 列的顺序固定，按位置读取，不需要查找列索引
+            String query = "SELECT " + DatabaseHelper.COLUMN_RECORD_ID + ", " +
+                    DatabaseHelper.COLUMN_RECORD_WORD_ID + ", " +
+                    DatabaseHelper.COLUMN_RECORD_SCORE + ", " +
+                    DatabaseHelper.COLUMN_TIMESTAMP + ", " +
+                    "CASE " + DatabaseHelper.COLUMN_RECORD_STATUS +
+                    " WHEN ? THEN " + LearningRecord.STATUS_CODE_MASTERED +
+                    " WHEN ? THEN " + LearningRecord.STATUS_CODE_LEARNING +
+                    " WHEN ? THEN " + LearningRecord.STATUS_CODE_REVIEW +
+                    " ELSE " + LearningRecord.STATUS_CODE_OTHER + " END, " +
+                    DatabaseHelper.COLUMN_RECORD_REVIEW_COUNT +
+                    " FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS +
                     " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?" +
-                    " GROUP BY date ORDER BY date";
-            cursor = database.rawQuery(query, new String[]{String.valueOf(userId)});
+                    " ORDER BY " + DatabaseHelper.COLUMN_TIMESTAMP + " DESC";
+            cursor = getDatabase().rawQuery(query, new String[]{LearningRecord.STATUS_MASTERED,
+                    LearningRecord.STATUS_LEARNING, LearningRecord.STATUS_REVIEW, String.valueOf(userId)});
+
+            while (cursor.moveToNext()) {
+                visited++;
+                if (!visitor.visit(cursor.getInt(0), cursor.getInt(1), cursor.getInt(2),
+                        cursor.getLong(3), cursor.getInt(4), cursor.getInt(5))) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error scanning user learning records: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
 
-            if (cursor != null && cursor.moveToFirst()) {
-                do {
-                    int dateIndex = cursor.getColumnIndex("date");
-                    int scoreIndex = cursor.getColumnIndex("avg_score");
+        return visited;
+    }
 
-                    if (dateIndex != -1 && scoreIndex != -1) {
-                        String date = cursor.getString(dateIndex);
-                        int avgScore = Math.round(cursor.getFloat(scoreIndex));
-                        stats.put(date, avgScore);
-                    }
-                } while (cursor.moveToNext());
+    /**
+     * 获取用户的单词学习统计（按本地日期分组），从每日统计汇总表读取，每天一行
+     * @param userId 用户ID
+     * @return 按日期排序的日期（yyyy-MM-dd）到平均学习分数的映射
+     */
+    public Map<String, Integer> getUserDailyLearningStats(int userId) {
+        return getUserLearningStats(userId, StatsResolution.DAY, null);
+    }
+
+    /**
+     * 获取用户按日、周或月分组的学习统计，从对应粒度的汇总表读取，每个时间段一行
+     * @param userId 用户ID
+     * @param resolution 统计粒度
+     * @param since 只返回包含这个时间及以后的时间段，为null时返回全部
+     * @return 按时间排序的时间段（第一天的日期yyyy-MM-dd）到平均学习分数的映射
+     */
+    public Map<String, Integer> getUserLearningStats(int userId, StatsResolution resolution, Long since) {
+        Map<String, Integer> stats = new LinkedHashMap<>();
+        Cursor cursor = null;
+
+        try {
+            String selection = DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?";
+            String[] selectionArgs = new String[]{String.valueOf(userId)};
+            if (since != null) {
+                selection += " AND " + DatabaseHelper.COLUMN_STATS_DAY + " >= ?";
+                selectionArgs = new String[]{String.valueOf(userId), resolution.periodKey(since)};
+            }
+            cursor = getDatabase().query(
+                    resolution.getTableName(),
+                    new String[]{DatabaseHelper.COLUMN_STATS_DAY, DatabaseHelper.COLUMN_STATS_RECORD_COUNT,
+                            DatabaseHelper.COLUMN_STATS_SCORE_SUM},
+                    selection,
+                    selectionArgs,
+                    null, null,
+                    DatabaseHelper.COLUMN_STATS_DAY
+            );
+
+            while (cursor.moveToNext()) {
+                int count = cursor.getInt(1);
+                if (count > 0) {
+                    stats.put(cursor.getString(0), Math.round((float) cursor.getLong(2) / count));
+                }
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error getting user daily learning stats: " + e.getMessage());
+            Log.e(TAG, "Error getting user learning stats: " + e.getMessage());
         } finally {
             if (cursor != null) {
                 cursor.close();
@@ -573,56 +1862,272 @@ public class DataManager {
     }
 
     /**
-     * 获取用户的单词记忆曲线数据
+     * 获取用户最早一次评分的时间（使用复习历史的(user_id, timestamp)索引，不扫描记录）
+     * @param userId 用户ID
+     * @return 时间戳，没有学习记录时返回-1
+     */
+    public long getUserFirstLearningTimestamp(int userId) {
+        Cursor cursor = null;
+        try {
+            cursor = getDatabase().rawQuery("SELECT MIN(" + DatabaseHelper.COLUMN_TIMESTAMP + ") FROM " +
+                            DatabaseHelper.TABLE_REVIEW_HISTORY + " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?",
+                    new String[]{String.valueOf(userId)});
+            if (cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting first learning timestamp: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 获取用户的单词记忆曲线数据（该单词的全部复习历史）
      * @param userId 用户ID
      * @param wordId 单词ID
-     * @return 学习记录列表（按时间排序）
+     * @return 每次评分一条记录（按时间排序），复习次数为第几次评分
      */
     public List<LearningRecord> getUserWordLearningRecords(int userId, int wordId) {
+        List<LearningRecord> records = queryReviewHistory(
+                DatabaseHelper.COLUMN_RECORD_USER_ID + " = ? AND " + DatabaseHelper.COLUMN_RECORD_WORD_ID + " = ?",
+                new String[]{String.valueOf(userId), String.valueOf(wordId)});
+        for (int i = 0; i < records.size(); i++) {
+            records.get(i).setReviewCount(i + 1);
+        }
+        return records;
+    }
+
+    /**
+     * 获取用户的全部复习历史
+     * @param userId 用户ID
+     * @return 每次评分一条记录（按时间排序，复习次数为0）
+     */
+    public List<LearningRecord> getUserReviewHistory(int userId) {
+        return queryReviewHistory(DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?",
+                new String[]{String.valueOf(userId)});
+    }
+
+    private List<LearningRecord> queryReviewHistory(String selection, String[] selectionArgs) {
         List<LearningRecord> records = new ArrayList<>();
         Cursor cursor = null;
 
         try {
-            String query = "SELECT * FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS +
-                    " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ? AND " +
-                    DatabaseHelper.COLUMN_RECORD_WORD_ID + " = ? ORDER BY " + DatabaseHelper.COLUMN_TIMESTAMP;
-            cursor = database.rawQuery(query, new String[]{String.valueOf(userId), String.valueOf(wordId)});
+            // 复习历史没有复习次数列，补一个常量列以便复用LearningRecord的RowMapper
+            String query = "SELECT " + DatabaseHelper.COLUMN_RECORD_ID + ", " + DatabaseHelper.COLUMN_RECORD_USER_ID + ", " +
+                    DatabaseHelper.COLUMN_RECORD_WORD_ID + ", " + DatabaseHelper.COLUMN_RECORD_SCORE + ", " +
+                    DatabaseHelper.COLUMN_TIMESTAMP + ", " + DatabaseHelper.COLUMN_RECORD_STATUS + ", 0 AS " +
+                    DatabaseHelper.COLUMN_RECORD_REVIEW_COUNT +
+                    " FROM " + DatabaseHelper.TABLE_REVIEW_HISTORY +
+                    " WHERE " + selection +
+                    " ORDER BY " + DatabaseHelper.COLUMN_TIMESTAMP + ", " + DatabaseHelper.COLUMN_RECORD_ID;
+            cursor = getDatabase().rawQuery(query, selectionArgs);
+
+            records = RowMappers.mapAll(cursor, RowMappers.LEARNING_RECORD);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting review history: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
 
-            if (cursor != null && cursor.moveToFirst()) {
-                do {
-                    int idIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_RECORD_ID);
-                    int userIdIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_RECORD_USER_ID);
-                    int wordIdIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_RECORD_WORD_ID);
-                    int scoreIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_RECORD_SCORE);
-                    int timestampIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_TIMESTAMP);
-                    int statusIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_RECORD_STATUS);
-                    int reviewCountIndex = cursor.getColumnIndex(DatabaseHelper.COLUMN_RECORD_REVIEW_COUNT);
-
-                    if (idIndex != -1 && userIdIndex != -1 && wordIdIndex != -1 && scoreIndex != -1 &&
-                            timestampIndex != -1 && statusIndex != -1 && reviewCountIndex != -1) {
-                        int id = cursor.getInt(idIndex);
-                        int dbUserId = cursor.getInt(userIdIndex);
-                        int dbWordId = cursor.getInt(wordIdIndex);
-                        int score = cursor.getInt(scoreIndex);
-                        long timestamp = cursor.getLong(timestampIndex);
-                        String status = cursor.getString(statusIndex);
-                        int reviewCount = cursor.getInt(reviewCountIndex);
+        return records;
+    }
 
-                        records.add(new LearningRecord(id, dbUserId, dbWordId, score, timestamp, status, reviewCount));
-                    }
-                } while (cursor.moveToNext());
+    /**
+     * 获取用户当前到期需要复习的单词，最早到期的排在前面
+     *
+     * 在(user_id, next_due_at)索引上做范围读取，只读取返回的行，不扫描用户的全部学习记录。
+     * @param userId 用户ID
+     * @param now 当前时间，下次复习时间不晚于这个时间的单词算作到期
+     * @param limit 最多返回的单词数
+     * @return 到期的单词列表
+     */
+    public List<Word> getDueWords(int userId, long now, int limit) {
+        List<Word> words = new ArrayList<>();
+        Cursor cursor = null;
+
+        try {
+            // CROSS JOIN固定连接顺序：先在学习记录的索引上按到期时间读取，再按主键查找单词
+            String query = "SELECT w.* FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS + " r CROSS JOIN " +
+                    DatabaseHelper.TABLE_WORDS + " w ON w." + DatabaseHelper.COLUMN_WORD_ID + " = r." +
+                    DatabaseHelper.COLUMN_RECORD_WORD_ID +
+                    " WHERE r." + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ? AND r." +
+                    DatabaseHelper.COLUMN_RECORD_NEXT_DUE_AT + " <= ?" +
+                    " ORDER BY r." + DatabaseHelper.COLUMN_RECORD_NEXT_DUE_AT + " LIMIT ?";
+            cursor = getDatabase().rawQuery(query, new String[]{String.valueOf(userId), String.valueOf(now),
+                    String.valueOf(limit)});
+
+            words = RowMappers.mapAll(cursor, RowMappers.WORD);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting due words: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
             }
+        }
+
+        return words;
+    }
+
+    /**
+     * 获取用户当前到期需要复习的单词ID，最早到期的排在前面（与{@link #getDueWords}相同，但不读取单词内容）
+     * @param userId 用户ID
+     * @param now 当前时间
+     * @param limit 最多返回的单词数
+     * @return 到期的单词ID数组
+     */
+    public int[] getDueWordIds(int userId, long now, int limit) {
+        Cursor cursor = null;
+        try {
+            cursor = getDatabase().rawQuery("SELECT " + DatabaseHelper.COLUMN_RECORD_WORD_ID + " FROM " +
+                            DatabaseHelper.TABLE_LEARNING_RECORDS + " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID +
+                            " = ? AND " + DatabaseHelper.COLUMN_RECORD_NEXT_DUE_AT + " <= ?" +
+                            " ORDER BY " + DatabaseHelper.COLUMN_RECORD_NEXT_DUE_AT + " LIMIT ?",
+                    new String[]{String.valueOf(userId), String.valueOf(now), String.valueOf(limit)});
+            return readIds(cursor);
         } catch (Exception e) {
-            Log.e(TAG, "Error getting user word learning records: " + e.getMessage());
+            Log.e(TAG, "Error getting due word ids: " + e.getMessage());
+            return new int[0];
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
         }
+    }
+
+    /**
+     * 批量获取用户若干个单词的当前学习状态（在(user_id, word_id)唯一索引上逐个查找）
+     * @param userId 用户ID
+     * @param wordIds 单词ID
+     * @return 单词ID到当前学习状态的映射，没有学习过的单词不在其中
+     */
+    public Map<Integer, LearningRecord> getUserCurrentLearningRecords(int userId, int[] wordIds) {
+        Map<Integer, LearningRecord> records = new HashMap<>();
+        if (wordIds.length == 0) {
+            return records;
+        }
+
+        StringBuilder placeholders = new StringBuilder();
+        String[] args = new String[wordIds.length + 1];
+        args[0] = String.valueOf(userId);
+        for (int i = 0; i < wordIds.length; i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+            args[i + 1] = String.valueOf(wordIds[i]);
+        }
 
+        Cursor cursor = null;
+        try {
+            cursor = getDatabase().rawQuery("SELECT * FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS +
+                    " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ? AND " +
+                    DatabaseHelper.COLUMN_RECORD_WORD_ID + " IN (" + placeholders + ")", args);
+            for (LearningRecord record : RowMappers.mapAll(cursor, RowMappers.LEARNING_RECORD)) {
+                records.put(record.getWordId(), record);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting current learning records: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
         return records;
     }
 
+    /**
+     * 获取用户当前到期需要复习的单词数
+     * @param userId 用户ID
+     * @param now 当前时间
+     * @return 到期的单词数
+     */
+    public int getDueWordCount(int userId, long now) {
+        Cursor cursor = null;
+        try {
+            cursor = getDatabase().rawQuery("SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS +
+                            " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ? AND " +
+                            DatabaseHelper.COLUMN_RECORD_NEXT_DUE_AT + " <= ?",
+                    new String[]{String.valueOf(userId), String.valueOf(now)});
+            if (cursor.moveToFirst()) {
+                return cursor.getInt(0);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error counting due words: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 获取用户最早的下次复习时间
+     * @param userId 用户ID
+     * @return 最早的下次复习时间，用户还没有学习过任何单词时返回-1
+     */
+    public long getNextReviewTime(int userId) {
+        Cursor cursor = null;
+        try {
+            cursor = getDatabase().rawQuery("SELECT MIN(" + DatabaseHelper.COLUMN_RECORD_NEXT_DUE_AT + ") FROM " +
+                            DatabaseHelper.TABLE_LEARNING_RECORDS + " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?",
+                    new String[]{String.valueOf(userId)});
+            if (cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting next review time: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 获取用户某个单词的复习计划
+     * @param userId 用户ID
+     * @param wordId 单词ID
+     * @return 复习计划，还没有学习过这个单词时返回null
+     */
+    public ReviewSchedule getReviewSchedule(int userId, int wordId) {
+        Cursor cursor = null;
+        try {
+            cursor = getDatabase().rawQuery("SELECT " + DatabaseHelper.COLUMN_RECORD_EASE_FACTOR + ", " +
+                            DatabaseHelper.COLUMN_RECORD_INTERVAL_DAYS + ", " + DatabaseHelper.COLUMN_RECORD_REPETITIONS + ", " +
+                            DatabaseHelper.COLUMN_RECORD_NEXT_DUE_AT + " FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS +
+                            " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ? AND " +
+                            DatabaseHelper.COLUMN_RECORD_WORD_ID + " = ?",
+                    new String[]{String.valueOf(userId), String.valueOf(wordId)});
+            if (cursor.moveToFirst()) {
+                return new ReviewSchedule(cursor.getDouble(0), cursor.getInt(1), cursor.getInt(2), cursor.getLong(3));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting review schedule: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 把游标第一列的所有行读取为整数数组
+     */
+    private static int[] readIds(Cursor cursor) {
+        int[] ids = new int[cursor.getCount()];
+        int i = 0;
+        while (cursor.moveToNext()) {
+            ids[i++] = cursor.getInt(0);
+        }
+        return ids;
+    }
+
     /**
      * 获取用户的单词学习进度统计
      * @param userId 用户ID
@@ -638,7 +2143,7 @@ public class DataManager {
                     "FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS +
                     " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?" +
                     " GROUP BY " + DatabaseHelper.COLUMN_RECORD_STATUS;
-            cursor = database.rawQuery(query, new String[]{String.valueOf(userId)});
+            cursor = getDatabase().rawQuery(query, new String[]{String.valueOf(userId)});
 
             if (cursor != null && cursor.moveToFirst()) {
                 do {
@@ -676,7 +2181,7 @@ public class DataManager {
             String query = "SELECT COUNT(DISTINCT " + DatabaseHelper.COLUMN_RECORD_WORD_ID + ") FROM " +
                     DatabaseHelper.TABLE_LEARNING_RECORDS +
                     " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?";
-            cursor = database.rawQuery(query, new String[]{String.valueOf(userId)});
+            cursor = getDatabase().rawQuery(query, new String[]{String.valueOf(userId)});
 
             if (cursor != null && cursor.moveToFirst()) {
                 count = cursor.getInt(0);
@@ -693,7 +2198,7 @@ public class DataManager {
     }
 
     /**
-     * 获取用户的平均学习得分
+     * 获取用户的平均学习得分（所有评分的平均值）
      * @param userId 用户ID
      * @return 平均得分
      */
@@ -703,9 +2208,9 @@ public class DataManager {
 
         try {
             String query = "SELECT AVG(" + DatabaseHelper.COLUMN_RECORD_SCORE + ") FROM " +
-                    DatabaseHelper.TABLE_LEARNING_RECORDS +
+                    DatabaseHelper.TABLE_REVIEW_HISTORY +
                     " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?";
-            cursor = database.rawQuery(query, new String[]{String.valueOf(userId)});
+            cursor = getDatabase().rawQuery(query, new String[]{String.valueOf(userId)});
 
             if (cursor != null && cursor.moveToFirst()) {
                 if (!cursor.isNull(0)) {
@@ -722,4 +2227,102 @@ public class DataManager {
 
         return average;
     }
-}
\ No newline at end of file
+
+    /**
+     * 异步添加聊天消息：消息先进入写后队列，稍后在后台线程中批量写入
+     * @param content 消息内容
+     * @param senderType 发送者类型
+     * @param userId 用户ID（可为null）
+     */
+    public void addMessageAsync(final String content, final int senderType, final Integer userId) {
+        final long timestamp = System.currentTimeMillis();
+        writeQueue.enqueue(new WriteBehindQueue.PendingWrite() {
+            @Override
+            boolean apply() {
+                return insertMessage(content, senderType, userId, timestamp);
+            }
+        }, null);
+    }
+
+    /**
+     * 异步记录一次单词评分（与{@link #recordReview}相同：更新当前学习状态并追加复习历史）。
+     * 同一用户同一单词在提交前的多次评分会被合并为一次写入，每次评分都保留在复习历史中，复习次数按评分次数累加。
+     * @param userId 用户ID
+     * @param wordId 单词ID
+     * @param score 学习得分
+     * @param status 学习状态
+     * @param listener 写入完成后的回调（在主线程中调用，可为null）
+     */
+    public void recordLearningAsync(int userId, int wordId, int score, String status,
+                                    WriteBehindQueue.OnWriteCompleteListener listener) {
+        writeQueue.enqueue(new LearningReviewWrite(userId, wordId, score, status), listener);
+    }
+
+    /**
+     * 写后队列，用于测试
+     */
+    WriteBehindQueue getWriteQueue() {
+        return writeQueue;
+    }
+
+    /**
+     * 立即在后台线程中提交写后队列中的所有写操作（例如在Activity的onPause中调用）
+     */
+    public void flushPendingWrites() {
+        writeQueue.flush();
+    }
+
+    /**
+     * 写后队列中的单词评分，同一用户同一单词在提交前的多次评分合并为一次写入
+     */
+    private class LearningReviewWrite extends WriteBehindQueue.PendingWrite {
+        private final int userId;
+        private final int wordId;
+        private final List<Integer> scores = new ArrayList<>();
+        private final List<String> statuses = new ArrayList<>();
+        private final List<Long> timestamps = new ArrayList<>();
+
+        LearningReviewWrite(int userId, int wordId, int score, String status) {
+            this.userId = userId;
+            this.wordId = wordId;
+            scores.add(score);
+            statuses.add(status);
+            timestamps.add(System.currentTimeMillis());
+        }
+
+        @Override
+        String getCoalesceKey() {
+            return "learning:" + userId + ":" + wordId;
+        }
+
+        @Override
+        WriteBehindQueue.PendingWrite coalesce(WriteBehindQueue.PendingWrite newer) {
+            // 当前状态只保留最新的评分，但每次评分都要写入复习历史
+            LearningReviewWrite newerReview = (LearningReviewWrite) newer;
+            scores.addAll(newerReview.scores);
+            statuses.addAll(newerReview.statuses);
+            timestamps.addAll(newerReview.timestamps);
+            return this;
+        }
+
+        @Override
+        boolean apply() {
+            int count = scores.size();
+            int[] scoreArray = new int[count];
+            long[] timestampArray = new long[count];
+            for (int i = 0; i < count; i++) {
+                scoreArray[i] = scores.get(i);
+                timestampArray[i] = timestamps.get(i);
+            }
+            // 直接在队列的批量事务中写入，出错时抛出异常由队列回滚并逐条重试
+            writeReviews(getDatabase(), userId, wordId, scoreArray, statuses.toArray(new String[0]), timestampArray, count);
+            return true;
+        }
+
+        @Override
+        void onCommitted() {
+            // 批量事务提交后统计快照才失效，提交前计算的快照不会以新版本号被缓存
+            onLearningRecordsChanged(userId);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 /**
@@ -15,8 +16,10 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
     // 数据库名称
     private static final String DATABASE_NAME = "EnglishLearningApp.db";
-    // 数据库版本
-    private static final int DATABASE_VERSION = 1;
+    // 数据库版本，每增加一个版本都要在MIGRATIONS中添加对应的迁移步骤
+    static final int DATABASE_VERSION = 10;
+    // 初始版本，onCreate先创建这个版本的表结构，再依次执行迁移步骤
+    static final int BASE_VERSION = 1;
 
     // 用户表
     public static final String TABLE_USERS = "users";
@@ -41,7 +44,7 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public static final String COLUMN_TIMESTAMP = "timestamp";
     public static final String COLUMN_USER_ID_FK = "user_id";
 
-    // 学习记录表
+    // 学习记录表（版本9起为每个用户每个单词一行的当前状态，历次评分见复习历史表）
     public static final String TABLE_LEARNING_RECORDS = "learning_records";
     public static final String COLUMN_RECORD_ID = "_id";
     public static final String COLUMN_RECORD_USER_ID = "user_id";
@@ -50,6 +53,46 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public static final String COLUMN_RECORD_STATUS = "status";
     public static final String COLUMN_RECORD_REVIEW_COUNT = "review_count";
 
+    // 单词包导入进度表
+    public static final String TABLE_IMPORT_PROGRESS = "import_progress";
+    public static final String COLUMN_IMPORT_SOURCE = "source";
+    public static final String COLUMN_IMPORT_RECORDS = "records_consumed";
+    public static final String COLUMN_IMPORT_INSERTED = "inserted";
+    public static final String COLUMN_IMPORT_COMPLETED = "completed";
+    public static final String COLUMN_IMPORT_UPDATED_AT = "updated_at";
+
+    // 应用元数据表（键值对），例如已安装的词典版本
+    public static final String TABLE_APP_METADATA = "app_metadata";
+    public static final String COLUMN_METADATA_KEY = "key";
+    public static final String COLUMN_METADATA_VALUE = "value";
+
+    // 单词全文索引表（FTS4虚拟表，docid为单词ID），见WordSearchIndex
+    public static final String TABLE_WORDS_FTS = "words_fts";
+
+    // 每个用户每天（本地日期yyyy-MM-dd）的学习统计汇总表，见LearningStatsRollup
+    public static final String TABLE_DAILY_LEARNING_STATS = "daily_learning_stats";
+    // 每周（周一开始）、每月的学习统计汇总表，列与每日汇总表相同，day为时间段的第一天
+    public static final String TABLE_WEEKLY_LEARNING_STATS = "weekly_learning_stats";
+    public static final String TABLE_MONTHLY_LEARNING_STATS = "monthly_learning_stats";
+    public static final String COLUMN_STATS_DAY = "day";
+    public static final String COLUMN_STATS_RECORD_COUNT = "record_count";
+    public static final String COLUMN_STATS_SCORE_SUM = "score_sum";
+    public static final String COLUMN_STATS_MIN_SCORE = "min_score";
+    public static final String COLUMN_STATS_MAX_SCORE = "max_score";
+
+    // 复习历史表（只增不改，每次评分一行），列名与学习记录表相同，见DataManager.recordReview
+    public static final String TABLE_REVIEW_HISTORY = "review_history";
+
+    // 学习记录表中的复习计划（版本10起），见ReviewSchedule
+    public static final String COLUMN_RECORD_EASE_FACTOR = "ease_factor";
+    public static final String COLUMN_RECORD_INTERVAL_DAYS = "interval_days";
+    public static final String COLUMN_RECORD_REPETITIONS = "repetitions";
+    public static final String COLUMN_RECORD_NEXT_DUE_AT = "next_due_at";
+
+    // app_metadata中标记派生数据需要重建的键：由迁移步骤写入，打开数据库时按当前代码重建后删除
+    static final String KEY_REBUILD_WORD_SEARCH_INDEX = "rebuild_word_search_index";
+    static final String KEY_REBUILD_REVIEW_SCHEDULES = "rebuild_review_schedules";
+
     // 创建用户表的SQL语句
     private static final String CREATE_TABLE_USERS = "CREATE TABLE " + TABLE_USERS + "(" +
             COLUMN_USER_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
@@ -90,13 +133,264 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             "FOREIGN KEY(" + COLUMN_RECORD_WORD_ID + ") REFERENCES " + TABLE_WORDS + "(" + COLUMN_WORD_ID + ")" +
             ");";
 
+    // 插入单词的SQL语句（用于预编译）
+    static final String INSERT_WORD = "INSERT INTO " + TABLE_WORDS + "(" +
+            COLUMN_WORD + ", " +
+            COLUMN_TRANSLATION + ", " +
+            COLUMN_CATEGORY + ", " +
+            COLUMN_EXAMPLE +
+            ") VALUES (?, ?, ?, ?)";
+
+    /**
+     * 数据库的存储（日志）模式
+     */
+    public enum StorageMode {
+        // 传统的回滚日志模式：写事务进行时读操作会被阻塞
+        ROLLBACK_JOURNAL,
+        // 预写日志模式：一个写连接加一组只读连接，读写可以并发进行
+        WRITE_AHEAD_LOG
+    }
+
+    private final Context context;
+    private final StorageMode storageMode;
+    private final DictionaryAssetInstaller dictionaryInstaller;
+
+    // 按版本顺序排列的迁移步骤
+    //
+    // 每个迁移步骤只执行写在这里的、对应版本当时的SQL，不要调用WordSearchIndex、LearningStatsRollup等
+    // 会随版本变化的辅助方法：它们按当前版本的表结构编写，以后修改时会改变旧版本的升级结果。
+    // 全文索引、统计汇总、复习计划等可以由其他表计算出来的派生数据，迁移步骤只标记需要重建，
+    // 由onOpen在升级到当前版本之后用当前的代码重建，见rebuildDerivedData。
+    private static final DatabaseMigration[] MIGRATIONS = {
+            // 版本1 -> 2：为热点查询添加复合索引
+            new DatabaseMigration(1, 2) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    // getUserWordLearningRecords：按用户和单词查询，按时间排序
+                    db.execSQL("CREATE INDEX IF NOT EXISTS idx_learning_records_user_word_time ON " +
+                            TABLE_LEARNING_RECORDS + "(" + COLUMN_RECORD_USER_ID + ", " +
+                            COLUMN_RECORD_WORD_ID + ", " + COLUMN_TIMESTAMP + ")");
+                    // getUserLearningRecords、getUserDailyLearningStats：按用户查询，按时间排序或分组
+                    db.execSQL("CREATE INDEX IF NOT EXISTS idx_learning_records_user_time ON " +
+                            TABLE_LEARNING_RECORDS + "(" + COLUMN_RECORD_USER_ID + ", " + COLUMN_TIMESTAMP + ")");
+                    // getAllMessages：按用户查询，按时间排序
+                    db.execSQL("CREATE INDEX IF NOT EXISTS idx_messages_user_time ON " +
+                            TABLE_MESSAGES + "(" + COLUMN_USER_ID_FK + ", " + COLUMN_TIMESTAMP + ")");
+                }
+            },
+            // 版本2 -> 3：单词去重索引和单词包导入进度表
+            new DatabaseMigration(2, 3) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    // 导入单词包时按单词去重
+                    db.execSQL("CREATE INDEX IF NOT EXISTS idx_words_word ON " +
+                            TABLE_WORDS + "(" + COLUMN_WORD + ")");
+                    // 记录每个单词包已经处理到第几条，进程被杀后可以从这里继续
+                    db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_IMPORT_PROGRESS + "(" +
+                            COLUMN_IMPORT_SOURCE + " TEXT PRIMARY KEY, " +
+                            COLUMN_IMPORT_RECORDS + " INTEGER NOT NULL, " +
+                            COLUMN_IMPORT_INSERTED + " INTEGER NOT NULL, " +
+                            COLUMN_IMPORT_COMPLETED + " INTEGER NOT NULL, " +
+                            COLUMN_IMPORT_UPDATED_AT + " INTEGER NOT NULL" +
+                            ")");
+                }
+            },
+            // 版本3 -> 4：应用元数据表，记录已安装的词典版本
+            new DatabaseMigration(3, 4) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_APP_METADATA + "(" +
+                            COLUMN_METADATA_KEY + " TEXT PRIMARY KEY, " +
+                            COLUMN_METADATA_VALUE + " TEXT" +
+                            ")");
+                }
+            },
+            // 版本4 -> 5：单词全文索引（FTS4），已有单词的索引在打开数据库时建立
+            new DatabaseMigration(4, 5) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_WORDS_FTS + " USING fts4(" +
+                            COLUMN_WORD + ", " + COLUMN_TRANSLATION + ", " + COLUMN_EXAMPLE + ")");
+                    markForRebuild(db, KEY_REBUILD_WORD_SEARCH_INDEX);
+                }
+            },
+            // 版本5 -> 6：按用户名前缀搜索用户（不区分大小写）的索引
+            new DatabaseMigration(5, 6) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    // searchUsersByPrefix：按用户名（NOCASE）范围查询和排序
+                    db.execSQL("CREATE INDEX IF NOT EXISTS idx_users_username_nocase ON " +
+                            TABLE_USERS + "(" + COLUMN_USERNAME + " COLLATE NOCASE)");
+                }
+            },
+            // 版本6 -> 7：每个用户每天的学习统计汇总表，汇总在打开数据库时生成
+            new DatabaseMigration(6, 7) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    createStatsTable(db, TABLE_DAILY_LEARNING_STATS);
+                    markStatsForRebuild(db);
+                }
+            },
+            // 版本7 -> 8：每个用户每周、每月的学习统计汇总表，汇总在打开数据库时生成
+            new DatabaseMigration(7, 8) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    createStatsTable(db, TABLE_WEEKLY_LEARNING_STATS);
+                    createStatsTable(db, TABLE_MONTHLY_LEARNING_STATS);
+                    markStatsForRebuild(db);
+                }
+            },
+            // 版本8 -> 9：学习记录改为每个用户每个单词一行的当前状态（唯一索引），每次评分追加到复习历史表
+            new DatabaseMigration(8, 9) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    // 只增不改的复习历史：每次评分一行，记忆曲线和统计汇总的数据来源
+                    db.execSQL("CREATE TABLE " + TABLE_REVIEW_HISTORY + "(" +
+                            COLUMN_RECORD_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            COLUMN_RECORD_USER_ID + " INTEGER NOT NULL, " +
+                            COLUMN_RECORD_WORD_ID + " INTEGER NOT NULL, " +
+                            COLUMN_RECORD_SCORE + " INTEGER NOT NULL, " +
+                            COLUMN_RECORD_STATUS + " TEXT NOT NULL, " +
+                            COLUMN_TIMESTAMP + " INTEGER NOT NULL, " +
+                            "FOREIGN KEY(" + COLUMN_RECORD_USER_ID + ") REFERENCES " + TABLE_USERS + "(" + COLUMN_USER_ID + "), " +
+                            "FOREIGN KEY(" + COLUMN_RECORD_WORD_ID + ") REFERENCES " + TABLE_WORDS + "(" + COLUMN_WORD_ID + ")" +
+                            ")");
+                    // getUserWordLearningRecords：按用户和单词查询，按时间排序
+                    db.execSQL("CREATE INDEX idx_review_history_user_word_time ON " + TABLE_REVIEW_HISTORY + "(" +
+                            COLUMN_RECORD_USER_ID + ", " + COLUMN_RECORD_WORD_ID + ", " + COLUMN_TIMESTAMP + ")");
+                    // 统计汇总的重建、平均分和最早学习时间：按用户查询，按时间排序
+                    db.execSQL("CREATE INDEX idx_review_history_user_time ON " + TABLE_REVIEW_HISTORY + "(" +
+                            COLUMN_RECORD_USER_ID + ", " + COLUMN_TIMESTAMP + ")");
+
+                    // 已有的每条学习记录都是一次评分，按时间顺序复制到复习历史
+                    db.execSQL("INSERT INTO " + TABLE_REVIEW_HISTORY + "(" + COLUMN_RECORD_USER_ID + ", " +
+                            COLUMN_RECORD_WORD_ID + ", " + COLUMN_RECORD_SCORE + ", " + COLUMN_RECORD_STATUS + ", " +
+                            COLUMN_TIMESTAMP + ") SELECT " + COLUMN_RECORD_USER_ID + ", " + COLUMN_RECORD_WORD_ID + ", " +
+                            COLUMN_RECORD_SCORE + ", " + COLUMN_RECORD_STATUS + ", " + COLUMN_TIMESTAMP +
+                            " FROM " + TABLE_LEARNING_RECORDS + " ORDER BY " + COLUMN_TIMESTAMP + ", " + COLUMN_RECORD_ID);
+
+                    // 学习记录表改为当前状态：每个用户每个单词只保留最新的一条（时间相同时保留ID较大的）
+                    db.execSQL("DELETE FROM " + TABLE_LEARNING_RECORDS + " WHERE EXISTS (SELECT 1 FROM " +
+                            TABLE_LEARNING_RECORDS + " newer WHERE newer." + COLUMN_RECORD_USER_ID + " = " +
+                            TABLE_LEARNING_RECORDS + "." + COLUMN_RECORD_USER_ID + " AND newer." + COLUMN_RECORD_WORD_ID +
+                            " = " + TABLE_LEARNING_RECORDS + "." + COLUMN_RECORD_WORD_ID + " AND (newer." + COLUMN_TIMESTAMP +
+                            " > " + TABLE_LEARNING_RECORDS + "." + COLUMN_TIMESTAMP + " OR (newer." + COLUMN_TIMESTAMP +
+                            " = " + TABLE_LEARNING_RECORDS + "." + COLUMN_TIMESTAMP + " AND newer." + COLUMN_RECORD_ID +
+                            " > " + TABLE_LEARNING_RECORDS + "." + COLUMN_RECORD_ID + ")))");
+                    // 复习次数不少于复习历史中的评分次数
+                    db.execSQL("UPDATE " + TABLE_LEARNING_RECORDS + " SET " + COLUMN_RECORD_REVIEW_COUNT + " = max(" +
+                            COLUMN_RECORD_REVIEW_COUNT + ", (SELECT COUNT(*) FROM " + TABLE_REVIEW_HISTORY + " h WHERE h." +
+                            COLUMN_RECORD_USER_ID + " = " + TABLE_LEARNING_RECORDS + "." + COLUMN_RECORD_USER_ID + " AND h." +
+                            COLUMN_RECORD_WORD_ID + " = " + TABLE_LEARNING_RECORDS + "." + COLUMN_RECORD_WORD_ID + "))");
+                    // recordReview：按(用户, 单词)插入或更新当前状态，唯一索引同时替代原来的(用户, 单词, 时间)索引
+                    db.execSQL("DROP INDEX IF EXISTS idx_learning_records_user_word_time");
+                    db.execSQL("CREATE UNIQUE INDEX idx_learning_records_user_word ON " + TABLE_LEARNING_RECORDS + "(" +
+                            COLUMN_RECORD_USER_ID + ", " + COLUMN_RECORD_WORD_ID + ")");
+
+                    // 统计汇总改为按复习历史生成
+                    markStatsForRebuild(db);
+                }
+            },
+            // 版本9 -> 10：学习记录增加SM-2复习计划列和(用户, 下次复习时间)索引，
+            // 已有单词的复习计划在打开数据库时按复习历史计算
+            new DatabaseMigration(9, 10) {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    // 复习计划：新单词和没有复习历史的单词立即到期（next_due_at为0），初始难度系数为2.5
+                    db.execSQL("ALTER TABLE " + TABLE_LEARNING_RECORDS + " ADD COLUMN " +
+                            COLUMN_RECORD_EASE_FACTOR + " REAL NOT NULL DEFAULT 2.5");
+                    db.execSQL("ALTER TABLE " + TABLE_LEARNING_RECORDS + " ADD COLUMN " +
+                            COLUMN_RECORD_INTERVAL_DAYS + " INTEGER NOT NULL DEFAULT 0");
+                    db.execSQL("ALTER TABLE " + TABLE_LEARNING_RECORDS + " ADD COLUMN " +
+                            COLUMN_RECORD_REPETITIONS + " INTEGER NOT NULL DEFAULT 0");
+                    db.execSQL("ALTER TABLE " + TABLE_LEARNING_RECORDS + " ADD COLUMN " +
+                            COLUMN_RECORD_NEXT_DUE_AT + " INTEGER NOT NULL DEFAULT 0");
+                    // getDueWords：按用户和下次复习时间范围读取到期的单词
+                    db.execSQL("CREATE INDEX idx_learning_records_user_due ON " + TABLE_LEARNING_RECORDS + "(" +
+                            COLUMN_RECORD_USER_ID + ", " + COLUMN_RECORD_NEXT_DUE_AT + ")");
+                    markForRebuild(db, KEY_REBUILD_REVIEW_SCHEDULES);
+                }
+            }
+    };
+
     public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DATABASE_NAME);
+    }
+
+    /**
+     * 使用默认存储模式（WAL）的构造函数，与应用使用的数据库配置相同
+     * @param context 上下文
+     * @param name 数据库文件名（测试时可以使用独立的文件）
+     */
+    DatabaseHelper(Context context, String name) {
+        this(context, name, StorageMode.WRITE_AHEAD_LOG);
+    }
+
+    /**
+     * 构造函数
+     * @param context 上下文
+     * @param name 数据库文件名（测试时可以使用独立的文件）
+     * @param storageMode 存储模式
+     */
+    DatabaseHelper(Context context, String name, StorageMode storageMode) {
+        super(context, name, null, DATABASE_VERSION);
+        this.context = context;
+        this.storageMode = storageMode;
+        this.dictionaryInstaller = new DictionaryAssetInstaller(context);
+        // 开启WAL后，SQLiteDatabase内部会维护一个只读连接池，
+        // 不在事务中的查询会分配到只读连接上，与写操作并发执行
+        setWriteAheadLoggingEnabled(storageMode == StorageMode.WRITE_AHEAD_LOG);
+    }
+
+    /**
+     * 获取数据库的存储模式
+     */
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    @Override
+    public synchronized SQLiteDatabase getWritableDatabase() {
+        // 第一次打开前，如果assets中有预置数据库，直接复制过来
+        if (getDatabaseName() != null) {
+            dictionaryInstaller.installIfMissing(context.getDatabasePath(getDatabaseName()));
+        }
+        return super.getWritableDatabase();
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        if (!db.isReadOnly()) {
+            // 迁移步骤标记的派生数据按当前版本的代码重建
+            rebuildDerivedData(db);
+            // 预置词典有更新时只替换单词表的内容，保留用户数据
+            dictionaryInstaller.updateContentIfNewer(db);
+            // 统计汇总按本地日期划分，时区变化后（或迁移步骤删除了记录的时区后）需要重新汇总
+            LearningStatsRollup.rebuildIfTimeZoneChanged(db);
+        }
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
-        // 创建所有表
+        // 创建初始版本的表结构，再依次执行迁移步骤升级到当前版本，
+        // 这样新安装和升级安装得到的表结构完全一致
+        createBaseSchema(db);
+        migrate(db, BASE_VERSION, DATABASE_VERSION);
+
+        Log.d(TAG, "Database and tables created successfully");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // 依次执行迁移步骤，不删除已有的表和数据
+        migrate(db, oldVersion, newVersion);
+    }
+
+    /**
+     * 创建初始版本（BASE_VERSION）的表结构并初始化单词数据
+     */
+    static void createBaseSchema(SQLiteDatabase db) {
         db.execSQL(CREATE_TABLE_USERS);
         db.execSQL(CREATE_TABLE_WORDS);
         db.execSQL(CREATE_TABLE_MESSAGES);
@@ -104,24 +398,125 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
         // 初始化单词数据
         initializeWordData(db);
+    }
 
-        Log.d(TAG, "Database and tables created successfully");
+    /**
+     * 重建迁移步骤标记的派生数据，每一项在各自的事务中重建并清除标记；
+     * 重建前进程被杀时标记仍然存在，下次打开数据库时会再次重建
+     */
+    static void rebuildDerivedData(SQLiteDatabase db) {
+        if (isMarkedForRebuild(db, KEY_REBUILD_WORD_SEARCH_INDEX)) {
+            db.beginTransaction();
+            try {
+                WordSearchIndex.rebuild(db);
+                clearRebuildMark(db, KEY_REBUILD_WORD_SEARCH_INDEX);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+        if (isMarkedForRebuild(db, KEY_REBUILD_REVIEW_SCHEDULES)) {
+            db.beginTransaction();
+            try {
+                ReviewScheduler.rebuild(db);
+                clearRebuildMark(db, KEY_REBUILD_REVIEW_SCHEDULES);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
     }
 
-    @Override
-    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // 升级数据库时，删除旧表并创建新表
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_USERS);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_WORDS);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_MESSAGES);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_LEARNING_RECORDS);
-        onCreate(db);
+    /**
+     * 在迁移步骤中标记一项派生数据需要重建（app_metadata从版本4起存在）
+     */
+    private static void markForRebuild(SQLiteDatabase db, String key) {
+        db.execSQL("INSERT OR REPLACE INTO " + TABLE_APP_METADATA + "(" + COLUMN_METADATA_KEY + ", " +
+                COLUMN_METADATA_VALUE + ") VALUES (?, '1')", new Object[]{key});
+    }
+
+    private static boolean isMarkedForRebuild(SQLiteDatabase db, String key) {
+        Cursor cursor = db.rawQuery("SELECT 1 FROM " + TABLE_APP_METADATA + " WHERE " + COLUMN_METADATA_KEY + " = ?",
+                new String[]{key});
+        try {
+            return cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void clearRebuildMark(SQLiteDatabase db, String key) {
+        db.delete(TABLE_APP_METADATA, COLUMN_METADATA_KEY + " = ?", new String[]{key});
+    }
+
+    /**
+     * 在迁移步骤中创建一种粒度的学习统计汇总表（版本7、8时的表结构）
+     */
+    private static void createStatsTable(SQLiteDatabase db, String table) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + table + "(" +
+                COLUMN_RECORD_USER_ID + " INTEGER NOT NULL, " +
+                COLUMN_STATS_DAY + " TEXT NOT NULL, " +
+                COLUMN_STATS_RECORD_COUNT + " INTEGER NOT NULL, " +
+                COLUMN_STATS_SCORE_SUM + " INTEGER NOT NULL, " +
+                COLUMN_STATS_MIN_SCORE + " INTEGER NOT NULL, " +
+                COLUMN_STATS_MAX_SCORE + " INTEGER NOT NULL, " +
+                "PRIMARY KEY(" + COLUMN_RECORD_USER_ID + ", " + COLUMN_STATS_DAY + ")" +
+                ")");
+    }
+
+    /**
+     * 在迁移步骤中标记统计汇总需要重建：删除汇总时记录的时区，
+     * 打开数据库时{@link LearningStatsRollup#rebuildIfTimeZoneChanged}会按复习历史重新汇总所有粒度
+     */
+    private static void markStatsForRebuild(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + TABLE_APP_METADATA + " WHERE " + COLUMN_METADATA_KEY + " = ?",
+                new Object[]{LearningStatsRollup.KEY_TIME_ZONE});
+    }
+
+    /**
+     * 按顺序执行从oldVersion到newVersion的迁移步骤，每一步都在事务中执行
+     * @param db 数据库
+     * @param oldVersion 当前版本
+     * @param newVersion 目标版本
+     */
+    static void migrate(SQLiteDatabase db, int oldVersion, int newVersion) {
+        int version = oldVersion;
+        while (version < newVersion) {
+            DatabaseMigration migration = findMigration(version);
+            if (migration == null) {
+                throw new IllegalStateException("Missing database migration from version " + version);
+            }
+
+            db.beginTransaction();
+            try {
+                migration.migrate(db);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            Log.d(TAG, "Migrated database from version " + migration.getStartVersion() +
+                    " to " + migration.getEndVersion());
+            version = migration.getEndVersion();
+        }
+    }
+
+    /**
+     * 查找从指定版本开始的迁移步骤
+     */
+    private static DatabaseMigration findMigration(int startVersion) {
+        for (DatabaseMigration migration : MIGRATIONS) {
+            if (migration.getStartVersion() == startVersion) {
+                return migration;
+            }
+        }
+        return null;
     }
 
     /**
      * 初始化单词数据
      */
-    private void initializeWordData(SQLiteDatabase db) {
+    private static void initializeWordData(SQLiteDatabase db) {
         // 插入示例单词数据
         String[] words = {
                 "apple", "banana", "book", "computer", "friend",
@@ -151,7 +546,7 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 "I use a computer to work every day.",
                 "A true friend is hard to find.",
                 "I feel very happy today.",
-                "It''s never too late to learn.", // 注意：这里是两个单引号
+                "It's never too late to learn.",
                 "I enjoy listening to music in my free time.",
                 "My phone is an essential part of my daily life.",
                 "We need to study hard to achieve our goals.",
@@ -167,19 +562,19 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 "I love my job and work hard every day."
         };
 
-        // 插入数据
-        for (int i = 0; i < words.length; i++) {
-            String insertQuery = "INSERT INTO " + TABLE_WORDS + "(" +
-                    COLUMN_WORD + ", " +
-                    COLUMN_TRANSLATION + ", " +
-                    COLUMN_CATEGORY + ", " +
-                    COLUMN_EXAMPLE +
-                    ") VALUES ('" +
-                    words[i] + "', '" +
-                    translations[i] + "', '" +
-                    categories[i] + "', '" +
-                    examples[i] + "');";
-            db.execSQL(insertQuery);
+        // 使用预编译语句插入数据，参数绑定不需要处理单引号转义
+        SQLiteStatement statement = db.compileStatement(INSERT_WORD);
+        try {
+            for (int i = 0; i < words.length; i++) {
+                statement.clearBindings();
+                statement.bindString(1, words[i]);
+                statement.bindString(2, translations[i]);
+                statement.bindString(3, categories[i]);
+                statement.bindString(4, examples[i]);
+                statement.executeInsert();
+            }
+        } finally {
+            statement.close();
         }
 
         Log.d(TAG, "Word data initialized successfully");
@@ -0,0 +1,41 @@
+package com.example.firstassignment;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * 数据库迁移步骤，把数据库从一个版本升级到下一个版本，并且保留已有数据
+ */
+public abstract class DatabaseMigration {
+    private final int startVersion;
+    private final int endVersion;
+
+    /**
+     * 构造函数
+     * @param startVersion 迁移前的版本
+     * @param endVersion 迁移后的版本
+     */
+    protected DatabaseMigration(int startVersion, int endVersion) {
+        this.startVersion = startVersion;
+        this.endVersion = endVersion;
+    }
+
+    /**
+     * 获取迁移前的版本
+     */
+    public int getStartVersion() {
+        return startVersion;
+    }
+
+    /**
+     * 获取迁移后的版本
+     */
+    public int getEndVersion() {
+        return endVersion;
+    }
+
+    /**
+     * 执行迁移，调用时已经处于事务中
+     * @param db 数据库
+     */
+    public abstract void migrate(SQLiteDatabase db);
+}
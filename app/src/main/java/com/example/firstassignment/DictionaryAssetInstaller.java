@@ -0,0 +1,262 @@
+package com.example.firstassignment;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * 预置词典数据库的安装器
+ *
+ * assets中的{@link #ASSET_PATH}是一个预先建好表结构、导入词典、建好索引并执行过VACUUM的完整数据库，
+ * 其user_version为构建时的数据库版本（打开后会照常执行后续的迁移步骤），
+ * app_metadata表中的dictionary_version为词典内容的版本。
+ * <ul>
+ *     <li>首次打开数据库时，直接把预置数据库复制到数据库目录，省去建表和逐行插入；</li>
+ *     <li>之后如果{@link #DICTIONARY_VERSION}比已安装的词典版本新，只替换单词表的内容：
+ *     按英文和翻译匹配已有的单词并保留其ID，用户、聊天消息、学习记录和复习历史保持不变。</li>
+ * </ul>
+ * 更换预置数据库时需要同时增大{@link #DICTIONARY_VERSION}。assets中没有预置数据库时不做任何处理，
+ * 由{@link DatabaseHelper#onCreate}建表并写入示例单词。
+ */
+class DictionaryAssetInstaller {
+    private static final String TAG = "DictionaryInstaller";
+    // 预置数据库在assets中的路径
+    static final String ASSET_PATH = "databases/dictionary.db";
+    // 预置数据库中词典内容的版本，更换预置数据库时增大
+    static final int DICTIONARY_VERSION = 1;
+    // app_metadata中记录已安装词典版本的键
+    static final String KEY_DICTIONARY_VERSION = "dictionary_version";
+
+    private final Context context;
+
+    DictionaryAssetInstaller(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * assets中是否有预置数据库
+     */
+    boolean hasAsset() {
+        try {
+            String[] files = context.getAssets().list("databases");
+            return files != null && Arrays.asList(files).contains(new File(ASSET_PATH).getName());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 数据库文件不存在时，把预置数据库复制到指定位置
+     * @param databaseFile 数据库文件
+     * @return 是否复制了预置数据库
+     */
+    boolean installIfMissing(File databaseFile) {
+        if (databaseFile.exists() || !hasAsset()) {
+            return false;
+        }
+
+        try {
+            copyAsset(databaseFile);
+            Log.d(TAG, "Installed prepackaged database to " + databaseFile);
+            return true;
+        } catch (IOException e) {
+            // 复制失败时退回到建表并写入示例单词
+            Log.e(TAG, "Error installing prepackaged database: " + e.getMessage());
+            databaseFile.delete();
+            return false;
+        }
+    }
+
+    /**
+     * 预置数据库中的词典比已安装的新时，用它替换单词表的内容（见{@link #replaceWords}）
+     * @param db 已打开的数据库
+     */
+    void updateContentIfNewer(SQLiteDatabase db) {
+        int installedVersion = getInstalledVersion(db);
+        if (installedVersion >= DICTIONARY_VERSION || !hasAsset()) {
+            return;
+        }
+
+        File tempFile = new File(context.getCacheDir(), "dictionary_update.db");
+        try {
+            copyAsset(tempFile);
+            SQLiteDatabase dictionary = SQLiteDatabase.openDatabase(tempFile.getPath(), null,
+                    SQLiteDatabase.OPEN_READONLY);
+            try {
+                replaceWords(db, dictionary);
+            } finally {
+                dictionary.close();
+            }
+            Log.d(TAG, "Updated dictionary from version " + installedVersion + " to " + DICTIONARY_VERSION);
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating dictionary: " + e.getMessage());
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * 在一个事务中用预置词典替换单词表的内容，并记录新的词典版本
+     *
+     * 预置词典中的单词按英文和翻译与已有的单词匹配：匹配到的单词保留原来的ID，只更新类别和例句；
+     * 匹配不到的作为新单词插入，由单词表分配新的ID。预置词典自己的ID不会写入单词表，
+     * 因为已有单词的ID是按插入顺序分配的（例如onCreate写入的示例单词），与预置词典的ID不一定对应，
+     * 按ID覆盖会使学习记录和复习历史指向另一个单词。
+     * 不在预置词典中的单词只有在没有学习记录和复习历史引用时才删除。
+     */
+    static void replaceWords(SQLiteDatabase db, SQLiteDatabase dictionary) {
+        db.beginTransaction();
+        SQLiteStatement find = null;
+        SQLiteStatement update = null;
+        SQLiteStatement insert = null;
+        SQLiteStatement keep = null;
+        Cursor cursor = null;
+        int inserted = 0;
+        try {
+            // 临时表只在当前连接（事务所在的连接）中可见，用来记录预置词典中的单词在单词表中的ID
+            db.execSQL("CREATE TEMP TABLE IF NOT EXISTS dictionary_ids(_id INTEGER PRIMARY KEY)");
+            db.execSQL("DELETE FROM temp.dictionary_ids");
+
+            // 英文上有索引（idx_words_word），没有匹配的单词时返回-1
+            find = db.compileStatement("SELECT IFNULL((SELECT " + DatabaseHelper.COLUMN_WORD_ID + " FROM " +
+                    DatabaseHelper.TABLE_WORDS + " WHERE " + DatabaseHelper.COLUMN_WORD + " = ? AND " +
+                    DatabaseHelper.COLUMN_TRANSLATION + " = ? ORDER BY " + DatabaseHelper.COLUMN_WORD_ID +
+                    " LIMIT 1), -1)");
+            update = db.compileStatement("UPDATE " + DatabaseHelper.TABLE_WORDS + " SET " +
+                    DatabaseHelper.COLUMN_CATEGORY + " = ?, " + DatabaseHelper.COLUMN_EXAMPLE + " = ?" +
+                    " WHERE " + DatabaseHelper.COLUMN_WORD_ID + " = ?");
+            insert = db.compileStatement(DatabaseHelper.INSERT_WORD);
+            keep = db.compileStatement("INSERT OR IGNORE INTO temp.dictionary_ids(_id) VALUES (?)");
+
+            cursor = dictionary.rawQuery("SELECT " + DatabaseHelper.COLUMN_WORD + ", " +
+                    DatabaseHelper.COLUMN_TRANSLATION + ", " + DatabaseHelper.COLUMN_CATEGORY + ", " +
+                    DatabaseHelper.COLUMN_EXAMPLE + " FROM " + DatabaseHelper.TABLE_WORDS +
+                    " ORDER BY " + DatabaseHelper.COLUMN_WORD_ID, null);
+            while (cursor.moveToNext()) {
+                String word = cursor.getString(0);
+                String translation = cursor.getString(1);
+                find.bindString(1, word);
+                find.bindString(2, translation);
+                long id = find.simpleQueryForLong();
+
+                if (id != -1) {
+                    update.bindString(1, cursor.getString(2));
+                    update.bindString(2, cursor.getString(3));
+                    update.bindLong(3, id);
+                    update.executeUpdateDelete();
+                } else {
+                    insert.bindString(1, word);
+                    insert.bindString(2, translation);
+                    insert.bindString(3, cursor.getString(2));
+                    insert.bindString(4, cursor.getString(3));
+                    id = insert.executeInsert();
+                    inserted++;
+                }
+
+                keep.bindLong(1, id);
+                keep.executeInsert();
+            }
+
+            db.execSQL("DELETE FROM " + DatabaseHelper.TABLE_WORDS +
+                    " WHERE " + DatabaseHelper.COLUMN_WORD_ID + " NOT IN (SELECT _id FROM temp.dictionary_ids)" +
+                    " AND " + DatabaseHelper.COLUMN_WORD_ID + " NOT IN (SELECT " + DatabaseHelper.COLUMN_RECORD_WORD_ID +
+                    " FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS + ")" +
+                    " AND " + DatabaseHelper.COLUMN_WORD_ID + " NOT IN (SELECT " + DatabaseHelper.COLUMN_RECORD_WORD_ID +
+                    " FROM " + DatabaseHelper.TABLE_REVIEW_HISTORY + ")");
+            db.execSQL("DROP TABLE temp.dictionary_ids");
+
+            // 单词表的内容整体变化，重建全文索引
+            WordSearchIndex.rebuild(db);
+
+            db.execSQL("INSERT OR REPLACE INTO " + DatabaseHelper.TABLE_APP_METADATA + "(" +
+                            DatabaseHelper.COLUMN_METADATA_KEY + ", " + DatabaseHelper.COLUMN_METADATA_VALUE +
+                            ") VALUES (?, ?)",
+                    new Object[]{KEY_DICTIONARY_VERSION, String.valueOf(DICTIONARY_VERSION)});
+            db.setTransactionSuccessful();
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            if (find != null) {
+                find.close();
+            }
+            if (update != null) {
+                update.close();
+            }
+            if (insert != null) {
+                insert.close();
+            }
+            if (keep != null) {
+                keep.close();
+            }
+            db.endTransaction();
+        }
+        Log.d(TAG, "Dictionary words matched by word and translation, " + inserted + " new");
+    }
+
+    /**
+     * 读取已安装的词典版本，没有记录时为0（即onCreate写入的示例单词）
+     */
+    private static int getInstalledVersion(SQLiteDatabase db) {
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("SELECT " + DatabaseHelper.COLUMN_METADATA_VALUE + " FROM " +
+                            DatabaseHelper.TABLE_APP_METADATA + " WHERE " + DatabaseHelper.COLUMN_METADATA_KEY + " = ?",
+                    new String[]{KEY_DICTIONARY_VERSION});
+            if (cursor != null && cursor.moveToFirst()) {
+                return Integer.parseInt(cursor.getString(0));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading dictionary version: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 用NIO通道把预置数据库复制到目标文件：先写入临时文件并刷到磁盘，再重命名，避免留下不完整的数据库
+     */
+    private void copyAsset(File target) throws IOException {
+        File parent = target.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create directory " + parent);
+        }
+
+        File tempFile = new File(target.getPath() + ".tmp");
+        InputStream input = context.getAssets().open(ASSET_PATH);
+        ReadableByteChannel source = Channels.newChannel(input);
+        FileOutputStream output = new FileOutputStream(tempFile);
+        FileChannel destination = output.getChannel();
+        try {
+            long position = 0;
+            long transferred;
+            while ((transferred = destination.transferFrom(source, position, 1024 * 1024)) > 0) {
+                position += transferred;
+            }
+            destination.force(true);
+        } finally {
+            destination.close();
+            output.close();
+            source.close();
+        }
+
+        if (!tempFile.renameTo(target)) {
+            tempFile.delete();
+            throw new IOException("Cannot rename " + tempFile + " to " + target);
+        }
+    }
+}
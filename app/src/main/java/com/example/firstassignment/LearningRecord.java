@@ -6,6 +6,17 @@ import java.util.Date;
  * 学习记录实体类，用于存储用户的单词学习进度和记忆曲线数据
  */
 public class LearningRecord {
+    // 学习状态
+    public static final String STATUS_MASTERED = "已掌握";
+    public static final String STATUS_LEARNING = "学习中";
+    public static final String STATUS_REVIEW = "待复习";
+
+    // 学习状态编码，用于不创建字符串的扫描接口（见DataManager.scanUserLearningRecords）
+    public static final int STATUS_CODE_OTHER = 0;
+    public static final int STATUS_CODE_MASTERED = 1;
+    public static final int STATUS_CODE_LEARNING = 2;
+    public static final int STATUS_CODE_REVIEW = 3;
+
     private int id;
     private int userId;
     private int wordId;
@@ -33,6 +44,19 @@ public class LearningRecord {
         this.reviewCount = reviewCount;
     }
 
+    /**
+     * 根据评分确定学习状态：80分及以上为已掌握，40分及以上为学习中，其余为待复习
+     * @param score 学习得分（0-100）
+     */
+    public static String statusForScore(int score) {
+        if (score >= 80) {
+            return STATUS_MASTERED;
+        } else if (score >= 40) {
+            return STATUS_LEARNING;
+        }
+        return STATUS_REVIEW;
+    }
+
     public int getId() {
         return id;
     }
@@ -92,4 +116,28 @@ public class LearningRecord {
     public Date getDate() {
         return new Date(timestamp);
     }
+
+    /**
+     * 获取学习状态编码
+     * @return 状态编码，未知的状态返回{@link #STATUS_CODE_OTHER}
+     */
+    public int getStatusCode() {
+        return statusCode(status);
+    }
+
+    /**
+     * 把学习状态转换为状态编码
+     * @param status 学习状态
+     * @return 状态编码，未知的状态返回{@link #STATUS_CODE_OTHER}
+     */
+    public static int statusCode(String status) {
+        if (STATUS_MASTERED.equals(status)) {
+            return STATUS_CODE_MASTERED;
+        } else if (STATUS_LEARNING.equals(status)) {
+            return STATUS_CODE_LEARNING;
+        } else if (STATUS_REVIEW.equals(status)) {
+            return STATUS_CODE_REVIEW;
+        }
+        return STATUS_CODE_OTHER;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+package com.example.firstassignment;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.util.TimeZone;
+
+/**
+ * 每个用户按日、周、月汇总的学习统计表（每种粒度一张表，见StatsResolution）
+ *
+ * 每行记录一个用户一个时间段的评分次数、分数之和、最低分和最高分，统计图表只需要读取O(时间段数)行。
+ * 汇总的数据来源是只增不改的复习历史表，DataManager在追加复习历史的同一个事务中
+ * 把这次评分直接累加到各个粒度对应时间段的行。
+ * 时间段按写入时的本地时区计算，时区变化后打开数据库时会用{@link #rebuild}按新的时区重新汇总所有历史记录；
+ * 汇总表由DatabaseHelper的迁移步骤创建，迁移步骤删除记录的时区来触发重新汇总。
+ */
+final class LearningStatsRollup {
+    private static final String TAG = "LearningStatsRollup";
+    // app_metadata中记录汇总时使用的时区的键
+    static final String KEY_TIME_ZONE = "daily_stats_time_zone";
+
+    private LearningStatsRollup() {
+    }
+
+    /**
+     * 把一次新的评分累加到各个粒度的汇总表（应在追加复习历史的事务中调用）
+     */
+    static void recordAdded(SQLiteDatabase db, int userId, long timestamp, int score) {
+        for (StatsResolution resolution : StatsResolution.values()) {
+            String period = resolution.periodKey(timestamp);
+            db.execSQL("INSERT OR IGNORE INTO " + resolution.getTableName() + "(" +
+                            DatabaseHelper.COLUMN_RECORD_USER_ID + ", " + DatabaseHelper.COLUMN_STATS_DAY + ", " +
+                            DatabaseHelper.COLUMN_STATS_RECORD_COUNT + ", " + DatabaseHelper.COLUMN_STATS_SCORE_SUM + ", " +
+                            DatabaseHelper.COLUMN_STATS_MIN_SCORE + ", " + DatabaseHelper.COLUMN_STATS_MAX_SCORE +
+                            ") VALUES (?, ?, 0, 0, ?, ?)",
+                    new Object[]{userId, period, score, score});
+            db.execSQL("UPDATE " + resolution.getTableName() + " SET " +
+                            DatabaseHelper.COLUMN_STATS_RECORD_COUNT + " = " + DatabaseHelper.COLUMN_STATS_RECORD_COUNT + " + 1, " +
+                            DatabaseHelper.COLUMN_STATS_SCORE_SUM + " = " + DatabaseHelper.COLUMN_STATS_SCORE_SUM + " + ?, " +
+                            DatabaseHelper.COLUMN_STATS_MIN_SCORE + " = min(" + DatabaseHelper.COLUMN_STATS_MIN_SCORE + ", ?), " +
+                            DatabaseHelper.COLUMN_STATS_MAX_SCORE + " = max(" + DatabaseHelper.COLUMN_STATS_MAX_SCORE + ", ?)" +
+                            " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ? AND " + DatabaseHelper.COLUMN_STATS_DAY + " = ?",
+                    new Object[]{score, score, score, userId, period});
+        }
+    }
+
+    /**
+     * 按复习历史中的所有评分重新生成指定粒度的汇总表，并记录当前时区（应在事务中调用）
+     * @param resolutions 要重新生成的粒度
+     */
+    static void rebuild(SQLiteDatabase db, StatsResolution... resolutions) {
+        long start = System.currentTimeMillis();
+        for (StatsResolution resolution : resolutions) {
+            db.execSQL("DELETE FROM " + resolution.getTableName());
+        }
+        aggregate(db, null, null, resolutions);
+
+        db.execSQL("INSERT OR REPLACE INTO " + DatabaseHelper.TABLE_APP_METADATA + "(" +
+                        DatabaseHelper.COLUMN_METADATA_KEY + ", " + DatabaseHelper.COLUMN_METADATA_VALUE +
+                        ") VALUES (?, ?)",
+                new Object[]{KEY_TIME_ZONE, TimeZone.getDefault().getID()});
+        Log.d(TAG, "Rebuilt learning stats rollups in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * 按复习历史重新生成一个用户所有粒度的汇总（应在事务中调用），用于删除了该用户的部分复习历史之后
+     */
+    static void rebuildUser(SQLiteDatabase db, int userId) {
+        String[] args = new String[]{String.valueOf(userId)};
+        for (StatsResolution resolution : StatsResolution.values()) {
+            db.delete(resolution.getTableName(), DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?", args);
+        }
+        aggregate(db, DatabaseHelper.COLUMN_RECORD_USER_ID + " = ?", args, StatsResolution.values());
+    }
+
+    /**
+     * 扫描复习历史中满足条件的评分，写入指定粒度的汇总表（对应的行必须已经删除）
+     */
+    private static void aggregate(SQLiteDatabase db, String selection, String[] selectionArgs,
+                                  StatsResolution... resolutions) {
+        Accumulator[] accumulators = new Accumulator[resolutions.length];
+        for (int i = 0; i < resolutions.length; i++) {
+            accumulators[i] = new Accumulator(db, resolutions[i]);
+        }
+
+        // 按用户和时间顺序读取，同一时间段的记录是连续的，一次扫描同时生成所有粒度的汇总
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("SELECT " + DatabaseHelper.COLUMN_RECORD_USER_ID + ", " +
+                    DatabaseHelper.COLUMN_TIMESTAMP + ", " + DatabaseHelper.COLUMN_RECORD_SCORE +
+                    " FROM " + DatabaseHelper.TABLE_REVIEW_HISTORY +
+                    (selection != null ? " WHERE " + selection : "") +
+                    " ORDER BY " + DatabaseHelper.COLUMN_RECORD_USER_ID + ", " + DatabaseHelper.COLUMN_TIMESTAMP,
+                    selectionArgs);
+            while (cursor.moveToNext()) {
+                int userId = cursor.getInt(0);
+                long timestamp = cursor.getLong(1);
+                int score = cursor.getInt(2);
+                for (Accumulator accumulator : accumulators) {
+                    accumulator.add(userId, timestamp, score);
+                }
+            }
+            for (Accumulator accumulator : accumulators) {
+                accumulator.flush();
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            for (Accumulator accumulator : accumulators) {
+                accumulator.close();
+            }
+        }
+    }
+
+    /**
+     * 汇总时使用的时区与当前时区不同时重新生成所有汇总表
+     */
+    static void rebuildIfTimeZoneChanged(SQLiteDatabase db) {
+        String timeZone = null;
+        Cursor cursor = db.rawQuery("SELECT " + DatabaseHelper.COLUMN_METADATA_VALUE + " FROM " +
+                        DatabaseHelper.TABLE_APP_METADATA + " WHERE " + DatabaseHelper.COLUMN_METADATA_KEY + " = ?",
+                new String[]{KEY_TIME_ZONE});
+        try {
+            if (cursor.moveToFirst()) {
+                timeZone = cursor.getString(0);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        if (!TimeZone.getDefault().getID().equals(timeZone)) {
+            db.beginTransaction();
+            try {
+                rebuild(db, StatsResolution.values());
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+    }
+
+    /**
+     * 重新生成时一种粒度的累加器：记录当前时间段的汇总，进入下一个时间段时写入一行
+     */
+    private static final class Accumulator {
+        private final StatsResolution resolution;
+        private final SQLiteStatement insert;
+        private int userId;
+        private String period;
+        private long periodEnd;
+        private long count;
+        private long scoreSum;
+        private int minScore;
+        private int maxScore;
+
+        Accumulator(SQLiteDatabase db, StatsResolution resolution) {
+            this.resolution = resolution;
+            this.insert = db.compileStatement("INSERT INTO " + resolution.getTableName() + "(" +
+                    DatabaseHelper.COLUMN_RECORD_USER_ID + ", " + DatabaseHelper.COLUMN_STATS_DAY + ", " +
+                    DatabaseHelper.COLUMN_STATS_RECORD_COUNT + ", " + DatabaseHelper.COLUMN_STATS_SCORE_SUM + ", " +
+                    DatabaseHelper.COLUMN_STATS_MIN_SCORE + ", " + DatabaseHelper.COLUMN_STATS_MAX_SCORE +
+                    ") VALUES (?, ?, ?, ?, ?, ?)");
+        }
+
+        void add(int userId, long timestamp, int score) {
+            if (period == null || userId != this.userId || timestamp >= periodEnd) {
+                flush();
+                this.userId = userId;
+                period = resolution.periodKey(timestamp);
+                periodEnd = resolution.nextPeriodStart(timestamp);
+                count = 0;
+                scoreSum = 0;
+                minScore = Integer.MAX_VALUE;
+                maxScore = Integer.MIN_VALUE;
+            }
+            count++;
+            scoreSum += score;
+            minScore = Math.min(minScore, score);
+            maxScore = Math.max(maxScore, score);
+        }
+
+        void flush() {
+            if (period == null || count == 0) {
+                return;
+            }
+            insert.clearBindings();
+            insert.bindLong(1, userId);
+            insert.bindString(2, period);
+            insert.bindLong(3, count);
+            insert.bindLong(4, scoreSum);
+            insert.bindLong(5, minScore);
+            insert.bindLong(6, maxScore);
+            insert.executeInsert();
+            count = 0;
+        }
+
+        void close() {
+            insert.close();
+        }
+    }
+}
@@ -24,6 +24,7 @@ public class MainActivity extends AppCompatActivity {
     private Button registerButton;
     private CustomTitleBar customTitleBar;
     private DataManager dataManager;
+    private AsyncDataManager asyncDataManager;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -37,11 +38,29 @@ public class MainActivity extends AppCompatActivity {
         registerButton = findViewById(R.id.registerButton);
         customTitleBar = findViewById(R.id.customTitleBar);
 
-        // 初始化DataManager
-        dataManager = new DataManager(this);
+        // 获取共享的DataManager
+        dataManager = DataManager.getInstance(this);
+        asyncDataManager = AsyncDataManager.bind(this, dataManager);
 
         // 检查数据库是否为空，如果为空则创建测试用户
-        checkAndCreateTestUser();
+        // 首次启动时需要创建（或从assets复制）数据库，放到后台线程中执行，避免阻塞界面
+        // 之后在同一个操作中预先建立单词搜索用的内存索引和检查用户名用的过滤器
+        asyncDataManager.submit(new AsyncDataManager.Query<Boolean>() {
+            @Override
+            public Boolean run(DataManager dataManager) {
+                boolean created = checkAndCreateTestUser(dataManager);
+                dataManager.buildWordIndexes();
+                dataManager.buildUsernameFilter();
+                return created;
+            }
+        }, new AsyncDataManager.Callback<Boolean>() {
+            @Override
+            public void onResult(Boolean created) {
+                if (created) {
+                    Toast.makeText(MainActivity.this, "已创建测试用户和测试学习记录\n用户名=user, 密码=password", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
 
         // 设置自定义标题栏的标题
         customTitleBar.setTitle("用户登录");
@@ -82,45 +101,38 @@ public class MainActivity extends AppCompatActivity {
                 progressDialog.setCancelable(false);
                 progressDialog.show();
 
-                // 使用线程进行数据库验证
-                new Thread(new Runnable() {
+                // 在后台线程中进行数据库验证
+                asyncDataManager.submit(new AsyncDataManager.Query<User>() {
+                    @Override
+                    public User run(DataManager dataManager) {
+                        // 使用DataManager验证用户登录
+                        return dataManager.verifyUserLogin(username, password);
+                    }
+                }, new AsyncDataManager.Callback<User>() {
                     @Override
-                    public void run() {
-                        try {
-                            // 使用DataManager验证用户登录
-                            final User user = dataManager.verifyUserLogin(username, password);
-
-                            // 在主线程中更新UI
-                            runOnUiThread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    progressDialog.dismiss();
-
-                                    if (user != null) {
-                                        // 登录成功，跳转到第二个活动，并传递用户信息
-                                        Intent intent = new Intent(MainActivity.this, SecondActivity.class);
-                                        intent.putExtra("userId", user.getId());
-                                        intent.putExtra("username", user.getUsername());
-                                        intent.putExtra("avatarResource", user.getAvatarResource());
-                                        startActivity(intent);
-                                    } else {
-                                        // 登录失败
-                                        Toast.makeText(MainActivity.this, "用户名或密码错误", Toast.LENGTH_SHORT).show();
-                                    }
-                                }
-                            });
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                            runOnUiThread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    progressDialog.dismiss();
-                                    Toast.makeText(MainActivity.this, "登录失败，请稍后重试", Toast.LENGTH_SHORT).show();
-                                }
-                            });
+                    public void onResult(User user) {
+                        progressDialog.dismiss();
+
+                        if (user != null) {
+                            // 登录成功，跳转到第二个活动，并传递用户信息
+                            Intent intent = new Intent(MainActivity.this, SecondActivity.class);
+                            intent.putExtra("userId", user.getId());
+                            intent.putExtra("username", user.getUsername());
+                            intent.putExtra("avatarResource", user.getAvatarResource());
+                            startActivity(intent);
+                        } else {
+                            // 登录失败
+                            Toast.makeText(MainActivity.this, "用户名或密码错误", Toast.LENGTH_SHORT).show();
                         }
                     }
-                }).start();
+                }, new AsyncDataManager.ErrorCallback() {
+                    @Override
+                    public void onError(Exception e) {
+                        e.printStackTrace();
+                        progressDialog.dismiss();
+                        Toast.makeText(MainActivity.this, "登录失败，请稍后重试", Toast.LENGTH_SHORT).show();
+                    }
+                });
             }
         });
 
@@ -135,9 +147,10 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * 检查数据库是否为空，如果为空则创建测试用户和测试学习记录
+     * 检查数据库是否为空，如果为空则创建测试用户和测试学习记录（在后台线程中调用）
+     * @return 是否创建了测试用户
      */
-    private void checkAndCreateTestUser() {
+    private static boolean checkAndCreateTestUser(DataManager dataManager) {
         // 使用dataManager检查数据库是否为空
         boolean isEmpty = dataManager.isDatabaseEmpty();
 
@@ -169,14 +182,7 @@ public class MainActivity extends AppCompatActivity {
                         int score = 60 + (int) (Math.random() * 41);
 
                         // 根据分数设置学习状态
-                        String status;
-                        if (score >= 80) {
-                            status = "已掌握";
-                        } else if (score >= 40) {
-                            status = "学习中";
-                        } else {
-                            status = "待复习";
-                        }
+                        String status = LearningRecord.statusForScore(score);
 
                         // 创建学习记录（使用自动设置时间戳的构造函数）
                         LearningRecord record = new LearningRecord(userId, word.getId(), score, status);
@@ -184,9 +190,8 @@ public class MainActivity extends AppCompatActivity {
                     }
                 }
             }
-
-            Toast.makeText(this, "已创建测试用户和测试学习记录\n用户名=user, 密码=password", Toast.LENGTH_SHORT).show();
         }
+        return isEmpty;
     }
 
     // 处理从注册页面返回的结果
@@ -208,7 +213,7 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // 关闭数据库连接
+        // 释放对共享数据库的引用
         if (dataManager != null) {
             dataManager.close();
         }
@@ -0,0 +1,402 @@
+package com.example.firstassignment;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Bundle;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 主线程数据库访问监视器（调试模式）：记录在主线程中调用的每个DataManager方法
+ *
+ * 可调试的构建（FLAG_DEBUGGABLE）中共享的DataManager是{@link MonitoredDataManager}，
+ * 它的每个公开方法都经过{@link #trace(String, Call)}。在主线程中的调用记录方法名、耗时、
+ * 返回的行数和当时在前台的Activity（通过ActivityLifecycleCallbacks得到）；
+ * 耗时超过阈值（默认一帧）的调用连同调用栈以警告级别写入日志。
+ * 应用进入后台时，本次运行的报告在后台线程中写入files/db-main-thread/目录下的文件。
+ * 仪器测试可以调用{@link #assertNoSlowCalls()}，在有超过阈值的调用时使测试失败。
+ */
+final class MainThreadDbMonitor implements Application.ActivityLifecycleCallbacks {
+    private static final String TAG = "MainThreadDb";
+    // 超过这个耗时（一帧，毫秒）的主线程调用以警告级别记录
+    static final long DEFAULT_THRESHOLD_MS = 16;
+    // 报告中保留的最近调用数，更早的调用只计入按方法汇总的统计
+    static final int MAX_ENTRIES = 500;
+    // 报告文件所在的目录（应用私有的files目录下）
+    static final String REPORT_DIRECTORY = "db-main-thread";
+
+    private static MainThreadDbMonitor installed;
+
+    /**
+     * 被监视的方法调用
+     */
+    interface Call<T> {
+        T run();
+    }
+
+    /**
+     * 一次主线程调用
+     */
+    static final class Entry {
+        final String method;
+        final String activity;
+        final long startedAt;
+        final long durationNanos;
+        // 返回的行数（列表和映射的大小、写操作是否成功等），-1表示没有返回值或调用抛出了异常
+        final int rows;
+
+        Entry(String method, String activity, long startedAt, long durationNanos, int rows) {
+            this.method = method;
+            this.activity = activity;
+            this.startedAt = startedAt;
+            this.durationNanos = durationNanos;
+            this.rows = rows;
+        }
+
+        double getDurationMs() {
+            return durationNanos / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s %.2f ms, rows=%s, activity=%s",
+                    method, getDurationMs(), rows < 0 ? "-" : String.valueOf(rows), activity);
+        }
+    }
+
+    /**
+     * 一个方法在主线程中的累计调用情况
+     */
+    private static final class MethodStats {
+        int calls;
+        int slowCalls;
+        long totalNanos;
+        long maxNanos;
+        long rows;
+    }
+
+    private final Context context;
+    private final long thresholdNanos;
+    private final long sessionStartedAt = System.currentTimeMillis();
+    private final ExecutorService reportExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "MainThreadDb-report");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    // 以下字段只在主线程中访问
+    private int depth;
+    private String currentActivity = "-";
+    private int startedActivities;
+
+    // 以下字段由this保护（报告在后台线程中生成）
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+    private final Map<String, MethodStats> methodStats = new LinkedHashMap<>();
+    private final List<Entry> slowCalls = new ArrayList<>();
+
+    /**
+     * @param context 用于确定报告文件的位置，为null时不写报告
+     * @param thresholdMs 慢调用的阈值（毫秒）
+     */
+    MainThreadDbMonitor(Context context, long thresholdMs) {
+        this.context = context;
+        this.thresholdNanos = thresholdMs * 1000000L;
+    }
+
+    /**
+     * 当前构建是否需要监视（可调试的构建）
+     */
+    static boolean isEnabledFor(Context context) {
+        ApplicationInfo info = context.getApplicationInfo();
+        return info != null && (info.flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    /**
+     * 创建进程的监视器，并注册Activity生命周期回调（用于记录调用所在的Activity和在进入后台时写报告）
+     * @param context ApplicationContext
+     */
+    static synchronized MainThreadDbMonitor install(Context context) {
+        if (installed == null) {
+            installed = new MainThreadDbMonitor(context, DEFAULT_THRESHOLD_MS);
+            if (context instanceof Application) {
+                ((Application) context).registerActivityLifecycleCallbacks(installed);
+            }
+            Log.i(TAG, "Main-thread database monitor enabled, threshold " + DEFAULT_THRESHOLD_MS + " ms");
+        }
+        return installed;
+    }
+
+    /**
+     * 进程的监视器，不可调试的构建中为null
+     */
+    static synchronized MainThreadDbMonitor getInstalled() {
+        return installed;
+    }
+
+    /**
+     * 执行一次DataManager调用；在主线程中调用时记录耗时和行数
+     *
+     * 嵌套的调用（DataManager的方法调用另一个公开方法）只记录最外层的一次。
+     */
+    <T> T trace(String method, Call<T> call) {
+        return trace(method, call, true);
+    }
+
+    /**
+     * 执行一次没有返回值的DataManager调用，记录的行数为-1
+     */
+    void traceVoid(String method, final Runnable call) {
+        trace(method, new Call<Void>() {
+            @Override
+            public Void run() {
+                call.run();
+                return null;
+            }
+        }, false);
+    }
+
+    private <T> T trace(String method, Call<T> call, boolean hasResult) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            return call.run();
+        }
+        depth++;
+        long startedAt = System.currentTimeMillis();
+        long start = System.nanoTime();
+        T result = null;
+        boolean returned = false;
+        try {
+            result = call.run();
+            returned = true;
+            return result;
+        } finally {
+            depth--;
+            if (depth == 0) {
+                record(new Entry(method, currentActivity, startedAt, System.nanoTime() - start,
+                        returned && hasResult ? rowsOf(result) : -1));
+            }
+        }
+    }
+
+    /**
+     * 由返回值估计行数：列表、映射和数组的大小，写操作成功为1，计数类方法的返回值，其他对象为1
+     */
+    static int rowsOf(Object result) {
+        if (result == null) {
+            return 0;
+        } else if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        } else if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        } else if (result instanceof int[]) {
+            return ((int[]) result).length;
+        } else if (result instanceof Boolean) {
+            return (Boolean) result ? 1 : 0;
+        } else if (result instanceof Integer) {
+            // 返回int的公开方法都是计数（导入的单词数、到期的单词数等）
+            return Math.max(0, (Integer) result);
+        }
+        return 1;
+    }
+
+    private void record(Entry entry) {
+        boolean slow = entry.durationNanos > thresholdNanos;
+        synchronized (this) {
+            entries.addLast(entry);
+            if (entries.size() > MAX_ENTRIES) {
+                entries.removeFirst();
+            }
+            MethodStats stats = methodStats.get(entry.method);
+            if (stats == null) {
+                stats = new MethodStats();
+                methodStats.put(entry.method, stats);
+            }
+            stats.calls++;
+            stats.totalNanos += entry.durationNanos;
+            stats.maxNanos = Math.max(stats.maxNanos, entry.durationNanos);
+            stats.rows += Math.max(0, entry.rows);
+            if (slow) {
+                stats.slowCalls++;
+                if (slowCalls.size() < MAX_ENTRIES) {
+                    slowCalls.add(entry);
+                }
+            }
+        }
+        if (slow) {
+            Log.w(TAG, "Slow database call on the main thread: " + entry, new Throwable("DataManager call site"));
+        } else {
+            Log.d(TAG, "Database call on the main thread: " + entry);
+        }
+    }
+
+    /**
+     * 最近的主线程调用（最早的在前）
+     */
+    synchronized List<Entry> getEntries() {
+        return new ArrayList<>(entries);
+    }
+
+    /**
+     * 超过阈值的主线程调用
+     */
+    synchronized List<Entry> getSlowCalls() {
+        return new ArrayList<>(slowCalls);
+    }
+
+    /**
+     * 清除已记录的调用（例如在每个测试开始时）
+     */
+    synchronized void reset() {
+        entries.clear();
+        methodStats.clear();
+        slowCalls.clear();
+    }
+
+    /**
+     * 有超过阈值的主线程调用时抛出AssertionError，用于仪器测试
+     */
+    void assertNoSlowCalls() {
+        List<Entry> slow = getSlowCalls();
+        if (!slow.isEmpty()) {
+            StringBuilder message = new StringBuilder()
+                    .append(slow.size()).append(" database call(s) on the main thread exceeded ")
+                    .append(thresholdNanos / 1000000L).append(" ms:");
+            for (Entry entry : slow) {
+                message.append("\n  ").append(entry);
+            }
+            throw new AssertionError(message.toString());
+        }
+    }
+
+    /**
+     * 在后台线程中把本次运行的报告写入文件（覆盖同一次运行之前写入的报告）
+     */
+    void dumpReportAsync() {
+        if (context == null) {
+            return;
+        }
+        reportExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                File directory = new File(context.getFilesDir(), REPORT_DIRECTORY);
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    Log.e(TAG, "Cannot create report directory " + directory);
+                    return;
+                }
+                File file = new File(directory, "session-" +
+                        new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date(sessionStartedAt)) + ".txt");
+                try {
+                    writeReport(file);
+                    Log.i(TAG, "Main-thread database report written to " + file);
+                } catch (IOException e) {
+                    Log.e(TAG, "Error writing main-thread database report: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * 把报告写入文件：按方法汇总、超过阈值的调用和最近的调用
+     */
+    void writeReport(File file) throws IOException {
+        // 先在锁内生成报告，写文件时不阻塞主线程中的记录
+        String report = buildReport();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(report);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private synchronized String buildReport() {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+        StringWriter report = new StringWriter();
+        PrintWriter writer = new PrintWriter(report);
+        writer.println("Main-thread database calls");
+        writer.println("Session started: " + format.format(new Date(sessionStartedAt)));
+        writer.println("Report written: " + format.format(new Date()));
+        writer.println("Threshold: " + thresholdNanos / 1000000L + " ms");
+        writer.println();
+        writer.println("By method (calls, slow calls, total ms, max ms, rows):");
+        for (Map.Entry<String, MethodStats> stat : methodStats.entrySet()) {
+            MethodStats stats = stat.getValue();
+            writer.println(String.format(Locale.US, "  %-32s %6d %6d %10.2f %8.2f %8d", stat.getKey(),
+                    stats.calls, stats.slowCalls, stats.totalNanos / 1e6, stats.maxNanos / 1e6, stats.rows));
+        }
+        writer.println();
+        writer.println("Slow calls:");
+        for (Entry entry : slowCalls) {
+            writer.println("  " + format.format(new Date(entry.startedAt)) + " " + entry);
+        }
+        writer.println();
+        writer.println("Recent calls:");
+        for (Entry entry : entries) {
+            writer.println("  " + format.format(new Date(entry.startedAt)) + " " + entry);
+        }
+        writer.flush();
+        return report.toString();
+    }
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        // onCreate中的调用也算在这个Activity上
+        currentActivity = activity.getClass().getSimpleName();
+    }
+
+    @Override
+    public void onActivityStarted(Activity activity) {
+        startedActivities++;
+        currentActivity = activity.getClass().getSimpleName();
+    }
+
+    @Override
+    public void onActivityResumed(Activity activity) {
+        currentActivity = activity.getClass().getSimpleName();
+    }
+
+    @Override
+    public void onActivityPaused(Activity activity) {
+    }
+
+    @Override
+    public void onActivityStopped(Activity activity) {
+        startedActivities = Math.max(0, startedActivities - 1);
+        if (startedActivities == 0) {
+            // 应用进入后台
+            dumpReportAsync();
+        }
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) {
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.firstassignment;
+
+import android.content.Context;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 调试构建中使用的DataManager：每个访问数据库的公开方法都交给{@link MainThreadDbMonitor}记录主线程中的调用
+ *
+ * 只覆盖方法并调用父类的实现，不改变行为；不访问数据库的方法（关闭、写后队列等）不记录。
+ * 给DataManager添加公开方法时需要在这里同时覆盖（MonitoredDataManagerTest会检查）。
+ */
+class MonitoredDataManager extends DataManager {
+    // 不访问数据库、不需要记录的公开方法
+    static final String[] UNMONITORED_METHODS = {
+            "getStorageMode", "close", "getWordCache", "addMessageAsync", "recordLearningAsync", "flushPendingWrites"
+    };
+
+    private final MainThreadDbMonitor monitor;
+
+    MonitoredDataManager(Context context, MainThreadDbMonitor monitor) {
+        super(context);
+        this.monitor = monitor;
+    }
+
+    /**
+     * 创建一个独立的被监视的数据管理器，用于测试
+     */
+    MonitoredDataManager(Context context, String databaseName, DatabaseHelper.StorageMode storageMode,
+                         MainThreadDbMonitor monitor) {
+        super(context, databaseName, storageMode);
+        this.monitor = monitor;
+    }
+
+    @Override
+    public boolean isDatabaseEmpty() {
+        return monitor.trace("isDatabaseEmpty", () -> super.isDatabaseEmpty());
+    }
+
+    @Override
+    public boolean addUser(User user) {
+        return monitor.trace("addUser", () -> super.addUser(user));
+    }
+
+    @Override
+    public User verifyUserLogin(String username, String password) {
+        return monitor.trace("verifyUserLogin", () -> super.verifyUserLogin(username, password));
+    }
+
+    @Override
+    public boolean updateUser(User user) {
+        return monitor.trace("updateUser", () -> super.updateUser(user));
+    }
+
+    @Override
+    public boolean deleteUser(int userId) {
+        return monitor.trace("deleteUser", () -> super.deleteUser(userId));
+    }
+
+    @Override
+    public boolean addWord(String word, String translation, String category, String example) {
+        return monitor.trace("addWord", () -> super.addWord(word, translation, category, example));
+    }
+
+    @Override
+    public int addWords(List<Word> words, ImportProgressListener listener) {
+        return monitor.trace("addWords", () -> super.addWords(words, listener));
+    }
+
+    @Override
+    public int addWords(Iterator<Word> words, int total, ImportProgressListener listener) {
+        return monitor.trace("addWords", () -> super.addWords(words, total, listener));
+    }
+
+    @Override
+    public long getImportProgress(String sourceId) {
+        return monitor.trace("getImportProgress", () -> super.getImportProgress(sourceId));
+    }
+
+    @Override
+    public boolean isImportCompleted(String sourceId) {
+        return monitor.trace("isImportCompleted", () -> super.isImportCompleted(sourceId));
+    }
+
+    @Override
+    public void clearImportProgress(String sourceId) {
+        monitor.traceVoid("clearImportProgress", () -> super.clearImportProgress(sourceId));
+    }
+
+    @Override
+    public List<Word> getAllWords() {
+        return monitor.trace("getAllWords", () -> super.getAllWords());
+    }
+
+    @Override
+    public List<Word> getWordsPage(int afterId, int limit) {
+        return monitor.trace("getWordsPage", () -> super.getWordsPage(afterId, limit));
+    }
+
+    @Override
+    public int[] getAllWordIds() {
+        return monitor.trace("getAllWordIds", () -> super.getAllWordIds());
+    }
+
+    @Override
+    public Word getWordById(int wordId) {
+        return monitor.trace("getWordById", () -> super.getWordById(wordId));
+    }
+
+    @Override
+    public List<Word> searchWords(String query, int limit) {
+        return monitor.trace("searchWords", () -> super.searchWords(query, limit));
+    }
+
+    @Override
+    public List<Word> findWordsByTranslation(String translation, int limit) {
+        return monitor.trace("findWordsByTranslation", () -> super.findWordsByTranslation(translation, limit));
+    }
+
+    @Override
+    public List<Word> searchWordsByPrefix(String prefix, int limit) {
+        return monitor.trace("searchWordsByPrefix", () -> super.searchWordsByPrefix(prefix, limit));
+    }
+
+    @Override
+    public List<Word> findSimilarWords(String query, int limit) {
+        return monitor.trace("findSimilarWords", () -> super.findSimilarWords(query, limit));
+    }
+
+    @Override
+    public void buildWordIndexes() {
+        monitor.traceVoid("buildWordIndexes", () -> super.buildWordIndexes());
+    }
+
+    @Override
+    public boolean updateWord(int wordId, String word, String translation, String category, String example) {
+        return monitor.trace("updateWord", () -> super.updateWord(wordId, word, translation, category, example));
+    }
+
+    @Override
+    public boolean deleteWord(int wordId) {
+        return monitor.trace("deleteWord", () -> super.deleteWord(wordId));
+    }
+
+    @Override
+    public boolean addMessage(String content, int senderType, Integer userId) {
+        return monitor.trace("addMessage", () -> super.addMessage(content, senderType, userId));
+    }
+
+    @Override
+    public List<Message> getAllMessages(Integer userId) {
+        return monitor.trace("getAllMessages", () -> super.getAllMessages(userId));
+    }
+
+    @Override
+    public List<Message> getMessagesPage(int userId, long beforeTimestamp, int beforeId, int limit) {
+        return monitor.trace("getMessagesPage", () -> super.getMessagesPage(userId, beforeTimestamp, beforeId, limit));
+    }
+
+    @Override
+    public User getUserById(int userId) {
+        return monitor.trace("getUserById", () -> super.getUserById(userId));
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        return monitor.trace("getAllUsers", () -> super.getAllUsers());
+    }
+
+    @Override
+    public List<User> getUsersPage(int afterId, int limit) {
+        return monitor.trace("getUsersPage", () -> super.getUsersPage(afterId, limit));
+    }
+
+    @Override
+    public List<User> searchUsersByPrefix(String prefix, int limit, int offset) {
+        return monitor.trace("searchUsersByPrefix", () -> super.searchUsersByPrefix(prefix, limit, offset));
+    }
+
+    @Override
+    public boolean isUsernameTaken(String username, int excludeUserId) {
+        return monitor.trace("isUsernameTaken", () -> super.isUsernameTaken(username, excludeUserId));
+    }
+
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        return monitor.trace("isUsernameAvailable", () -> super.isUsernameAvailable(username));
+    }
+
+    @Override
+    public void buildUsernameFilter() {
+        monitor.traceVoid("buildUsernameFilter", () -> super.buildUsernameFilter());
+    }
+
+    @Override
+    public boolean recordReview(int userId, int wordId, int score) {
+        return monitor.trace("recordReview", () -> super.recordReview(userId, wordId, score));
+    }
+
+    @Override
+    public boolean addLearningRecord(LearningRecord learningRecord) {
+        return monitor.trace("addLearningRecord", () -> super.addLearningRecord(learningRecord));
+    }
+
+    @Override
+    public boolean updateLearningRecord(LearningRecord learningRecord) {
+        return monitor.trace("updateLearningRecord", () -> super.updateLearningRecord(learningRecord));
+    }
+
+    @Override
+    public boolean rebuildLearningStats() {
+        return monitor.trace("rebuildLearningStats", () -> super.rebuildLearningStats());
+    }
+
+    @Override
+    public StatisticsSnapshot getStatisticsSnapshot(int userId) {
+        return monitor.trace("getStatisticsSnapshot", () -> super.getStatisticsSnapshot(userId));
+    }
+
+    @Override
+    public List<LearningRecord> getUserLearningRecords(int userId) {
+        return monitor.trace("getUserLearningRecords", () -> super.getUserLearningRecords(userId));
+    }
+
+    @Override
+    public List<LearningRecord> getLearningRecordsPage(int userId, long beforeTimestamp, int beforeId, int limit) {
+        return monitor.trace("getLearningRecordsPage", () ->
+                super.getLearningRecordsPage(userId, beforeTimestamp, beforeId, limit));
+    }
+
+    @Override
+    public int scanUserLearningRecords(int userId, LearningRecordVisitor visitor) {
+        return monitor.trace("scanUserLearningRecords", () -> super.scanUserLearningRecords(userId, visitor));
+    }
+
+    @Override
+    public Map<String, Integer> getUserDailyLearningStats(int userId) {
+        return monitor.trace("getUserDailyLearningStats", () -> super.getUserDailyLearningStats(userId));
+    }
+
+    @Override
+    public Map<String, Integer> getUserLearningStats(int userId, StatsResolution resolution, Long since) {
+        return monitor.trace("getUserLearningStats", () -> super.getUserLearningStats(userId, resolution, since));
+    }
+
+    @Override
+    public long getUserFirstLearningTimestamp(int userId) {
+        return monitor.trace("getUserFirstLearningTimestamp", () -> super.getUserFirstLearningTimestamp(userId));
+    }
+
+    @Override
+    public List<LearningRecord> getUserWordLearningRecords(int userId, int wordId) {
+        return monitor.trace("getUserWordLearningRecords", () -> super.getUserWordLearningRecords(userId, wordId));
+    }
+
+    @Override
+    public List<LearningRecord> getUserReviewHistory(int userId) {
+        return monitor.trace("getUserReviewHistory", () -> super.getUserReviewHistory(userId));
+    }
+
+    @Override
+    public List<Word> getDueWords(int userId, long now, int limit) {
+        return monitor.trace("getDueWords", () -> super.getDueWords(userId, now, limit));
+    }
+
+    @Override
+    public int[] getDueWordIds(int userId, long now, int limit) {
+        return monitor.trace("getDueWordIds", () -> super.getDueWordIds(userId, now, limit));
+    }
+
+    @Override
+    public Map<Integer, LearningRecord> getUserCurrentLearningRecords(int userId, int[] wordIds) {
+        return monitor.trace("getUserCurrentLearningRecords", () ->
+                super.getUserCurrentLearningRecords(userId, wordIds));
+    }
+
+    @Override
+    public int getDueWordCount(int userId, long now) {
+        return monitor.trace("getDueWordCount", () -> super.getDueWordCount(userId, now));
+    }
+
+    @Override
+    public long getNextReviewTime(int userId) {
+        return monitor.trace("getNextReviewTime", () -> super.getNextReviewTime(userId));
+    }
+
+    @Override
+    public ReviewSchedule getReviewSchedule(int userId, int wordId) {
+        return monitor.trace("getReviewSchedule", () -> super.getReviewSchedule(userId, wordId));
+    }
+
+    @Override
+    public Map<String, Integer> getUserWordStatusStats(int userId) {
+        return monitor.trace("getUserWordStatusStats", () -> super.getUserWordStatusStats(userId));
+    }
+
+    @Override
+    public int getUserLearnedWordCount(int userId) {
+        return monitor.trace("getUserLearnedWordCount", () -> super.getUserLearnedWordCount(userId));
+    }
+
+    @Override
+    public double getUserAverageLearningScore(int userId) {
+        return monitor.trace("getUserAverageLearningScore", () -> super.getUserAverageLearningScore(userId));
+    }
+}
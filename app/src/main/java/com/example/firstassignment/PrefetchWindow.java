@@ -0,0 +1,94 @@
+package com.example.firstassignment;
+
+/**
+ * 复习会话的自适应预取窗口：根据用户翻页的速度和后台读取的耗时决定提前读取多少张卡片
+ *
+ * 提前读取的卡片要足够用户在下一批卡片读取完成之前翻看，所以窗口大小为
+ * {@link #MIN_SIZE}加上"读取一批的耗时内用户能翻过的卡片数"的两倍，不超过{@link #MAX_SIZE}。
+ * 翻页间隔和读取耗时都用指数移动平均估计；用户翻到还没有读取完成的卡片时，把翻页间隔的估计减半，窗口随之变大。
+ * 这个类不是线程安全的，只在主线程中使用。
+ */
+final class PrefetchWindow {
+    // 翻页方向上提前读取的最少和最多卡片数
+    static final int MIN_SIZE = 3;
+    static final int MAX_SIZE = 30;
+    // 翻页方向另一侧保留的卡片数（例如向后翻时返回上一个不需要重新读取）
+    static final int TRAILING_SIZE = 2;
+    // 超过这个时间的停顿不计入翻页间隔（用户在思考或离开了）
+    static final long MAX_STEP_MS = 10000;
+    // 指数移动平均的平滑系数
+    private static final double SMOOTHING = 0.3;
+    // 还没有测量值时的估计
+    private static final double INITIAL_STEP_MS = 3000;
+    private static final double INITIAL_LOAD_MS = 50;
+
+    private double stepMs = INITIAL_STEP_MS;
+    private double loadMs = INITIAL_LOAD_MS;
+    private long lastMoveAt = -1;
+    private int direction = 1;
+
+    /**
+     * 用户翻到了另一张卡片
+     * @param now 当前时间（毫秒）
+     * @param direction 翻页方向：正数向后，负数向前
+     */
+    void onMove(long now, int direction) {
+        if (lastMoveAt >= 0) {
+            long step = Math.min(now - lastMoveAt, MAX_STEP_MS);
+            stepMs = smooth(stepMs, Math.max(step, 1));
+        }
+        lastMoveAt = now;
+        if (direction != 0) {
+            this.direction = direction > 0 ? 1 : -1;
+        }
+    }
+
+    /**
+     * 用户翻到的卡片还没有读取完成
+     */
+    void onMiss() {
+        stepMs = Math.max(1, stepMs / 2);
+    }
+
+    /**
+     * 后台读取完成了一批卡片
+     * @param latencyMs 从提交到读取完成的耗时（毫秒）
+     */
+    void onBatchLoaded(long latencyMs) {
+        loadMs = smooth(loadMs, Math.max(latencyMs, 0));
+    }
+
+    /**
+     * 翻页方向上提前读取的卡片数
+     */
+    int size() {
+        double cardsPerLoad = loadMs / stepMs;
+        long size = MIN_SIZE + (long) Math.ceil(2 * cardsPerLoad);
+        return (int) Math.min(MAX_SIZE, size);
+    }
+
+    /**
+     * 当前位置之后需要读取的卡片数
+     */
+    int ahead() {
+        return direction > 0 ? size() : TRAILING_SIZE;
+    }
+
+    /**
+     * 当前位置之前需要读取的卡片数
+     */
+    int behind() {
+        return direction < 0 ? size() : TRAILING_SIZE;
+    }
+
+    /**
+     * 最近的翻页方向：1向后，-1向前
+     */
+    int getDirection() {
+        return direction;
+    }
+
+    private static double smooth(double average, double sample) {
+        return average + SMOOTHING * (sample - average);
+    }
+}
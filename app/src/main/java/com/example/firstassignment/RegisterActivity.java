@@ -4,15 +4,26 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageView;
+import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.core.content.ContextCompat;
+import androidx.core.os.HandlerCompat;
+
 public class RegisterActivity extends AppCompatActivity {
+    // 停止输入多久之后才检查用户名（毫秒）
+    private static final long CHECK_DEBOUNCE_MS = 150;
 
     private EditText usernameEditText;
+    private TextView usernameStatusTextView;
     private EditText passwordEditText;
     private EditText confirmPasswordEditText;
     private ImageView avatarImageView;
@@ -21,6 +32,12 @@ public class RegisterActivity extends AppCompatActivity {
     private Button backButton;
     private CustomTitleBar customTitleBar;
     private DataManager dataManager;
+    private AsyncDataManager asyncDataManager;
+    // 用于延迟检查用户名
+    private Handler mainHandler;
+    // 用于丢弃过期的检查结果（继续输入后，之前发出的检查结果不再显示）
+    private int checkGeneration = 0;
+    private final Runnable checkUsernameRunnable = this::checkUsername;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -28,6 +45,7 @@ public class RegisterActivity extends AppCompatActivity {
         setContentView(R.layout.activity_register);
 
         usernameEditText = findViewById(R.id.registerUsernameEditText);
+        usernameStatusTextView = findViewById(R.id.registerUsernameStatusTextView);
         passwordEditText = findViewById(R.id.registerPasswordEditText);
         confirmPasswordEditText = findViewById(R.id.registerConfirmPasswordEditText);
         avatarImageView = findViewById(R.id.registerAvatarImageView);
@@ -35,12 +53,31 @@ public class RegisterActivity extends AppCompatActivity {
         backButton = findViewById(R.id.backButton);
         customTitleBar = findViewById(R.id.customTitleBar);
 
-        // 初始化DataManager
-        dataManager = new DataManager(this);
+        // 获取共享的DataManager
+        dataManager = DataManager.getInstance(this);
+        asyncDataManager = AsyncDataManager.bind(this, dataManager);
+        mainHandler = HandlerCompat.createAsync(Looper.getMainLooper());
 
         // 设置自定义标题栏的标题
         customTitleBar.setTitle("用户注册");
 
+        // 输入用户名时检查是否可用，停止输入一小段时间后才检查
+        usernameEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                mainHandler.removeCallbacks(checkUsernameRunnable);
+                mainHandler.postDelayed(checkUsernameRunnable, CHECK_DEBOUNCE_MS);
+            }
+        });
+
         // 设置头像点击切换
         avatarImageView.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -76,24 +113,30 @@ public class RegisterActivity extends AppCompatActivity {
                     return;
                 }
 
-                // 创建用户对象并存储到数据库
-                User newUser = new User(username, password, selectedAvatarResource);
-                boolean isSuccess = dataManager.addUser(newUser);
-
-                if (isSuccess) {
-                    // 注册成功提示
-                    Toast.makeText(RegisterActivity.this, "注册成功！", Toast.LENGTH_SHORT).show();
-
-                    // 注册成功后返回登录界面，并传递用户名和头像信息
-                    Intent intent = new Intent();
-                    intent.putExtra("username", username);
-                    intent.putExtra("avatarResource", selectedAvatarResource);
-                    setResult(RESULT_OK, intent);
-                    finish();
-                } else {
-                    // 注册失败提示
-                    Toast.makeText(RegisterActivity.this, "注册失败，用户名可能已存在", Toast.LENGTH_SHORT).show();
-                }
+                // 创建用户对象并在后台线程中存储到数据库，完成之前不能重复提交
+                final User newUser = new User(username, password, selectedAvatarResource);
+                final int avatarResource = selectedAvatarResource;
+                registerButton.setEnabled(false);
+                asyncDataManager.submit(dm -> dm.addUser(newUser), isSuccess -> {
+                    registerButton.setEnabled(true);
+                    if (isSuccess) {
+                        // 注册成功提示
+                        Toast.makeText(RegisterActivity.this, "注册成功！", Toast.LENGTH_SHORT).show();
+
+                        // 注册成功后返回登录界面，并传递用户名和头像信息
+                        Intent intent = new Intent();
+                        intent.putExtra("username", username);
+                        intent.putExtra("avatarResource", avatarResource);
+                        setResult(RESULT_OK, intent);
+                        finish();
+                    } else {
+                        // 注册失败提示
+                        Toast.makeText(RegisterActivity.this, "注册失败，用户名可能已存在", Toast.LENGTH_SHORT).show();
+                    }
+                }, e -> {
+                    registerButton.setEnabled(true);
+                    Toast.makeText(RegisterActivity.this, "注册失败，请稍后重试", Toast.LENGTH_SHORT).show();
+                });
             }
         });
 
@@ -106,10 +149,36 @@ public class RegisterActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * 在后台线程中检查用户名是否可用，并在用户名输入框下方显示结果
+     */
+    private void checkUsername() {
+        final int generation = ++checkGeneration;
+        final String username = usernameEditText.getText().toString();
+        if (username.isEmpty()) {
+            usernameStatusTextView.setVisibility(View.GONE);
+            return;
+        }
+
+        asyncDataManager.submit(dm -> dm.isUsernameAvailable(username), available -> {
+            if (generation != checkGeneration) {
+                return;
+            }
+            usernameStatusTextView.setText(available ? "用户名可用" : "用户名已存在");
+            usernameStatusTextView.setTextColor(ContextCompat.getColor(RegisterActivity.this,
+                    available ? R.color.colorPrimaryDark : R.color.red));
+            usernameStatusTextView.setVisibility(View.VISIBLE);
+        });
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // 关闭数据库连接
+        // 尚未送达的检查结果由AsyncDataManager在界面销毁时丢弃，这里只取消等待中的延迟检查
+        if (mainHandler != null) {
+            mainHandler.removeCallbacksAndMessages(null);
+        }
+        // 释放对共享数据库的引用
         if (dataManager != null) {
             dataManager.close();
         }
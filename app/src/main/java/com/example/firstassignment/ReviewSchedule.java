@@ -0,0 +1,114 @@
+package com.example.firstassignment;
+
+/**
+ * 一个单词的复习计划（不可变），按SM-2间隔重复算法根据每次评分计算下一次复习的时间
+ *
+ * 评分（0-100）换算为SM-2的回忆质量（0-5，即评分的星级）：质量低于3时重新开始，
+ * 第二天复习；否则第1次间隔1天，第2次间隔6天，之后每次间隔乘以难度系数。
+ * 难度系数随回忆质量调整，最低为{@link #MIN_EASE_FACTOR}；间隔最长为{@link #MAX_INTERVAL_DAYS}天。
+ */
+public final class ReviewSchedule {
+    // 新单词的难度系数
+    static final double DEFAULT_EASE_FACTOR = 2.5;
+    // 难度系数的下限，避免间隔不再增长
+    static final double MIN_EASE_FACTOR = 1.3;
+    // 回忆质量不低于这个值时算作记住了
+    static final int MIN_PASSING_QUALITY = 3;
+    // 复习间隔的上限（约100年），避免连续记住很多次后间隔溢出
+    static final int MAX_INTERVAL_DAYS = 36500;
+    static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    /**
+     * 还没有复习过的单词的复习计划：立即到期
+     */
+    static final ReviewSchedule NEW = new ReviewSchedule(DEFAULT_EASE_FACTOR, 0, 0, 0);
+
+    private final double easeFactor;
+    private final int intervalDays;
+    private final int repetitions;
+    private final long nextDueAt;
+
+    ReviewSchedule(double easeFactor, int intervalDays, int repetitions, long nextDueAt) {
+        this.easeFactor = easeFactor;
+        this.intervalDays = intervalDays;
+        this.repetitions = repetitions;
+        this.nextDueAt = nextDueAt;
+    }
+
+    /**
+     * 把学习得分换算为SM-2的回忆质量
+     * @param score 学习得分（0-100）
+     * @return 回忆质量（0-5）
+     */
+    static int qualityForScore(int score) {
+        int quality = Math.round(score / 20f);
+        return Math.max(0, Math.min(5, quality));
+    }
+
+    /**
+     * 计算一次复习后的复习计划
+     * @param score 这次复习的学习得分（0-100）
+     * @param reviewedAt 复习时间
+     * @return 新的复习计划
+     */
+    public ReviewSchedule next(int score, long reviewedAt) {
+        int quality = qualityForScore(score);
+        int nextRepetitions;
+        int nextInterval;
+        if (quality < MIN_PASSING_QUALITY) {
+            // 没有记住：重新开始，第二天再复习
+            nextRepetitions = 0;
+            nextInterval = 1;
+        } else {
+            nextRepetitions = repetitions + 1;
+            if (nextRepetitions == 1) {
+                nextInterval = 1;
+            } else if (nextRepetitions == 2) {
+                nextInterval = 6;
+            } else {
+                // 难度系数没有上限，先用long计算再限制在1天到上限之间（也修正旧版本保存的溢出间隔）
+                long grown = Math.round(intervalDays * easeFactor);
+                nextInterval = (int) Math.max(1, Math.min(MAX_INTERVAL_DAYS, grown));
+            }
+        }
+
+        int lapse = 5 - quality;
+        double nextEase = Math.max(MIN_EASE_FACTOR, easeFactor + 0.1 - lapse * (0.08 + lapse * 0.02));
+        return new ReviewSchedule(nextEase, nextInterval, nextRepetitions, reviewedAt + nextInterval * DAY_MS);
+    }
+
+    /**
+     * 难度系数，越大复习间隔增长越快
+     */
+    public double getEaseFactor() {
+        return easeFactor;
+    }
+
+    /**
+     * 当前的复习间隔（天）
+     */
+    public int getIntervalDays() {
+        return intervalDays;
+    }
+
+    /**
+     * 连续记住的次数，没有记住时归零
+     */
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    /**
+     * 下一次复习的时间（毫秒时间戳），还没有复习过时为0
+     */
+    public long getNextDueAt() {
+        return nextDueAt;
+    }
+
+    /**
+     * 在指定时间是否需要复习
+     */
+    public boolean isDue(long now) {
+        return nextDueAt <= now;
+    }
+}
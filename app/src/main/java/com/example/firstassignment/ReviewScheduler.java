@@ -0,0 +1,111 @@
+package com.example.firstassignment;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+/**
+ * 学习记录表中复习计划列（难度系数、间隔、连续次数、下次复习时间）的维护
+ *
+ * 复习计划保存在每个用户每个单词一行的当前学习状态中，(user_id, next_due_at)上的索引
+ * 使"当前到期的单词"成为一次索引范围读取。计划按ReviewSchedule的SM-2算法由复习历史依次计算得到。
+ */
+final class ReviewScheduler {
+    private static final String TAG = "ReviewScheduler";
+
+    private ReviewScheduler() {
+    }
+
+    /**
+     * 计算若干次评分之后的复习计划（应在写事务中调用，不写数据库）
+     *
+     * 从当前学习状态中保存的计划开始，按时间顺序应用评分；早于当前状态的补录评分不改变计划。
+     * @param scores 按时间顺序的各次得分
+     * @param timestamps 各次评分的时间
+     * @return 新的复习计划，没有当前状态时从{@link ReviewSchedule#NEW}开始计算
+     */
+    static ReviewSchedule scheduleAfter(SQLiteDatabase db, int userId, int wordId, int[] scores, long[] timestamps) {
+        ReviewSchedule schedule = ReviewSchedule.NEW;
+        long current = Long.MIN_VALUE;
+        Cursor cursor = db.rawQuery("SELECT " + DatabaseHelper.COLUMN_TIMESTAMP + ", " +
+                        DatabaseHelper.COLUMN_RECORD_EASE_FACTOR + ", " + DatabaseHelper.COLUMN_RECORD_INTERVAL_DAYS + ", " +
+                        DatabaseHelper.COLUMN_RECORD_REPETITIONS + ", " + DatabaseHelper.COLUMN_RECORD_NEXT_DUE_AT +
+                        " FROM " + DatabaseHelper.TABLE_LEARNING_RECORDS +
+                        " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ? AND " + DatabaseHelper.COLUMN_RECORD_WORD_ID + " = ?",
+                new String[]{String.valueOf(userId), String.valueOf(wordId)});
+        try {
+            if (cursor.moveToFirst()) {
+                current = cursor.getLong(0);
+                schedule = new ReviewSchedule(cursor.getDouble(1), cursor.getInt(2), cursor.getInt(3), cursor.getLong(4));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        for (int i = 0; i < scores.length; i++) {
+            if (timestamps[i] >= current) {
+                schedule = schedule.next(scores[i], timestamps[i]);
+                current = timestamps[i];
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * 按复习历史重新计算所有学习记录的复习计划（应在事务中调用），没有复习历史的记录保持立即到期
+     */
+    static void rebuild(SQLiteDatabase db) {
+        long start = System.currentTimeMillis();
+        SQLiteStatement update = db.compileStatement("UPDATE " + DatabaseHelper.TABLE_LEARNING_RECORDS + " SET " +
+                DatabaseHelper.COLUMN_RECORD_EASE_FACTOR + " = ?, " + DatabaseHelper.COLUMN_RECORD_INTERVAL_DAYS + " = ?, " +
+                DatabaseHelper.COLUMN_RECORD_REPETITIONS + " = ?, " + DatabaseHelper.COLUMN_RECORD_NEXT_DUE_AT + " = ?" +
+                " WHERE " + DatabaseHelper.COLUMN_RECORD_USER_ID + " = ? AND " + DatabaseHelper.COLUMN_RECORD_WORD_ID + " = ?");
+        Cursor cursor = null;
+        int cards = 0;
+        try {
+            // 按用户、单词和时间顺序读取，同一个单词的评分是连续的
+            cursor = db.rawQuery("SELECT " + DatabaseHelper.COLUMN_RECORD_USER_ID + ", " +
+                    DatabaseHelper.COLUMN_RECORD_WORD_ID + ", " + DatabaseHelper.COLUMN_RECORD_SCORE + ", " +
+                    DatabaseHelper.COLUMN_TIMESTAMP + " FROM " + DatabaseHelper.TABLE_REVIEW_HISTORY +
+                    " ORDER BY " + DatabaseHelper.COLUMN_RECORD_USER_ID + ", " + DatabaseHelper.COLUMN_RECORD_WORD_ID + ", " +
+                    DatabaseHelper.COLUMN_TIMESTAMP + ", " + DatabaseHelper.COLUMN_RECORD_ID, null);
+            ReviewSchedule schedule = null;
+            int userId = 0;
+            int wordId = 0;
+            while (cursor.moveToNext()) {
+                if (schedule == null || cursor.getInt(0) != userId || cursor.getInt(1) != wordId) {
+                    if (schedule != null) {
+                        write(update, userId, wordId, schedule);
+                        cards++;
+                    }
+                    userId = cursor.getInt(0);
+                    wordId = cursor.getInt(1);
+                    schedule = ReviewSchedule.NEW;
+                }
+                schedule = schedule.next(cursor.getInt(2), cursor.getLong(3));
+            }
+            if (schedule != null) {
+                write(update, userId, wordId, schedule);
+                cards++;
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            update.close();
+        }
+        Log.d(TAG, "Rebuilt " + cards + " review schedules in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static void write(SQLiteStatement update, int userId, int wordId, ReviewSchedule schedule) {
+        update.clearBindings();
+        update.bindDouble(1, schedule.getEaseFactor());
+        update.bindLong(2, schedule.getIntervalDays());
+        update.bindLong(3, schedule.getRepetitions());
+        update.bindLong(4, schedule.getNextDueAt());
+        update.bindLong(5, userId);
+        update.bindLong(6, wordId);
+        update.executeUpdateDelete();
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.firstassignment;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+/**
+ * 单词学习/复习会话：按顺序浏览一组单词，在后台线程中预取当前位置附近的卡片
+ *
+ * 会话只在内存中保存单词ID的顺序，卡片（单词内容和用户当前的学习状态）按{@link PrefetchWindow}
+ * 决定的窗口通过{@link AsyncDataManager}提前批量读取，翻页时直接使用已经读取的卡片，不在主线程中查询数据库。
+ * 用户翻得比预取还快时{@link #getCurrentCard()}返回null，卡片读取完成后通过{@link Listener}通知。
+ * 除构造外所有方法都只能在主线程中调用，使用完毕后调用{@link #close()}。
+ */
+public class ReviewSession {
+    private static final String TAG = "ReviewSession";
+
+    /**
+     * 一张卡片：单词和用户当前的学习状态
+     */
+    public static final class Card {
+        private final int position;
+        private final Word word;
+        private final LearningRecord record;
+
+        Card(int position, Word word, LearningRecord record) {
+            this.position = position;
+            this.word = word;
+            this.record = record;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * 单词，单词已被删除时为null
+         */
+        public Word getWord() {
+            return word;
+        }
+
+        /**
+         * 用户当前的学习状态，还没有学习过这个单词时为null
+         */
+        public LearningRecord getRecord() {
+            return record;
+        }
+    }
+
+    /**
+     * 会话的回调，都在主线程中调用
+     */
+    public interface Listener {
+        /**
+         * 单词列表已读取完成
+         * @param size 会话中的单词数，0表示没有单词
+         */
+        void onSessionLoaded(int size);
+
+        /**
+         * 当前位置的卡片在翻到时还没有读取完成，现在读取完成了
+         */
+        void onCurrentCardLoaded(Card card);
+    }
+
+    private final AsyncDataManager asyncDataManager;
+    private final int userId;
+    private final Listener listener;
+    private final PrefetchWindow window = new PrefetchWindow();
+
+    // 以下字段只在主线程中访问
+    private int[] wordIds;
+    private int position;
+    private final Map<Integer, Card> cards = new HashMap<>();
+    private final Set<Integer> pending = new HashSet<>();
+    // 还没有完成的后台读取，关闭会话时取消
+    private final Set<Future<?>> loads = new HashSet<>();
+    private boolean waitingForCurrent;
+    private boolean closed;
+
+    /**
+     * 浏览所有单词的会话（按单词ID顺序）
+     * @param startPosition 起始位置
+     * @param startWordId 起始单词的ID，不为-1时优先按单词ID定位
+     */
+    public static ReviewSession forAllWords(AsyncDataManager asyncDataManager, int userId, int startPosition,
+                                            int startWordId, Listener listener) {
+        ReviewSession session = new ReviewSession(asyncDataManager, userId, listener);
+        session.load(new AsyncDataManager.Query<int[]>() {
+            @Override
+            public int[] run(DataManager dataManager) {
+                return dataManager.getAllWordIds();
+            }
+        }, startPosition, startWordId);
+        return session;
+    }
+
+    /**
+     * 复习当前到期单词的会话（最早到期的在前）
+     * @param limit 最多复习的单词数
+     */
+    public static ReviewSession forDueWords(AsyncDataManager asyncDataManager, final int userId, final int limit,
+                                            Listener listener) {
+        ReviewSession session = new ReviewSession(asyncDataManager, userId, listener);
+        session.load(new AsyncDataManager.Query<int[]>() {
+            @Override
+            public int[] run(DataManager dataManager) {
+                return dataManager.getDueWordIds(userId, System.currentTimeMillis(), limit);
+            }
+        }, 0, -1);
+        return session;
+    }
+
+    private ReviewSession(AsyncDataManager asyncDataManager, int userId, Listener listener) {
+        this.asyncDataManager = asyncDataManager;
+        this.userId = userId;
+        this.listener = listener;
+    }
+
+    /**
+     * 在后台线程中读取单词ID列表，然后预取起始位置附近的卡片
+     */
+    private void load(AsyncDataManager.Query<int[]> idLoader, final int startPosition, final int startWordId) {
+        submit(idLoader, new AsyncDataManager.Callback<int[]>() {
+            @Override
+            public void onResult(int[] loadedIds) {
+                onIdsLoaded(loadedIds, startPosition, startWordId);
+            }
+        }, new AsyncDataManager.ErrorCallback() {
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error loading session words: " + e.getMessage());
+                onIdsLoaded(new int[0], startPosition, startWordId);
+            }
+        });
+    }
+
+    private void onIdsLoaded(int[] loadedIds, int startPosition, int startWordId) {
+        wordIds = loadedIds;
+        position = Math.max(0, Math.min(startPosition, wordIds.length - 1));
+        for (int i = 0; startWordId != -1 && i < wordIds.length; i++) {
+            if (wordIds[i] == startWordId) {
+                position = i;
+                break;
+            }
+        }
+        waitingForCurrent = true;
+        prefetch();
+        listener.onSessionLoaded(wordIds.length);
+    }
+
+    /**
+     * 单词列表是否已读取完成
+     */
+    public boolean isLoaded() {
+        return wordIds != null;
+    }
+
+    /**
+     * 会话中的单词数，单词列表还没有读取完成时为0
+     */
+    public int size() {
+        return wordIds == null ? 0 : wordIds.length;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * 当前位置的卡片，还没有读取完成时返回null（读取完成后通过Listener.onCurrentCardLoaded通知）
+     */
+    public Card getCurrentCard() {
+        if (wordIds == null || wordIds.length == 0) {
+            return null;
+        }
+        Card card = cards.get(position);
+        waitingForCurrent = card == null;
+        return card;
+    }
+
+    /**
+     * 翻到下一张卡片
+     * @return 是否翻页成功，已经是最后一张时返回false
+     */
+    public boolean moveNext() {
+        return moveTo(position + 1);
+    }
+
+    /**
+     * 翻到上一张卡片
+     * @return 是否翻页成功，已经是第一张时返回false
+     */
+    public boolean movePrevious() {
+        return moveTo(position - 1);
+    }
+
+    private boolean moveTo(int newPosition) {
+        if (wordIds == null || newPosition < 0 || newPosition >= wordIds.length) {
+            return false;
+        }
+        window.onMove(SystemClock.uptimeMillis(), newPosition - position);
+        position = newPosition;
+        if (!cards.containsKey(position)) {
+            window.onMiss();
+        }
+        prefetch();
+        return true;
+    }
+
+    /**
+     * 记录用户对当前卡片的评分：放入写后队列，并立即更新卡片中的学习状态（返回这张卡片时显示新的状态）
+     * @param score 学习得分（0-100）
+     * @param writeListener 写入完成后的回调（可为null）
+     * @return 当前卡片还没有读取完成或者单词已被删除时返回false，不记录
+     */
+    public boolean recordReview(int score, WriteBehindQueue.OnWriteCompleteListener writeListener) {
+        Card card = getCurrentCard();
+        if (card == null || card.getWord() == null) {
+            return false;
+        }
+        String status = LearningRecord.statusForScore(score);
+        asyncDataManager.getDataManager().recordLearningAsync(userId, card.getWord().getId(), score, status, writeListener);
+
+        LearningRecord previous = card.getRecord();
+        LearningRecord updated = new LearningRecord(previous == null ? 0 : previous.getId(), userId,
+                card.getWord().getId(), score, System.currentTimeMillis(), status,
+                previous == null ? 1 : previous.getReviewCount() + 1);
+        cards.put(position, new Card(position, card.getWord(), updated));
+        return true;
+    }
+
+    /**
+     * 结束会话，停止预取并释放卡片
+     */
+    public void close() {
+        closed = true;
+        for (Future<?> load : loads) {
+            load.cancel(false);
+        }
+        loads.clear();
+        cards.clear();
+        pending.clear();
+    }
+
+    /**
+     * 淘汰窗口外的卡片，并在后台线程中一批读取窗口内缺少的卡片（按离当前位置由近到远的顺序）
+     */
+    private void prefetch() {
+        if (closed || wordIds == null) {
+            return;
+        }
+        int from = Math.max(0, position - window.behind());
+        int to = Math.min(wordIds.length - 1, position + window.ahead());
+
+        // 保留的范围比预取范围多一个最大窗口，来回翻页时不反复读取
+        Iterator<Integer> iterator = cards.keySet().iterator();
+        while (iterator.hasNext()) {
+            int cached = iterator.next();
+            if (cached < from - PrefetchWindow.MAX_SIZE || cached > to + PrefetchWindow.MAX_SIZE) {
+                iterator.remove();
+            }
+        }
+
+        final List<Integer> positions = new ArrayList<>();
+        int direction = window.getDirection();
+        for (int distance = 0; distance <= Math.max(position - from, to - position); distance++) {
+            addMissing(positions, position + direction * distance, from, to);
+            if (distance > 0) {
+                addMissing(positions, position - direction * distance, from, to);
+            }
+        }
+        if (positions.isEmpty()) {
+            return;
+        }
+
+        final int[] ids = new int[positions.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = wordIds[positions.get(i)];
+        }
+        pending.addAll(positions);
+        final long submittedAt = SystemClock.uptimeMillis();
+        submit(new AsyncDataManager.Query<List<Card>>() {
+            @Override
+            public List<Card> run(DataManager dataManager) {
+                return loadCards(dataManager, positions, ids);
+            }
+        }, new AsyncDataManager.Callback<List<Card>>() {
+            @Override
+            public void onResult(List<Card> loaded) {
+                onCardsLoaded(positions, loaded, SystemClock.uptimeMillis() - submittedAt);
+            }
+        }, new AsyncDataManager.ErrorCallback() {
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error prefetching cards: " + e.getMessage());
+                onCardsLoaded(positions, null, SystemClock.uptimeMillis() - submittedAt);
+            }
+        });
+    }
+
+    private void addMissing(List<Integer> positions, int candidate, int from, int to) {
+        if (candidate >= from && candidate <= to && !cards.containsKey(candidate) && !pending.contains(candidate)) {
+            positions.add(candidate);
+        }
+    }
+
+    /**
+     * 在后台线程中读取一批卡片：单词优先从单词缓存中读取，学习状态用一个查询批量读取
+     */
+    private List<Card> loadCards(DataManager dataManager, List<Integer> positions, int[] ids) {
+        Map<Integer, LearningRecord> records = dataManager.getUserCurrentLearningRecords(userId, ids);
+        List<Card> loaded = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            loaded.add(new Card(positions.get(i), dataManager.getWordById(ids[i]), records.get(ids[i])));
+        }
+        return loaded;
+    }
+
+    private void onCardsLoaded(List<Integer> positions, List<Card> loaded, long latencyMs) {
+        if (closed) {
+            return;
+        }
+        pending.removeAll(positions);
+        if (loaded == null) {
+            // 读取失败时等下一次翻页再重试
+            return;
+        }
+        window.onBatchLoaded(latencyMs);
+        for (Card card : loaded) {
+            // 读取期间用户已经评分的卡片保留内存中较新的学习状态
+            if (!cards.containsKey(card.getPosition())) {
+                cards.put(card.getPosition(), card);
+            }
+        }
+
+        Card current = cards.get(position);
+        if (waitingForCurrent && current != null) {
+            waitingForCurrent = false;
+            listener.onCurrentCardLoaded(current);
+        }
+        // 用户在读取期间翻页后窗口可能还有空缺
+        prefetch();
+    }
+
+    /**
+     * 通过AsyncDataManager在后台线程中读取，回调在会话关闭后不再调用
+     */
+    private <T> void submit(AsyncDataManager.Query<T> query, final AsyncDataManager.Callback<T> callback,
+                            final AsyncDataManager.ErrorCallback errorCallback) {
+        final Future<?>[] load = new Future<?>[1];
+        load[0] = asyncDataManager.submit(query, new AsyncDataManager.Callback<T>() {
+            @Override
+            public void onResult(T result) {
+                loads.remove(load[0]);
+                if (!closed) {
+                    callback.onResult(result);
+                }
+            }
+        }, new AsyncDataManager.ErrorCallback() {
+            @Override
+            public void onError(Exception e) {
+                loads.remove(load[0]);
+                if (!closed) {
+                    errorCallback.onError(e);
+                }
+            }
+        });
+        // 回调总是在之后的主线程消息中调用，这时已经加入
+        loads.add(load[0]);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.firstassignment;
+
+import android.database.Cursor;
+
+/**
+ * 把游标的当前行转换为对象
+ *
+ * 列索引在{@link Factory#create(Cursor)}时解析一次，之后每一行只按索引读取，
+ * 因此一个RowMapper只能用于创建它的那个游标。
+ * @param <T> 对象类型
+ */
+interface RowMapper<T> {
+    /**
+     * 转换游标的当前行
+     * @param cursor 创建这个RowMapper时使用的游标
+     * @return 当前行对应的对象
+     */
+    T map(Cursor cursor);
+
+    /**
+     * 为游标创建RowMapper，无状态，可以在多个查询和线程之间共享
+     * @param <T> 对象类型
+     */
+    interface Factory<T> {
+        /**
+         * 解析游标的列索引，并创建对应的RowMapper
+         * @param cursor 查询结果
+         * @return RowMapper
+         * @throws IllegalArgumentException 游标中缺少需要的列
+         */
+        RowMapper<T> create(Cursor cursor);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.firstassignment;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DataManager中各个查询共用的RowMapper
+ */
+final class RowMappers {
+
+    private RowMappers() {
+    }
+
+    /**
+     * 用户表（_id、username、password、avatar_resource）
+     */
+    static final RowMapper.Factory<User> USER = new RowMapper.Factory<User>() {
+        @Override
+        public RowMapper<User> create(Cursor cursor) {
+            final int idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_USER_ID);
+            final int usernameIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_USERNAME);
+            final int passwordIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_PASSWORD);
+            final int avatarIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_AVATAR);
+            return new RowMapper<User>() {
+                @Override
+                public User map(Cursor cursor) {
+                    return new User(cursor.getInt(idIndex), cursor.getString(usernameIndex),
+                            cursor.getString(passwordIndex), cursor.getInt(avatarIndex));
+                }
+            };
+        }
+    };
+
+    /**
+     * 单词表（_id、word、translation、category、example）
+     */
+    static final RowMapper.Factory<Word> WORD = new RowMapper.Factory<Word>() {
+        @Override
+        public RowMapper<Word> create(Cursor cursor) {
+            final int idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_WORD_ID);
+            final int wordIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_WORD);
+            final int translationIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_TRANSLATION);
+            final int categoryIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_CATEGORY);
+            final int exampleIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_EXAMPLE);
+            return new RowMapper<Word>() {
+                @Override
+                public Word map(Cursor cursor) {
+                    return new Word(cursor.getInt(idIndex), cursor.getString(wordIndex),
+                            cursor.getString(translationIndex), cursor.getString(categoryIndex),
+                            cursor.getString(exampleIndex));
+                }
+            };
+        }
+    };
+
+    /**
+     * 消息表（_id、content、sender_type、timestamp）
+     */
+    static final RowMapper.Factory<Message> MESSAGE = new RowMapper.Factory<Message>() {
+        @Override
+        public RowMapper<Message> create(Cursor cursor) {
+            final int idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_MESSAGE_ID);
+            final int contentIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_CONTENT);
+            final int senderTypeIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_SENDER_TYPE);
+            final int timestampIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_TIMESTAMP);
+            return new RowMapper<Message>() {
+                @Override
+                public Message map(Cursor cursor) {
+                    return new Message(cursor.getInt(idIndex), cursor.getString(contentIndex),
+                            cursor.getInt(senderTypeIndex), cursor.getLong(timestampIndex));
+                }
+            };
+        }
+    };
+
+    /**
+     * 学习记录表（_id、user_id、word_id、score、timestamp、status、review_count）
+     */
+    static final RowMapper.Factory<LearningRecord> LEARNING_RECORD = new RowMapper.Factory<LearningRecord>() {
+        @Override
+        public RowMapper<LearningRecord> create(Cursor cursor) {
+            final int idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_ID);
+            final int userIdIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_USER_ID);
+            final int wordIdIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_WORD_ID);
+            final int scoreIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_SCORE);
+            final int timestampIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_TIMESTAMP);
+            final int statusIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_STATUS);
+            final int reviewCountIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.COLUMN_RECORD_REVIEW_COUNT);
+            return new RowMapper<LearningRecord>() {
+                @Override
+                public LearningRecord map(Cursor cursor) {
+                    return new LearningRecord(cursor.getInt(idIndex), cursor.getInt(userIdIndex),
+                            cursor.getInt(wordIdIndex), cursor.getInt(scoreIndex), cursor.getLong(timestampIndex),
+                            cursor.getString(statusIndex), cursor.getInt(reviewCountIndex));
+                }
+            };
+        }
+    };
+
+    /**
+     * 把游标中的所有行转换为对象
+     * @param cursor 查询结果（可为null）
+     * @param factory RowMapper工厂
+     * @return 对象列表
+     */
+    static <T> List<T> mapAll(Cursor cursor, RowMapper.Factory<T> factory) {
+        if (cursor == null || !cursor.moveToFirst()) {
+            return new ArrayList<>();
+        }
+
+        List<T> list = new ArrayList<>(cursor.getCount());
+        RowMapper<T> mapper = factory.create(cursor);
+        do {
+            list.add(mapper.map(cursor));
+        } while (cursor.moveToNext());
+        return list;
+    }
+
+    /**
+     * 转换游标的第一行
+     * @param cursor 查询结果（可为null）
+     * @param factory RowMapper工厂
+     * @return 第一行对应的对象，没有结果时返回null
+     */
+    static <T> T mapFirst(Cursor cursor, RowMapper.Factory<T> factory) {
+        if (cursor == null || !cursor.moveToFirst()) {
+            return null;
+        }
+        return factory.create(cursor).map(cursor);
+    }
+}
@@ -3,13 +3,11 @@ package com.example.firstassignment;
 import android.content.Intent;
 import android.database.Cursor;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
+import android.widget.RadioGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.core.os.HandlerCompat;
 
 import com.github.mikephil.charting.charts.BarChart;
 import com.github.mikephil.charting.charts.LineChart;
@@ -25,25 +23,29 @@ import com.github.mikephil.charting.data.LineDataSet;
 import com.github.mikephil.charting.formatter.ValueFormatter;
 import com.github.mikephil.charting.utils.ColorTemplate;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class StatisticsActivity extends AppCompatActivity {
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    // 记忆曲线相邻两个点之间的最小间距，图表宽度除以它就是最多显示的点数
+    private static final int MIN_POINT_SPACING_DP = 24;
 
     private LineChart memoryCurveChart;
+    private RadioGroup statsPeriodRadioGroup;
     private BarChart wordStatusChart;
     private TextView totalLearnedWordsTextView;
     private TextView avgScoreTextView;
     private DataManager dataManager;
-    private long currentUserId;
-    private ExecutorService executorService;
-    private Handler mainHandler;
+    private AsyncDataManager asyncDataManager;
+    // 当前用户ID，在后台线程中确定之前为-1
+    private long currentUserId = -1;
+    // 记忆曲线的加载序号，切换时间范围后丢弃之前还没返回的结果
+    private int curveGeneration = 0;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -52,19 +54,25 @@ public class StatisticsActivity extends AppCompatActivity {
 
         // 初始化UI组件
         memoryCurveChart = findViewById(R.id.memoryCurveChart);
+        statsPeriodRadioGroup = findViewById(R.id.statsPeriodRadioGroup);
         wordStatusChart = findViewById(R.id.wordStatusChart);
         totalLearnedWordsTextView = findViewById(R.id.totalLearnedWordsTextView);
         avgScoreTextView = findViewById(R.id.avgScoreTextView);
 
-        // 初始化DataManager
-        dataManager = new DataManager(this);
-
-        // 初始化线程池和主线程Handler
-        executorService = Executors.newSingleThreadExecutor();
-        mainHandler = HandlerCompat.createAsync(Looper.getMainLooper());
-
-        // 在后台线程获取用户ID和加载数据
-        loadDataInBackground();
+        // 获取共享的DataManager
+        dataManager = DataManager.getInstance(this);
+        asyncDataManager = AsyncDataManager.bind(this, dataManager);
+
+        // 在后台线程获取用户ID，之后再加载统计数据和记忆曲线
+        asyncDataManager.submit(StatisticsActivity::getCurrentUserId, userId -> {
+            currentUserId = userId;
+            loadDataInBackground();
+            // 图表完成布局（宽度已知）后再按选中的时间范围加载记忆曲线
+            memoryCurveChart.post(this::loadMemoryCurve);
+        }, e -> {
+            Toast.makeText(StatisticsActivity.this, "获取用户ID失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        });
+        statsPeriodRadioGroup.setOnCheckedChangeListener((group, checkedId) -> loadMemoryCurve());
 
         // 返回按钮功能
         findViewById(R.id.backToWordListButton).setOnClickListener(v -> {
@@ -78,57 +86,117 @@ public class StatisticsActivity extends AppCompatActivity {
     }
 
     private void loadDataInBackground() {
-        executorService.execute(() -> {
-            try {
-                // 获取当前登录用户ID
-                currentUserId = getCurrentUserId();
-
-                // 加载统计数据
-                Map<String, Integer> dailyStats = dataManager.getUserDailyLearningStats((int) currentUserId);
-                Map<String, Integer> statusStats = dataManager.getUserWordStatusStats((int) currentUserId);
-                int totalLearnedWords = dataManager.getUserLearnedWordCount((int) currentUserId);
-                double avgScore = dataManager.getUserAverageLearningScore((int) currentUserId);
-
-                // 如果没有真实数据，使用模拟数据
-                if ((dailyStats == null || dailyStats.isEmpty()) ||
-                        (statusStats == null || statusStats.isEmpty()) ||
-                        totalLearnedWords == 0) {
-                    dailyStats = generateMockDailyStats();
-                    statusStats = generateMockStatusStats();
-                    totalLearnedWords = 30;
-                    avgScore = 85.5;
-                }
+        final int userId = (int) currentUserId;
+        asyncDataManager.submit(dm -> {
+            // 一次查询得到所有统计（没有新的学习记录时直接使用缓存），记忆曲线由loadMemoryCurve加载
+            return dm.getStatisticsSnapshot(userId);
+        }, snapshot -> {
+            Map<String, Integer> statusStats = snapshot != null ? snapshot.getStatusStats() : null;
+            int totalLearnedWords = snapshot != null ? snapshot.getLearnedWordCount() : 0;
+            double avgScore = snapshot != null ? snapshot.getAverageScore() : 0.0;
+
+            // 如果没有真实数据，使用模拟数据
+            if ((statusStats == null || statusStats.isEmpty()) ||
+                    totalLearnedWords == 0) {
+                statusStats = generateMockStatusStats();
+                totalLearnedWords = 30;
+                avgScore = 85.5;
+            }
+
+            showWordStatusChart(statusStats);
+            showOverallStatistics(totalLearnedWords, avgScore);
+        }, e -> {
+            // 错误处理
+            Toast.makeText(StatisticsActivity.this, "加载统计数据失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        });
+    }
 
-                final Map<String, Integer> finalDailyStats = dailyStats;
-                final Map<String, Integer> finalStatusStats = statusStats;
-                final int finalTotalLearnedWords = totalLearnedWords;
-                final double finalAvgScore = avgScore;
-
-                // 在主线程更新UI
-                mainHandler.post(() -> {
-                    showMemoryCurveChart(finalDailyStats);
-                    showWordStatusChart(finalStatusStats);
-                    showOverallStatistics(finalTotalLearnedWords, finalAvgScore);
-                });
-            } catch (Exception e) {
-                // 错误处理
-                mainHandler.post(() -> {
-                    Toast.makeText(StatisticsActivity.this, "加载统计数据失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                });
+    /**
+     * 按选中的时间范围加载记忆曲线：根据时间跨度和图表宽度选择日、周或月粒度，
+     * 只读取对应汇总表中的O(点数)行，与学习历史的长短无关
+     */
+    private void loadMemoryCurve() {
+        final int periodDays = getSelectedPeriodDays();
+        int chartWidth = memoryCurveChart.getWidth();
+        if (chartWidth <= 0) {
+            chartWidth = getResources().getDisplayMetrics().widthPixels;
+        }
+        final int maxPoints = Math.max(2,
+                (int) (chartWidth / (MIN_POINT_SPACING_DP * getResources().getDisplayMetrics().density)));
+        final int generation = ++curveGeneration;
+        if (currentUserId == -1) {
+            // 用户ID确定后会重新加载
+            return;
+        }
+        final int userId = (int) currentUserId;
+
+        asyncDataManager.submit(dm -> {
+            long now = System.currentTimeMillis();
+            StatisticsSnapshot snapshot = dm.getStatisticsSnapshot(userId);
+            long firstTimestamp = snapshot != null ? snapshot.getFirstTimestamp() : -1;
+
+            StatsResolution resolution;
+            Map<String, Integer> stats;
+            if (firstTimestamp < 0) {
+                // 还没有学习记录，使用模拟数据
+                resolution = StatsResolution.DAY;
+                stats = generateMockDailyStats();
+            } else {
+                long from = periodDays > 0 ? now - (periodDays - 1) * DAY_MILLIS : firstTimestamp;
+                resolution = StatsResolution.forRange(from, now, maxPoints);
+                if (resolution == StatsResolution.DAY) {
+                    // 快照中已有每日统计
+                    stats = since(snapshot.getDailyStats(), resolution.periodKey(from));
+                } else {
+                    stats = dm.getUserLearningStats(userId, resolution, from);
+                }
+            }
+            return new CurveData(stats, resolution);
+        }, curve -> {
+            if (generation == curveGeneration && !isFinishing()) {
+                showMemoryCurveChart(curve.stats, curve.resolution);
             }
+        }, e -> {
+            Toast.makeText(StatisticsActivity.this, "加载记忆曲线失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
         });
     }
 
-    // 生成模拟的每日学习数据
+    /**
+     * 按时间排序的统计中从某个时间段开始的部分
+     */
+    private static Map<String, Integer> since(Map<String, Integer> stats, String fromKey) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> stat : stats.entrySet()) {
+            if (stat.getKey().compareTo(fromKey) >= 0) {
+                result.put(stat.getKey(), stat.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 选中的时间范围（天数），0表示全部
+     */
+    private int getSelectedPeriodDays() {
+        int checkedId = statsPeriodRadioGroup.getCheckedRadioButtonId();
+        if (checkedId == R.id.statsPeriodMonthButton) {
+            return 30;
+        } else if (checkedId == R.id.statsPeriodYearButton) {
+            return 365;
+        } else if (checkedId == R.id.statsPeriodAllButton) {
+            return 0;
+        }
+        return 7;
+    }
+
+    // 生成模拟的每日学习数据（按日期排序）
     private Map<String, Integer> generateMockDailyStats() {
-        Map<String, Integer> mockStats = new HashMap<>();
-        SimpleDateFormat sdf = new SimpleDateFormat("MM-dd");
+        Map<String, Integer> mockStats = new LinkedHashMap<>();
         Date currentDate = new Date();
 
         // 生成过去7天的数据
         for (int i = 6; i >= 0; i--) {
-            Date date = new Date(currentDate.getTime() - i * 24 * 60 * 60 * 1000);
-            String dateStr = sdf.format(date);
+            String dateStr = StatsResolution.dayOf(currentDate.getTime() - i * DAY_MILLIS);
             // 随机生成70-100之间的分数
             int score = 70 + (int)(Math.random() * 31);
             mockStats.put(dateStr, score);
@@ -146,35 +214,32 @@ public class StatisticsActivity extends AppCompatActivity {
         return mockStats;
     }
 
-    private long getCurrentUserId() {
-        try {
-            // 获取当前登录用户ID（这里简化处理，假设使用第一个用户）
-            List<User> users = dataManager.getAllUsers();
-            if (users != null && !users.isEmpty()) {
-                return users.get(0).getId();
-            } else {
-                // 如果没有用户，创建默认用户
-                User defaultUser = new User("user", "password", R.drawable.ic_launcher_foreground);
-                boolean success = dataManager.addUser(defaultUser);
-                if (success) {
-                    users = dataManager.getAllUsers();
-                    if (users != null && !users.isEmpty()) {
-                        return users.get(0).getId();
-                    }
+    /**
+     * 获取当前登录用户ID（在后台线程中调用）
+     */
+    private static long getCurrentUserId(DataManager dataManager) {
+        // 获取当前登录用户ID（这里简化处理，假设使用第一个用户）
+        List<User> users = dataManager.getAllUsers();
+        if (users != null && !users.isEmpty()) {
+            return users.get(0).getId();
+        } else {
+            // 如果没有用户，创建默认用户
+            User defaultUser = new User("user", "password", R.drawable.ic_launcher_foreground);
+            boolean success = dataManager.addUser(defaultUser);
+            if (success) {
+                users = dataManager.getAllUsers();
+                if (users != null && !users.isEmpty()) {
+                    return users.get(0).getId();
                 }
             }
-        } catch (Exception e) {
-            // 处理异常，避免应用崩溃
-            mainHandler.post(() -> {
-                Toast.makeText(StatisticsActivity.this, "获取用户ID失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            });
         }
         return 1; // 默认ID
     }
 
-    private void showMemoryCurveChart(Map<String, Integer> dailyStats) {
-        if (dailyStats == null || dailyStats.isEmpty()) {
-            // 如果没有数据，显示提示信息
+    private void showMemoryCurveChart(Map<String, Integer> stats, StatsResolution resolution) {
+        if (stats == null || stats.isEmpty()) {
+            // 如果没有数据，清空图表并显示提示信息
+            memoryCurveChart.clear();
             Toast.makeText(this, "暂无学习记录数据", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -184,11 +249,10 @@ public class StatisticsActivity extends AppCompatActivity {
         ArrayList<String> labels = new ArrayList<>();
         int index = 0;
 
-        // 按日期排序并添加数据点
-        SimpleDateFormat sdf = new SimpleDateFormat("MM-dd");
-        for (String date : dailyStats.keySet()) {
-            entries.add(new Entry(index, dailyStats.get(date)));
-            labels.add(date);
+        // 汇总结果已按时间排序，依次添加数据点
+        for (Map.Entry<String, Integer> stat : stats.entrySet()) {
+            entries.add(new Entry(index, stat.getValue()));
+            labels.add(resolution.formatLabel(stat.getKey()));
             index++;
         }
 
@@ -209,14 +273,16 @@ public class StatisticsActivity extends AppCompatActivity {
 
         // 配置图表
         Description description = new Description();
-        description.setText("记忆曲线 - 每日平均学习分数");
+        description.setText("记忆曲线 - " + resolution.getDisplayName() + "平均学习分数");
         memoryCurveChart.setDescription(description);
 
         XAxis xAxis = memoryCurveChart.getXAxis();
         xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
+        xAxis.setGranularity(1f);
         xAxis.setValueFormatter(new CustomXAxisValueFormatter(labels));
 
         // 刷新图表
+        memoryCurveChart.notifyDataSetChanged();
         memoryCurveChart.invalidate();
     }
 
@@ -275,9 +341,18 @@ public class StatisticsActivity extends AppCompatActivity {
         if (dataManager != null) {
             dataManager.close();
         }
-        // 关闭线程池
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdown();
+    }
+
+    /**
+     * 后台线程中读取的记忆曲线数据
+     */
+    private static class CurveData {
+        final Map<String, Integer> stats;
+        final StatsResolution resolution;
+
+        CurveData(Map<String, Integer> stats, StatsResolution resolution) {
+            this.stats = stats;
+            this.resolution = resolution;
         }
     }
 
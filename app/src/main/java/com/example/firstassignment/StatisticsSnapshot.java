@@ -0,0 +1,94 @@
+package com.example.firstassignment;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 某个用户在某一时刻的学习统计快照（不可变），由DataManager.getStatisticsSnapshot在一条查询中生成
+ *
+ * 快照中的各项统计来自同一个数据库读快照，彼此一致。
+ * DataManager按用户的学习数据版本缓存快照，用户没有新的学习记录时重复获取直接返回缓存。
+ */
+public class StatisticsSnapshot {
+    private final int userId;
+    private final long dataVersion;
+    private final Map<String, Integer> dailyStats;
+    private final Map<String, Integer> statusStats;
+    private final int learnedWordCount;
+    private final int recordCount;
+    private final double averageScore;
+    private final long firstTimestamp;
+
+    StatisticsSnapshot(int userId, long dataVersion, Map<String, Integer> dailyStats, Map<String, Integer> statusStats,
+                       int learnedWordCount, int recordCount, double averageScore, long firstTimestamp) {
+        this.userId = userId;
+        this.dataVersion = dataVersion;
+        this.dailyStats = Collections.unmodifiableMap(new LinkedHashMap<>(dailyStats));
+        this.statusStats = Collections.unmodifiableMap(new LinkedHashMap<>(statusStats));
+        this.learnedWordCount = learnedWordCount;
+        this.recordCount = recordCount;
+        this.averageScore = averageScore;
+        this.firstTimestamp = firstTimestamp;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * 生成快照时用户的学习数据版本
+     */
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     * 按日期排序的日期（yyyy-MM-dd）到平均学习分数的映射，与getUserDailyLearningStats相同
+     */
+    public Map<String, Integer> getDailyStats() {
+        return dailyStats;
+    }
+
+    /**
+     * 学习状态到单词数量的映射，与getUserWordStatusStats相同
+     */
+    public Map<String, Integer> getStatusStats() {
+        return statusStats;
+    }
+
+    /**
+     * 学习过的单词数，与getUserLearnedWordCount相同
+     */
+    public int getLearnedWordCount() {
+        return learnedWordCount;
+    }
+
+    /**
+     * 评分次数（复习历史的条数）
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * 平均学习得分，与getUserAverageLearningScore相同
+     */
+    public double getAverageScore() {
+        return averageScore;
+    }
+
+    /**
+     * 最早一次评分的时间，没有评分时为-1
+     */
+    public long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    /**
+     * 是否没有任何评分
+     */
+    public boolean isEmpty() {
+        return recordCount == 0;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.firstassignment;
+
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * 学习统计汇总的时间粒度：日、周（周一开始）、月，每种粒度对应一张汇总表，见LearningStatsRollup
+ *
+ * 时间段用第一天的本地日期（yyyy-MM-dd）表示，字符串顺序与时间顺序一致。
+ */
+public enum StatsResolution {
+    DAY(DatabaseHelper.TABLE_DAILY_LEARNING_STATS, "每日"),
+    WEEK(DatabaseHelper.TABLE_WEEKLY_LEARNING_STATS, "每周"),
+    MONTH(DatabaseHelper.TABLE_MONTHLY_LEARNING_STATS, "每月");
+
+    private final String tableName;
+    private final String displayName;
+
+    StatsResolution(String tableName, String displayName) {
+        this.tableName = tableName;
+        this.displayName = displayName;
+    }
+
+    /**
+     * 这种粒度的汇总表名
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * 显示名称，例如"每周"
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * 时间戳所在时间段的开始时间（本地时间0点，毫秒）
+     */
+    public long periodStart(long timestamp) {
+        Calendar calendar = startOfDay(timestamp);
+        if (this == WEEK) {
+            // Calendar.MONDAY为2，周一到周日分别往前退0到6天
+            int daysFromMonday = (calendar.get(Calendar.DAY_OF_WEEK) - Calendar.MONDAY + 7) % 7;
+            calendar.add(Calendar.DAY_OF_MONTH, -daysFromMonday);
+        } else if (this == MONTH) {
+            calendar.set(Calendar.DAY_OF_MONTH, 1);
+        }
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * 时间戳所在时间段的下一个时间段的开始时间（夏令时切换时一天不一定是24小时，所以按日历计算）
+     */
+    public long nextPeriodStart(long timestamp) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(periodStart(timestamp));
+        if (this == DAY) {
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        } else if (this == WEEK) {
+            calendar.add(Calendar.DAY_OF_MONTH, 7);
+        } else {
+            calendar.add(Calendar.MONTH, 1);
+        }
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * 时间戳所在时间段的键（第一天的本地日期yyyy-MM-dd）
+     */
+    public String periodKey(long timestamp) {
+        return dayOf(periodStart(timestamp));
+    }
+
+    /**
+     * [from, to]之间的时间段个数
+     */
+    public int periodCount(long from, long to) {
+        if (to < from) {
+            return 0;
+        }
+        Calendar start = Calendar.getInstance();
+        start.setTimeInMillis(periodStart(from));
+        Calendar end = Calendar.getInstance();
+        end.setTimeInMillis(periodStart(to));
+        int years = end.get(Calendar.YEAR) - start.get(Calendar.YEAR);
+        if (this == MONTH) {
+            return years * 12 + end.get(Calendar.MONTH) - start.get(Calendar.MONTH) + 1;
+        }
+        // 按日期差计算天数，不受夏令时的影响
+        long days = Math.round((end.getTimeInMillis() - start.getTimeInMillis()) / (24.0 * 60 * 60 * 1000));
+        return (int) (this == WEEK ? days / 7 : days) + 1;
+    }
+
+    /**
+     * 图表上显示的时间段标签：日和周显示MM-dd，月显示yyyy-MM
+     * @param periodKey 时间段的键（yyyy-MM-dd）
+     */
+    public String formatLabel(String periodKey) {
+        if (periodKey == null || periodKey.length() < 10) {
+            return periodKey;
+        }
+        return this == MONTH ? periodKey.substring(0, 7) : periodKey.substring(5);
+    }
+
+    /**
+     * 选择能在图表上完整显示[from, to]的最细的粒度：时间段个数不超过maxPoints，
+     * 这样读取的汇总行数和绘制的点数都不超过图表宽度能容纳的点数，与学习历史的长短无关
+     * @param maxPoints 图表最多显示的点数
+     * @return 合适的粒度，时间跨度太长时返回MONTH
+     */
+    public static StatsResolution forRange(long from, long to, int maxPoints) {
+        for (StatsResolution resolution : values()) {
+            if (resolution.periodCount(from, to) <= maxPoints) {
+                return resolution;
+            }
+        }
+        return MONTH;
+    }
+
+    /**
+     * 时间戳对应的本地日期（yyyy-MM-dd）
+     */
+    static String dayOf(long timestamp) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestamp);
+        return String.format(Locale.ROOT, "%04d-%02d-%02d", calendar.get(Calendar.YEAR),
+                calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    private static Calendar startOfDay(long timestamp) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestamp);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar;
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.firstassignment;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.AdapterView;
+import android.widget.AbsListView;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.EditText;
@@ -14,6 +18,7 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.os.HandlerCompat;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -22,14 +27,35 @@ import java.util.List;
  * 用户列表活动，显示并管理所有用户信息
  */
 public class UserListActivity extends AppCompatActivity {
+    // 每页加载的用户数
+    private static final int PAGE_SIZE = DataManager.DEFAULT_PAGE_SIZE;
+    // 距离列表底部还剩多少项时开始加载下一页
+    private static final int PREFETCH_DISTANCE = 10;
+    // 停止输入多久之后才开始搜索（毫秒）
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+
     private ListView userListView;
     private Button backButton;
     private EditText searchUsernameEditText;
     private Button searchButton;
     private DataManager dataManager;
     private List<User> userList;
-    private List<User> originalUserList; // 保存原始用户列表
     private UserAdapter userAdapter;
+    private AsyncDataManager asyncDataManager;
+    // 用于延迟搜索
+    private Handler mainHandler;
+    // 当前的用户名前缀，为空时显示所有用户
+    private String searchPrefix = "";
+    // 已加载的最后一个用户的ID（显示所有用户时按ID分页），下一页从它之后开始
+    private int lastLoadedUserId = 0;
+    // 已加载的搜索结果数（搜索时按用户名排序，用偏移量分页）
+    private int loadedSearchCount = 0;
+    private boolean loadingPage = false;
+    private boolean hasMoreUsers = true;
+    // 用于丢弃过期的加载结果（重新加载或搜索后，之前发出的查询结果不再显示）
+    private int loadGeneration = 0;
+    // 等待执行的搜索，继续输入时取消
+    private final Runnable searchRunnable = this::searchUsers;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -41,21 +67,59 @@ public class UserListActivity extends AppCompatActivity {
         searchUsernameEditText = findViewById(R.id.search_username_edittext);
         searchButton = findViewById(R.id.search_button);
 
-        dataManager = new DataManager(this);
+        dataManager = DataManager.getInstance(this);
+        asyncDataManager = AsyncDataManager.bind(this, dataManager);
+        mainHandler = HandlerCompat.createAsync(Looper.getMainLooper());
+
+        userList = new ArrayList<>();
+        userAdapter = new UserAdapter(userList);
+        userListView.setAdapter(userAdapter);
+
+        // 滚动到接近底部时加载下一页
+        userListView.setOnScrollListener(new AbsListView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(AbsListView view, int scrollState) {
+            }
+
+            @Override
+            public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+                if (firstVisibleItem + visibleItemCount >= totalItemCount - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
+
         loadUsers();
 
         // 设置返回按钮点击事件
         backButton.setOnClickListener(v -> finish());
 
         // 设置搜索按钮点击事件
-        searchButton.setOnClickListener(v -> searchUsers());
+        searchButton.setOnClickListener(v -> searchNow());
 
         // 支持回车键搜索
         searchUsernameEditText.setOnEditorActionListener((v, actionId, event) -> {
-            searchUsers();
+            searchNow();
             return true;
         });
 
+        // 边输入边搜索，停止输入一小段时间后才查询
+        searchUsernameEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                mainHandler.removeCallbacks(searchRunnable);
+                mainHandler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
+            }
+        });
+
         // 设置列表项点击事件（查看用户详情）
         userListView.setOnItemClickListener((parent, view, position, id) -> {
             User selectedUser = userList.get(position);
@@ -64,30 +128,29 @@ public class UserListActivity extends AppCompatActivity {
     }
 
     /**
-     * 搜索用户
+     * 立即搜索（点击搜索按钮或按回车键时），取消等待中的搜索
      */
-    private void searchUsers() {
-        String searchText = searchUsernameEditText.getText().toString().trim().toLowerCase();
+    private void searchNow() {
+        mainHandler.removeCallbacks(searchRunnable);
+        searchUsers();
+    }
 
-        if (searchText.isEmpty()) {
-            // 如果搜索框为空，显示所有用户
-            userList = new ArrayList<>(originalUserList);
-        } else {
-            // 否则根据用户名搜索
-            List<User> searchResults = new ArrayList<>();
-            for (User user : originalUserList) {
-                if (user.getUsername().toLowerCase().contains(searchText)) {
-                    searchResults.add(user);
-                }
-            }
-            userList = searchResults;
+    /**
+     * 按用户名前缀搜索用户，搜索框为空时显示所有用户
+     */
+    private void searchUsers() {
+        String prefix = searchUsernameEditText.getText().toString().trim();
+        if (prefix.equals(searchPrefix)) {
+            return;
         }
+        searchPrefix = prefix;
+        loadUsers();
+    }
 
-        // 更新列表显示
-        userAdapter = new UserAdapter(userList);
-        userListView.setAdapter(userAdapter);
-
-        // 显示空列表提示
+    /**
+     * 列表为空时显示提示信息
+     */
+    private void updateEmptyView() {
         TextView emptyTextView = findViewById(R.id.empty_text_view);
         if (userList.isEmpty()) {
             emptyTextView.setVisibility(View.VISIBLE);
@@ -99,45 +162,59 @@ public class UserListActivity extends AppCompatActivity {
     }
 
     /**
-     * 检查用户名是否已存在
-     * @param username 要检查的用户名
-     * @param excludeUserId 排除的用户ID（用于修改自己的用户名时不检查自己）
-     * @return 是否存在
+     * 从第一页开始重新加载用户列表（当前的列表在第一页加载完成后才替换，避免闪烁）
      */
-    private boolean isUsernameExists(String username, int excludeUserId) {
-        for (User user : originalUserList) {
-            if (user.getUsername().equals(username) && user.getId() != excludeUserId) {
-                return true;
-            }
-        }
-        return false;
+    private void loadUsers() {
+        loadGeneration++;
+        loadingPage = false;
+        lastLoadedUserId = 0;
+        loadedSearchCount = 0;
+        hasMoreUsers = true;
+        loadNextPage();
     }
 
     /**
-     * 从数据库加载所有用户
+     * 在后台线程中加载下一页用户：显示所有用户时按ID分页，搜索时按用户名分页
      */
-    private void loadUsers() {
-        userList = dataManager.getAllUsers();
-        originalUserList = new ArrayList<>(userList); // 保存原始用户列表
-
-        if (userList == null) {
-            userList = new ArrayList<>();
-            originalUserList = new ArrayList<>();
+    private void loadNextPage() {
+        if (loadingPage || !hasMoreUsers) {
+            return;
         }
+        loadingPage = true;
+
+        final int generation = loadGeneration;
+        final String prefix = searchPrefix;
+        final int afterId = lastLoadedUserId;
+        final int offset = loadedSearchCount;
+        final boolean firstPage = afterId == 0 && offset == 0;
+        asyncDataManager.submit(dm -> prefix.isEmpty()
+                ? dm.getUsersPage(afterId, PAGE_SIZE)
+                : dm.searchUsersByPrefix(prefix, PAGE_SIZE, offset), page -> {
+            if (generation != loadGeneration) {
+                return;
+            }
+            loadingPage = false;
+            hasMoreUsers = page.size() == PAGE_SIZE;
+            if (!page.isEmpty()) {
+                lastLoadedUserId = page.get(page.size() - 1).getId();
+            }
+            loadedSearchCount += page.size();
 
-        userAdapter = new UserAdapter(userList);
-        userListView.setAdapter(userAdapter);
-
-        // 如果没有用户，显示提示信息
-        if (userList.isEmpty()) {
-            TextView emptyTextView = findViewById(R.id.empty_text_view);
-            emptyTextView.setVisibility(View.VISIBLE);
-            userListView.setVisibility(View.GONE);
-        } else {
-            TextView emptyTextView = findViewById(R.id.empty_text_view);
-            emptyTextView.setVisibility(View.GONE);
-            userListView.setVisibility(View.VISIBLE);
-        }
+            // 在原有的适配器上更新数据
+            userAdapter.setNotifyOnChange(false);
+            if (firstPage) {
+                userAdapter.clear();
+            }
+            userAdapter.addAll(page);
+            userAdapter.notifyDataSetChanged();
+            updateEmptyView();
+        }, e -> {
+            if (generation == loadGeneration) {
+                // 加载失败时允许继续滚动时重试
+                loadingPage = false;
+                Toast.makeText(UserListActivity.this, "加载用户列表失败", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     /**
@@ -176,24 +253,21 @@ public class UserListActivity extends AppCompatActivity {
                 return;
             }
 
-            // 检查新用户名是否已存在
-            if (isUsernameExists(newUsername, user.getId())) {
-                Toast.makeText(UserListActivity.this, "用户名已存在", Toast.LENGTH_SHORT).show();
-                return;
-            }
-
-            // 创建更新后的用户对象
+            // 在后台线程中检查新用户名是否已存在，再更新用户信息
             User updatedUser = new User(user.getId(), newUsername, user.getPassword(), user.getAvatarResource());
-
-            // 更新用户信息
-            boolean updated = dataManager.updateUser(updatedUser);
-            if (updated) {
-                Toast.makeText(UserListActivity.this, "用户名修改成功", Toast.LENGTH_SHORT).show();
-                loadUsers(); // 重新加载用户列表
-                dialog.dismiss();
-            } else {
-                Toast.makeText(UserListActivity.this, "用户名修改失败", Toast.LENGTH_SHORT).show();
-            }
+            // 结果为null表示用户名已存在
+            asyncDataManager.submit(dm -> dm.isUsernameTaken(newUsername, user.getId())
+                    ? null : dm.updateUser(updatedUser), updated -> {
+                if (updated == null) {
+                    Toast.makeText(UserListActivity.this, "用户名已存在", Toast.LENGTH_SHORT).show();
+                } else if (updated) {
+                    Toast.makeText(UserListActivity.this, "用户名修改成功", Toast.LENGTH_SHORT).show();
+                    loadUsers(); // 重新加载用户列表
+                    dialog.dismiss();
+                } else {
+                    Toast.makeText(UserListActivity.this, "用户名修改失败", Toast.LENGTH_SHORT).show();
+                }
+            });
         });
 
         // 删除用户按钮点击事件
@@ -202,14 +276,16 @@ public class UserListActivity extends AppCompatActivity {
                     .setTitle("确认删除")
                     .setMessage("确定要删除用户 '" + user.getUsername() + "' 吗？")
                     .setPositiveButton("确定", (dialog1, which) -> {
-                        boolean deleted = dataManager.deleteUser(user.getId());
-                        if (deleted) {
-                            Toast.makeText(UserListActivity.this, "用户删除成功", Toast.LENGTH_SHORT).show();
-                            loadUsers(); // 重新加载用户列表
-                        } else {
-                            Toast.makeText(UserListActivity.this, "用户删除失败", Toast.LENGTH_SHORT).show();
-                        }
+                        // 在后台线程中删除用户（同时删除该用户的消息、学习记录、复习历史和统计汇总）
                         dialog.dismiss();
+                        asyncDataManager.submit(dm -> dm.deleteUser(user.getId()), deleted -> {
+                            if (deleted) {
+                                Toast.makeText(UserListActivity.this, "用户删除成功", Toast.LENGTH_SHORT).show();
+                                loadUsers(); // 重新加载用户列表
+                            } else {
+                                Toast.makeText(UserListActivity.this, "用户删除失败", Toast.LENGTH_SHORT).show();
+                            }
+                        });
                     })
                     .setNegativeButton("取消", null)
                     .show();
@@ -250,6 +326,10 @@ public class UserListActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        // 尚未送达的加载结果由AsyncDataManager在界面销毁时丢弃，这里只取消等待中的延迟搜索
+        if (mainHandler != null) {
+            mainHandler.removeCallbacksAndMessages(null);
+        }
         if (dataManager != null) {
             dataManager.close();
         }
@@ -0,0 +1,98 @@
+package com.example.firstassignment;
+
+/**
+ * 已存在用户名的布隆过滤器，用于注册时边输入边检查用户名是否可用
+ *
+ * 过滤器回答"一定不存在"时不需要查询数据库；回答"可能存在"时（包括约1%的误判）
+ * 再用用户名的唯一索引查询确认。布隆过滤器不支持删除，删除用户或修改用户名后旧的用户名仍会被判为
+ * "可能存在"，只是多一次索引查询，不影响结果的正确性。
+ * 加入的用户名超过容量后误判率会升高，{@link #isSaturated()}返回true，应当重建。
+ * 所有方法都是线程安全的。
+ */
+public class UsernameBloomFilter {
+    // 目标误判率
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final long[] bits;
+    private final int bitCount;
+    private final int hashCount;
+    private final int capacity;
+    private int addedCount = 0;
+
+    /**
+     * @param expectedCount 预计加入的用户名数，实际容量会留出一倍的余量
+     */
+    public UsernameBloomFilter(int expectedCount) {
+        capacity = Math.max(MIN_CAPACITY, expectedCount * 2);
+        // 最优位数m = -n * ln(p) / (ln2)^2，最优哈希函数个数k = m / n * ln2
+        long optimalBits = (long) Math.ceil(-capacity * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+        bitCount = (int) Math.min(Integer.MAX_VALUE - 63, optimalBits);
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        bits = new long[(bitCount + 63) / 64];
+    }
+
+    /**
+     * 加入一个用户名
+     */
+    public synchronized void put(String username) {
+        int hash1 = username.hashCode();
+        int hash2 = secondHash(username);
+        for (int i = 0; i < hashCount; i++) {
+            int index = bitIndex(hash1, hash2, i);
+            bits[index >>> 6] |= 1L << index;
+        }
+        addedCount++;
+    }
+
+    /**
+     * 用户名是否可能已存在
+     * @return false表示一定不存在，true表示可能存在（需要查询数据库确认）
+     */
+    public synchronized boolean mightContain(String username) {
+        int hash1 = username.hashCode();
+        int hash2 = secondHash(username);
+        for (int i = 0; i < hashCount; i++) {
+            int index = bitIndex(hash1, hash2, i);
+            if ((bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 加入的用户名是否已经超过容量（误判率明显高于目标值）
+     */
+    public synchronized boolean isSaturated() {
+        return addedCount > capacity;
+    }
+
+    /**
+     * 过滤器占用的字节数
+     */
+    public int getSizeBytes() {
+        return bits.length * 8;
+    }
+
+    /**
+     * 第i个哈希函数的位下标：用两个独立的哈希值组合出k个哈希函数（double hashing）
+     */
+    private int bitIndex(int hash1, int hash2, int i) {
+        int combined = hash1 + i * hash2;
+        return (combined & Integer.MAX_VALUE) % bitCount;
+    }
+
+    /**
+     * 与String.hashCode独立的第二个哈希值（FNV-1a）
+     */
+    private static int secondHash(String value) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x01000193;
+        }
+        // 保证为奇数，避免各个哈希函数落在同一组位上
+        return hash | 1;
+    }
+}
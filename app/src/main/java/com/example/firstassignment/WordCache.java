@@ -0,0 +1,283 @@
+package com.example.firstassignment;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 单词表前面的内存缓存，占用的内存有上限
+ *
+ * <ul>
+ *     <li>按ID缓存的单词，使用LRU淘汰，大小按估算的字节数计算；</li>
+ *     <li>按ID排序的完整单词列表快照，供单词列表等页面使用，估算大小超过上限时不缓存。</li>
+ * </ul>
+ * 单词的增删改由DataManager在事务提交后调用{@link #invalidateSnapshot()}、{@link #put(Word)}或
+ * {@link #remove(int)}同步更新缓存。每次失效都会增加版本号，
+ * 查询开始前记录的版本号与写入缓存时不一致时放弃写入，避免把查询期间被修改的旧数据放进缓存。
+ * 缓存中的单词对象是共享的，调用方不要修改。
+ */
+public class WordCache implements ComponentCallbacks2 {
+    // 单词对象本身和各个字段的大致开销（字节）
+    private static final int WORD_OVERHEAD_BYTES = 100;
+
+    private final int maxBytes;
+    private final LruCache<Integer, Word> wordsById;
+    // 按ID排序的完整单词列表，为null时表示没有快照
+    private List<Word> snapshot;
+    private int snapshotBytes;
+    private long version = 0;
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    /**
+     * 使用默认大小（最大堆内存的1/32）创建缓存
+     */
+    WordCache() {
+        this((int) Math.min(Runtime.getRuntime().maxMemory() / 32, Integer.MAX_VALUE));
+    }
+
+    /**
+     * @param maxBytes 按ID缓存的单词和列表快照各自的大小上限（字节）
+     */
+    WordCache(int maxBytes) {
+        this.maxBytes = maxBytes;
+        this.wordsById = new LruCache<Integer, Word>(maxBytes) {
+            @Override
+            protected int sizeOf(Integer key, Word value) {
+                return estimateBytes(value);
+            }
+        };
+    }
+
+    /**
+     * 当前的版本号，在查询数据库之前获取
+     */
+    synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * 获取完整单词列表的快照
+     * @return 按ID排序的只读列表，没有快照时返回null
+     */
+    synchronized List<Word> getSnapshot() {
+        if (snapshot != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return snapshot;
+    }
+
+    /**
+     * 保存完整单词列表的快照
+     * @param words 按ID排序的所有单词
+     * @param queryVersion 查询之前获取的版本号
+     */
+    synchronized void putSnapshot(List<Word> words, long queryVersion) {
+        if (queryVersion != version) {
+            return;
+        }
+
+        int bytes = 0;
+        for (Word word : words) {
+            bytes += estimateBytes(word);
+        }
+        if (bytes > maxBytes) {
+            // 单词表太大，只按ID缓存
+            return;
+        }
+        snapshot = Collections.unmodifiableList(new ArrayList<>(words));
+        snapshotBytes = bytes;
+    }
+
+    /**
+     * 从快照中获取一页单词（与DataManager.getWordsPage的键集分页语义相同）
+     * @param afterId 上一页最后一个单词的ID
+     * @param limit 每页行数
+     * @return 单词列表，没有快照时返回null
+     */
+    synchronized List<Word> getSnapshotPage(int afterId, int limit) {
+        if (snapshot == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+
+        // 二分查找第一个ID大于afterId的单词
+        int low = 0;
+        int high = snapshot.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (snapshot.get(mid).getId() <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return new ArrayList<>(snapshot.subList(low, Math.min(low + limit, snapshot.size())));
+    }
+
+    /**
+     * 按ID获取单词，有快照时在快照中二分查找
+     * @param wordId 单词ID
+     * @return 缓存的单词，没有缓存时返回null
+     */
+    synchronized Word get(int wordId) {
+        Word word = null;
+        if (snapshot != null) {
+            word = findInSnapshot(wordId);
+        }
+        if (word == null) {
+            word = wordsById.get(wordId);
+        }
+
+        if (word != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return word;
+    }
+
+    /**
+     * 缓存从数据库中查询到的单词
+     * @param word 单词
+     * @param queryVersion 查询之前获取的版本号
+     */
+    synchronized void put(Word word, long queryVersion) {
+        if (queryVersion == version) {
+            wordsById.put(word.getId(), word);
+        }
+    }
+
+    /**
+     * 单词已更新：替换按ID缓存的单词，并使快照失效
+     * @param word 更新后的单词
+     */
+    synchronized void put(Word word) {
+        invalidateSnapshot();
+        wordsById.put(word.getId(), word);
+    }
+
+    /**
+     * 单词已删除：移除按ID缓存的单词，并使快照失效
+     * @param wordId 单词ID
+     */
+    synchronized void remove(int wordId) {
+        invalidateSnapshot();
+        wordsById.remove(wordId);
+    }
+
+    /**
+     * 单词表有新增的单词：使快照失效（按ID缓存的单词不受影响）
+     */
+    synchronized void invalidateSnapshot() {
+        version++;
+        snapshot = null;
+        snapshotBytes = 0;
+    }
+
+    /**
+     * 单词表可能被整体修改（例如批量导入）：清空所有缓存
+     */
+    synchronized void invalidateAll() {
+        invalidateSnapshot();
+        wordsById.evictAll();
+    }
+
+    /**
+     * 缓存命中次数
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * 缓存未命中次数
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 当前缓存占用的大致字节数（按ID缓存的单词加上快照）
+     */
+    public synchronized int getSizeBytes() {
+        return wordsById.size() + snapshotBytes;
+    }
+
+    /**
+     * 每个缓存部分的大小上限（字节）
+     */
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            // 进程已经在后台的LRU列表中，随时可能被回收：清空所有缓存
+            invalidateAll();
+        } else if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            // 界面不可见：丢弃快照，按ID缓存的单词只保留一半
+            synchronized (this) {
+                invalidateSnapshot();
+                wordsById.trimToSize(maxBytes / 2);
+            }
+        }
+    }
+
+    /**
+     * 接口要求实现的方法；内存不足时系统同样会回调{@link #onTrimMemory(int)}，这里不需要额外处理
+     */
+    @SuppressWarnings("deprecation")
+    @Override
+    public void onLowMemory() {
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "WordCache{" +
+                "hits=" + hitCount +
+                ", misses=" + missCount +
+                ", bytes=" + getSizeBytes() +
+                ", maxBytes=" + maxBytes +
+                ", snapshot=" + (snapshot != null ? snapshot.size() : -1) +
+                '}';
+    }
+
+    private Word findInSnapshot(int wordId) {
+        int low = 0;
+        int high = snapshot.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = snapshot.get(mid).getId();
+            if (midId < wordId) {
+                low = mid + 1;
+            } else if (midId > wordId) {
+                high = mid - 1;
+            } else {
+                return snapshot.get(mid);
+            }
+        }
+        return null;
+    }
+
+    private static int estimateBytes(Word word) {
+        return WORD_OVERHEAD_BYTES + 2 * (length(word.getWord()) + length(word.getTranslation()) +
+                length(word.getCategory()) + length(word.getExample()));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
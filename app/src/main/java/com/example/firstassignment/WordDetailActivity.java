@@ -10,10 +10,14 @@ import android.widget.RatingBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import java.util.ArrayList;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 public class WordDetailActivity extends AppCompatActivity {
+    // 复习模式一次最多复习的单词数
+    private static final int REVIEW_SESSION_SIZE = 50;
 
     private TextView wordTextView;
     private TextView translationTextView;
@@ -27,9 +31,13 @@ public class WordDetailActivity extends AppCompatActivity {
     private RatingBar learningRatingBar;
     private CustomTitleBar customTitleBar;
     private DataManager dataManager;
-    private List<Word> wordList;
-    private int currentIndex = 0;
+    private AsyncDataManager asyncDataManager;
+    private TextView learningStatusTextView;
+    // 学习/复习会话：在后台预取前后的单词，翻页时不查询数据库（确定当前用户之前为null）
+    private ReviewSession session;
     private int currentUserId;
+    // 复习模式：按复习计划依次显示到期的单词，评分后自动进入下一个
+    private boolean reviewMode;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -41,6 +49,7 @@ public class WordDetailActivity extends AppCompatActivity {
         categoryTextView = findViewById(R.id.categoryTextView);
         exampleTextView = findViewById(R.id.exampleTextView);
         pronunciationTextView = findViewById(R.id.pronunciationTextView);
+        learningStatusTextView = findViewById(R.id.learningStatusTextView);
         nextButton = findViewById(R.id.nextButton);
         previousButton = findViewById(R.id.previousButton);
         backButton = findViewById(R.id.backButton);
@@ -48,46 +57,36 @@ public class WordDetailActivity extends AppCompatActivity {
         learningRatingBar = findViewById(R.id.learningRatingBar);
         customTitleBar = findViewById(R.id.customTitleBar);
 
-        // 初始化DataManager
-        dataManager = new DataManager(this);
-
-        // 从数据库加载单词列表
-        wordList = dataManager.getAllWords();
+        // 获取共享的DataManager
+        dataManager = DataManager.getInstance(this);
+        asyncDataManager = AsyncDataManager.bind(this, dataManager);
 
+        final Intent intent = getIntent();
+        reviewMode = intent.getBooleanExtra("reviewMode", false);
         // 设置自定义标题栏的标题
-        customTitleBar.setTitle("单词学习");
-
-        // 获取当前登录用户的ID（这里假设默认是第一个用户）
-        List<User> users = dataManager.getAllUsers();
-        if (users != null && !users.isEmpty()) {
-            currentUserId = users.get(0).getId();
-        } else {
-            // 如果没有用户，创建一个默认用户
-            User defaultUser = new User("user", "password", R.drawable.ic_user);
-            dataManager.addUser(defaultUser);
-            users = dataManager.getAllUsers();
-            if (users != null && !users.isEmpty()) {
-                currentUserId = users.get(0).getId();
-            }
-        }
+        customTitleBar.setTitle(reviewMode ? "单词复习" : "单词学习");
 
-        // 获取从WordListActivity传递过来的单词索引
-        Intent intent = getIntent();
-        if (intent.hasExtra("wordIndex")) {
-            currentIndex = intent.getIntExtra("wordIndex", 0);
-        }
+        // 在后台线程中确定当前用户，之后再开始会话
+        asyncDataManager.submit(WordDetailActivity::getCurrentUserId, userId -> {
+            currentUserId = userId;
+            startSession(intent);
+        }, e -> {
+            Toast.makeText(WordDetailActivity.this, "加载用户信息失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        });
 
-        // 显示当前单词信息
+        // 单词列表读取完成之前显示加载中
         updateWordDisplay();
 
         // 下一个按钮点击事件
         nextButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                if (wordList != null && !wordList.isEmpty() && currentIndex < wordList.size() - 1) {
-                    currentIndex++;
+                if (session == null) {
+                    return;
+                }
+                if (session.moveNext()) {
                     updateWordDisplay();
-                } else {
+                } else if (session.isLoaded()) {
                     Toast.makeText(WordDetailActivity.this, "已经是最后一个单词了", Toast.LENGTH_SHORT).show();
                 }
             }
@@ -97,10 +96,12 @@ public class WordDetailActivity extends AppCompatActivity {
         previousButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                if (wordList != null && !wordList.isEmpty() && currentIndex > 0) {
-                    currentIndex--;
+                if (session == null) {
+                    return;
+                }
+                if (session.movePrevious()) {
                     updateWordDisplay();
-                } else {
+                } else if (session.isLoaded()) {
                     Toast.makeText(WordDetailActivity.this, "已经是第一个单词了", Toast.LENGTH_SHORT).show();
                 }
             }
@@ -118,8 +119,9 @@ public class WordDetailActivity extends AppCompatActivity {
         pronunciationTextView.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                if (wordList != null && !wordList.isEmpty()) {
-                    String word = wordList.get(currentIndex).getWord();
+                ReviewSession.Card card = session == null ? null : session.getCurrentCard();
+                if (card != null && card.getWord() != null) {
+                    String word = card.getWord().getWord();
                     Toast.makeText(WordDetailActivity.this, "正在播放发音: " + word, Toast.LENGTH_SHORT).show();
                     // 这里可以添加发音播放的逻辑
                 }
@@ -130,68 +132,164 @@ public class WordDetailActivity extends AppCompatActivity {
         recordLearningButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                if (wordList != null && !wordList.isEmpty() && currentIndex < wordList.size()) {
-                    // 获取用户的评分（0-5星转换为0-100分）
-                    float rating = learningRatingBar.getRating();
-                    int score = (int) (rating * 20); // 5星=100分，1星=20分
-
-                    // 根据评分确定学习状态
-                    String status;
-                    if (score >= 80) {
-                        status = "已掌握";
-                    } else if (score >= 40) {
-                        status = "学习中";
-                    } else {
-                        status = "待复习";
-                    }
+                if (session == null) {
+                    return;
+                }
+                // 获取用户的评分（0-5星转换为0-100分）
+                float rating = learningRatingBar.getRating();
+                int score = (int) (rating * 20); // 5星=100分，1星=20分
 
-                    // 获取当前单词
-                    Word word = wordList.get(currentIndex);
-
-                    // 检查是否已经有该单词的学习记录
-                    List<LearningRecord> existingRecords = dataManager.getUserWordLearningRecords(currentUserId, word.getId());
-
-                    boolean success = false;
-                    if (existingRecords != null && !existingRecords.isEmpty()) {
-                        // 更新现有记录
-                        LearningRecord existingRecord = existingRecords.get(existingRecords.size() - 1); // 取最新的记录
-                        existingRecord.setScore(score);
-                        existingRecord.setStatus(status);
-                        existingRecord.setTimestamp(System.currentTimeMillis());
-                        existingRecord.setReviewCount(existingRecord.getReviewCount() + 1);
-                        success = dataManager.updateLearningRecord(existingRecord);
-                    } else {
-                        // 创建新记录
-                        LearningRecord newRecord = new LearningRecord(currentUserId, word.getId(), score, status);
-                        success = dataManager.addLearningRecord(newRecord);
+                // 放入写后队列：在后台线程中原子地更新当前状态并追加复习历史，写入完成后再提示
+                boolean recorded = session.recordReview(score, new WriteBehindQueue.OnWriteCompleteListener() {
+                    @Override
+                    public void onWriteComplete(boolean success) {
+                        if (isFinishing() || isDestroyed()) {
+                            return;
+                        }
+                        if (success) {
+                            if (!reviewMode) {
+                                Toast.makeText(WordDetailActivity.this, "学习情况已记录", Toast.LENGTH_SHORT).show();
+                            }
+                        } else {
+                            Toast.makeText(WordDetailActivity.this, "记录学习情况失败，请重试", Toast.LENGTH_SHORT).show();
+                        }
                     }
+                });
+                if (!recorded) {
+                    return;
+                }
 
-                    if (success) {
-                        Toast.makeText(WordDetailActivity.this, "学习情况已记录", Toast.LENGTH_SHORT).show();
+                // 复习模式：评分后进入下一个到期的单词
+                if (reviewMode) {
+                    if (session.moveNext()) {
+                        updateWordDisplay();
                     } else {
-                        Toast.makeText(WordDetailActivity.this, "记录学习情况失败，请重试", Toast.LENGTH_SHORT).show();
+                        Toast.makeText(WordDetailActivity.this, "本次复习完成，共复习" + session.size() + "个单词",
+                                Toast.LENGTH_SHORT).show();
+                        finish();
                     }
+                } else {
+                    updateWordDisplay();
                 }
             }
         });
     }
 
+    /**
+     * 获取当前登录用户的ID，这里假设默认是第一个用户（在后台线程中调用）
+     */
+    private static int getCurrentUserId(DataManager dataManager) {
+        List<User> users = dataManager.getAllUsers();
+        if (users == null || users.isEmpty()) {
+            // 如果没有用户，创建一个默认用户
+            User defaultUser = new User("user", "password", R.drawable.ic_user);
+            dataManager.addUser(defaultUser);
+            users = dataManager.getAllUsers();
+        }
+        return users != null && !users.isEmpty() ? users.get(0).getId() : 0;
+    }
+
+    /**
+     * 确定当前用户后开始学习或复习会话
+     */
+    private void startSession(Intent intent) {
+        ReviewSession.Listener sessionListener = new ReviewSession.Listener() {
+            @Override
+            public void onSessionLoaded(int size) {
+                if (size == 0 && reviewMode) {
+                    showNoDueWordsAndFinish();
+                    return;
+                }
+                updateWordDisplay();
+            }
+
+            @Override
+            public void onCurrentCardLoaded(ReviewSession.Card card) {
+                updateWordDisplay();
+            }
+        };
+        if (reviewMode) {
+            // 复习模式：只复习当前到期的单词，最早到期的排在前面
+            session = ReviewSession.forDueWords(asyncDataManager, currentUserId, REVIEW_SESSION_SIZE, sessionListener);
+        } else {
+            // 从WordListActivity传递过来的单词索引；从搜索结果进入时按单词ID定位（搜索结果中的位置与完整列表中的位置不同）
+            session = ReviewSession.forAllWords(asyncDataManager, currentUserId, intent.getIntExtra("wordIndex", 0),
+                    intent.getIntExtra("wordId", -1), sessionListener);
+        }
+    }
+
+    /**
+     * 没有到期的单词：在后台线程中查询下次复习时间，提示后关闭页面
+     */
+    private void showNoDueWordsAndFinish() {
+        final int userId = currentUserId;
+        asyncDataManager.submit(dm -> dm.getNextReviewTime(userId), nextReviewTime -> {
+            String message = nextReviewTime < 0 ? "还没有学习过的单词，请先开始学习" :
+                    "当前没有需要复习的单词，下次复习时间: " +
+                            new SimpleDateFormat("MM-dd HH:mm", Locale.getDefault()).format(new Date(nextReviewTime));
+            Toast.makeText(WordDetailActivity.this, message, Toast.LENGTH_LONG).show();
+            finish();
+        }, e -> finish());
+    }
+
     // 更新单词显示
     private void updateWordDisplay() {
-        if (wordList != null && !wordList.isEmpty() && currentIndex < wordList.size()) {
-            Word word = wordList.get(currentIndex);
-            wordTextView.setText(word.getWord());
-            translationTextView.setText(word.getTranslation());
-            categoryTextView.setText(word.getCategory());
-            exampleTextView.setText(word.getExample());
-            pronunciationTextView.setText("点击播放发音");
+        if (reviewMode && session != null && session.isLoaded()) {
+            customTitleBar.setTitle("单词复习 (" + (session.getPosition() + 1) + "/" + session.size() + ")");
+        }
+
+        ReviewSession.Card card = session == null ? null : session.getCurrentCard();
+        if (card == null || card.getWord() == null) {
+            // 卡片还在后台读取（读取完成后会再次调用），或者单词已被删除
+            if (card != null) {
+                wordTextView.setText("该单词已被删除");
+            } else {
+                wordTextView.setText(session != null && session.isLoaded() && session.size() == 0 ? "没有单词" : "加载中...");
+            }
+            translationTextView.setText("");
+            categoryTextView.setText("");
+            exampleTextView.setText("");
+            learningStatusTextView.setText("");
+            recordLearningButton.setEnabled(false);
+            return;
+        }
+
+        Word word = card.getWord();
+        wordTextView.setText(word.getWord());
+        translationTextView.setText(word.getTranslation());
+        categoryTextView.setText(word.getCategory());
+        exampleTextView.setText(word.getExample());
+        pronunciationTextView.setText("点击播放发音");
+        recordLearningButton.setEnabled(true);
+
+        // 显示当前学习状态，评分默认为上次的星级
+        LearningRecord record = card.getRecord();
+        if (record == null) {
+            learningStatusTextView.setText("还没有学习过");
+            learningRatingBar.setRating(3);
+        } else {
+            learningStatusTextView.setText("上次评分: " + record.getScore() + "分（" + record.getStatus() +
+                    "），已复习" + record.getReviewCount() + "次");
+            learningRatingBar.setRating(Math.round(record.getScore() / 20f));
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // 离开页面时立即提交尚未写入的学习记录
+        if (dataManager != null) {
+            dataManager.flushPendingWrites();
         }
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // 关闭数据库连接，避免内存泄漏
+        if (session != null) {
+            session.close();
+        }
+        // 释放对共享数据库的引用，避免内存泄漏
         if (dataManager != null) {
             dataManager.close();
         }
@@ -0,0 +1,240 @@
+package com.example.firstassignment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 英文单词的模糊查找索引，用于拼写错误时给出"你是不是要找"的建议
+ *
+ * 编辑距离（Levenshtein距离）不超过k的两个单词，长度之差不超过k，
+ * 并且一方有而另一方没有的字母种类也不超过k（每次编辑最多消除一种这样的字母）。
+ * 因此单词按长度分桶，每个单词预先计算出现过的字母的位掩码，查找时只扫描长度相近的桶，
+ * 先用位掩码排除绝大部分单词，剩下的少量候选再计算编辑距离。
+ * （BK树在同样规模的词表上需要对大部分节点计算编辑距离，比这种方式慢一个数量级。）
+ * 所有方法都是线程安全的。
+ */
+public class WordFuzzyIndex {
+
+    // 下标为小写英文的长度
+    private final List<List<Entry>> buckets = new ArrayList<>();
+    private int size = 0;
+    // 单词ID到小写英文的映射，用于删除和更新
+    private final Map<Integer, String> keyById = new HashMap<>();
+
+    /**
+     * 用一组单词重建索引
+     * @param allWords 所有单词
+     */
+    public synchronized void rebuild(Collection<Word> allWords) {
+        buckets.clear();
+        size = 0;
+        keyById.clear();
+        for (Word word : allWords) {
+            put(word);
+        }
+    }
+
+    /**
+     * 添加或更新一个单词
+     * @param word 单词（ID有效）
+     */
+    public synchronized void put(Word word) {
+        remove(word.getId());
+
+        String key = WordPrefixIndex.normalize(word.getWord());
+        if (key.isEmpty()) {
+            return;
+        }
+        while (buckets.size() <= key.length()) {
+            buckets.add(new ArrayList<Entry>());
+        }
+        buckets.get(key.length()).add(new Entry(key, word));
+        keyById.put(word.getId(), key);
+        size++;
+    }
+
+    /**
+     * 删除一个单词
+     * @param wordId 单词ID
+     * @return 索引中是否有这个单词
+     */
+    public synchronized boolean remove(int wordId) {
+        String key = keyById.remove(wordId);
+        if (key == null) {
+            return false;
+        }
+
+        List<Entry> bucket = buckets.get(key.length());
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i).word.getId() == wordId) {
+                // 桶内不要求顺序，用最后一项填补空位
+                bucket.set(i, bucket.get(bucket.size() - 1));
+                bucket.remove(bucket.size() - 1);
+                break;
+            }
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * 查找与查询词编辑距离不超过maxDistance的单词（不区分大小写）
+     * @param query 查询词
+     * @param maxDistance 最大编辑距离
+     * @param limit 最多返回的结果数
+     * @return 按编辑距离从小到大、距离相同时按英文字母顺序排列的单词列表
+     */
+    public synchronized List<Word> search(String query, int maxDistance, int limit) {
+        String key = WordPrefixIndex.normalize(query);
+        if (key.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Match> matches = new ArrayList<>();
+        DistanceCalculator calculator = new DistanceCalculator(key);
+        int queryMask = letterMask(key);
+        int from = Math.max(1, key.length() - maxDistance);
+        int to = Math.min(buckets.size() - 1, key.length() + maxDistance);
+        for (int length = from; length <= to; length++) {
+            for (Entry entry : buckets.get(length)) {
+                if (Integer.bitCount(queryMask & ~entry.mask) > maxDistance
+                        || Integer.bitCount(entry.mask & ~queryMask) > maxDistance) {
+                    continue;
+                }
+                int distance = calculator.distanceTo(entry.key, maxDistance);
+                if (distance <= maxDistance) {
+                    matches.add(new Match(distance, entry.key, entry.word));
+                }
+            }
+        }
+
+        Collections.sort(matches, new Comparator<Match>() {
+            @Override
+            public int compare(Match a, Match b) {
+                if (a.distance != b.distance) {
+                    return Integer.compare(a.distance, b.distance);
+                }
+                int result = a.key.compareTo(b.key);
+                return result != 0 ? result : Integer.compare(a.word.getId(), b.word.getId());
+            }
+        });
+        List<Word> results = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            results.add(matches.get(i).word);
+        }
+        return results;
+    }
+
+    /**
+     * 索引中的单词数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 字符串中出现过的字符的位掩码：a-z各占一位，其他字符按编码散列到其余6位
+     */
+    static int letterMask(String key) {
+        int mask = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                mask |= 1 << (c - 'a');
+            } else {
+                mask |= 1 << (26 + c % 6);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 计算两个字符串的编辑距离
+     */
+    static int distance(String a, String b) {
+        // 编辑距离不会超过较长字符串的长度
+        return new DistanceCalculator(a).distanceTo(b, Math.max(a.length(), b.length()));
+    }
+
+    /**
+     * 计算固定字符串与其他字符串的编辑距离，两行动态规划数组在多次计算之间复用
+     */
+    private static final class DistanceCalculator {
+        private final char[] source;
+        private int[] previous;
+        private int[] current;
+
+        DistanceCalculator(String source) {
+            this.source = source.toCharArray();
+            this.previous = new int[this.source.length + 1];
+            this.current = new int[this.source.length + 1];
+        }
+
+        /**
+         * @param limit 距离的上限
+         * @return 编辑距离，超过limit时返回limit + 1（可以提前结束计算）
+         */
+        int distanceTo(String target, int limit) {
+            int n = source.length;
+            int m = target.length();
+            // 长度之差是编辑距离的下限
+            if (Math.abs(n - m) > limit) {
+                return limit + 1;
+            }
+
+            for (int i = 0; i <= n; i++) {
+                previous[i] = i;
+            }
+            for (int j = 1; j <= m; j++) {
+                char c = target.charAt(j - 1);
+                current[0] = j;
+                int rowMin = j;
+                for (int i = 1; i <= n; i++) {
+                    int substitution = previous[i - 1] + (source[i - 1] == c ? 0 : 1);
+                    int value = Math.min(substitution, Math.min(previous[i], current[i - 1]) + 1);
+                    current[i] = value;
+                    if (value < rowMin) {
+                        rowMin = value;
+                    }
+                }
+                // 每一行的最小值不会减小，已经超过上限时不必再算
+                if (rowMin > limit) {
+                    return limit + 1;
+                }
+                int[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            return Math.min(previous[n], limit + 1);
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final int mask;
+        final Word word;
+
+        Entry(String key, Word word) {
+            this.key = key;
+            this.mask = letterMask(key);
+            this.word = word;
+        }
+    }
+
+    private static final class Match {
+        final int distance;
+        final String key;
+        final Word word;
+
+        Match(int distance, String key, Word word) {
+            this.distance = distance;
+            this.key = key;
+            this.word = word;
+        }
+    }
+}
@@ -1,30 +1,66 @@
 package com.example.firstassignment;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
-import android.widget.BaseAdapter;
 import android.widget.Button;
-import android.widget.ImageView;
-import android.widget.ListView;
+import android.widget.EditText;
 import android.widget.TextView;
-import android.widget.Toast;
+
+import androidx.core.os.HandlerCompat;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Future;
 
 public class WordListActivity extends AppCompatActivity {
-
-    private ListView wordListView;
+    // 每页加载的单词数
+    private static final int PAGE_SIZE = DataManager.DEFAULT_PAGE_SIZE;
+    // 距离列表底部还剩多少项时开始加载下一页
+    private static final int PREFETCH_DISTANCE = 10;
+    // 搜索结果的最大数量
+    private static final int SEARCH_LIMIT = 100;
+    // 搜索不到时最多显示的拼写相近的单词数
+    private static final int SUGGESTION_LIMIT = 5;
+    // 停止输入多久之后才开始搜索（毫秒）
+    private static final long SEARCH_DEBOUNCE_MS = 100;
+
+    private RecyclerView wordListView;
+    private LinearLayoutManager layoutManager;
+    private EditText searchEditText;
+    private TextView suggestionTextView;
     private CustomTitleBar customTitleBar;
     private Button backToHomeButton;
     private List<Word> wordList = new ArrayList<>();
     private Button startLearningButton;
     private DataManager dataManager;
+    private WordListAdapter adapter;
+    private AsyncDataManager asyncDataManager;
+    // 用于延迟搜索
+    private Handler mainHandler;
+    // 已加载的最后一个单词的ID，下一页从它之后开始
+    private int lastLoadedWordId = 0;
+    private boolean loadingPage = false;
+    private boolean hasMoreWords = true;
+    // 用于丢弃过期的加载结果（输入新的搜索关键词后，之前发出的查询结果不再显示）
+    private int loadGeneration = 0;
+    // 等待执行的搜索和正在执行的搜索，输入新的关键词时取消
+    private Runnable pendingSearch;
+    private Future<?> searchFuture;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -32,23 +68,80 @@ public class WordListActivity extends AppCompatActivity {
         setContentView(R.layout.activity_word_list);
 
         wordListView = findViewById(R.id.wordListView);
+        searchEditText = findViewById(R.id.wordSearchEditText);
+        suggestionTextView = findViewById(R.id.wordSuggestionTextView);
         customTitleBar = findViewById(R.id.customTitleBar);
         backToHomeButton = findViewById(R.id.backToHomeButton);
         startLearningButton = findViewById(R.id.startLearningButton);
 
-        // 初始化DataManager
-        dataManager = new DataManager(this);
+        // 获取共享的DataManager
+        dataManager = DataManager.getInstance(this);
 
         // 设置自定义标题栏的标题
         customTitleBar.setTitle("单词学习");
 
-        // 准备单词数据
-        prepareWordData();
+        // 初始化异步数据接口和主线程Handler
+        asyncDataManager = AsyncDataManager.bind(this, dataManager);
+        mainHandler = HandlerCompat.createAsync(Looper.getMainLooper());
 
         // 创建自定义适配器
-        WordListAdapter adapter = new WordListAdapter();
+        layoutManager = new LinearLayoutManager(this);
+        wordListView.setLayoutManager(layoutManager);
+        wordListView.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
+        adapter = new WordListAdapter();
         wordListView.setAdapter(adapter);
 
+        // 滚动到接近底部时加载下一页
+        wordListView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
+
+        // 边输入边搜索单词（停止输入一小段时间后才查询），清空关键词时恢复完整列表
+        searchEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                final String query = s.toString();
+                if (pendingSearch != null) {
+                    mainHandler.removeCallbacks(pendingSearch);
+                }
+                pendingSearch = new Runnable() {
+                    @Override
+                    public void run() {
+                        searchWords(query);
+                    }
+                };
+                mainHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
+            }
+        });
+
+        // 点击"你是不是要找"的提示，改为搜索最相近的单词
+        suggestionTextView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                Object suggestion = v.getTag();
+                if (suggestion != null) {
+                    searchEditText.setText(suggestion.toString());
+                    searchEditText.setSelection(searchEditText.length());
+                }
+            }
+        });
+
+        // 加载第一页单词数据
+        loadNextPage();
+
         // 返回主页按钮点击事件
         backToHomeButton.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -68,6 +161,16 @@ public class WordListActivity extends AppCompatActivity {
             }
         });
 
+        // 开始复习按钮点击事件：按复习计划复习到期的单词
+        findViewById(R.id.reviewButton).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                Intent intent = new Intent(WordListActivity.this, WordDetailActivity.class);
+                intent.putExtra("reviewMode", true);
+                startActivity(intent);
+            }
+        });
+
         // 开始学习按钮点击事件
         startLearningButton.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -80,159 +183,246 @@ public class WordListActivity extends AppCompatActivity {
         });
     }
 
-    // 准备单词数据
-    private void prepareWordData() {
-        wordList.clear();
-
-        // 从数据库加载单词数据
-        if (dataManager != null) {
-            List<com.example.firstassignment.Word> dbWords = dataManager.getAllWords();
-            if (dbWords != null && !dbWords.isEmpty()) {
-                for (com.example.firstassignment.Word dbWord : dbWords) {
-                    wordList.add(new Word(dbWord.getId(), dbWord.getWord(), dbWord.getTranslation(),
-                            dbWord.getCategory(), dbWord.getExample()));
+    // 在后台线程中加载下一页单词数据
+    private void loadNextPage() {
+        if (loadingPage || !hasMoreWords || dataManager == null) {
+            return;
+        }
+        loadingPage = true;
+
+        final int generation = loadGeneration;
+        final int afterId = lastLoadedWordId;
+        asyncDataManager.submit(dm -> {
+            List<Word> dbWords = dm.getWordsPage(afterId, PAGE_SIZE);
+            if (afterId == 0 && dbWords.isEmpty()) {
+                // 如果数据库为空，添加一些初始单词数据后重新加载第一页
+                if (addInitialWords(dm) > 0) {
+                    dbWords = dm.getWordsPage(afterId, PAGE_SIZE);
                 }
-            } else {
-                // 如果数据库为空，添加一些初始单词数据
-                addInitialWords();
             }
-        }
-    }
-
-    // 添加初始单词数据
-    private void addInitialWords() {
-        // 添加初始单词到数据库
-        dataManager.addWord("apple", "苹果", "水果", "An apple a day keeps the doctor away.");
-        dataManager.addWord("banana", "香蕉", "水果", "I like eating bananas for breakfast.");
-        dataManager.addWord("book", "书", "学习用品", "Reading a good book can expand your knowledge.");
-        dataManager.addWord("computer", "电脑", "电子产品", "I use a computer to work every day.");
-        dataManager.addWord("friend", "朋友", "人际关系", "A true friend is hard to find.");
-        dataManager.addWord("happy", "快乐的", "情绪", "I feel very happy today.");
-        dataManager.addWord("learn", "学习", "行为", "It's never too late to learn.");
-        dataManager.addWord("music", "音乐", "艺术", "I enjoy listening to music in my free time.");
-        dataManager.addWord("phone", "手机", "电子产品", "My phone is an essential part of my daily life.");
-        dataManager.addWord("study", "学习", "行为", "We need to study hard to achieve our goals.");
-
-        // 重新从数据库加载单词
-        prepareWordData();
+            return dbWords;
+        }, page -> {
+            if (generation != loadGeneration) {
+                return;
+            }
+            wordList.addAll(page);
+            if (!page.isEmpty()) {
+                lastLoadedWordId = page.get(page.size() - 1).getId();
+            }
+            hasMoreWords = page.size() == PAGE_SIZE;
+            loadingPage = false;
+            showWords();
+        }, e -> {
+            if (generation == loadGeneration) {
+                // 加载失败时允许继续滚动时重试
+                loadingPage = false;
+            }
+        });
     }
 
-    // 单词实体类
-    private class Word {
-        private int id;             // 单词ID，用于数据库存储
-        private String word;        // 英文单词
-        private String translation; // 中文翻译
-        private String category;    // 单词类别
-        private String example;     // 例句
-
-        public Word(String word, String translation, String category, String example) {
-            this.id = -1; // 未设置ID，将由数据库生成
-            this.word = word;
-            this.translation = translation;
-            this.category = category;
-            this.example = example;
+    // 搜索单词，关键词为空时从第一页重新加载完整列表
+    private void searchWords(String query) {
+        final int generation = ++loadGeneration;
+        // 之前的搜索结果已经不需要了，还没开始执行的搜索直接取消
+        if (searchFuture != null) {
+            searchFuture.cancel(false);
+            searchFuture = null;
         }
 
-        public Word(int id, String word, String translation, String category, String example) {
-            this.id = id;
-            this.word = word;
-            this.translation = translation;
-            this.category = category;
-            this.example = example;
+        final String keyword = query.trim();
+        showSuggestion(keyword, null);
+        if (keyword.isEmpty()) {
+            wordList.clear();
+            lastLoadedWordId = 0;
+            hasMoreWords = true;
+            loadingPage = false;
+            showWords();
+            loadNextPage();
+            return;
         }
 
-        public int getId() {
-            return id;
-        }
+        // 显示搜索结果时不再分页加载
+        hasMoreWords = false;
+        searchFuture = asyncDataManager.submit(dm -> {
+            // 英文前缀在内存索引中查找，中文按翻译反查英文，其他（多个词、中英混合）使用全文索引
+            boolean english = isEnglishPrefix(keyword);
+            List<Word> found;
+            if (english) {
+                found = dm.searchWordsByPrefix(keyword, SEARCH_LIMIT);
+            } else if (isChinese(keyword)) {
+                found = dm.findWordsByTranslation(keyword, SEARCH_LIMIT);
+            } else {
+                found = dm.searchWords(keyword, SEARCH_LIMIT);
+            }
+            // 英文搜索不到时，可能是拼错了，改为显示拼写相近的单词
+            if (found.isEmpty() && english) {
+                List<Word> similar = dm.findSimilarWords(keyword, SUGGESTION_LIMIT);
+                return new SearchResult(similar, !similar.isEmpty());
+            }
+            return new SearchResult(found, false);
+        }, result -> {
+            if (generation != loadGeneration) {
+                return;
+            }
+            wordList.clear();
+            wordList.addAll(result.words);
+            showWords();
+            showSuggestion(keyword, result.suggested ? result.words.get(0) : null);
+        });
+    }
 
-        public void setId(int id) {
-            this.id = id;
+    // 关键词是否是一个英文单词的前缀（只包含英文字母、数字、连字符和撇号）
+    private static boolean isEnglishPrefix(String keyword) {
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '\'';
+            if (!allowed) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        public String getWord() {
-            return word;
+    // 关键词是否全部是汉字
+    private static boolean isChinese(String keyword) {
+        for (int i = 0; i < keyword.length(); ) {
+            int codePoint = keyword.codePointAt(i);
+            if (Character.UnicodeScript.of(codePoint) != Character.UnicodeScript.HAN) {
+                return false;
+            }
+            i += Character.charCount(codePoint);
         }
+        return true;
+    }
 
-        public String getTranslation() {
-            return translation;
+    // 显示"你是不是要找"的提示，suggestion为null时隐藏
+    private void showSuggestion(String keyword, Word suggestion) {
+        if (suggestion == null) {
+            suggestionTextView.setVisibility(View.GONE);
+            suggestionTextView.setTag(null);
+            return;
         }
+        suggestionTextView.setText("没有找到“" + keyword + "”，你是不是要找：" + suggestion.getWord());
+        suggestionTextView.setTag(suggestion.getWord());
+        suggestionTextView.setVisibility(View.VISIBLE);
+    }
 
-        public String getCategory() {
-            return category;
-        }
+    // 把当前的单词列表交给适配器，由DiffUtil在后台计算差异后只刷新变化的项
+    private void showWords() {
+        adapter.submitList(new ArrayList<>(wordList));
+    }
 
-        public String getExample() {
-            return example;
-        }
+    // 添加初始单词数据，返回添加的单词数（在后台线程中调用）
+    private static int addInitialWords(DataManager dataManager) {
+        // 在一个事务中批量添加初始单词到数据库
+        List<Word> initialWords = new ArrayList<>();
+        initialWords.add(new Word("apple", "苹果", "水果", "An apple a day keeps the doctor away."));
+        initialWords.add(new Word("banana", "香蕉", "水果", "I like eating bananas for breakfast."));
+        initialWords.add(new Word("book", "书", "学习用品", "Reading a good book can expand your knowledge."));
+        initialWords.add(new Word("computer", "电脑", "电子产品", "I use a computer to work every day."));
+        initialWords.add(new Word("friend", "朋友", "人际关系", "A true friend is hard to find."));
+        initialWords.add(new Word("happy", "快乐的", "情绪", "I feel very happy today."));
+        initialWords.add(new Word("learn", "学习", "行为", "It's never too late to learn."));
+        initialWords.add(new Word("music", "音乐", "艺术", "I enjoy listening to music in my free time."));
+        initialWords.add(new Word("phone", "手机", "电子产品", "My phone is an essential part of my daily life."));
+        initialWords.add(new Word("study", "学习", "行为", "We need to study hard to achieve our goals."));
+        return dataManager.addWords(initialWords, null);
     }
 
-    // 自定义适配器
-    private class WordListAdapter extends BaseAdapter {
+    // 后台线程中的搜索结果，suggested为true时是拼写相近的单词
+    private static class SearchResult {
+        final List<Word> words;
+        final boolean suggested;
 
-        @Override
-        public int getCount() {
-            return wordList.size();
+        SearchResult(List<Word> words, boolean suggested) {
+            this.words = words;
+            this.suggested = suggested;
         }
+    }
 
+    // 比较两个单词：ID相同视为同一项，各字段都相同时不需要重新绑定
+    private static final DiffUtil.ItemCallback<Word> WORD_DIFF = new DiffUtil.ItemCallback<Word>() {
         @Override
-        public Object getItem(int position) {
-            return wordList.get(position);
+        public boolean areItemsTheSame(@NonNull Word oldItem, @NonNull Word newItem) {
+            return oldItem.getId() == newItem.getId();
         }
 
         @Override
-        public long getItemId(int position) {
-            return position;
+        public boolean areContentsTheSame(@NonNull Word oldItem, @NonNull Word newItem) {
+            return Objects.equals(oldItem.getWord(), newItem.getWord())
+                    && Objects.equals(oldItem.getTranslation(), newItem.getTranslation())
+                    && Objects.equals(oldItem.getCategory(), newItem.getCategory())
+                    && Objects.equals(oldItem.getExample(), newItem.getExample());
+        }
+    };
+
+    // 自定义适配器
+    private class WordListAdapter extends ListAdapter<Word, WordListAdapter.ViewHolder> {
+
+        WordListAdapter() {
+            super(WORD_DIFF);
         }
 
+        @NonNull
         @Override
-        public View getView(int position, View convertView, ViewGroup parent) {
-            ViewHolder holder;
-            if (convertView == null) {
-                convertView = getLayoutInflater().inflate(R.layout.word_list_item, null);
-                holder = new ViewHolder();
-                holder.wordTextView = convertView.findViewById(R.id.wordTextView);
-                holder.translationTextView = convertView.findViewById(R.id.translationTextView);
-                holder.categoryTextView = convertView.findViewById(R.id.categoryTextView);
-                holder.exampleTextView = convertView.findViewById(R.id.exampleTextView);
-                convertView.setTag(holder);
-            } else {
-                holder = (ViewHolder) convertView.getTag();
-            }
+        public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View itemView = getLayoutInflater().inflate(R.layout.word_list_item, parent, false);
+            return new ViewHolder(itemView);
+        }
 
+        @Override
+        public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
             // 设置数据
-            Word word = wordList.get(position);
+            Word word = getItem(position);
             holder.wordTextView.setText(word.getWord());
             holder.translationTextView.setText(word.getTranslation());
             holder.categoryTextView.setText(word.getCategory());
             holder.exampleTextView.setText(word.getExample());
 
             // 设置点击事件
-            convertView.setOnClickListener(new View.OnClickListener() {
+            holder.itemView.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View v) {
+                    // 列表正在更新时位置可能暂时无效，此时忽略这次点击
+                    int position = holder.getBindingAdapterPosition();
+                    if (position == RecyclerView.NO_POSITION) {
+                        return;
+                    }
                     // 跳转到单词详情页
                     Intent intent = new Intent(WordListActivity.this, WordDetailActivity.class);
                     intent.putExtra("wordIndex", position);
+                    intent.putExtra("wordId", getItem(position).getId());
                     startActivity(intent);
                 }
             });
-
-            return convertView;
         }
 
         // ViewHolder模式
-        private class ViewHolder {
-            TextView wordTextView;
-            TextView translationTextView;
-            TextView categoryTextView;
-            TextView exampleTextView;
+        class ViewHolder extends RecyclerView.ViewHolder {
+            final TextView wordTextView;
+            final TextView translationTextView;
+            final TextView categoryTextView;
+            final TextView exampleTextView;
+
+            ViewHolder(View itemView) {
+                super(itemView);
+                wordTextView = itemView.findViewById(R.id.wordTextView);
+                translationTextView = itemView.findViewById(R.id.translationTextView);
+                categoryTextView = itemView.findViewById(R.id.categoryTextView);
+                exampleTextView = itemView.findViewById(R.id.exampleTextView);
+            }
         }
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // 关闭数据库连接
+        // 尚未送达的分页结果和尚未执行的搜索由AsyncDataManager在界面销毁时丢弃，这里只取消等待中的延迟搜索
+        if (mainHandler != null) {
+            mainHandler.removeCallbacksAndMessages(null);
+        }
+        // 释放对共享数据库的引用
         if (dataManager != null) {
             dataManager.close();
         }
@@ -0,0 +1,681 @@
+package com.example.firstassignment;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单词包导入器，支持CSV和JSON格式（字段：word、translation、category、example）
+ *
+ * 单词包以流的方式逐条解析，每{@link #CHUNK_SIZE}条记录写入一次数据库，内存占用与单词包大小无关。
+ * 数据库中已存在的单词会被跳过；每批写入时在同一个事务中保存导入进度，
+ * 因此导入可以随时取消，进程被杀后再次导入同一个单词包会从上次提交的位置继续。
+ * 导入涉及大量I/O，应在后台线程中调用。
+ */
+public class WordPackImporter {
+    private static final String TAG = "WordPackImporter";
+    // 每批写入数据库的记录数
+    static final int CHUNK_SIZE = 1000;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 单词包格式
+     */
+    public enum Format {
+        CSV,
+        JSON
+    }
+
+    /**
+     * 导入结果
+     */
+    public static class Result {
+        // 新插入的单词数
+        public final int inserted;
+        // 因为已存在而跳过的单词数
+        public final int duplicates;
+        // 缺少英文或翻译而跳过的记录数
+        public final int invalid;
+        // 单词包中已处理的记录总数（包括之前导入时处理的）
+        public final long recordsConsumed;
+        // 单词包是否已全部导入
+        public final boolean completed;
+        // 是否被取消
+        public final boolean cancelled;
+
+        Result(int inserted, int duplicates, int invalid, long recordsConsumed, boolean completed, boolean cancelled) {
+            this.inserted = inserted;
+            this.duplicates = duplicates;
+            this.invalid = invalid;
+            this.recordsConsumed = recordsConsumed;
+            this.completed = completed;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "inserted=" + inserted +
+                    ", duplicates=" + duplicates +
+                    ", invalid=" + invalid +
+                    ", recordsConsumed=" + recordsConsumed +
+                    ", completed=" + completed +
+                    ", cancelled=" + cancelled +
+                    '}';
+        }
+    }
+
+    /**
+     * 逐条读取记录，每条记录依次为word、translation、category、example
+     */
+    interface RecordReader {
+        /**
+         * @return 下一条记录，没有更多记录时返回null
+         */
+        String[] next() throws IOException;
+    }
+
+    /**
+     * 导入的目标：写入单词并保存导入进度（即DataManager中对应的方法，本地单元测试中替换为内存实现）
+     */
+    interface Target {
+        long getImportProgress(String sourceId);
+
+        boolean isImportCompleted(String sourceId);
+
+        /**
+         * 写入一批单词（跳过已存在的单词）并保存进度，见{@link DataManager#importWordChunk}
+         * @return 实际插入的单词数，失败时返回-1
+         */
+        int importWordChunk(String sourceId, List<Word> chunk, long recordsConsumed, boolean completed);
+    }
+
+    private final Target target;
+    private volatile boolean cancelled = false;
+
+    public WordPackImporter(final DataManager dataManager) {
+        this(new Target() {
+            @Override
+            public long getImportProgress(String sourceId) {
+                return dataManager.getImportProgress(sourceId);
+            }
+
+            @Override
+            public boolean isImportCompleted(String sourceId) {
+                return dataManager.isImportCompleted(sourceId);
+            }
+
+            @Override
+            public int importWordChunk(String sourceId, List<Word> chunk, long recordsConsumed, boolean completed) {
+                return dataManager.importWordChunk(sourceId, chunk, recordsConsumed, completed);
+            }
+        });
+    }
+
+    WordPackImporter(Target target) {
+        this.target = target;
+    }
+
+    /**
+     * 取消导入，当前这一批会先提交并保存进度
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 从assets中导入单词包。assets的内容只会随应用更新而变化，因此导入进度按应用的更新时间区分：
+     * 应用更新后视为新的单词包，重新导入时已存在的单词会被跳过
+     * @param context 上下文
+     * @param assetPath assets中的路径
+     * @param format 单词包格式
+     * @param listener 进度回调（可为null）
+     * @return 导入结果
+     */
+    public Result importFromAsset(Context context, String assetPath, Format format,
+                                  DataManager.ImportProgressListener listener) throws IOException {
+        String sourceId = "asset:" + assetPath + ":" + getAssetVersion(context);
+        InputStream input = context.getAssets().open(assetPath);
+        try {
+            return importFromStream(sourceId, input, format, listener);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * assets内容的版本：应用最近一次安装或更新的时间
+     */
+    private static long getAssetVersion(Context context) {
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 从文件中导入单词包，文件内容变化（大小或修改时间不同）时视为新的单词包
+     * @param file 单词包文件
+     * @param format 单词包格式
+     * @param listener 进度回调（可为null）
+     * @return 导入结果
+     */
+    public Result importFromFile(File file, Format format,
+                                 DataManager.ImportProgressListener listener) throws IOException {
+        String sourceId = "file:" + file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+        InputStream input = new FileInputStream(file);
+        try {
+            return importFromStream(sourceId, input, format, listener);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * 从输入流中导入单词包
+     * @param sourceId 单词包标识，用于保存和恢复导入进度
+     * @param input 输入流（UTF-8编码）
+     * @param format 单词包格式
+     * @param listener 进度回调（可为null）
+     * @return 导入结果
+     */
+    public Result importFromStream(String sourceId, InputStream input, Format format,
+                                   DataManager.ImportProgressListener listener) throws IOException {
+        long alreadyConsumed = target.getImportProgress(sourceId);
+        if (target.isImportCompleted(sourceId)) {
+            return new Result(0, 0, 0, alreadyConsumed, true, false);
+        }
+
+        RecordReader records = newRecordReader(new BufferedReader(new InputStreamReader(input, UTF_8)), format);
+
+        List<Word> chunk = new ArrayList<>(CHUNK_SIZE);
+        long consumed = 0;
+        long pendingRecords = 0;
+        int inserted = 0;
+        int valid = 0;
+        int invalid = 0;
+        boolean completed = false;
+
+        while (true) {
+            if (cancelled) {
+                break;
+            }
+
+            String[] fields = records.next();
+            if (fields == null) {
+                completed = true;
+                break;
+            }
+
+            consumed++;
+            if (consumed <= alreadyConsumed) {
+                // 跳过之前已经导入过的记录
+                continue;
+            }
+
+            Word word = toWord(fields);
+            if (word != null) {
+                chunk.add(word);
+                valid++;
+            } else {
+                invalid++;
+            }
+            pendingRecords++;
+
+            if (pendingRecords >= CHUNK_SIZE) {
+                int result = target.importWordChunk(sourceId, chunk, consumed, false);
+                if (result < 0) {
+                    return failed(inserted, valid - chunk.size(), invalid, consumed - pendingRecords);
+                }
+                inserted += result;
+                chunk.clear();
+                pendingRecords = 0;
+                if (listener != null) {
+                    listener.onProgress(inserted, -1);
+                }
+            }
+        }
+
+        // 提交最后一批（取消时也提交，保存进度）
+        long committedRecords = Math.max(consumed, alreadyConsumed);
+        if (pendingRecords > 0 || completed) {
+            int result = target.importWordChunk(sourceId, chunk, committedRecords, completed);
+            if (result < 0) {
+                return failed(inserted, valid - chunk.size(), invalid, consumed - pendingRecords);
+            }
+            inserted += result;
+        }
+        if (listener != null) {
+            listener.onProgress(inserted, -1);
+        }
+
+        Result result = new Result(inserted, valid - inserted, invalid, committedRecords, completed, !completed);
+        Log.d(TAG, "Imported word pack " + sourceId + ": " + result);
+        return result;
+    }
+
+    /**
+     * 创建指定格式的记录读取器
+     */
+    static RecordReader newRecordReader(BufferedReader reader, Format format) {
+        return format == Format.JSON ? new JsonRecordReader(reader) : new CsvRecordReader(reader);
+    }
+
+    private Result failed(int inserted, int processedValid, int invalid, long committedRecords) {
+        Log.e(TAG, "Word pack import stopped after " + committedRecords + " records");
+        return new Result(inserted, processedValid - inserted, invalid, committedRecords, false, false);
+    }
+
+    /**
+     * 把一条记录转换为单词，缺少英文或翻译时返回null
+     */
+    private static Word toWord(String[] fields) {
+        String word = field(fields, 0);
+        String translation = field(fields, 1);
+        if (word.isEmpty() || translation.isEmpty()) {
+            return null;
+        }
+        return new Word(word, translation, field(fields, 2), field(fields, 3));
+    }
+
+    private static String field(String[] fields, int index) {
+        if (index >= fields.length || fields[index] == null) {
+            return "";
+        }
+        return fields[index].trim();
+    }
+
+    /**
+     * CSV记录读取器，支持双引号包裹的字段（字段中可以包含逗号、换行和转义的双引号），
+     * 第一行为表头（第一列为word）时自动跳过
+     */
+    private static final class CsvRecordReader implements RecordReader {
+        private final BufferedReader reader;
+        private final List<String> fields = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+        private boolean endOfStream = false;
+        private boolean firstRecord = true;
+
+        CsvRecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public String[] next() throws IOException {
+            while (!endOfStream) {
+                String[] record = readRecord();
+                if (record == null) {
+                    return null;
+                }
+                // 跳过空行
+                if (record.length == 1 && record[0].trim().isEmpty()) {
+                    continue;
+                }
+                if (firstRecord) {
+                    firstRecord = false;
+                    if ("word".equalsIgnoreCase(record[0].trim())) {
+                        continue;
+                    }
+                }
+                return record;
+            }
+            return null;
+        }
+
+        private String[] readRecord() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            boolean inQuotes = false;
+            boolean readAnything = false;
+
+            while (true) {
+                int c = reader.read();
+                if (c == -1) {
+                    endOfStream = true;
+                    if (!readAnything) {
+                        return null;
+                    }
+                    fields.add(field.toString());
+                    break;
+                }
+                readAnything = true;
+                char ch = (char) c;
+
+                if (inQuotes) {
+                    if (ch == '"') {
+                        reader.mark(1);
+                        int nextChar = reader.read();
+                        if (nextChar == '"') {
+                            field.append('"');
+                        } else {
+                            inQuotes = false;
+                            if (nextChar != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        field.append(ch);
+                    }
+                } else if (ch == '"') {
+                    inQuotes = true;
+                } else if (ch == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '\n') {
+                    fields.add(field.toString());
+                    break;
+                } else if (ch != '\r' && ch != '\uFEFF') {
+                    // 忽略回车符和UTF-8 BOM
+                    field.append(ch);
+                }
+            }
+
+            return fields.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * JSON记录读取器，支持顶层为单词数组，或者顶层对象中的words数组
+     *
+     * 按字符流式解析，只保留当前单词的四个字段，其他字段（包括嵌套的对象和数组）直接跳过。
+     * 字段值为数字或布尔值时按原文作为字符串，为null时视为缺少该字段。
+     * 不使用android.util.JsonReader，这样解析可以在本地单元测试中验证。
+     */
+    private static final class JsonRecordReader implements RecordReader {
+        private final BufferedReader reader;
+        private boolean started = false;
+        private boolean hasArray = false;
+        private boolean firstElement = true;
+
+        JsonRecordReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public String[] next() throws IOException {
+            if (!started) {
+                started = true;
+                openArray();
+            }
+            if (!hasArray) {
+                return null;
+            }
+
+            int c = peek();
+            if (c == ']') {
+                reader.read();
+                hasArray = false;
+                return null;
+            }
+            if (!firstElement) {
+                expect(',');
+            }
+            firstElement = false;
+
+            String[] fields = new String[4];
+            expect('{');
+            if (peek() == '}') {
+                reader.read();
+                return fields;
+            }
+            while (true) {
+                String name = readString();
+                expect(':');
+                int index = fieldIndex(name);
+                if (index >= 0) {
+                    fields[index] = readScalar();
+                } else {
+                    skipValue();
+                }
+                int separator = read();
+                if (separator == '}') {
+                    return fields;
+                }
+                if (separator != ',') {
+                    throw syntaxError("',' or '}'", separator);
+                }
+            }
+        }
+
+        /**
+         * 找到单词数组并读过开头的'['；顶层既不是数组也没有words数组时没有记录
+         */
+        private void openArray() throws IOException {
+            int c = peek();
+            if (c == '[') {
+                reader.read();
+                hasArray = true;
+                return;
+            }
+
+            expect('{');
+            if (peek() == '}') {
+                return;
+            }
+            while (true) {
+                String name = readString();
+                expect(':');
+                if ("words".equals(name) && peek() == '[') {
+                    reader.read();
+                    hasArray = true;
+                    return;
+                }
+                skipValue();
+                int separator = read();
+                if (separator == '}') {
+                    return;
+                }
+                if (separator != ',') {
+                    throw syntaxError("',' or '}'", separator);
+                }
+            }
+        }
+
+        /**
+         * 读取一个字段值：字符串、数字或布尔值返回文本，null返回null，对象和数组跳过并返回null
+         */
+        private String readScalar() throws IOException {
+            int c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                skipValue();
+                return null;
+            }
+            String literal = readLiteral();
+            return "null".equals(literal) ? null : literal;
+        }
+
+        private void skipValue() throws IOException {
+            int c = peek();
+            if (c == '"') {
+                readString();
+            } else if (c == '{' || c == '[') {
+                // 只需要匹配括号，括号内的字符串要完整读过（字符串中可能有括号）
+                int depth = 0;
+                do {
+                    c = read();
+                    if (c == '"') {
+                        readStringBody();
+                    } else if (c == '{' || c == '[') {
+                        depth++;
+                    } else if (c == '}' || c == ']') {
+                        depth--;
+                    } else if (c == -1) {
+                        throw new IOException("Unterminated JSON value");
+                    }
+                } while (depth > 0);
+            } else {
+                readLiteral();
+            }
+        }
+
+        /**
+         * 读取数字、true、false或null的原文
+         */
+        private String readLiteral() throws IOException {
+            StringBuilder literal = new StringBuilder();
+            while (true) {
+                reader.mark(1);
+                int c = reader.read();
+                if (c == -1 || c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+                    if (c != -1) {
+                        reader.reset();
+                    }
+                    break;
+                }
+                literal.append((char) c);
+            }
+            if (literal.length() == 0) {
+                throw syntaxError("a value", peek());
+            }
+            return literal.toString();
+        }
+
+        private String readString() throws IOException {
+            int c = read();
+            if (c != '"') {
+                throw syntaxError("'\"'", c);
+            }
+            return readStringBody();
+        }
+
+        /**
+         * 读取开头的双引号之后的字符串内容，处理转义字符
+         */
+        private String readStringBody() throws IOException {
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                int c = reader.read();
+                if (c == -1) {
+                    throw new IOException("Unterminated JSON string");
+                }
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append((char) c);
+                    continue;
+                }
+                int escaped = reader.read();
+                switch (escaped) {
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'u':
+                        char[] hex = new char[4];
+                        for (int i = 0; i < hex.length; i++) {
+                            int h = reader.read();
+                            if (h == -1) {
+                                throw new IOException("Unterminated JSON escape");
+                            }
+                            hex[i] = (char) h;
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(new String(hex), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IOException("Invalid JSON escape \\u" + new String(hex));
+                        }
+                        break;
+                    case '"':
+                    case '\\':
+                    case '/':
+                        value.append((char) escaped);
+                        break;
+                    default:
+                        throw syntaxError("an escape character", escaped);
+                }
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            int c = read();
+            if (c != expected) {
+                throw syntaxError("'" + expected + "'", c);
+            }
+        }
+
+        /**
+         * 跳过空白后读取一个字符
+         */
+        private int read() throws IOException {
+            skipWhitespace();
+            return reader.read();
+        }
+
+        /**
+         * 跳过空白后查看下一个字符（不读取）
+         */
+        private int peek() throws IOException {
+            skipWhitespace();
+            reader.mark(1);
+            int c = reader.read();
+            if (c != -1) {
+                reader.reset();
+            }
+            return c;
+        }
+
+        private void skipWhitespace() throws IOException {
+            while (true) {
+                reader.mark(1);
+                int c = reader.read();
+                // UTF-8 BOM也当作空白跳过
+                if (c == -1 || !(isWhitespace(c) || c == '\uFEFF')) {
+                    if (c != -1) {
+                        reader.reset();
+                    }
+                    return;
+                }
+            }
+        }
+
+        private static boolean isWhitespace(int c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+        }
+
+        private static IOException syntaxError(String expected, int actual) {
+            return new IOException("Malformed JSON: expected " + expected + " but was " +
+                    (actual == -1 ? "end of input" : "'" + (char) actual + "'"));
+        }
+
+        private static int fieldIndex(String name) {
+            switch (name) {
+                case "word":
+                    return 0;
+                case "translation":
+                    return 1;
+                case "category":
+                    return 2;
+                case "example":
+                    return 3;
+                default:
+                    return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.firstassignment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 英文单词的内存前缀索引
+ *
+ * 按小写英文排序的数组，查询时二分查找第一个不小于前缀的位置，再向后扫描，
+ * 每次查询的开销为O(log n + 结果数)。单词增删改时在数组中插入或删除一项（O(n)的数组复制），
+ * 不需要整体重建。所有方法都是线程安全的。
+ */
+public class WordPrefixIndex {
+    private static final int INITIAL_CAPACITY = 64;
+
+    // 按keys排序的小写英文和对应的单词，前size项有效
+    private String[] keys;
+    private Word[] words;
+    private int size = 0;
+    // 单词ID到小写英文的映射，用于删除和更新
+    private final Map<Integer, String> keyById = new HashMap<>();
+
+    public WordPrefixIndex() {
+        keys = new String[INITIAL_CAPACITY];
+        words = new Word[INITIAL_CAPACITY];
+    }
+
+    /**
+     * 用一组单词重建索引
+     * @param allWords 所有单词
+     */
+    public synchronized void rebuild(Collection<Word> allWords) {
+        List<Entry> entries = new ArrayList<>(allWords.size());
+        for (Word word : allWords) {
+            entries.add(new Entry(key(word), word));
+        }
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return WordPrefixIndex.compare(a.key, a.word.getId(), b.key, b.word.getId());
+            }
+        });
+
+        int capacity = Math.max(INITIAL_CAPACITY, entries.size() + entries.size() / 4);
+        keys = new String[capacity];
+        words = new Word[capacity];
+        keyById.clear();
+        size = 0;
+        for (Entry entry : entries) {
+            if (keyById.containsKey(entry.word.getId())) {
+                continue;
+            }
+            keys[size] = entry.key;
+            words[size] = entry.word;
+            keyById.put(entry.word.getId(), entry.key);
+            size++;
+        }
+    }
+
+    /**
+     * 添加或更新一个单词
+     * @param word 单词（ID有效）
+     */
+    public synchronized void put(Word word) {
+        remove(word.getId());
+
+        String key = key(word);
+        int position = lowerBound(key, word.getId());
+        ensureCapacity(size + 1);
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(words, position, words, position + 1, size - position);
+        keys[position] = key;
+        words[position] = word;
+        keyById.put(word.getId(), key);
+        size++;
+    }
+
+    /**
+     * 删除一个单词
+     * @param wordId 单词ID
+     * @return 索引中是否有这个单词
+     */
+    public synchronized boolean remove(int wordId) {
+        String key = keyById.remove(wordId);
+        if (key == null) {
+            return false;
+        }
+
+        int position = lowerBound(key, wordId);
+        System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+        System.arraycopy(words, position + 1, words, position, size - position - 1);
+        size--;
+        keys[size] = null;
+        words[size] = null;
+        return true;
+    }
+
+    /**
+     * 查找英文以指定前缀开头的单词（不区分大小写），按英文字母顺序排列
+     * @param prefix 前缀
+     * @param limit 最多返回的结果数
+     * @return 单词列表，前缀为空时返回空列表
+     */
+    public synchronized List<Word> search(String prefix, int limit) {
+        List<Word> results = new ArrayList<>();
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) {
+            return results;
+        }
+
+        for (int i = lowerBound(normalized, Integer.MIN_VALUE); i < size && results.size() < limit; i++) {
+            if (!keys[i].startsWith(normalized)) {
+                break;
+            }
+            results.add(words[i]);
+        }
+        return results;
+    }
+
+    /**
+     * 索引中的单词数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 二分查找第一个不小于(key, id)的位置
+     */
+    private int lowerBound(String key, int id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(keys[mid], words[mid].getId(), key, id) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= keys.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, keys.length + keys.length / 2);
+        String[] newKeys = new String[newCapacity];
+        Word[] newWords = new Word[newCapacity];
+        System.arraycopy(keys, 0, newKeys, 0, size);
+        System.arraycopy(words, 0, newWords, 0, size);
+        keys = newKeys;
+        words = newWords;
+    }
+
+    /**
+     * 先按小写英文、再按ID排序，英文相同的单词也有确定的位置
+     */
+    private static int compare(String keyA, int idA, String keyB, int idB) {
+        int result = keyA.compareTo(keyB);
+        if (result != 0) {
+            return result;
+        }
+        return Integer.compare(idA, idB);
+    }
+
+    private static String key(Word word) {
+        return normalize(word.getWord());
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        final String key;
+        final Word word;
+
+        Entry(String key, Word word) {
+            this.key = key;
+            this.word = word;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.firstassignment;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 单词的全文索引（FTS4虚拟表words_fts，docid与单词ID相同）
+ *
+ * FTS4自带的simple分词器会把连续的汉字当作一个词，无法按子串搜索中文，
+ * 因此写入索引前把每段连续的汉字拆成单字和相邻两字（例如"苹果汁"写成"苹 果 汁 苹果 果汁"），
+ * 搜索时一个汉字匹配单字，两个及以上的汉字按相邻两字组成短语匹配，相当于子串搜索。
+ * 英文部分保持原样，由分词器按单词切分并转为小写，搜索时按前缀匹配。
+ *
+ * 索引表由DatabaseHelper的迁移步骤创建，单词表的增删改都由DataManager在同一个事务中同步更新这个索引。
+ */
+final class WordSearchIndex {
+
+    private WordSearchIndex() {
+    }
+
+    /**
+     * 预编译写入索引的语句，配合{@link #bind}在批量写入时复用
+     */
+    static SQLiteStatement compileInsert(SQLiteDatabase db) {
+        return db.compileStatement("INSERT INTO " + DatabaseHelper.TABLE_WORDS_FTS + "(docid, " +
+                DatabaseHelper.COLUMN_WORD + ", " + DatabaseHelper.COLUMN_TRANSLATION + ", " +
+                DatabaseHelper.COLUMN_EXAMPLE + ") VALUES (?, ?, ?, ?)");
+    }
+
+    /**
+     * 绑定一个单词并执行预编译的写入语句
+     */
+    static void bind(SQLiteStatement insert, long wordId, String word, String translation, String example) {
+        insert.clearBindings();
+        insert.bindLong(1, wordId);
+        insert.bindString(2, toIndexText(word));
+        insert.bindString(3, toIndexText(translation));
+        insert.bindString(4, toIndexText(example));
+        insert.executeInsert();
+    }
+
+    /**
+     * 写入或替换一个单词的索引
+     */
+    static void index(SQLiteDatabase db, long wordId, String word, String translation, String example) {
+        remove(db, wordId);
+        SQLiteStatement insert = compileInsert(db);
+        try {
+            bind(insert, wordId, word, translation, example);
+        } finally {
+            insert.close();
+        }
+    }
+
+    /**
+     * 删除一个单词的索引
+     */
+    static void remove(SQLiteDatabase db, long wordId) {
+        db.execSQL("DELETE FROM " + DatabaseHelper.TABLE_WORDS_FTS + " WHERE docid = ?", new Object[]{wordId});
+    }
+
+    /**
+     * 根据单词表重建整个索引（应在事务中调用）
+     */
+    static void rebuild(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + DatabaseHelper.TABLE_WORDS_FTS);
+
+        SQLiteStatement insert = compileInsert(db);
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery("SELECT " + DatabaseHelper.COLUMN_WORD_ID + ", " + DatabaseHelper.COLUMN_WORD + ", " +
+                    DatabaseHelper.COLUMN_TRANSLATION + ", " + DatabaseHelper.COLUMN_EXAMPLE +
+                    " FROM " + DatabaseHelper.TABLE_WORDS, null);
+            while (cursor.moveToNext()) {
+                bind(insert, cursor.getLong(0), cursor.getString(1), cursor.getString(2), cursor.getString(3));
+            }
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            insert.close();
+        }
+    }
+
+    /**
+     * 把文本转换为写入索引的形式：汉字拆成单字和相邻两字，其余部分保持原样
+     */
+    static String toIndexText(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder result = new StringBuilder(text.length() * 3);
+        int i = 0;
+        while (i < text.length()) {
+            int start = i;
+            if (isHan(text.codePointAt(i))) {
+                while (i < text.length() && isHan(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                appendHanTerms(result, text.substring(start, i));
+            } else {
+                while (i < text.length() && !isHan(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                result.append(text, start, i).append(' ');
+            }
+        }
+        return result.toString().trim();
+    }
+
+    /**
+     * 把用户输入转换为FTS的MATCH表达式：英文单词按前缀匹配，汉字按子串匹配，各部分之间是AND关系
+     * @param query 用户输入
+     * @return MATCH表达式，输入中没有可搜索的内容时返回null
+     */
+    static String toMatchQuery(String query) {
+        return toMatchQuery(query, null);
+    }
+
+    /**
+     * 把用户输入转换为只匹配指定列的FTS的MATCH表达式。
+     * 指定列时三个及以上的汉字不再按短语匹配，结果可能包含不连续出现的情况，需要调用方用子串再过滤一次
+     * @param query 用户输入
+     * @param column 列名，为null时匹配所有列
+     * @return MATCH表达式，输入中没有可搜索的内容时返回null
+     */
+    static String toMatchQuery(String query, String column) {
+        if (query == null) {
+            return null;
+        }
+
+        List<String> terms = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            int codePoint = query.codePointAt(i);
+            int start = i;
+            if (isHan(codePoint)) {
+                while (i < query.length() && isHan(query.codePointAt(i))) {
+                    i += Character.charCount(query.codePointAt(i));
+                }
+                String run = query.substring(start, i);
+                if (run.codePointCount(0, run.length()) == 1) {
+                    terms.add(run);
+                } else {
+                    StringBuilder phrase = new StringBuilder();
+                    appendBigrams(phrase, run);
+                    if (column == null) {
+                        // 相邻两字组成短语，要求在索引中连续出现
+                        terms.add("\"" + phrase.toString().trim() + "\"");
+                    } else {
+                        // FTS4的标准查询语法不支持在短语前指定列，只能要求每个相邻两字都出现，
+                        // 调用方需要再检查子串
+                        Collections.addAll(terms, phrase.toString().trim().split(" "));
+                    }
+                }
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                while (i < query.length() && Character.isLetterOrDigit(query.codePointAt(i))
+                        && !isHan(query.codePointAt(i))) {
+                    i += Character.charCount(query.codePointAt(i));
+                }
+                terms.add(query.substring(start, i).toLowerCase() + "*");
+            } else {
+                // 标点和FTS的特殊字符（引号、星号、减号等）都当作分隔符
+                i += Character.charCount(codePoint);
+            }
+        }
+
+        if (terms.isEmpty()) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        for (String term : terms) {
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            if (column != null) {
+                match.append(column).append(':');
+            }
+            match.append(term);
+        }
+        return match.toString();
+    }
+
+    private static void appendHanTerms(StringBuilder result, String run) {
+        // 先写单字，再写相邻两字，保证相邻两字在索引中是连续的
+        int i = 0;
+        while (i < run.length()) {
+            int next = i + Character.charCount(run.codePointAt(i));
+            result.append(run, i, next).append(' ');
+            i = next;
+        }
+        appendBigrams(result, run);
+    }
+
+    private static void appendBigrams(StringBuilder result, String run) {
+        int i = 0;
+        while (i < run.length()) {
+            int second = i + Character.charCount(run.codePointAt(i));
+            if (second >= run.length()) {
+                break;
+            }
+            int end = second + Character.charCount(run.codePointAt(second));
+            result.append(run, i, end).append(' ');
+            i = second;
+        }
+    }
+
+    private static boolean isHan(int codePoint) {
+        return Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN;
+    }
+}
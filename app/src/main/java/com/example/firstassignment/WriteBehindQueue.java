@@ -0,0 +1,276 @@
+package com.example.firstassignment;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写后（write-behind）队列
+ *
+ * 写操作先放入内存队列，相同键的写操作会被合并，然后在后台线程中用一个事务批量提交。
+ * 队列中的写操作达到{@link #MAX_BATCH_SIZE}条或者等待超过{@link #FLUSH_WINDOW_MS}毫秒时触发提交，
+ * 也可以调用{@link #flush()}立即提交（例如在Activity的onPause中）。
+ * 提交完成后通过{@link OnWriteCompleteListener}在主线程中通知调用方。
+ */
+public class WriteBehindQueue {
+    private static final String TAG = "WriteBehindQueue";
+    // 触发立即提交的队列长度
+    static final int MAX_BATCH_SIZE = 50;
+    // 最长等待时间（毫秒），在这个时间窗口内的写操作会合并到同一个事务中
+    static final long FLUSH_WINDOW_MS = 500;
+
+    /**
+     * 写操作完成的回调，在主线程中调用
+     */
+    public interface OnWriteCompleteListener {
+        /**
+         * @param success 数据是否已成功写入数据库
+         */
+        void onWriteComplete(boolean success);
+    }
+
+    /**
+     * 队列中的一个写操作
+     */
+    abstract static class PendingWrite {
+        private final List<OnWriteCompleteListener> listeners = new ArrayList<>();
+
+        /**
+         * 合并键，键相同的写操作会被合并；返回null表示不参与合并
+         */
+        String getCoalesceKey() {
+            return null;
+        }
+
+        /**
+         * 把一个更新的、键相同的写操作合并到当前写操作中
+         * @param newer 更新的写操作
+         * @return 合并后的写操作
+         */
+        PendingWrite coalesce(PendingWrite newer) {
+            return newer;
+        }
+
+        /**
+         * 在队列的写事务中执行写操作（不要再开启事务）
+         *
+         * 返回false表示这个写操作没有写入任何数据；写入了一部分后出错时必须抛出异常，由队列回滚事务。
+         * @return 是否成功
+         */
+        abstract boolean apply();
+
+        /**
+         * 包含这个写操作的事务已经提交（在写线程中调用，只对成功的写操作调用），
+         * 用于更新依赖已提交数据的缓存；在{@link #apply()}中更新会让其他线程在提交之前读到旧数据并缓存
+         */
+        void onCommitted() {
+        }
+    }
+
+    private final DataManager dataManager;
+    private final ScheduledExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, PendingWrite> pendingWrites = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private long sequence = 0;
+
+    WriteBehindQueue(DataManager dataManager) {
+        this.dataManager = dataManager;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "DataManager-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * 把写操作加入队列
+     * @param write 写操作
+     * @param listener 写入完成后的回调（可为null）
+     */
+    void enqueue(PendingWrite write, OnWriteCompleteListener listener) {
+        if (listener != null) {
+            write.listeners.add(listener);
+        }
+
+        synchronized (lock) {
+            String key = write.getCoalesceKey();
+            if (key == null) {
+                // 不合并的写操作使用唯一的键
+                key = "#" + (sequence++);
+            }
+
+            PendingWrite previous = pendingWrites.remove(key);
+            if (previous != null) {
+                PendingWrite merged = previous.coalesce(write);
+                if (merged != previous) {
+                    merged.listeners.addAll(0, previous.listeners);
+                }
+                if (merged != write) {
+                    merged.listeners.addAll(write.listeners);
+                }
+                write = merged;
+            }
+            pendingWrites.put(key, write);
+
+            if (pendingWrites.size() >= MAX_BATCH_SIZE) {
+                scheduleFlushLocked(0);
+            } else if (scheduledFlush == null) {
+                scheduleFlushLocked(FLUSH_WINDOW_MS);
+            }
+        }
+    }
+
+    /**
+     * 立即在后台线程中提交队列中的所有写操作
+     */
+    public void flush() {
+        synchronized (lock) {
+            if (!pendingWrites.isEmpty()) {
+                scheduleFlushLocked(0);
+            }
+        }
+    }
+
+    /**
+     * 提交队列中的所有写操作，并等待提交完成（不要在主线程中调用）
+     */
+    public void flushAndWait() {
+        flush();
+        try {
+            // 单线程执行器按顺序执行任务，这个空任务完成时之前的提交也已完成
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Error waiting for pending writes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 提交队列中的所有写操作，然后在写线程中执行指定任务
+     * @param task 要执行的任务
+     */
+    void runAfterFlush(Runnable task) {
+        flush();
+        executor.execute(task);
+    }
+
+    /**
+     * 队列中等待提交的写操作数量
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pendingWrites.size();
+        }
+    }
+
+    private void scheduleFlushLocked(long delayMs) {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        scheduledFlush = executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 在一个事务中执行一组写操作，把每个写操作的结果写入results[offset...]
+     *
+     * 写操作不能开启嵌套事务，出错时抛出异常；任何一个写操作抛出异常或提交失败时回滚整个事务，
+     * 这组写操作的结果都为false。提交成功后再对成功的写操作调用{@link PendingWrite#onCommitted()}。
+     * @return 事务是否已提交
+     */
+    private boolean applyInTransaction(List<PendingWrite> writes, boolean[] results, int offset) {
+        try {
+            SQLiteDatabase db = dataManager.getDatabase();
+            db.beginTransactionNonExclusive();
+            try {
+                for (int i = 0; i < writes.size(); i++) {
+                    results[offset + i] = writes.get(i).apply();
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error applying pending writes: " + e.getMessage());
+            for (int i = 0; i < writes.size(); i++) {
+                results[offset + i] = false;
+            }
+            return false;
+        }
+
+        // 最外层事务已经提交，其他线程现在才能读到这些数据
+        for (int i = 0; i < writes.size(); i++) {
+            if (results[offset + i]) {
+                try {
+                    writes.get(i).onCommitted();
+                } catch (Exception e) {
+                    Log.e(TAG, "Error after committing pending write: " + e.getMessage());
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 取出队列中的所有写操作，并在一个事务中提交；有写操作出错时整批回滚，再逐条重新提交
+     */
+    private void drain() {
+        final List<PendingWrite> batch;
+        synchronized (lock) {
+            scheduledFlush = null;
+            if (pendingWrites.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pendingWrites.values());
+            pendingWrites.clear();
+        }
+
+        final boolean[] results = new boolean[batch.size()];
+        if (!applyInTransaction(batch, results, 0) && batch.size() > 1) {
+            // 整批已回滚：逐条在各自的事务中重新执行，只有出错的写操作报告失败
+            Log.w(TAG, "Retrying " + batch.size() + " pending writes one by one");
+            for (int i = 0; i < batch.size(); i++) {
+                applyInTransaction(batch.subList(i, i + 1), results, i);
+            }
+        }
+
+        Log.d(TAG, "Flushed " + batch.size() + " pending writes in one transaction");
+
+        // 在主线程中通知写入结果
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < batch.size(); i++) {
+                    for (OnWriteCompleteListener listener : batch.get(i).listeners) {
+                        listener.onWriteComplete(results[i]);
+                    }
+                }
+            }
+        });
+    }
+}
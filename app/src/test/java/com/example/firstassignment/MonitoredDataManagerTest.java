@@ -0,0 +1,51 @@
+package com.example.firstassignment;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 主线程数据库调用监视的本地单元测试
+ */
+public class MonitoredDataManagerTest {
+
+    @Test
+    public void everyPublicMethodIsMonitored() {
+        List<String> unmonitored = Arrays.asList(MonitoredDataManager.UNMONITORED_METHODS);
+        for (Method method : DataManager.class.getDeclaredMethods()) {
+            if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())
+                    || unmonitored.contains(method.getName())) {
+                continue;
+            }
+            try {
+                MonitoredDataManager.class.getDeclaredMethod(method.getName(), method.getParameterTypes());
+            } catch (NoSuchMethodException e) {
+                fail("MonitoredDataManager does not override " + method);
+            }
+        }
+    }
+
+    @Test
+    public void rowsOf_estimatesRowsFromResult() {
+        assertEquals(0, MainThreadDbMonitor.rowsOf(null));
+        assertEquals(3, MainThreadDbMonitor.rowsOf(Arrays.asList(1, 2, 3)));
+        assertEquals(0, MainThreadDbMonitor.rowsOf(Collections.emptyList()));
+        HashMap<String, Integer> map = new HashMap<>();
+        map.put("a", 1);
+        assertEquals(1, MainThreadDbMonitor.rowsOf(map));
+        assertEquals(2, MainThreadDbMonitor.rowsOf(new int[]{4, 5}));
+        assertEquals(1, MainThreadDbMonitor.rowsOf(true));
+        assertEquals(0, MainThreadDbMonitor.rowsOf(false));
+        assertEquals(7, MainThreadDbMonitor.rowsOf(7));
+        assertEquals(0, MainThreadDbMonitor.rowsOf(-1));
+        // 时间戳等单个值算作一行
+        assertEquals(1, MainThreadDbMonitor.rowsOf(1234567890123L));
+    }
+}
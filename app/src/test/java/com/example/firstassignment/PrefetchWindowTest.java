@@ -0,0 +1,70 @@
+package com.example.firstassignment;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 复习会话自适应预取窗口的本地单元测试
+ */
+public class PrefetchWindowTest {
+
+    @Test
+    public void slowBrowsing_keepsMinimumWindow() {
+        PrefetchWindow window = new PrefetchWindow();
+        long now = 0;
+        for (int i = 0; i < 10; i++) {
+            now += 5000;
+            window.onMove(now, 1);
+            window.onBatchLoaded(20);
+        }
+        assertEquals(PrefetchWindow.MIN_SIZE + 1, window.size());
+        assertEquals(window.size(), window.ahead());
+        assertEquals(PrefetchWindow.TRAILING_SIZE, window.behind());
+    }
+
+    @Test
+    public void fastFlipping_growsWindowUpToMaximum() {
+        PrefetchWindow window = new PrefetchWindow();
+        long now = 0;
+        for (int i = 0; i < 20; i++) {
+            now += 100;
+            window.onMove(now, 1);
+            window.onBatchLoaded(200);
+        }
+        int fast = window.size();
+        assertTrue(fast > PrefetchWindow.MIN_SIZE + 2);
+
+        for (int i = 0; i < 20; i++) {
+            now += 10;
+            window.onMove(now, 1);
+            window.onBatchLoaded(500);
+        }
+        assertEquals(PrefetchWindow.MAX_SIZE, window.size());
+    }
+
+    @Test
+    public void longPause_doesNotCountAsSlowBrowsing() {
+        PrefetchWindow window = new PrefetchWindow();
+        window.onMove(0, 1);
+        window.onMove(PrefetchWindow.MAX_STEP_MS * 100, 1);
+        window.onBatchLoaded(PrefetchWindow.MAX_STEP_MS);
+        // 停顿按MAX_STEP_MS计算，读取耗时不小时窗口仍然大于最小值
+        assertTrue(window.size() > PrefetchWindow.MIN_SIZE);
+    }
+
+    @Test
+    public void missesAndDirectionChangesAdjustWindow() {
+        PrefetchWindow window = new PrefetchWindow();
+        int before = window.size();
+        for (int i = 0; i < 5; i++) {
+            window.onMiss();
+        }
+        assertTrue(window.size() > before);
+
+        window.onMove(0, -1);
+        assertEquals(-1, window.getDirection());
+        assertEquals(window.size(), window.behind());
+        assertEquals(PrefetchWindow.TRAILING_SIZE, window.ahead());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.firstassignment;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * SM-2复习计划计算的本地单元测试
+ */
+public class ReviewScheduleTest {
+    private static final long DAY = ReviewSchedule.DAY_MS;
+
+    @Test
+    public void qualityForScore_matchesStarRating() {
+        assertEquals(0, ReviewSchedule.qualityForScore(0));
+        assertEquals(3, ReviewSchedule.qualityForScore(60));
+        assertEquals(5, ReviewSchedule.qualityForScore(100));
+        assertEquals(5, ReviewSchedule.qualityForScore(150));
+        assertEquals(0, ReviewSchedule.qualityForScore(-10));
+    }
+
+    @Test
+    public void next_growsIntervalWhileRemembered() {
+        long now = 1000000L;
+        ReviewSchedule first = ReviewSchedule.NEW.next(100, now);
+        assertEquals(1, first.getRepetitions());
+        assertEquals(1, first.getIntervalDays());
+        assertEquals(now + DAY, first.getNextDueAt());
+        assertEquals(2.6, first.getEaseFactor(), 1e-9);
+
+        ReviewSchedule second = first.next(80, first.getNextDueAt());
+        assertEquals(6, second.getIntervalDays());
+        // 质量4时难度系数不变
+        assertEquals(2.6, second.getEaseFactor(), 1e-9);
+
+        ReviewSchedule third = second.next(80, second.getNextDueAt());
+        assertEquals(3, third.getRepetitions());
+        assertEquals(16, third.getIntervalDays());
+        assertEquals(second.getNextDueAt() + 16 * DAY, third.getNextDueAt());
+        assertFalse(third.isDue(second.getNextDueAt()));
+        assertTrue(third.isDue(third.getNextDueAt()));
+    }
+
+    @Test
+    public void next_restartsAndLowersEaseWhenForgotten() {
+        ReviewSchedule learned = ReviewSchedule.NEW.next(100, 0).next(100, DAY).next(100, 7 * DAY);
+        ReviewSchedule forgotten = learned.next(20, 20 * DAY);
+        assertEquals(0, forgotten.getRepetitions());
+        assertEquals(1, forgotten.getIntervalDays());
+        assertEquals(21 * DAY, forgotten.getNextDueAt());
+        assertTrue(forgotten.getEaseFactor() < learned.getEaseFactor());
+
+        // 难度系数不低于下限
+        ReviewSchedule schedule = ReviewSchedule.NEW;
+        for (int i = 0; i < 20; i++) {
+            schedule = schedule.next(0, i * DAY);
+        }
+        assertEquals(ReviewSchedule.MIN_EASE_FACTOR, schedule.getEaseFactor(), 1e-9);
+    }
+
+    @Test
+    public void next_capsIntervalAfterManyPerfectReviews() {
+        ReviewSchedule schedule = ReviewSchedule.NEW;
+        long reviewedAt = 0;
+        for (int i = 0; i < 100; i++) {
+            schedule = schedule.next(100, reviewedAt);
+            assertTrue(schedule.getIntervalDays() > 0);
+            assertTrue(schedule.getIntervalDays() <= ReviewSchedule.MAX_INTERVAL_DAYS);
+            assertTrue(schedule.getNextDueAt() > reviewedAt);
+            assertFalse(schedule.isDue(reviewedAt));
+            reviewedAt = schedule.getNextDueAt();
+        }
+        assertEquals(ReviewSchedule.MAX_INTERVAL_DAYS, schedule.getIntervalDays());
+        assertEquals(100, schedule.getRepetitions());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.firstassignment;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * 统计粒度的时间段划分和粒度选择的本地单元测试
+ */
+public class StatsResolutionTest {
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void setUp() {
+        defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void periodKey_usesLocalDayMondayAndFirstOfMonth() {
+        // 2024-03-03（周日）23:30，UTC时间还是当天15:30
+        long sundayNight = time(2024, Calendar.MARCH, 3, 23, 30);
+        assertEquals("2024-03-03", StatsResolution.DAY.periodKey(sundayNight));
+        assertEquals("2024-02-26", StatsResolution.WEEK.periodKey(sundayNight));
+        assertEquals("2024-03-01", StatsResolution.MONTH.periodKey(sundayNight));
+
+        long monday = time(2024, Calendar.MARCH, 4, 0, 0);
+        assertEquals("2024-03-04", StatsResolution.WEEK.periodKey(monday));
+        assertEquals(monday, StatsResolution.WEEK.nextPeriodStart(sundayNight));
+        assertEquals(time(2024, Calendar.APRIL, 1, 0, 0), StatsResolution.MONTH.nextPeriodStart(sundayNight));
+    }
+
+    @Test
+    public void periodCount_countsPartialPeriods() {
+        long from = time(2023, Calendar.DECEMBER, 30, 12, 0);
+        long to = time(2024, Calendar.JANUARY, 2, 8, 0);
+        assertEquals(4, StatsResolution.DAY.periodCount(from, to));
+        // 2023-12-25所在的周和2024-01-01所在的周
+        assertEquals(2, StatsResolution.WEEK.periodCount(from, to));
+        assertEquals(2, StatsResolution.MONTH.periodCount(from, to));
+        assertEquals(0, StatsResolution.DAY.periodCount(to, from));
+    }
+
+    @Test
+    public void forRange_picksFinestResolutionThatFits() {
+        long now = time(2024, Calendar.JUNE, 15, 12, 0);
+        assertEquals(StatsResolution.DAY, StatsResolution.forRange(now - 6 * day(), now, 30));
+        assertEquals(StatsResolution.WEEK, StatsResolution.forRange(now - 90 * day(), now, 30));
+        assertEquals(StatsResolution.MONTH, StatsResolution.forRange(now - 365 * day(), now, 30));
+        // 跨度超过所有粒度时仍使用最粗的粒度
+        assertEquals(StatsResolution.MONTH, StatsResolution.forRange(now - 3650 * day(), now, 30));
+    }
+
+    @Test
+    public void formatLabel_shortensPeriodKey() {
+        assertEquals("03-04", StatsResolution.DAY.formatLabel("2024-03-04"));
+        assertEquals("03-04", StatsResolution.WEEK.formatLabel("2024-03-04"));
+        assertEquals("2024-03", StatsResolution.MONTH.formatLabel("2024-03-01"));
+    }
+
+    private static long time(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+    private static long day() {
+        return 24L * 60 * 60 * 1000;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.firstassignment;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用户名布隆过滤器的本地单元测试
+ */
+public class UsernameBloomFilterTest {
+
+    @Test
+    public void addedUsernamesAreAlwaysFound() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(10000);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("user" + i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("user" + i));
+        }
+        assertFalse(filter.isSaturated());
+    }
+
+    @Test
+    public void falsePositiveRateStaysLow() {
+        UsernameBloomFilter filter = new UsernameBloomFilter(100000);
+        for (int i = 0; i < 100000; i++) {
+            filter.put("user" + i);
+        }
+
+        int falsePositives = 0;
+        final int probes = 100000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("visitor" + i)) {
+                falsePositives++;
+            }
+        }
+        // 目标误判率为1%（容量留了一倍余量，实际更低），留出一些随机波动的余地
+        assertTrue("False positives: " + falsePositives, falsePositives < probes * 0.015);
+    }
+
+    @Test
+    public void becomesSaturatedBeyondCapacity() {
+        // 容量最小为1024
+        UsernameBloomFilter filter = new UsernameBloomFilter(0);
+        for (int i = 0; i < 1024; i++) {
+            filter.put("user" + i);
+        }
+        assertFalse(filter.isSaturated());
+        filter.put("one more");
+        assertTrue(filter.isSaturated());
+    }
+}
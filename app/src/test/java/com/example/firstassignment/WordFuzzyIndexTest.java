@@ -0,0 +1,70 @@
+package com.example.firstassignment;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 拼写纠错索引的本地单元测试
+ */
+public class WordFuzzyIndexTest {
+    private WordFuzzyIndex index;
+
+    @Before
+    public void setUp() {
+        index = new WordFuzzyIndex();
+        index.rebuild(Arrays.asList(
+                new Word(1, "apple", "苹果", "水果", ""),
+                new Word(2, "apply", "申请", "行为", ""),
+                new Word(3, "ample", "充足的", "形容词", ""),
+                new Word(4, "banana", "香蕉", "水果", ""),
+                new Word(5, "Maple", "枫树", "植物", "")));
+    }
+
+    @Test
+    public void distance_isLevenshteinDistance() {
+        assertEquals(0, WordFuzzyIndex.distance("apple", "apple"));
+        assertEquals(1, WordFuzzyIndex.distance("aple", "apple"));
+        assertEquals(2, WordFuzzyIndex.distance("teh", "the"));
+        assertEquals(3, WordFuzzyIndex.distance("kitten", "sitting"));
+        assertEquals(5, WordFuzzyIndex.distance("", "apple"));
+    }
+
+    @Test
+    public void search_ordersByDistanceThenAlphabetically() {
+        // aple与ample、apple、maple的距离都是1，与apply的距离是2
+        assertEquals(Arrays.asList("ample", "apple", "Maple", "apply"), words(index.search("APLE", 2, 10)));
+        assertEquals(Arrays.asList("ample", "apple", "Maple"), words(index.search("aple", 1, 10)));
+        assertEquals(Arrays.asList("ample", "apple"), words(index.search("aple", 2, 2)));
+        assertTrue(index.search("orange", 2, 10).isEmpty());
+    }
+
+    @Test
+    public void putAndRemove_updateResults() {
+        index.put(new Word(6, "applet", "小程序", "计算机", ""));
+        assertEquals(Arrays.asList("applet", "apple"), words(index.search("applet", 1, 10)));
+
+        // 更新单词的英文后按新的英文查找
+        index.put(new Word(2, "orange", "橙子", "水果", ""));
+        assertEquals(Arrays.asList("apple"), words(index.search("apply", 1, 10)));
+        assertEquals(Arrays.asList("orange"), words(index.search("ornage", 2, 10)));
+
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertEquals(Arrays.asList("applet"), words(index.search("applet", 1, 10)));
+        assertEquals(5, index.size());
+    }
+
+    private static List<String> words(List<Word> results) {
+        List<String> words = new ArrayList<>();
+        for (Word word : results) {
+            words.add(word.getWord());
+        }
+        return words;
+    }
+}
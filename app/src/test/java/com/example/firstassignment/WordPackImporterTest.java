@@ -0,0 +1,239 @@
+package com.example.firstassignment;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * 单词包导入器的本地单元测试：CSV和JSON解析、去重和计数、断点续传
+ */
+public class WordPackImporterTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private MemoryTarget target;
+    private WordPackImporter importer;
+
+    @Before
+    public void setUp() {
+        target = new MemoryTarget();
+        importer = new WordPackImporter(target);
+    }
+
+    @Test
+    public void csv_handlesQuotesEscapedQuotesAndLineBreaks() throws IOException {
+        List<String[]> records = readAll(WordPackImporter.Format.CSV,
+                "\uFEFFword,translation,category,example\r\n" +
+                        "apple,苹果,水果,\"An apple, a day.\"\r\n" +
+                        "\r\n" +
+                        "quote,引用,语言,\"He said \"\"hi\"\".\"\r\n" +
+                        "poem,诗,文学,\"line one\nline two\"\n" +
+                        "cat,猫");
+
+        assertEquals(4, records.size());
+        assertArrayEquals(new String[]{"apple", "苹果", "水果", "An apple, a day."}, records.get(0));
+        assertArrayEquals(new String[]{"quote", "引用", "语言", "He said \"hi\"."}, records.get(1));
+        assertArrayEquals(new String[]{"poem", "诗", "文学", "line one\nline two"}, records.get(2));
+        assertArrayEquals(new String[]{"cat", "猫"}, records.get(3));
+    }
+
+    @Test
+    public void csv_keepsFirstRowWithoutHeader() throws IOException {
+        List<String[]> records = readAll(WordPackImporter.Format.CSV, "\uFEFFapple,苹果\nbanana,香蕉\n");
+
+        assertEquals(2, records.size());
+        assertEquals("apple", records.get(0)[0]);
+        assertEquals("banana", records.get(1)[0]);
+    }
+
+    @Test
+    public void json_readsTopLevelArray() throws IOException {
+        List<String[]> records = readAll(WordPackImporter.Format.JSON,
+                "\uFEFF[\n" +
+                        "  {\"word\": \"apple\", \"translation\": \"苹果\", \"category\": \"水果\"},\n" +
+                        "  {\"translation\": \"\\u732b\", \"word\": \"cat\", \"example\": \"\\\"Meow\\\"\\nsaid the cat.\"}\n" +
+                        "]");
+
+        assertEquals(2, records.size());
+        assertArrayEquals(new String[]{"apple", "苹果", "水果", null}, records.get(0));
+        assertArrayEquals(new String[]{"cat", "猫", null, "\"Meow\"\nsaid the cat."}, records.get(1));
+    }
+
+    @Test
+    public void json_readsWordsArrayAndSkipsOtherValues() throws IOException {
+        List<String[]> records = readAll(WordPackImporter.Format.JSON,
+                "{\"name\": \"pack [1]\", \"meta\": {\"tags\": [\"a\", {\"b\": \"}\"}]}, \"words\": [" +
+                        "{\"word\": \"one\", \"translation\": \"一\", \"level\": 1, \"extra\": [1, 2], " +
+                        "\"category\": null, \"example\": 42}," +
+                        "{}" +
+                        "], \"version\": 2}");
+
+        assertEquals(2, records.size());
+        assertArrayEquals(new String[]{"one", "一", null, "42"}, records.get(0));
+        assertArrayEquals(new String[4], records.get(1));
+    }
+
+    @Test
+    public void json_withoutWordsArrayHasNoRecords() throws IOException {
+        assertTrue(readAll(WordPackImporter.Format.JSON, "{\"name\": \"empty\"}").isEmpty());
+        assertTrue(readAll(WordPackImporter.Format.JSON, "[]").isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void json_malformedInputThrows() throws IOException {
+        readAll(WordPackImporter.Format.JSON, "[{\"word\": \"apple\" \"translation\": \"苹果\"}]");
+    }
+
+    @Test
+    public void import_skipsDuplicatesAndInvalidRecords() throws IOException {
+        target.add(new Word("apple", "苹果", "水果", ""));
+
+        WordPackImporter.Result result = importer.importFromStream("pack", stream(
+                "word,translation\n" +
+                        "apple,苹果\n" +      // 数据库中已存在
+                        "apple,申请\n" +      // 英文相同但翻译不同，不是重复
+                        "banana,香蕉\n" +
+                        "banana,香蕉\n" +     // 单词包内重复
+                        "cherry,\n" +         // 缺少翻译
+                        " ,空\n"),            // 缺少英文
+                WordPackImporter.Format.CSV, null);
+
+        assertEquals(2, result.inserted);
+        assertEquals(2, result.duplicates);
+        assertEquals(2, result.invalid);
+        assertEquals(6, result.recordsConsumed);
+        assertTrue(result.completed);
+        assertFalse(result.cancelled);
+        assertEquals(3, target.words.size());
+        assertTrue(target.isImportCompleted("pack"));
+    }
+
+    @Test
+    public void import_resumesAfterCommittedRecords() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        int total = WordPackImporter.CHUNK_SIZE * 2 + 10;
+        for (int i = 0; i < total; i++) {
+            csv.append("word").append(i).append(",翻译").append(i).append('\n');
+        }
+        // 之前导入时提交了第一批
+        target.progress.put("pack", (long) WordPackImporter.CHUNK_SIZE);
+
+        WordPackImporter.Result result = importer.importFromStream("pack", stream(csv.toString()),
+                WordPackImporter.Format.CSV, null);
+
+        assertEquals(total - WordPackImporter.CHUNK_SIZE, result.inserted);
+        assertEquals(total, result.recordsConsumed);
+        assertTrue(result.completed);
+        assertFalse(target.words.contains("word0\t翻译0"));
+        assertTrue(target.words.contains("word" + WordPackImporter.CHUNK_SIZE + "\t翻译" + WordPackImporter.CHUNK_SIZE));
+        // 每批提交一次：两批完整的和最后一批
+        assertEquals(2, target.chunks);
+    }
+
+    @Test
+    public void import_completedPackIsNotReadAgain() throws IOException {
+        target.progress.put("pack", 3L);
+        target.completed.add("pack");
+
+        WordPackImporter.Result result = importer.importFromStream("pack", stream("not,read\n"),
+                WordPackImporter.Format.CSV, null);
+
+        assertTrue(result.completed);
+        assertEquals(0, result.inserted);
+        assertEquals(3, result.recordsConsumed);
+        assertEquals(0, target.chunks);
+    }
+
+    @Test
+    public void import_cancelKeepsProgress() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < WordPackImporter.CHUNK_SIZE * 3; i++) {
+            csv.append("word").append(i).append(",翻译\n");
+        }
+        // 第一批提交后取消
+        WordPackImporter.Result result = importer.importFromStream("pack", stream(csv.toString()),
+                WordPackImporter.Format.CSV, (imported, total) -> importer.cancel());
+
+        assertTrue(result.cancelled);
+        assertFalse(result.completed);
+        assertEquals(WordPackImporter.CHUNK_SIZE, result.recordsConsumed);
+        assertEquals(WordPackImporter.CHUNK_SIZE, target.getImportProgress("pack"));
+        assertFalse(target.isImportCompleted("pack"));
+
+        WordPackImporter.Result resumed = new WordPackImporter(target).importFromStream("pack",
+                stream(csv.toString()), WordPackImporter.Format.CSV, null);
+        assertTrue(resumed.completed);
+        assertEquals(WordPackImporter.CHUNK_SIZE * 2, resumed.inserted);
+        assertEquals(0, resumed.duplicates);
+        assertEquals(WordPackImporter.CHUNK_SIZE * 3, target.words.size());
+    }
+
+    private static List<String[]> readAll(WordPackImporter.Format format, String content) throws IOException {
+        WordPackImporter.RecordReader reader = WordPackImporter.newRecordReader(
+                new BufferedReader(new StringReader(content)), format);
+        List<String[]> records = new ArrayList<>();
+        String[] record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(UTF_8));
+    }
+
+    /**
+     * 内存中的导入目标，与数据库一样按英文和翻译去重
+     */
+    private static class MemoryTarget implements WordPackImporter.Target {
+        final Set<String> words = new LinkedHashSet<>();
+        final Map<String, Long> progress = new HashMap<>();
+        final Set<String> completed = new LinkedHashSet<>();
+        int chunks = 0;
+
+        boolean add(Word word) {
+            return words.add(word.getWord() + "\t" + word.getTranslation());
+        }
+
+        @Override
+        public long getImportProgress(String sourceId) {
+            Long records = progress.get(sourceId);
+            return records == null ? 0 : records;
+        }
+
+        @Override
+        public boolean isImportCompleted(String sourceId) {
+            return completed.contains(sourceId);
+        }
+
+        @Override
+        public int importWordChunk(String sourceId, List<Word> chunk, long recordsConsumed, boolean done) {
+            chunks++;
+            int inserted = 0;
+            for (Word word : chunk) {
+                if (add(word)) {
+                    inserted++;
+                }
+            }
+            progress.put(sourceId, recordsConsumed);
+            if (done) {
+                completed.add(sourceId);
+            }
+            return inserted;
+        }
+    }
+}
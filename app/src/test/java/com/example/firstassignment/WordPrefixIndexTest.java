@@ -0,0 +1,82 @@
+package com.example.firstassignment;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 单词前缀索引的本地单元测试
+ */
+public class WordPrefixIndexTest {
+    private WordPrefixIndex index;
+
+    @Before
+    public void setUp() {
+        index = new WordPrefixIndex();
+        index.rebuild(Arrays.asList(
+                new Word(1, "apple", "苹果", "水果", ""),
+                new Word(2, "Application", "应用", "计算机", ""),
+                new Word(3, "banana", "香蕉", "水果", ""),
+                new Word(4, "apply", "申请", "行为", ""),
+                new Word(5, "app", "应用程序", "计算机", "")));
+    }
+
+    @Test
+    public void search_returnsMatchesInAlphabeticalOrder() {
+        assertEquals(Arrays.asList("app", "apple", "Application", "apply"), words(index.search("app", 10)));
+        assertEquals(Arrays.asList("Application"), words(index.search("  APPLI ", 10)));
+        assertTrue(index.search("cherry", 10).isEmpty());
+        assertTrue(index.search("", 10).isEmpty());
+    }
+
+    @Test
+    public void search_respectsLimit() {
+        assertEquals(Arrays.asList("app", "apple"), words(index.search("ap", 2)));
+    }
+
+    @Test
+    public void put_addsAndReplacesWords() {
+        index.put(new Word(6, "apricot", "杏", "水果", ""));
+        assertEquals(Arrays.asList("apricot"), words(index.search("apr", 10)));
+
+        // 更新单词的英文后，旧的前缀不再匹配
+        index.put(new Word(3, "blueberry", "蓝莓", "水果", ""));
+        assertTrue(index.search("ban", 10).isEmpty());
+        assertEquals(Arrays.asList("blueberry"), words(index.search("b", 10)));
+        assertEquals(6, index.size());
+    }
+
+    @Test
+    public void remove_deletesOnlyThatWord() {
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertEquals(Arrays.asList("app", "Application", "apply"), words(index.search("app", 10)));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void put_keepsOrderAcrossManyWords() {
+        index.rebuild(new ArrayList<Word>());
+        for (int i = 999; i >= 0; i--) {
+            index.put(new Word(i + 1, String.format("w%04d", i), "翻译", "测试", ""));
+        }
+        List<Word> results = index.search("w09", 200);
+        assertEquals(100, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(String.format("w%04d", 900 + i), results.get(i).getWord());
+        }
+    }
+
+    private static List<String> words(List<Word> results) {
+        List<String> words = new ArrayList<>();
+        for (Word word : results) {
+            words.add(word.getWord());
+        }
+        return words;
+    }
+}